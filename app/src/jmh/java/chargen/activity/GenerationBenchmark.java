@@ -0,0 +1,72 @@
+package chargen.activity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import chargen.model.CharacterSheet;
+import chargen.service.TraitService;
+
+/**
+ * End-to-end character generation: rolling one sheet, and a whole NDJSON batch written to a discarding
+ * stream on a varying number of threads.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GenerationBenchmark {
+
+    private static final long BATCH_SIZE = 10_000;
+
+    @Param({"1", "4"})
+    int threads;
+
+    private CharacterGenerator generator;
+    private BatchGenerator batch;
+    private SplittableRandom random;
+    private long seed;
+
+    @Setup
+    public void createGenerator() {
+        generator = new CharacterGenerator(new TraitService());
+        batch = new BatchGenerator(generator, threads);
+        random = new SplittableRandom(42);
+    }
+
+    @Benchmark
+    public CharacterSheet generateOne() {
+        return generator.generate(0, random);
+    }
+
+    @Benchmark
+    public void generateBatch(Blackhole blackhole) throws IOException {
+        batch.generate(BATCH_SIZE, seed++, new OutputStream() {
+            @Override
+            public void write(int b) {
+                blackhole.consume(b);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) {
+                blackhole.consume(bytes);
+            }
+        });
+    }
+}
@@ -0,0 +1,60 @@
+package chargen.analytics;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chargen.activity.CharacterGenerator;
+import chargen.activity.Population;
+import chargen.model.CharacterSheet;
+import chargen.service.TraitService;
+
+/**
+ * The cost of the analytics stage alone: folding a thousand pre-generated characters into fresh analytics,
+ * and merging two filled ones as the per-thread merge does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalyticsBenchmark {
+
+    private List<CharacterSheet> sheets;
+    private PopulationAnalytics filled;
+
+    @Setup
+    public void generateCharacters() {
+        sheets = new Population(new CharacterGenerator(new TraitService()), 25).range(0, 1000);
+        filled = new PopulationAnalytics();
+        sheets.forEach(filled::accept);
+    }
+
+    @Benchmark
+    public PopulationAnalytics accept() {
+        PopulationAnalytics analytics = new PopulationAnalytics();
+        for (CharacterSheet sheet : sheets) {
+            analytics.accept(sheet);
+        }
+        return analytics;
+    }
+
+    @Benchmark
+    public PopulationAnalytics merge() {
+        PopulationAnalytics analytics = new PopulationAnalytics();
+        analytics.merge(filled);
+        analytics.merge(filled);
+        return analytics;
+    }
+}
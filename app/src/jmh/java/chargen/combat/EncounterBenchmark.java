@@ -0,0 +1,72 @@
+package chargen.combat;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chargen.model.DamageType;
+
+/**
+ * Encounter simulation throughput: two fighters with two attacks each against four resistant raiders, a
+ * hundred thousand runs per operation on a varying number of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncounterBenchmark {
+
+    private static final long RUNS = 100_000;
+
+    @Param({"1", "4"})
+    int threads;
+
+    private ForkJoinPool pool;
+    private EncounterSimulator simulator;
+    private Encounter encounter;
+    private long seed;
+
+    @Setup
+    public void createEncounter() {
+        Combatant fighter = Combatant.builder("Fighter")
+                .maxHitPoints(40)
+                .armorClass(16)
+                .attack(new Attack("Longsword", 6, "1d8+4", DamageType.SLASHING))
+                .attack(new Attack("Longsword", 6, "1d8+4", DamageType.SLASHING))
+                .build();
+        Combatant raider = Combatant.builder("Raider")
+                .maxHitPoints(15)
+                .armorClass(13)
+                .attack(new Attack("Greataxe", 5, "1d12+3", DamageType.SLASHING))
+                .resistance(DamageType.SLASHING, 1)
+                .build();
+        encounter = Encounter.of(List.of(fighter, fighter), List.of(raider, raider, raider, raider));
+        pool = new ForkJoinPool(threads);
+        simulator = new EncounterSimulator(pool);
+    }
+
+    @TearDown
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public EncounterResult simulate() {
+        return simulator.simulate(encounter, RUNS, seed++);
+    }
+}
@@ -0,0 +1,74 @@
+package chargen.engine;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chargen.model.Ability;
+import chargen.model.Modifier;
+import chargen.model.ModifierTarget;
+import chargen.model.Operation;
+import chargen.model.Skill;
+
+/**
+ * Evaluating a {@link CharacterBatch} of a million rows, a quarter of them with a trait program, on the scalar
+ * and the best available kernels. Scores are reported per row, so the throughput is rows per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CharacterBatchBenchmark {
+
+    private static final int ROWS = 1 << 20;
+
+    @Param({"scalar", "best"})
+    String kernels;
+
+    private CharacterBatch batch;
+
+    @Setup
+    public void fillBatch() {
+        batch = new CharacterBatch(ROWS, "scalar".equals(kernels) ? ScalarKernels.INSTANCE : BatchKernels.best());
+        StatProgram program = new ModifierCompiler(new StatLayout()).compile(List.of(Modifier.builder()
+                .target(ModifierTarget.ABILITY_SCORE)
+                .targetQualifier("CONSTITUTION")
+                .operation(Operation.ADD)
+                .value(2)
+                .sourceId("Benchmark")
+                .build()));
+        SplittableRandom random = new SplittableRandom(42);
+        for (int row = 0; row < ROWS; row++) {
+            batch.setLevel(row, 1 + random.nextInt(20));
+            for (Ability ability : Ability.values()) {
+                batch.setBaseAbilityScore(row, ability, 3 + random.nextInt(16));
+            }
+            batch.setProficient(row, Skill.values()[random.nextInt(Skill.values().length)], true);
+            if (random.nextInt(4) == 0) {
+                batch.setProgram(row, program);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public CharacterBatch evaluate() {
+        batch.evaluate();
+        return batch;
+    }
+}
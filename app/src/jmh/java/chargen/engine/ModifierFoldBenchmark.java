@@ -0,0 +1,94 @@
+package chargen.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chargen.model.Ability;
+import chargen.model.Modifier;
+import chargen.model.ModifierTarget;
+import chargen.model.Operation;
+
+/**
+ * Folding modifiers of each {@link Operation}: compiling them into a {@link StatProgram}, evaluating a single
+ * slot, and applying the whole program to a stat array.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModifierFoldBenchmark {
+
+    private static final Ability[] ABILITIES = Ability.values();
+
+    // Every Operation constant when left empty.
+    @Param
+    Operation operation;
+
+    @Param({"1", "16"})
+    int modifiersPerSlot;
+
+    private ModifierCompiler compiler;
+    private List<Modifier> modifiers;
+    private StatProgram program;
+    private int slot;
+    private int[] stats;
+
+    @Setup
+    public void compileModifiers() {
+        StatLayout layout = new StatLayout();
+        compiler = new ModifierCompiler(layout);
+        modifiers = new ArrayList<>();
+        for (int i = 0; i < modifiersPerSlot; i++) {
+            for (Ability ability : ABILITIES) {
+                modifiers.add(Modifier.builder()
+                        .target(ModifierTarget.ABILITY_SCORE)
+                        .targetQualifier(ability.name())
+                        .operation(operation)
+                        .value(1 + i % 3)
+                        .sourceId("Benchmark")
+                        .build());
+            }
+            modifiers.add(Modifier.builder()
+                    .target(ModifierTarget.ARMOR_CLASS)
+                    .operation(operation)
+                    .value(1 + i % 3)
+                    .sourceId("Benchmark")
+                    .build());
+        }
+        program = compiler.compile(modifiers);
+        slot = StatLayout.slotOf(ModifierTarget.ARMOR_CLASS);
+        stats = new int[layout.size()];
+    }
+
+    @Benchmark
+    public StatProgram compile() {
+        return compiler.compile(modifiers);
+    }
+
+    @Benchmark
+    public int evaluate() {
+        return program.evaluate(slot, 15);
+    }
+
+    @Benchmark
+    public int[] applyTo() {
+        stats[slot] = 15;
+        program.applyTo(stats);
+        return stats;
+    }
+}
@@ -0,0 +1,76 @@
+package chargen.optimize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chargen.model.ModifierTarget;
+import chargen.service.SyntheticCatalog;
+import chargen.service.TraitCatalogLoader;
+import chargen.service.TraitService;
+
+/**
+ * Build search over a synthetic catalog on a varying number of threads. Each search stops after a fixed
+ * number of nodes, so the time per operation is the cost of that many nodes and should fall close to linearly
+ * with the thread count.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BuildSearchBenchmark {
+
+    private static final long NODE_BUDGET = 1_000_000;
+
+    @Param({"2000"})
+    int traitCount;
+
+    @Param({"1", "4"})
+    int threads;
+
+    private ForkJoinPool pool;
+    private BuildSearch search;
+    private BuildQuery query;
+
+    @Setup
+    public void loadCatalog() throws IOException {
+        Path directory = Files.createTempDirectory("chargen-jmh");
+        SyntheticCatalog.writeJson(SyntheticCatalog.traits(traitCount), directory, 1);
+        TraitService service = new TraitService(new TraitCatalogLoader(Runnable::run).addDirectory(directory));
+        Files.delete(directory.resolve("traits-000.json"));
+        Files.delete(directory);
+        pool = new ForkJoinPool(threads);
+        search = new BuildSearch(service, pool);
+        query = BuildQuery.builder(ModifierTarget.ARMOR_CLASS)
+                .maxTraits(3)
+                .nodeBudget(NODE_BUDGET)
+                .build();
+    }
+
+    @TearDown
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public BuildSearch.Result search() {
+        return search.search(query);
+    }
+}
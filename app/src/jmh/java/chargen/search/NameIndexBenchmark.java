@@ -0,0 +1,59 @@
+package chargen.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chargen.service.SyntheticCatalog;
+
+/**
+ * Per-keystroke autocomplete cost over a large catalog of names: one- and two-letter prefixes with many
+ * matches, a short prefix, a long exact prefix, and a misspelling that needs the fuzzy walk. The synthetic
+ * names all share one stem; the phrase names are multi-word and branch from the first letter, as real content
+ * does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NameIndexBenchmark {
+
+    @Param({"100000"})
+    int nameCount;
+
+    @Param({"synthetic", "phrase"})
+    String names;
+
+    @Param({"a", "ar", "syn", "synthetic trait 00421", "sinthetic trat 004", "arcane ward of"})
+    String query;
+
+    private NameIndex<String> index;
+
+    @Setup
+    public void buildIndex() {
+        List<String> list = new ArrayList<>(nameCount);
+        for (int i = 0; i < nameCount; i++) {
+            list.add(names.equals("phrase") ? SyntheticCatalog.phrase(i) : SyntheticCatalog.name(i));
+        }
+        index = NameIndex.of(list, name -> name);
+    }
+
+    @Benchmark
+    public List<String> complete() {
+        return index.complete(query, 10);
+    }
+}
@@ -0,0 +1,82 @@
+package chargen.service;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chargen.model.Item;
+import chargen.model.ItemCategory;
+import chargen.model.ProficiencyType;
+import chargen.model.WeaponProperty;
+
+/**
+ * Equipment queries and loadout totals over the default catalog: one property/proficiency selection, and the
+ * weight of ten thousand random eight-item loadouts packed into flat arrays.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EquipmentBenchmark {
+
+    private static final int LOADOUTS = 10_000;
+    private static final int ITEMS_PER_LOADOUT = 8;
+
+    private EquipmentService service;
+    private int propertyMask;
+    private int proficiencyMask;
+    private int[] offsets;
+    private int[] ids;
+    private int[] quantities;
+    private long[] totals;
+
+    @Setup
+    public void createLoadouts() {
+        service = new EquipmentService();
+        propertyMask = EquipmentService.propertyMask(EnumSet.of(WeaponProperty.FINESSE, WeaponProperty.LIGHT));
+        proficiencyMask = EquipmentService.proficiencyMask(EnumSet.of(ProficiencyType.WEAPON_SIMPLE));
+        SplittableRandom random = new SplittableRandom(24);
+        offsets = new int[LOADOUTS + 1];
+        ids = new int[LOADOUTS * ITEMS_PER_LOADOUT];
+        quantities = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = random.nextInt(service.size());
+            quantities[i] = 1 + random.nextInt(20);
+        }
+        for (int i = 0; i <= LOADOUTS; i++) {
+            offsets[i] = i * ITEMS_PER_LOADOUT;
+        }
+        totals = new long[LOADOUTS];
+    }
+
+    @Benchmark
+    public List<Item> findUsable() {
+        return service.findUsable(ItemCategory.WEAPON, EnumSet.of(WeaponProperty.FINESSE, WeaponProperty.LIGHT),
+                EnumSet.of(ProficiencyType.WEAPON_SIMPLE));
+    }
+
+    @Benchmark
+    public int countUsableByMask() {
+        return service.countUsable(ItemCategory.WEAPON, propertyMask, proficiencyMask);
+    }
+
+    @Benchmark
+    public long[] loadoutWeights() {
+        service.totalWeights(offsets, ids, quantities, totals);
+        return totals;
+    }
+}
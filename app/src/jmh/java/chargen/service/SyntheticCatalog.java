@@ -0,0 +1,155 @@
+package chargen.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import chargen.model.Modifier;
+import chargen.model.ModifierTarget;
+import chargen.model.Operation;
+import chargen.model.Trait;
+
+/**
+ * Deterministic synthetic trait catalogs for the benchmarks, so that catalog size can be varied
+ * independently of the shipped data.
+ */
+public final class SyntheticCatalog {
+
+    // Target and qualifier pairs that every StatLayout accepts.
+    private static final ModifierTarget[] TARGETS = {
+        ModifierTarget.ABILITY_SCORE, ModifierTarget.ARMOR_CLASS, ModifierTarget.MAX_HIT_POINTS,
+        ModifierTarget.SPEED, ModifierTarget.SENSE_RANGE, ModifierTarget.PROFICIENCY_BONUS,
+        ModifierTarget.MAX_SPELL_SLOTS, ModifierTarget.RESOURCE_MAX, ModifierTarget.INITIATIVE_BONUS
+    };
+    private static final String[] QUALIFIERS = {
+        "DEXTERITY", null, null, "WALKING", "DARKVISION", null, "LEVEL_3", "SORCERY_POINTS", null
+    };
+    private static final Operation[] OPERATIONS = Operation.values();
+    // 48 words each, so phrase() has 48^3 distinct names.
+    private static final String[] ADJECTIVES = {
+        "Ancient", "Amber", "Arcane", "Ardent", "Ashen", "Astral", "Blessed", "Bold", "Brazen", "Burning",
+        "Celestial", "Crimson", "Cunning", "Dark", "Deft", "Divine", "Dread", "Elder", "Eldritch", "Fey",
+        "Fierce", "Frost", "Gilded", "Grim", "Hallowed", "Hidden", "Iron", "Keen", "Lucky", "Mighty", "Mystic",
+        "Nimble", "Primal", "Radiant", "Savage", "Shadow", "Silent", "Silver", "Spectral", "Stalwart", "Storm",
+        "Swift", "Tireless", "Umbral", "Vigilant", "Wild", "Wise", "Zealous"
+    };
+    private static final String[] NOUNS = {
+        "Aegis", "Archer", "Arcanist", "Aspect", "Aura", "Blade", "Bond", "Brand", "Charm", "Cloak", "Covenant",
+        "Defender", "Edge", "Eye", "Fist", "Flame", "Focus", "Form", "Gaze", "Guard", "Guide", "Heart", "Hunter",
+        "Instinct", "Knack", "Lore", "Mantle", "Mark", "Mind", "Oath", "Pact", "Path", "Poise", "Resolve",
+        "Rune", "Sense", "Shield", "Sight", "Soul", "Step", "Strike", "Stride", "Tongue", "Touch", "Veil",
+        "Vigor", "Ward", "Will"
+    };
+    private static final String[] PLACES = {
+        "Abyss", "Arbor", "Archive", "Ashlands", "Barrow", "Citadel", "Coast", "Crags", "Crypt", "Dawn", "Deep",
+        "Deluge", "Dusk", "Ember", "Feywild", "Forge", "Frontier", "Glade", "Grove", "Hearth", "Hollow", "Isles",
+        "Keep", "Labyrinth", "Marsh", "Maw", "Moon", "Mountain", "Nexus", "Oasis", "Peaks", "Plains", "Ruins",
+        "Sands", "Sea", "Shallows", "Spire", "Stars", "Steppe", "Sun", "Tides", "Tomb", "Underdark", "Vale",
+        "Void", "Wastes", "Wilds", "Wyrmlands"
+    };
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private SyntheticCatalog() {
+    }
+
+    /**
+     * Builds a catalog of uniquely named traits with one to three modifiers each.
+     *
+     * @param count The number of traits.
+     * @return The traits, in name order.
+     */
+    public static List<Trait> traits(int count) {
+        List<Trait> traits = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            List<Modifier> modifiers = new ArrayList<>();
+            for (int m = 0; m <= i % 3; m++) {
+                int pick = (i * 7 + m * 3) % TARGETS.length;
+                modifiers.add(Modifier.builder()
+                        .target(TARGETS[pick])
+                        .targetQualifier(QUALIFIERS[pick])
+                        .operation(OPERATIONS[(i + m) % OPERATIONS.length])
+                        .value(1 + (i + m) % 5)
+                        .sourceId("Synthetic")
+                        .build());
+            }
+            traits.add(Trait.builder()
+                    .name(name(i))
+                    .description("Synthetic trait number " + i + ", generated for benchmarking.")
+                    .modifiers(modifiers)
+                    .build());
+        }
+        return traits;
+    }
+
+    /**
+     * Returns the name of the i-th synthetic trait.
+     *
+     * @param index The trait index.
+     * @return The trait name.
+     */
+    public static String name(int index) {
+        return String.format("Synthetic Trait %07d", index);
+    }
+
+    /**
+     * Returns the i-th of a set of multi-word names shaped like real content, e.g. "Arcane Ward of the Vale",
+     * whose prefixes spread over many branches rather than sharing one long common stem.
+     *
+     * @param index The name index, below 110592.
+     * @return The name.
+     */
+    public static String phrase(int index) {
+        int words = ADJECTIVES.length;
+        return ADJECTIVES[index % words] + " " + NOUNS[index / words % words] + " of the "
+                + PLACES[index / (words * words) % words];
+    }
+
+    /**
+     * Writes traits as a content-pack directory of JSON files, split round-robin between the files.
+     *
+     * @param traits The traits to write.
+     * @param directory The directory to write into; it must exist.
+     * @param files The number of files to split the traits over.
+     * @throws IOException if a file cannot be written.
+     */
+    public static void writeJson(List<Trait> traits, Path directory, int files) throws IOException {
+        for (int f = 0; f < files; f++) {
+            Path file = directory.resolve(String.format("traits-%03d.json", f));
+            try (OutputStream out = Files.newOutputStream(file);
+                 JsonGenerator json = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+                json.writeStartArray();
+                for (int i = f; i < traits.size(); i += files) {
+                    writeTrait(json, traits.get(i));
+                }
+                json.writeEndArray();
+            }
+        }
+    }
+
+    private static void writeTrait(JsonGenerator json, Trait trait) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("name", trait.getName());
+        json.writeStringField("description", trait.getDescription());
+        json.writeArrayFieldStart("modifiers");
+        for (Modifier modifier : trait.getModifiers()) {
+            json.writeStartObject();
+            json.writeStringField("target", modifier.getTarget().name());
+            if (modifier.getTargetQualifier() != null) {
+                json.writeStringField("targetQualifier", modifier.getTargetQualifier());
+            }
+            json.writeStringField("operation", modifier.getOperation().name());
+            json.writeNumberField("value", ((Number) modifier.getValue()).intValue());
+            json.writeStringField("sourceId", modifier.getSourceId());
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+        json.writeEndObject();
+    }
+}
@@ -0,0 +1,86 @@
+package chargen.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chargen.model.Trait;
+
+/**
+ * Catalog reads under contention: every benchmark thread looks traits up in one shared service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class TraitLookupBenchmark {
+
+    @Param({"10000"})
+    int traitCount;
+
+    @Param({"map", "snapshot"})
+    String catalog;
+
+    private TraitService service;
+    private String[] names;
+
+    /**
+     * Per-thread cursor, so threads walk the catalog independently instead of contending on a counter.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup
+    public void loadCatalog() throws IOException {
+        List<Trait> traits = SyntheticCatalog.traits(traitCount);
+        if (catalog.equals("snapshot")) {
+            Path file = Files.createTempFile("chargen-jmh", ".bin");
+            file.toFile().deleteOnExit();
+            TraitSnapshot.write(traits, file);
+            service = new TraitService(TraitSnapshot.open(file));
+        } else {
+            Path directory = Files.createTempDirectory("chargen-jmh");
+            SyntheticCatalog.writeJson(traits, directory, 1);
+            service = new TraitService(new TraitCatalogLoader(Runnable::run).addDirectory(directory));
+            Files.delete(directory.resolve("traits-000.json"));
+            Files.delete(directory);
+        }
+        // A stride through the names, so consecutive lookups do not hit neighbouring entries.
+        names = new String[traitCount];
+        for (int i = 0; i < traitCount; i++) {
+            names[i] = SyntheticCatalog.name((int) ((i * 7919L) % traitCount));
+        }
+    }
+
+    @Benchmark
+    public Trait getTraitByName(Cursor cursor) {
+        int index = cursor.next;
+        cursor.next = index + 1 == names.length ? 0 : index + 1;
+        return service.getTraitByName(names[index]);
+    }
+
+    @Benchmark
+    public List<Trait> getAllTraits() {
+        return service.getAllTraits();
+    }
+}
@@ -0,0 +1,77 @@
+package chargen.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chargen.model.Trait;
+
+/**
+ * Cost of building a {@link TraitService}: parsing a content-pack directory of JSON catalogs, which
+ * compiles every trait eagerly, versus opening a binary {@link TraitSnapshot}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TraitServiceLoadBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    int traitCount;
+
+    @Param({"1", "8"})
+    int fileCount;
+
+    private Path directory;
+    private Path snapshot;
+
+    @Setup(Level.Trial)
+    public void writeCatalog() throws IOException {
+        List<Trait> traits = SyntheticCatalog.traits(traitCount);
+        directory = Files.createTempDirectory("chargen-jmh");
+        SyntheticCatalog.writeJson(traits, directory, fileCount);
+        snapshot = Files.createTempFile("chargen-jmh", ".bin");
+        TraitSnapshot.write(traits, snapshot);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteCatalog() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+        Files.delete(snapshot);
+    }
+
+    @Benchmark
+    public TraitService loadJson() throws IOException {
+        return new TraitService(new TraitCatalogLoader(ForkJoinPool.commonPool()).addDirectory(directory));
+    }
+
+    @Benchmark
+    public TraitService openSnapshot() throws IOException {
+        return new TraitService(TraitSnapshot.open(snapshot));
+    }
+}
@@ -0,0 +1,122 @@
+package chargen.activity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import chargen.engine.ModifierCompiler;
+import chargen.engine.StatLayout;
+import chargen.engine.StatProgram;
+import chargen.model.Ability;
+import chargen.model.Modifier;
+import chargen.model.ModifierTarget;
+
+/**
+ * One ability score under construction: a base value plus the {@link ModifierTarget#ABILITY_SCORE} modifiers
+ * applied to it, folded in the order {@link StatProgram} documents. The modifiers are compiled on the first
+ * call to {@link #total()} after they change. Not thread-safe.
+ */
+public final class AbilityScore {
+
+    // Only fixed ability slots are ever resolved, so one layout serves every instance.
+    private static final ModifierCompiler COMPILER = new ModifierCompiler(new StatLayout());
+
+    private final Ability ability;
+    private final int base;
+    private final List<Modifier> modifiers = new ArrayList<>();
+    private StatProgram program = StatProgram.EMPTY;
+    private boolean compiled = true;
+
+    /**
+     * Creates a score with no modifiers.
+     *
+     * @param ability The ability the score is for.
+     * @param base The base score, e.g. as rolled or bought.
+     */
+    public AbilityScore(Ability ability, int base) {
+        this.ability = Objects.requireNonNull(ability, "ability cannot be null");
+        this.base = base;
+    }
+
+    /**
+     * Returns the ability the score is for.
+     *
+     * @return The ability.
+     */
+    public Ability getAbility() {
+        return ability;
+    }
+
+    /**
+     * Returns the score before modifiers.
+     *
+     * @return The base score.
+     */
+    public int getBase() {
+        return base;
+    }
+
+    /**
+     * Returns the modifiers applied to the score, in the order they were added.
+     *
+     * @return An unmodifiable view of the modifiers.
+     */
+    public List<Modifier> getModifiers() {
+        return Collections.unmodifiableList(modifiers);
+    }
+
+    /**
+     * Applies a modifier to the score.
+     *
+     * @param modifier An {@link ModifierTarget#ABILITY_SCORE} modifier qualified with this score's ability.
+     * @throws IllegalArgumentException if the modifier targets anything else.
+     */
+    public void addModifier(Modifier modifier) {
+        if (modifier.getTarget() != ModifierTarget.ABILITY_SCORE
+                || !ability.name().equals(modifier.getTargetQualifier())) {
+            throw new IllegalArgumentException("Modifier does not apply to " + ability + ": " + modifier);
+        }
+        modifiers.add(modifier);
+        compiled = false;
+    }
+
+    /**
+     * Removes one occurrence of a modifier, compared with {@link Modifier#equals(Object)}.
+     *
+     * @param modifier The modifier to remove.
+     * @return {@code true} if the modifier had been applied.
+     */
+    public boolean removeModifier(Modifier modifier) {
+        boolean removed = modifiers.remove(modifier);
+        compiled &= !removed;
+        return removed;
+    }
+
+    /**
+     * Returns the score with every modifier applied.
+     *
+     * @return The total score.
+     */
+    public int total() {
+        if (!compiled) {
+            program = COMPILER.compile(modifiers);
+            compiled = true;
+        }
+        return program.evaluate(StatLayout.slotOf(ability), base);
+    }
+
+    /**
+     * Returns the ability modifier of the total score.
+     *
+     * @return {@code floor((total - 10) / 2)}.
+     */
+    public int scoreModifier() {
+        return AbilityScoreTables.modifier(total());
+    }
+
+    @Override
+    public String toString() {
+        return ability + " " + total() + " (base " + base + ")";
+    }
+}
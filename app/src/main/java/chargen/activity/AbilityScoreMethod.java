@@ -0,0 +1,70 @@
+package chargen.activity;
+
+import java.util.random.RandomGenerator;
+
+import chargen.model.Ability;
+
+/**
+ * The ways of generating a block of six ability scores. Each method fills scores in {@link Ability} order
+ * using only the tables in {@link AbilityScoreTables} and a few draws from the caller's random generator.
+ */
+public enum AbilityScoreMethod {
+
+    /** Roll 4d6 per ability and drop the lowest die: one draw and one table lookup per score. */
+    ROLL_4D6_DROP_LOWEST {
+        @Override
+        public void generate(RandomGenerator random, int[] scores) {
+            for (int ability = 0; ability < ABILITY_COUNT; ability++) {
+                scores[ability] = AbilityScoreTables.rollScore(random.nextInt(AbilityScoreTables.ROLL_OUTCOMES));
+            }
+        }
+    },
+
+    /** The standard array (15, 14, 13, 12, 10, 8), dealt to the abilities in a random order. */
+    STANDARD_ARRAY {
+        @Override
+        public void generate(RandomGenerator random, int[] scores) {
+            for (int ability = 0; ability < ABILITY_COUNT; ability++) {
+                scores[ability] = AbilityScoreTables.STANDARD_ARRAY.get(ability);
+            }
+            // Fisher-Yates shuffle.
+            for (int i = ABILITY_COUNT - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = scores[i];
+                scores[i] = scores[j];
+                scores[j] = swap;
+            }
+        }
+    },
+
+    /** A point-buy allocation, drawn uniformly from every legal one. */
+    POINT_BUY {
+        @Override
+        public void generate(RandomGenerator random, int[] scores) {
+            AbilityScoreTables.pointBuyAllocation(random.nextInt(AbilityScoreTables.pointBuyAllocationCount()),
+                    scores);
+        }
+    };
+
+    private static final int ABILITY_COUNT = Ability.values().length;
+
+    /**
+     * Generates a block of scores into an existing array, so bulk jobs can reuse one buffer.
+     *
+     * @param random The random generator to draw from.
+     * @param scores The array to fill, indexed by {@link Ability#ordinal()}; at least six long.
+     */
+    public abstract void generate(RandomGenerator random, int[] scores);
+
+    /**
+     * Generates a block of scores.
+     *
+     * @param random The random generator to draw from.
+     * @return The scores, indexed by {@link Ability#ordinal()}.
+     */
+    public int[] generate(RandomGenerator random) {
+        int[] scores = new int[ABILITY_COUNT];
+        generate(random, scores);
+        return scores;
+    }
+}
@@ -0,0 +1,146 @@
+package chargen.activity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import chargen.dice.DiceDistribution;
+import chargen.dice.DiceExpression;
+
+/**
+ * Lookup tables behind ability score generation, computed once when the class loads.
+ * <ul>
+ *   <li>Ability modifiers for every score from 0 to {@link #MAX_SCORE}.</li>
+ *   <li>The exact distribution of 4d6-drop-lowest, laid out as a 1296-entry table with one entry per
+ *       outcome of the four dice, so a uniform draw below 1296 picks a score with exactly the right
+ *       probability.</li>
+ *   <li>Every legal point-buy allocation, packed three bits per ability.</li>
+ * </ul>
+ */
+public final class AbilityScoreTables {
+
+    /** Highest ability score the rules allow. */
+    public static final int MAX_SCORE = 30;
+    /** The standard array, highest first. */
+    public static final List<Integer> STANDARD_ARRAY = List.of(15, 14, 13, 12, 10, 8);
+    /** Points to spend on a point-buy allocation. */
+    public static final int POINT_BUY_BUDGET = 27;
+    /** Lowest score point-buy allows. */
+    public static final int POINT_BUY_MIN = 8;
+    /** Highest score point-buy allows. */
+    public static final int POINT_BUY_MAX = 15;
+
+    /** Number of equally likely outcomes of four six-sided dice. */
+    static final int ROLL_OUTCOMES = 6 * 6 * 6 * 6;
+
+    private static final int ABILITY_COUNT = 6;
+    private static final int[] POINT_BUY_COSTS = {0, 1, 2, 3, 4, 5, 7, 9};
+    private static final int[] MODIFIERS = new int[MAX_SCORE + 1];
+    private static final double[] ROLL_PROBABILITIES = new double[MAX_SCORE + 1];
+    private static final byte[] ROLL_TABLE = new byte[ROLL_OUTCOMES];
+    private static final int[] POINT_BUY_ALLOCATIONS;
+
+    static {
+        for (int score = 0; score <= MAX_SCORE; score++) {
+            MODIFIERS[score] = Math.floorDiv(score - 10, 2);
+        }
+
+        DiceDistribution roll = DiceExpression.parse("4d6dl1").distribution();
+        int outcome = 0;
+        for (int score = roll.getMin(); score <= roll.getMax(); score++) {
+            ROLL_PROBABILITIES[score] = roll.probability(score);
+            long ways = Math.round(roll.probability(score) * ROLL_OUTCOMES);
+            for (long i = 0; i < ways; i++) {
+                ROLL_TABLE[outcome++] = (byte) score;
+            }
+        }
+        if (outcome != ROLL_OUTCOMES) {
+            throw new IllegalStateException("4d6-drop-lowest table covers " + outcome + " outcomes");
+        }
+
+        List<Integer> allocations = new ArrayList<>();
+        enumeratePointBuy(0, 0, 0, allocations);
+        POINT_BUY_ALLOCATIONS = allocations.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private AbilityScoreTables() {
+    }
+
+    private static void enumeratePointBuy(int ability, int packed, int spent, List<Integer> allocations) {
+        if (ability == ABILITY_COUNT) {
+            if (spent == POINT_BUY_BUDGET) {
+                allocations.add(packed);
+            }
+            return;
+        }
+        for (int step = 0; step < POINT_BUY_COSTS.length && spent + POINT_BUY_COSTS[step] <= POINT_BUY_BUDGET;
+                step++) {
+            enumeratePointBuy(ability + 1, packed | step << (3 * ability), spent + POINT_BUY_COSTS[step],
+                    allocations);
+        }
+    }
+
+    /**
+     * Returns the modifier for an ability score, from the table for scores 0 to {@link #MAX_SCORE}.
+     *
+     * @param score The ability score.
+     * @return {@code floor((score - 10) / 2)}.
+     */
+    public static int modifier(int score) {
+        return score >= 0 && score <= MAX_SCORE ? MODIFIERS[score] : Math.floorDiv(score - 10, 2);
+    }
+
+    /**
+     * Returns the probability that 4d6-drop-lowest rolls a score.
+     *
+     * @param score The score.
+     * @return Its exact probability; 0 outside 3 to 18.
+     */
+    public static double rollProbability(int score) {
+        return score >= 0 && score <= MAX_SCORE ? ROLL_PROBABILITIES[score] : 0;
+    }
+
+    /**
+     * Returns the point-buy cost of a score.
+     *
+     * @param score A score from {@link #POINT_BUY_MIN} to {@link #POINT_BUY_MAX}.
+     * @return The points it costs.
+     * @throws IllegalArgumentException if point-buy cannot reach the score.
+     */
+    public static int pointBuyCost(int score) {
+        if (score < POINT_BUY_MIN || score > POINT_BUY_MAX) {
+            throw new IllegalArgumentException("Point-buy scores must be between " + POINT_BUY_MIN + " and "
+                    + POINT_BUY_MAX + ": " + score);
+        }
+        return POINT_BUY_COSTS[score - POINT_BUY_MIN];
+    }
+
+    /**
+     * Returns the number of legal point-buy allocations, i.e. ordered score blocks that spend exactly
+     * {@link #POINT_BUY_BUDGET} points.
+     *
+     * @return The allocation count.
+     */
+    public static int pointBuyAllocationCount() {
+        return POINT_BUY_ALLOCATIONS.length;
+    }
+
+    /**
+     * Writes one point-buy allocation into an array, in {@link chargen.model.Ability} order.
+     *
+     * @param index An allocation index below {@link #pointBuyAllocationCount()}.
+     * @param scores The array to fill; at least six long.
+     */
+    public static void pointBuyAllocation(int index, int[] scores) {
+        int packed = POINT_BUY_ALLOCATIONS[index];
+        for (int ability = 0; ability < ABILITY_COUNT; ability++) {
+            scores[ability] = POINT_BUY_MIN + (packed >>> (3 * ability) & 0b111);
+        }
+    }
+
+    /**
+     * Maps one of the {@link #ROLL_OUTCOMES} equally likely outcomes of four dice to its score.
+     */
+    static int rollScore(int outcome) {
+        return ROLL_TABLE[outcome];
+    }
+}
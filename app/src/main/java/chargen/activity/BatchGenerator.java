@@ -0,0 +1,375 @@
+package chargen.activity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import chargen.analytics.PopulationAnalytics;
+import chargen.metrics.Counter;
+import chargen.metrics.GenerationBatchEvent;
+import chargen.metrics.LatencyHistogram;
+import chargen.metrics.Metrics;
+import chargen.model.CharacterSheet;
+
+/**
+ * Generates large batches of characters on several threads and streams them out as NDJSON, hands them
+ * to a {@link CharacterSink} such as a {@link chargen.store.CharacterStore}, or summarises them in
+ * {@link PopulationAnalytics} without keeping them.
+ * <p>
+ * The batch is cut into fixed-size chunks. Each chunk gets its own random stream, split from the seed in
+ * chunk order, and is rendered to bytes by a worker; chunks are written out in order as they complete.
+ * Because the chunking and the streams depend only on the seed and the count, the output is byte-identical
+ * for a given seed whatever the number of threads. Ranges of a {@link Population} are chunked the same way,
+ * but each character is rolled from its own index, so a range can also be split across machines. At most a
+ * few chunks per thread are held in memory at a time, so a batch of any size runs in constant memory.
+ * <p>
+ * Every chunk is timed into the {@code generation.batch} histogram and recorded as a
+ * {@link GenerationBatchEvent}.
+ */
+public final class BatchGenerator {
+
+    /** The number of characters rendered per chunk. */
+    public static final int CHUNK_SIZE = 512;
+    // Chunks rendered ahead of the writer, per thread, before the coordinator waits.
+    private static final int CHUNKS_IN_FLIGHT_PER_THREAD = 2;
+    private static final LatencyHistogram BATCH_TIME = Metrics.histogram("generation.batch");
+    private static final Counter CHARACTERS = Metrics.counter("generation.characters");
+
+    private final CharacterGenerator generator;
+    private final int threads;
+
+    /**
+     * Creates a batch generator.
+     *
+     * @param generator The generator to roll each character with.
+     * @param threads The number of worker threads, 1 or more.
+     * @throws IllegalArgumentException if threads is below 1.
+     */
+    public BatchGenerator(CharacterGenerator generator, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1: " + threads);
+        }
+        this.generator = Objects.requireNonNull(generator, "generator cannot be null");
+        this.threads = threads;
+    }
+
+    /**
+     * A destination for generated characters, called on one thread in batch order.
+     */
+    @FunctionalInterface
+    public interface CharacterSink {
+
+        /**
+         * Accepts the next character of the batch.
+         *
+         * @param sheet The character.
+         * @throws IOException if the character cannot be stored.
+         */
+        void accept(CharacterSheet sheet) throws IOException;
+    }
+
+    /**
+     * Generates a batch and writes it to a stream, one JSON object per line. The stream is flushed but not
+     * closed.
+     *
+     * @param count The number of characters to generate.
+     * @param seed The seed that determines the whole batch.
+     * @param out The stream to write to.
+     * @throws IOException if writing fails or the calling thread is interrupted.
+     * @throws IllegalArgumentException if count is negative.
+     */
+    public void generate(long count, long seed, OutputStream out) throws IOException {
+        Objects.requireNonNull(out, "out cannot be null");
+        run(0, count, seeded(seed, this::render), out::write);
+        out.flush();
+    }
+
+    /**
+     * Generates a batch and hands every character to a sink, in order, on the calling thread. The same seed
+     * and count always deliver the same characters, whatever the number of threads.
+     *
+     * @param count The number of characters to generate.
+     * @param seed The seed that determines the whole batch.
+     * @param sink The destination of the characters.
+     * @throws IOException if the sink fails or the calling thread is interrupted.
+     * @throws IllegalArgumentException if count is negative.
+     */
+    public void generate(long count, long seed, CharacterSink sink) throws IOException {
+        Objects.requireNonNull(sink, "sink cannot be null");
+        run(0, count, seeded(seed, this::roll), deliver(sink));
+    }
+
+    /**
+     * Writes a range of a population to a stream, one JSON object per line. Every character depends only on
+     * the population's seed and its index, so ranges written separately, e.g. by different machines, join up
+     * into exactly the output of the whole range. The stream is flushed but not closed.
+     *
+     * @param population The population to take characters from.
+     * @param first The index of the first character.
+     * @param count The number of characters.
+     * @param out The stream to write to.
+     * @throws IOException if writing fails or the calling thread is interrupted.
+     * @throws IllegalArgumentException if first or count is negative, or the range runs past
+     *         {@link Long#MAX_VALUE}.
+     */
+    public void generate(Population population, long first, long count, OutputStream out) throws IOException {
+        Objects.requireNonNull(population, "population cannot be null");
+        Objects.requireNonNull(out, "out cannot be null");
+        Population.checkRange(first, count);
+        run(first, count, (start, size) -> () -> renderRange(population, start, size), out::write);
+        out.flush();
+    }
+
+    /**
+     * Hands a range of a population to a sink, in order, on the calling thread.
+     *
+     * @param population The population to take characters from.
+     * @param first The index of the first character.
+     * @param count The number of characters.
+     * @param sink The destination of the characters.
+     * @throws IOException if the sink fails or the calling thread is interrupted.
+     * @throws IllegalArgumentException if first or count is negative, or the range runs past
+     *         {@link Long#MAX_VALUE}.
+     */
+    public void generate(Population population, long first, long count, CharacterSink sink) throws IOException {
+        Objects.requireNonNull(population, "population cannot be null");
+        Objects.requireNonNull(sink, "sink cannot be null");
+        Population.checkRange(first, count);
+        run(first, count, (start, size) -> () -> population.range(start, size), deliver(sink));
+    }
+
+    /**
+     * Generates a batch and feeds every character into analytics, without keeping or writing the characters.
+     * Each worker thread fills analytics of its own, and these are merged once the batch is done; since
+     * analytics merge exactly, the result for a given seed and count is the same whatever the number of
+     * threads.
+     *
+     * @param count The number of characters to generate.
+     * @param seed The seed that determines the whole batch.
+     * @param analytics Creates empty analytics, all with the same settings.
+     * @return The analytics of the whole batch.
+     * @throws IOException if the calling thread is interrupted.
+     * @throws IllegalArgumentException if count is negative.
+     */
+    public PopulationAnalytics analyze(long count, long seed, Supplier<PopulationAnalytics> analytics)
+            throws IOException {
+        PerThread perThread = new PerThread(Objects.requireNonNull(analytics, "analytics cannot be null"));
+        run(0, count, seeded(seed, (start, size, random) -> {
+            PopulationAnalytics local = perThread.get();
+            for (int i = 0; i < size; i++) {
+                local.accept(generator.generate(start + i, random));
+            }
+            return size;
+        }), chunk -> { });
+        return perThread.merged();
+    }
+
+    /**
+     * Feeds a range of a population into analytics, as {@link #analyze(long, long, Supplier)} does for a
+     * batch. Analytics of ranges computed separately, e.g. by different machines, merge into the analytics
+     * of the whole range.
+     *
+     * @param population The population to take characters from.
+     * @param first The index of the first character.
+     * @param count The number of characters.
+     * @param analytics Creates empty analytics, all with the same settings.
+     * @return The analytics of the range.
+     * @throws IOException if the calling thread is interrupted.
+     * @throws IllegalArgumentException if first or count is negative, or the range runs past
+     *         {@link Long#MAX_VALUE}.
+     */
+    public PopulationAnalytics analyze(Population population, long first, long count,
+            Supplier<PopulationAnalytics> analytics) throws IOException {
+        Objects.requireNonNull(population, "population cannot be null");
+        PerThread perThread = new PerThread(Objects.requireNonNull(analytics, "analytics cannot be null"));
+        Population.checkRange(first, count);
+        run(first, count, (start, size) -> () -> {
+            PopulationAnalytics local = perThread.get();
+            for (int i = 0; i < size; i++) {
+                local.accept(population.get(start + i));
+            }
+            return size;
+        }, chunk -> { });
+        return perThread.merged();
+    }
+
+    // One random stream per chunk, split from the seed on the calling thread, in chunk order.
+    private static <T> ChunkFactory<T> seeded(long seed, SeededChunk<T> chunk) {
+        SplittableRandom root = new SplittableRandom(seed);
+        return (start, size) -> {
+            SplittableRandom random = root.split();
+            return () -> chunk.run(start, size, random);
+        };
+    }
+
+    private static ChunkConsumer<List<CharacterSheet>> deliver(CharacterSink sink) {
+        return chunk -> {
+            for (CharacterSheet sheet : chunk) {
+                sink.accept(sheet);
+            }
+        };
+    }
+
+    private <T> void run(long first, long count, ChunkFactory<T> chunks, ChunkConsumer<T> consumer)
+            throws IOException {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative: " + count);
+        }
+        ArrayDeque<Future<T>> inFlight = new ArrayDeque<>();
+        int maxInFlight = threads * CHUNKS_IN_FLIGHT_PER_THREAD;
+        ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "chargen-batch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (long start = 0; start < count; start += CHUNK_SIZE) {
+                int size = (int) Math.min(CHUNK_SIZE, count - start);
+                Chunk<T> chunk = chunks.chunk(first + start, size);
+                inFlight.add(workers.submit(() -> runChunk(chunk, size)));
+                if (inFlight.size() >= maxInFlight) {
+                    consumer.accept(await(inFlight.poll()));
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                consumer.accept(await(inFlight.poll()));
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private static <T> T runChunk(Chunk<T> task, int size) throws IOException {
+        long start = Metrics.startTimer();
+        GenerationBatchEvent event = new GenerationBatchEvent();
+        event.begin();
+        T chunk = task.run();
+        BATCH_TIME.recordSince(start);
+        CHARACTERS.add(size);
+        if (event.shouldCommit()) {
+            event.characters = size;
+            event.requests = 1;
+            event.commit();
+        }
+        return chunk;
+    }
+
+    private List<CharacterSheet> roll(long first, int size, SplittableRandom random) {
+        List<CharacterSheet> sheets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            sheets.add(generator.generate(first + i, random));
+        }
+        return sheets;
+    }
+
+    private byte[] render(long first, int size, SplittableRandom random) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(size * 512);
+        try (CharacterJsonWriter writer = new CharacterJsonWriter(bytes)) {
+            for (int i = 0; i < size; i++) {
+                writer.write(generator.generate(first + i, random));
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] renderRange(Population population, long first, int size) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(size * 512);
+        try (CharacterJsonWriter writer = new CharacterJsonWriter(bytes)) {
+            for (int i = 0; i < size; i++) {
+                writer.write(population.get(first + i));
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static <T> T await(Future<T> chunk) throws IOException {
+        try {
+            return chunk.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while generating characters");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Character generation failed", cause);
+        }
+    }
+
+    /**
+     * The analytics each worker thread of one run fills, merged on the calling thread once the run is over.
+     */
+    private static final class PerThread extends ThreadLocal<PopulationAnalytics> {
+        private final Supplier<PopulationAnalytics> factory;
+        private final List<PopulationAnalytics> all = new ArrayList<>();
+
+        PerThread(Supplier<PopulationAnalytics> factory) {
+            this.factory = factory;
+        }
+
+        @Override
+        protected PopulationAnalytics initialValue() {
+            PopulationAnalytics analytics = factory.get();
+            synchronized (all) {
+                all.add(analytics);
+            }
+            return analytics;
+        }
+
+        // Every chunk has been awaited by now, so the workers' writes are visible.
+        PopulationAnalytics merged() {
+            PopulationAnalytics merged = factory.get();
+            synchronized (all) {
+                all.forEach(merged::merge);
+            }
+            return merged;
+        }
+    }
+
+    /**
+     * Produces the output of one chunk on a worker thread.
+     */
+    @FunctionalInterface
+    private interface Chunk<T> {
+        T run() throws IOException;
+    }
+
+    /**
+     * Prepares the chunk starting at an index, on the calling thread and in chunk order.
+     */
+    @FunctionalInterface
+    private interface ChunkFactory<T> {
+        Chunk<T> chunk(long first, int size);
+    }
+
+    /**
+     * Produces the output of one chunk of a seeded batch from the chunk's random stream.
+     */
+    @FunctionalInterface
+    private interface SeededChunk<T> {
+        T run(long first, int size, SplittableRandom random) throws IOException;
+    }
+
+    /**
+     * Consumes the output of one chunk on the calling thread.
+     */
+    @FunctionalInterface
+    private interface ChunkConsumer<T> {
+        void accept(T chunk) throws IOException;
+    }
+}
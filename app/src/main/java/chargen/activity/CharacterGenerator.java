@@ -0,0 +1,173 @@
+package chargen.activity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.random.RandomGenerator;
+
+import chargen.engine.StatGraph;
+import chargen.engine.StatProgram;
+import chargen.model.Ability;
+import chargen.model.Alignment;
+import chargen.model.CharacterSheet;
+import chargen.model.CreatureSize;
+import chargen.model.MovementType;
+import chargen.model.Sense;
+import chargen.model.Skill;
+import chargen.model.Trait;
+import chargen.service.TraitService;
+import chargen.service.TraitSetCache;
+
+/**
+ * Rolls random characters from the traits of a {@link TraitService}.
+ * <p>
+ * Every random choice is drawn from the random generator the caller passes in, in a fixed order, so the
+ * same generator state always produces the same character. Batches pass one
+ * {@link java.util.SplittableRandom} per chunk; a {@link Population} passes each character its own
+ * {@link CounterRandom}. A generator holds no mutable state of its own and may be shared between threads, as
+ * long as each thread uses its own random stream.
+ * <p>
+ * A character's traits are merged through a {@link TraitSetCache}, so a combination of traits that many
+ * characters share is merged only once.
+ */
+public final class CharacterGenerator {
+
+    /** The most traits a generated character is given. */
+    public static final int MAX_TRAITS = 3;
+    /** The number of skills a generated character is proficient in. */
+    public static final int PROFICIENT_SKILLS = 2;
+    /** The highest level a generated character can have. */
+    public static final int MAX_LEVEL = 20;
+
+    private static final Ability[] ABILITIES = Ability.values();
+    private static final Alignment[] ALIGNMENTS = Alignment.values();
+    private static final Skill[] SKILLS = Skill.values();
+    private static final MovementType[] MOVEMENT_TYPES = MovementType.values();
+    private static final Sense[] SENSES = Sense.values();
+    private static final int HIT_DIE = 8;
+
+    private final TraitSetCache traitSets;
+    private final String[] traitNames;
+
+    /**
+     * Creates a generator over the traits currently loaded by a service, with a trait set cache of its own.
+     *
+     * @param traitService The service to draw traits and their compiled modifiers from.
+     */
+    public CharacterGenerator(TraitService traitService) {
+        this(traitService, new TraitSetCache(traitService, TraitSetCache.DEFAULT_MAXIMUM_SIZE));
+    }
+
+    /**
+     * Creates a generator over the traits currently loaded by a service, merging trait sets through a cache
+     * that may be shared with other generators over the same service.
+     *
+     * @param traitService The service to draw traits from.
+     * @param traitSets The cache to merge each character's traits through.
+     */
+    public CharacterGenerator(TraitService traitService, TraitSetCache traitSets) {
+        Objects.requireNonNull(traitService, "traitService cannot be null");
+        this.traitSets = Objects.requireNonNull(traitSets, "traitSets cannot be null");
+        // Sorted, so a seed picks the same traits however the catalog happened to be loaded.
+        this.traitNames = traitService.getAllTraits().stream()
+                .map(Trait::getName)
+                .sorted()
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Rolls one character.
+     *
+     * @param index The character's position in its batch, recorded on the sheet.
+     * @param random The random stream to draw from; advanced by this call.
+     * @return The generated character.
+     */
+    public CharacterSheet generate(long index, RandomGenerator random) {
+        Alignment alignment = ALIGNMENTS[random.nextInt(ALIGNMENTS.length)];
+        CreatureSize size = random.nextInt(4) == 0 ? CreatureSize.SMALL : CreatureSize.MEDIUM;
+        int level = 1 + random.nextInt(MAX_LEVEL);
+
+        StatGraph graph = new StatGraph();
+        graph.setLevel(level);
+        // Maximum hit die at first level, the rounded-up average after that.
+        graph.setBaseHitPoints(HIT_DIE + (level - 1) * (HIT_DIE / 2 + 1));
+        if (size == CreatureSize.SMALL) {
+            graph.setBaseSpeed(MovementType.WALKING, 25);
+        }
+        int[] scores = AbilityScoreMethod.ROLL_4D6_DROP_LOWEST.generate(random);
+        for (Ability ability : ABILITIES) {
+            graph.setBaseAbilityScore(ability, scores[ability.ordinal()]);
+        }
+
+        CharacterSheet.CharacterSheetBuilder sheet = CharacterSheet.builder()
+                .index(index)
+                .alignment(alignment)
+                .size(size)
+                .level(level);
+
+        boolean[] proficient = new boolean[SKILLS.length];
+        int skillsPicked = 0;
+        while (skillsPicked < PROFICIENT_SKILLS) {
+            int skill = random.nextInt(SKILLS.length);
+            if (!proficient[skill]) {
+                proficient[skill] = true;
+                graph.setProficient(SKILLS[skill], true);
+                skillsPicked++;
+            }
+        }
+
+        int traitCount = random.nextInt(Math.min(MAX_TRAITS, traitNames.length) + 1);
+        int[] picks = new int[traitCount];
+        List<String> names = new ArrayList<>(traitCount);
+        int picked = 0;
+        while (picked < traitCount) {
+            int pick = random.nextInt(traitNames.length);
+            if (!contains(picks, picked, pick)) {
+                picks[picked++] = pick;
+                names.add(traitNames[pick]);
+                sheet.traitName(traitNames[pick]);
+            }
+        }
+        StatProgram program = traitSets.getProgram(names);
+        if (program.size() > 0) {
+            graph.addProgram(program);
+        }
+
+        for (Ability ability : ABILITIES) {
+            sheet.abilityScore(ability, graph.getAbilityScore(ability));
+        }
+        sheet.proficiencyBonus(graph.getProficiencyBonus())
+                .armorClass(graph.getArmorClass())
+                .maxHitPoints(graph.getMaxHitPoints())
+                .initiative(graph.getInitiative())
+                .passivePerception(graph.getPassivePerception());
+        for (MovementType movementType : MOVEMENT_TYPES) {
+            int speed = graph.getSpeed(movementType);
+            if (speed != 0) {
+                sheet.speed(movementType, speed);
+            }
+        }
+        for (Sense sense : SENSES) {
+            int range = graph.getSenseRange(sense);
+            if (range != 0) {
+                sheet.sense(sense, range);
+            }
+        }
+        for (Skill skill : SKILLS) {
+            sheet.skillBonus(skill, graph.getSkillBonus(skill));
+            if (proficient[skill.ordinal()]) {
+                sheet.proficientSkill(skill);
+            }
+        }
+        return sheet.build();
+    }
+
+    private static boolean contains(int[] values, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,100 @@
+package chargen.activity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import chargen.model.CharacterSheet;
+import chargen.model.Skill;
+
+/**
+ * Writes {@link CharacterSheet}s as newline-delimited JSON, one compact object per line.
+ * <p>
+ * Fields are always written in the same order, and map entries in enum order, so equal sheets always
+ * serialize to identical bytes.
+ */
+public final class CharacterJsonWriter implements AutoCloseable {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final JsonGenerator generator;
+
+    /**
+     * Creates a writer over a stream. Closing the writer flushes it but leaves the stream open.
+     *
+     * @param out The stream to write UTF-8 JSON lines to.
+     * @throws IOException if the generator cannot be created.
+     */
+    public CharacterJsonWriter(OutputStream out) throws IOException {
+        this.generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.generator.setRootValueSeparator(null);
+    }
+
+    /**
+     * Writes one sheet followed by a newline.
+     *
+     * @param sheet The sheet to write.
+     * @throws IOException if the underlying stream fails.
+     */
+    public void write(CharacterSheet sheet) throws IOException {
+        JsonGenerator json = generator;
+        json.writeStartObject();
+        json.writeNumberField("index", sheet.getIndex());
+        json.writeStringField("alignment", sheet.getAlignment().name());
+        json.writeStringField("size", sheet.getSize().name());
+        json.writeNumberField("level", sheet.getLevel());
+        writeMap("abilityScores", sheet.getAbilityScores());
+        json.writeNumberField("proficiencyBonus", sheet.getProficiencyBonus());
+        json.writeNumberField("armorClass", sheet.getArmorClass());
+        json.writeNumberField("maxHitPoints", sheet.getMaxHitPoints());
+        json.writeNumberField("initiative", sheet.getInitiative());
+        json.writeNumberField("passivePerception", sheet.getPassivePerception());
+        writeMap("speeds", sheet.getSpeeds());
+        writeMap("senses", sheet.getSenses());
+        writeMap("skillBonuses", sheet.getSkillBonuses());
+        json.writeArrayFieldStart("proficientSkills");
+        for (Skill skill : sheet.getProficientSkills()) {
+            json.writeString(skill.name());
+        }
+        json.writeEndArray();
+        json.writeArrayFieldStart("traits");
+        for (String traitName : sheet.getTraitNames()) {
+            json.writeString(traitName);
+        }
+        json.writeEndArray();
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private void writeMap(String fieldName, Map<? extends Enum<?>, Integer> values) throws IOException {
+        generator.writeObjectFieldStart(fieldName);
+        for (Map.Entry<? extends Enum<?>, Integer> entry : values.entrySet()) {
+            generator.writeNumberField(entry.getKey().name(), entry.getValue());
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Flushes buffered output to the stream.
+     *
+     * @throws IOException if the underlying stream fails.
+     */
+    public void flush() throws IOException {
+        generator.flush();
+    }
+
+    /**
+     * Flushes buffered output; the stream itself is left open.
+     *
+     * @throws IOException if the underlying stream fails.
+     */
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
@@ -0,0 +1,85 @@
+package chargen.activity;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * A counter-based random generator: the n-th value of a stream is a hash of the stream's key and n, so any
+ * stream can be created, and any position reached, in constant time without generating what comes before.
+ * <p>
+ * A stream is addressed by a seed and an index, e.g. a world seed and a character number. Distinct indexes
+ * under one seed always get distinct keys. A stream can in turn address sub-streams with
+ * {@link #substream(long)}, so one character's draws can be split by purpose without disturbing the others.
+ * Each value costs two rounds of the SplitMix64 finaliser: one over the key plus the counter, and one after
+ * folding the key back in, so streams whose keys happen to differ by a multiple of the counter step do not
+ * repeat each other.
+ * <p>
+ * Generators are small and mutable and not thread-safe; create one per thread or per item instead of
+ * sharing.
+ */
+public final class CounterRandom implements RandomGenerator {
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final long key;
+    private long counter;
+
+    private CounterRandom(long key) {
+        this.key = key;
+    }
+
+    /**
+     * Creates the stream of one index under a seed.
+     *
+     * @param seed The seed, e.g. of a whole world.
+     * @param index The index of the stream, e.g. a character number.
+     * @return A generator at the start of the stream.
+     */
+    public static CounterRandom of(long seed, long index) {
+        return new CounterRandom(key(seed, index));
+    }
+
+    /**
+     * Creates a sub-stream of this stream. It does not depend on how far this generator has advanced.
+     *
+     * @param index The index of the sub-stream.
+     * @return A generator at the start of the sub-stream.
+     */
+    public CounterRandom substream(long index) {
+        return new CounterRandom(key(key, index));
+    }
+
+    /**
+     * Returns how many values have been drawn from the stream.
+     *
+     * @return The position in the stream.
+     */
+    public long getPosition() {
+        return counter;
+    }
+
+    /**
+     * Moves to a position in the stream, so the next value drawn is the one at that position.
+     *
+     * @param position The number of values to consider drawn.
+     */
+    public void setPosition(long position) {
+        counter = position;
+    }
+
+    @Override
+    public long nextLong() {
+        return mix(mix(key + ++counter * GOLDEN_GAMMA) ^ key);
+    }
+
+    // Bijective in the index for a fixed seed, so the streams of one seed never share a key.
+    private static long key(long seed, long index) {
+        return mix(mix(seed ^ GOLDEN_GAMMA) + index * GOLDEN_GAMMA);
+    }
+
+    // The SplitMix64 finaliser (Stafford's variant 13).
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
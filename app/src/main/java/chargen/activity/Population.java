@@ -0,0 +1,104 @@
+package chargen.activity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import chargen.model.CharacterSheet;
+
+/**
+ * A virtual population of characters, addressed by index: character {@code i} of seed {@code s} is rolled
+ * from the {@link CounterRandom} stream of {@code (s, i)} alone, so it is always the same character and can
+ * be produced on its own, in constant time, without generating or storing any other.
+ * <p>
+ * Because no state is shared between characters, a range can be cut into shards anywhere and generated on
+ * any number of threads or machines, and the shards put together again are the range generated in one go.
+ * A population over the same seed and the same trait catalog always yields the same characters. Note that
+ * these are not the characters {@link BatchGenerator#generate(long, long, java.io.OutputStream)} rolls for
+ * the same seed, which come from one chunked {@link java.util.SplittableRandom} stream; use
+ * {@link BatchGenerator#generate(Population, long, long, java.io.OutputStream)} to write a range of a
+ * population out in parallel.
+ */
+public final class Population {
+
+    private final CharacterGenerator generator;
+    private final long seed;
+
+    /**
+     * Creates a population.
+     *
+     * @param generator The generator to roll characters with.
+     * @param seed The seed that determines every character.
+     */
+    public Population(CharacterGenerator generator, long seed) {
+        this.generator = Objects.requireNonNull(generator, "generator cannot be null");
+        this.seed = seed;
+    }
+
+    /**
+     * Returns the seed that determines every character.
+     *
+     * @return The seed.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns one character.
+     *
+     * @param index The character's index, 0 or more.
+     * @return The character, with {@code index} recorded on its sheet.
+     * @throws IllegalArgumentException if index is negative.
+     */
+    public CharacterSheet get(long index) {
+        if (index < 0) {
+            throw new IllegalArgumentException("index must not be negative: " + index);
+        }
+        return generator.generate(index, CounterRandom.of(seed, index));
+    }
+
+    /**
+     * Returns a contiguous range of characters.
+     *
+     * @param first The index of the first character, 0 or more.
+     * @param count The number of characters, 0 or more.
+     * @return The characters, in index order.
+     * @throws IllegalArgumentException if first or count is negative, or the range runs past
+     *         {@link Long#MAX_VALUE}.
+     */
+    public List<CharacterSheet> range(long first, int count) {
+        checkRange(first, count);
+        List<CharacterSheet> sheets = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            sheets.add(get(first + i));
+        }
+        return sheets;
+    }
+
+    /**
+     * Returns a contiguous range of characters as a lazy stream. The stream splits evenly, so it can be made
+     * parallel; its order is always index order.
+     *
+     * @param first The index of the first character, 0 or more.
+     * @param count The number of characters, 0 or more.
+     * @return The characters, in index order.
+     * @throws IllegalArgumentException if first or count is negative, or the range runs past
+     *         {@link Long#MAX_VALUE}.
+     */
+    public Stream<CharacterSheet> stream(long first, long count) {
+        checkRange(first, count);
+        return LongStream.range(first, first + count).mapToObj(this::get);
+    }
+
+    static void checkRange(long first, long count) {
+        if (first < 0 || count < 0) {
+            throw new IllegalArgumentException("first and count must not be negative: " + first + ", " + count);
+        }
+        if (first > Long.MAX_VALUE - count) {
+            throw new IllegalArgumentException("The range runs past the last index: " + first + " + " + count);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package chargen.analytics;
+
+/**
+ * A count-min sketch: approximate counts of how often each of an unbounded number of keys was seen, in a
+ * fixed table of counters.
+ * <p>
+ * Each key is counted once in every row of the table, at a column picked by a hash that differs per row,
+ * and its estimate is the smallest of its counters. An estimate is never below the true count, and with a
+ * width of {@code w} it exceeds it by more than {@code 2 / w} of the total count in one row only with
+ * probability 1/2, so in every row with probability {@code 2^-depth}. Sketches of the same shape merge by
+ * adding counters, in any order, to exactly the sketch of everything they counted.
+ * <p>
+ * Keys are 64-bit hashes, e.g. fingerprints of strings. Sketches are not thread-safe; give each thread its
+ * own and merge them.
+ */
+public final class CountMinSketch {
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final int depth;
+    private final int width;
+    private final long[] counters;
+    private long total;
+
+    /**
+     * Creates an empty sketch.
+     *
+     * @param depth The number of rows, 1 or more; each halves the chance of a large overestimate.
+     * @param width The number of counters per row, 1 or more; overestimates shrink as it grows.
+     * @throws IllegalArgumentException if depth or width is below 1, or the table would be too large.
+     */
+    public CountMinSketch(int depth, int width) {
+        if (depth < 1 || width < 1) {
+            throw new IllegalArgumentException("depth and width must be at least 1: " + depth + ", " + width);
+        }
+        this.depth = depth;
+        this.width = width;
+        this.counters = new long[Math.multiplyExact(depth, width)];
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return The depth.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns the number of counters per row.
+     *
+     * @return The width.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Counts a key some number of times.
+     *
+     * @param key The key's hash.
+     * @param times How many times to count it, 0 or more.
+     * @throws IllegalArgumentException if times is negative.
+     */
+    public void add(long key, long times) {
+        if (times < 0) {
+            throw new IllegalArgumentException("times must not be negative: " + times);
+        }
+        for (int row = 0; row < depth; row++) {
+            counters[row * width + column(key, row)] += times;
+        }
+        total += times;
+    }
+
+    /**
+     * Estimates how many times a key was counted.
+     *
+     * @param key The key's hash.
+     * @return The estimate, never below the true count.
+     */
+    public long estimate(long key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters[row * width + column(key, row)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Returns the number of times all keys together were counted.
+     *
+     * @return The total count.
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Adds the counts of another sketch to this one.
+     *
+     * @param other A sketch of the same depth and width.
+     * @throws IllegalArgumentException if the shapes differ.
+     */
+    public void merge(CountMinSketch other) {
+        if (other.depth != depth || other.width != width) {
+            throw new IllegalArgumentException("Cannot merge a " + depth + "x" + width + " sketch with a "
+                    + other.depth + "x" + other.width + " one");
+        }
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] += other.counters[i];
+        }
+        total += other.total;
+    }
+
+    private int column(long key, int row) {
+        return (int) Long.remainderUnsigned(mix(key + (row + 1) * GOLDEN_GAMMA), width);
+    }
+
+    /**
+     * The SplitMix64 finaliser (Stafford's variant 13), used to spread keys over columns and registers.
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
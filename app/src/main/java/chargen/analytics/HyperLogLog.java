@@ -0,0 +1,115 @@
+package chargen.analytics;
+
+/**
+ * A HyperLogLog sketch: an estimate of how many distinct keys were seen, in a fixed number of small
+ * registers.
+ * <p>
+ * The top {@code p} bits of a key's (re-mixed) hash pick one of {@code 2^p} registers, which keeps the
+ * longest run of leading zeros seen in the remaining bits. The standard error of the estimate is about
+ * {@code 1.04 / sqrt(2^p)}, e.g. 1.6% at the default precision of 12 with 4 KB of registers; small counts
+ * fall back to linear counting, which is close to exact. Sketches of the same precision merge by taking the
+ * larger of each register, in any order, to exactly the sketch of everything they saw.
+ * <p>
+ * Sketches are not thread-safe; give each thread its own and merge them.
+ */
+public final class HyperLogLog {
+
+    /** The precision used by default: 4,096 registers. */
+    public static final int DEFAULT_PRECISION = 12;
+    /** The lowest precision allowed. */
+    public static final int MIN_PRECISION = 7;
+    /** The highest precision allowed. */
+    public static final int MAX_PRECISION = 18;
+
+    private final int precision;
+    private final byte[] registers;
+
+    /**
+     * Creates an empty sketch with the default precision.
+     */
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    /**
+     * Creates an empty sketch.
+     *
+     * @param precision The number of hash bits that pick a register, from {@link #MIN_PRECISION} to
+     *        {@link #MAX_PRECISION}.
+     * @throws IllegalArgumentException if precision is out of range.
+     */
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("precision must be between " + MIN_PRECISION + " and "
+                    + MAX_PRECISION + ": " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * Returns the precision of the sketch.
+     *
+     * @return The number of hash bits that pick a register.
+     */
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Records a key. Recording the same key again changes nothing.
+     *
+     * @param key The key's hash.
+     */
+    public void add(long key) {
+        long hash = CountMinSketch.mix(key);
+        int register = (int) (hash >>> (Long.SIZE - precision));
+        // A marker bit below the remaining bits caps the run of zeros at 64 - precision.
+        long rest = hash << precision | 1L << (precision - 1);
+        byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+        if (rank > registers[register]) {
+            registers[register] = rank;
+        }
+    }
+
+    /**
+     * Adds the keys of another sketch to this one.
+     *
+     * @param other A sketch of the same precision.
+     * @throws IllegalArgumentException if the precisions differ.
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge sketches of precision " + precision + " and "
+                    + other.precision);
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    /**
+     * Estimates the number of distinct keys recorded.
+     *
+     * @return The estimate.
+     */
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += Math.scalb(1.0, -register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double alpha = 0.7213 / (1 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+}
@@ -0,0 +1,178 @@
+package chargen.analytics;
+
+/**
+ * An exact histogram of small integers, for statistics such as ability scores and Armor Class.
+ * <p>
+ * Every value in the range given at construction has a counter of its own, so counts, means and quantiles
+ * are exact and memory does not grow with the number of values. A value outside the range is counted in the
+ * nearest end of it and in {@link #getClampedCount()}; its exact value still goes into the mean, minimum
+ * and maximum. Histograms over the same range merge by adding counters, so merging per-thread histograms in
+ * any order gives the same result as one histogram of every value.
+ * <p>
+ * Histograms are not thread-safe; give each thread its own and merge them.
+ */
+public final class IntHistogram {
+
+    private final int lowest;
+    private final long[] counts;
+    private long count;
+    private long sum;
+    private long clamped;
+    private int min = Integer.MAX_VALUE;
+    private int max = Integer.MIN_VALUE;
+
+    /**
+     * Creates an empty histogram.
+     *
+     * @param lowest The lowest value counted exactly.
+     * @param highest The highest value counted exactly, {@code lowest} or more.
+     * @throws IllegalArgumentException if highest is below lowest.
+     */
+    public IntHistogram(int lowest, int highest) {
+        if (highest < lowest) {
+            throw new IllegalArgumentException("highest must not be below lowest: " + lowest + ".." + highest);
+        }
+        this.lowest = lowest;
+        this.counts = new long[Math.toIntExact((long) highest - lowest + 1)];
+    }
+
+    /**
+     * Returns the lowest value counted exactly.
+     *
+     * @return The lowest value of the range.
+     */
+    public int getLowest() {
+        return lowest;
+    }
+
+    /**
+     * Returns the highest value counted exactly.
+     *
+     * @return The highest value of the range.
+     */
+    public int getHighest() {
+        return lowest + counts.length - 1;
+    }
+
+    /**
+     * Counts one value.
+     *
+     * @param value The value.
+     */
+    public void add(int value) {
+        long offset = (long) value - lowest;
+        if (offset < 0 || offset >= counts.length) {
+            offset = offset < 0 ? 0 : counts.length - 1;
+            clamped++;
+        }
+        counts[(int) offset]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds the values of another histogram to this one.
+     *
+     * @param other A histogram over the same range.
+     * @throws IllegalArgumentException if the ranges differ.
+     */
+    public void merge(IntHistogram other) {
+        if (other.lowest != lowest || other.counts.length != counts.length) {
+            throw new IllegalArgumentException("Cannot merge histograms over " + lowest + ".." + getHighest()
+                    + " and " + other.lowest + ".." + other.getHighest());
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        clamped += other.clamped;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Returns the number of values counted.
+     *
+     * @return The number of values.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns how many times one value was counted.
+     *
+     * @param value A value within the range.
+     * @return The number of times, including values clamped to it if it is an end of the range.
+     * @throws IllegalArgumentException if the value is outside the range.
+     */
+    public long getCount(int value) {
+        long offset = (long) value - lowest;
+        if (offset < 0 || offset >= counts.length) {
+            throw new IllegalArgumentException("Value " + value + " is outside " + lowest + ".." + getHighest());
+        }
+        return counts[(int) offset];
+    }
+
+    /**
+     * Returns how many values fell outside the range.
+     *
+     * @return The number of clamped values.
+     */
+    public long getClampedCount() {
+        return clamped;
+    }
+
+    /**
+     * Returns the smallest value counted.
+     *
+     * @return The minimum, or 0 if the histogram is empty.
+     */
+    public int getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    /**
+     * Returns the largest value counted.
+     *
+     * @return The maximum, or 0 if the histogram is empty.
+     */
+    public int getMax() {
+        return count == 0 ? 0 : max;
+    }
+
+    /**
+     * Returns the mean of the values counted.
+     *
+     * @return The mean, or 0 if the histogram is empty.
+     */
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Returns a quantile: the value at position {@code floor(q * (count - 1))} of the values in sorted order.
+     * It is exact unless it falls on a clamped value, in which case it is the end of the range.
+     *
+     * @param q The quantile, from 0 (the minimum) to 1 (the maximum).
+     * @return The value, or 0 if the histogram is empty.
+     * @throws IllegalArgumentException if q is not between 0 and 1.
+     */
+    public int getQuantile(double q) {
+        long rank = QuantileSketch.rank(q, count);
+        if (rank < 0) {
+            return 0;
+        }
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                return Math.max(min, Math.min(max, lowest + i));
+            }
+        }
+        return max;
+    }
+}
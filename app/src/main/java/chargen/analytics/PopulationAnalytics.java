@@ -0,0 +1,221 @@
+package chargen.analytics;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import chargen.model.Ability;
+import chargen.model.CharacterSheet;
+import chargen.model.Skill;
+
+/**
+ * Streaming statistics over a population of characters, fed one character at a time as they are generated.
+ * <p>
+ * Characters are summarised as a whole and per trait in {@link StatSummary}s, and the combination of traits
+ * each character has is counted in a {@link CountMinSketch}, for the frequency of any combination, and a
+ * {@link HyperLogLog}, for the number of distinct combinations. Nothing is kept per character, so memory
+ * depends only on the sketch sizes and the number of traits in the catalog, never on the size of the
+ * population. The trait catalog has no notion of race, so races are summarised through the traits that
+ * make them up.
+ * <p>
+ * Analytics are not thread-safe. Give each thread or shard its own, created with the same settings, and
+ * {@link #merge(PopulationAnalytics)} them: every part merges by exact counter arithmetic, so the merged
+ * result, and its report, is the same however the characters were split and in whatever order the parts are
+ * merged. See {@link chargen.activity.BatchGenerator#analyze(long, long, java.util.function.Supplier)}.
+ */
+public final class PopulationAnalytics {
+
+    /** The number of count-min rows used by default. */
+    public static final int DEFAULT_COMBINATION_DEPTH = 4;
+    /** The number of count-min counters per row used by default. */
+    public static final int DEFAULT_COMBINATION_WIDTH = 2048;
+
+    private static final Ability[] ABILITIES = Ability.values();
+    private static final Skill[] SKILLS = Skill.values();
+    private static final String[] NO_NAMES = new String[0];
+
+    private final double hitPointAccuracy;
+    private final StatSummary overall;
+    private final Map<String, StatSummary> byTrait = new TreeMap<>();
+    private final CountMinSketch combinations;
+    private final HyperLogLog distinctCombinations;
+
+    /**
+     * Creates empty analytics with the default settings: hit point quantiles to within 1%, a 4 by 2048
+     * count-min sketch and a HyperLogLog of precision 12.
+     */
+    public PopulationAnalytics() {
+        this(QuantileSketch.DEFAULT_RELATIVE_ACCURACY, DEFAULT_COMBINATION_DEPTH, DEFAULT_COMBINATION_WIDTH,
+                HyperLogLog.DEFAULT_PRECISION);
+    }
+
+    /**
+     * Creates empty analytics.
+     *
+     * @param hitPointAccuracy The relative accuracy of hit point quantiles.
+     * @param combinationDepth The number of rows of the trait combination count-min sketch.
+     * @param combinationWidth The number of counters per row of the count-min sketch.
+     * @param combinationPrecision The precision of the distinct combination HyperLogLog.
+     * @throws IllegalArgumentException if a setting is out of range.
+     */
+    public PopulationAnalytics(double hitPointAccuracy, int combinationDepth, int combinationWidth,
+            int combinationPrecision) {
+        this.hitPointAccuracy = hitPointAccuracy;
+        this.overall = new StatSummary(hitPointAccuracy);
+        this.combinations = new CountMinSketch(combinationDepth, combinationWidth);
+        this.distinctCombinations = new HyperLogLog(combinationPrecision);
+    }
+
+    /**
+     * Counts one character.
+     *
+     * @param sheet The character.
+     */
+    public void accept(CharacterSheet sheet) {
+        overall.add(sheet);
+        for (String traitName : sheet.getTraitNames()) {
+            byTrait.computeIfAbsent(traitName, name -> new StatSummary(hitPointAccuracy)).add(sheet);
+        }
+        long combination = combinationKey(sheet.getTraitNames());
+        combinations.add(combination, 1);
+        distinctCombinations.add(combination);
+    }
+
+    /**
+     * Adds the characters counted by other analytics to these.
+     *
+     * @param other Analytics created with the same settings.
+     * @throws IllegalArgumentException if the settings differ.
+     */
+    public void merge(PopulationAnalytics other) {
+        // Checked up front, so a mismatch leaves these analytics as they were.
+        if (other.hitPointAccuracy != hitPointAccuracy || other.combinations.getDepth() != combinations.getDepth()
+                || other.combinations.getWidth() != combinations.getWidth()
+                || other.distinctCombinations.getPrecision() != distinctCombinations.getPrecision()) {
+            throw new IllegalArgumentException("Cannot merge analytics created with different settings");
+        }
+        overall.merge(other.overall);
+        combinations.merge(other.combinations);
+        distinctCombinations.merge(other.distinctCombinations);
+        other.byTrait.forEach((traitName, summary) ->
+                byTrait.computeIfAbsent(traitName, name -> new StatSummary(hitPointAccuracy)).merge(summary));
+    }
+
+    /**
+     * Returns the number of characters counted.
+     *
+     * @return The number of characters.
+     */
+    public long getCount() {
+        return overall.getCount();
+    }
+
+    /**
+     * Returns the statistics of every character counted.
+     *
+     * @return The summary; read it, but do not add to it.
+     */
+    public StatSummary getOverall() {
+        return overall;
+    }
+
+    /**
+     * Returns the names of the traits at least one counted character has.
+     *
+     * @return An unmodifiable set of trait names, in name order.
+     */
+    public Set<String> getTraitNames() {
+        return Collections.unmodifiableSet(byTrait.keySet());
+    }
+
+    /**
+     * Returns the statistics of the characters with one trait.
+     *
+     * @param traitName The name of the trait.
+     * @return The summary, or {@code null} if no character counted has the trait; read it, but do not add to
+     *         it.
+     */
+    public StatSummary getByTrait(String traitName) {
+        return byTrait.get(traitName);
+    }
+
+    /**
+     * Estimates how many characters had exactly a combination of traits.
+     *
+     * @param traitNames The names of the traits, in any order; empty for characters with no traits.
+     * @return The estimate, never below the true count.
+     */
+    public long estimateCombinationCount(Collection<String> traitNames) {
+        return combinations.estimate(combinationKey(traitNames));
+    }
+
+    /**
+     * Estimates how many distinct combinations of traits the characters counted had.
+     *
+     * @return The estimate.
+     */
+    public long estimateDistinctCombinations() {
+        return distinctCombinations.estimate();
+    }
+
+    /**
+     * Writes a plain-text report: the distributions of every statistic, first over all characters and then
+     * for each trait.
+     *
+     * @param out The stream to write to; not closed.
+     */
+    public void writeReport(PrintStream out) {
+        out.printf(Locale.ROOT, "Population: %d characters, about %d distinct trait combinations%n",
+                getCount(), estimateDistinctCombinations());
+        writeSummary(out, "All characters", overall);
+        byTrait.forEach((traitName, summary) -> writeSummary(out, "Trait " + traitName, summary));
+    }
+
+    private static void writeSummary(PrintStream out, String title, StatSummary summary) {
+        out.printf(Locale.ROOT, "%n%s (%d)%n", title, summary.getCount());
+        out.printf(Locale.ROOT, "  %-20s %8s %6s %6s %6s %6s %6s%n", "", "mean", "min", "p10", "p50", "p90",
+                "max");
+        for (Ability ability : ABILITIES) {
+            writeRow(out, ability.name(), summary.getAbilityScores(ability));
+        }
+        for (Skill skill : SKILLS) {
+            writeRow(out, skill.name(), summary.getSkillBonuses(skill));
+        }
+        writeRow(out, "ARMOR_CLASS", summary.getArmorClass());
+        writeRow(out, "LEVEL", summary.getLevels());
+        QuantileSketch hitPoints = summary.getHitPoints();
+        out.printf(Locale.ROOT, "  %-20s %8.2f %6d %6.0f %6.0f %6.0f %6d%n", "MAX_HIT_POINTS", hitPoints.getMean(),
+                hitPoints.getMin(), hitPoints.getQuantile(0.1), hitPoints.getQuantile(0.5),
+                hitPoints.getQuantile(0.9), hitPoints.getMax());
+    }
+
+    private static void writeRow(PrintStream out, String name, IntHistogram histogram) {
+        out.printf(Locale.ROOT, "  %-20s %8.2f %6d %6d %6d %6d %6d%n", name, histogram.getMean(),
+                histogram.getMin(), histogram.getQuantile(0.1), histogram.getQuantile(0.5),
+                histogram.getQuantile(0.9), histogram.getMax());
+    }
+
+    /**
+     * Fingerprints a set of trait names, independent of their order: a 64-bit FNV-1a hash of the sorted
+     * names, each followed by a separator no name contains.
+     */
+    static long combinationKey(Collection<String> traitNames) {
+        String[] names = traitNames.toArray(NO_NAMES);
+        Arrays.sort(names);
+        long hash = 0xcbf29ce484222325L;
+        for (String name : names) {
+            for (int i = 0; i < name.length(); i++) {
+                hash ^= name.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            hash ^= 0xffff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,215 @@
+package chargen.analytics;
+
+/**
+ * A quantile sketch with relative error, for statistics with a wide range such as hit points.
+ * <p>
+ * Values are counted in logarithmic buckets, as in DDSketch: a positive value {@code v} falls in bucket
+ * {@code ceil(log(v) / log(gamma))} with {@code gamma = (1 + a) / (1 - a)}, so every value in a bucket is
+ * within the relative accuracy {@code a} of the bucket's representative value. Negative values are counted
+ * the same way by magnitude, and zeros on their own. The buckets cover the whole {@code int} range and are
+ * allocated up front (about 1,100 counters per sign at 1% accuracy), so memory does not grow with the
+ * number of values.
+ * <p>
+ * Buckets are computed with {@link StrictMath}, so sketches built on different machines agree, and merging
+ * adds counters, so sketches of any partition of the values merge, in any order, to exactly the sketch of
+ * them all. The count, mean, minimum and maximum are exact.
+ * <p>
+ * Sketches are not thread-safe; give each thread its own and merge them.
+ */
+public final class QuantileSketch {
+
+    /** The relative accuracy used by default: 1%. */
+    public static final double DEFAULT_RELATIVE_ACCURACY = 0.01;
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+    private final long[] positive;
+    // Allocated on the first negative value; most statistics never have one.
+    private long[] negative;
+    private long zeros;
+    private long count;
+    private long sum;
+    private int min = Integer.MAX_VALUE;
+    private int max = Integer.MIN_VALUE;
+
+    /**
+     * Creates an empty sketch with the default relative accuracy.
+     */
+    public QuantileSketch() {
+        this(DEFAULT_RELATIVE_ACCURACY);
+    }
+
+    /**
+     * Creates an empty sketch.
+     *
+     * @param relativeAccuracy How far, relative to the true value, a quantile may be off; above 0 and below 1.
+     * @throws IllegalArgumentException if the accuracy is out of range.
+     */
+    public QuantileSketch(double relativeAccuracy) {
+        if (!(relativeAccuracy > 0 && relativeAccuracy < 1)) {
+            throw new IllegalArgumentException("relativeAccuracy must be above 0 and below 1: " + relativeAccuracy);
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = StrictMath.log(gamma);
+        // Integer.MIN_VALUE has the largest magnitude of all.
+        this.positive = new long[bucketOf(-(long) Integer.MIN_VALUE) + 1];
+    }
+
+    /**
+     * Returns the relative accuracy of the sketch.
+     *
+     * @return The relative accuracy.
+     */
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    /**
+     * Counts one value.
+     *
+     * @param value The value.
+     */
+    public void add(int value) {
+        if (value > 0) {
+            positive[bucketOf(value)]++;
+        } else if (value < 0) {
+            if (negative == null) {
+                negative = new long[positive.length];
+            }
+            negative[bucketOf(-(long) value)]++;
+        } else {
+            zeros++;
+        }
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds the values of another sketch to this one.
+     *
+     * @param other A sketch with the same relative accuracy.
+     * @throws IllegalArgumentException if the accuracies differ.
+     */
+    public void merge(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge sketches with relative accuracy " + relativeAccuracy
+                    + " and " + other.relativeAccuracy);
+        }
+        add(positive, other.positive);
+        if (other.negative != null) {
+            if (negative == null) {
+                negative = new long[positive.length];
+            }
+            add(negative, other.negative);
+        }
+        zeros += other.zeros;
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    private static void add(long[] counts, long[] others) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += others[i];
+        }
+    }
+
+    /**
+     * Returns the number of values counted.
+     *
+     * @return The number of values.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the smallest value counted.
+     *
+     * @return The minimum, or 0 if the sketch is empty.
+     */
+    public int getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    /**
+     * Returns the largest value counted.
+     *
+     * @return The maximum, or 0 if the sketch is empty.
+     */
+    public int getMax() {
+        return count == 0 ? 0 : max;
+    }
+
+    /**
+     * Returns the mean of the values counted.
+     *
+     * @return The exact mean, or 0 if the sketch is empty.
+     */
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Returns a quantile: an estimate of the value at position {@code floor(q * (count - 1))} of the values in
+     * sorted order, within the relative accuracy of it.
+     *
+     * @param q The quantile, from 0 (the minimum) to 1 (the maximum).
+     * @return The estimate, or 0 if the sketch is empty.
+     * @throws IllegalArgumentException if q is not between 0 and 1.
+     */
+    public double getQuantile(double q) {
+        long rank = rank(q, count);
+        if (rank < 0) {
+            return 0;
+        }
+        long seen = 0;
+        if (negative != null) {
+            for (int i = negative.length - 1; i >= 0; i--) {
+                seen += negative[i];
+                if (seen > rank) {
+                    return clamp(-valueOf(i));
+                }
+            }
+        }
+        seen += zeros;
+        if (seen > rank) {
+            return 0;
+        }
+        for (int i = 0; i < positive.length; i++) {
+            seen += positive[i];
+            if (seen > rank) {
+                return clamp(valueOf(i));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns the position in sorted order of a quantile of {@code count} values, or -1 if there are none.
+     */
+    static long rank(double q, long count) {
+        if (!(q >= 0 && q <= 1)) {
+            throw new IllegalArgumentException("q must be between 0 and 1: " + q);
+        }
+        return count == 0 ? -1 : (long) (q * (count - 1));
+    }
+
+    private int bucketOf(long magnitude) {
+        return (int) Math.ceil(StrictMath.log(magnitude) / logGamma);
+    }
+
+    // The point of a bucket with equal relative distance to both of its ends.
+    private double valueOf(int bucket) {
+        return 2 * StrictMath.pow(gamma, bucket) / (gamma + 1);
+    }
+
+    private double clamp(double value) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,144 @@
+package chargen.analytics;
+
+import chargen.model.Ability;
+import chargen.model.CharacterSheet;
+import chargen.model.Skill;
+
+/**
+ * The distributions of the main statistics of a group of characters: an exact {@link IntHistogram} for
+ * each ability score, skill bonus, Armor Class and level, and a {@link QuantileSketch} for maximum hit
+ * points, whose range grows with level and Constitution.
+ * <p>
+ * Memory is fixed when the summary is created. Summaries with the same hit point accuracy merge, in any
+ * order, to exactly the summary of all their characters. Summaries are not thread-safe.
+ */
+public final class StatSummary {
+
+    private static final Ability[] ABILITIES = Ability.values();
+    private static final Skill[] SKILLS = Skill.values();
+    private static final int MIN_SCORE = 1;
+    private static final int MAX_SCORE = 30;
+    private static final int MIN_BONUS = -10;
+    private static final int MAX_BONUS = 30;
+    private static final int MAX_ARMOR_CLASS = 40;
+    private static final int MAX_LEVEL = 20;
+
+    private final IntHistogram[] abilityScores = new IntHistogram[ABILITIES.length];
+    private final IntHistogram[] skillBonuses = new IntHistogram[SKILLS.length];
+    private final IntHistogram armorClass = new IntHistogram(0, MAX_ARMOR_CLASS);
+    private final IntHistogram levels = new IntHistogram(1, MAX_LEVEL);
+    private final QuantileSketch hitPoints;
+
+    /**
+     * Creates an empty summary.
+     *
+     * @param hitPointAccuracy The relative accuracy of hit point quantiles.
+     * @throws IllegalArgumentException if the accuracy is not above 0 and below 1.
+     */
+    public StatSummary(double hitPointAccuracy) {
+        for (int i = 0; i < abilityScores.length; i++) {
+            abilityScores[i] = new IntHistogram(MIN_SCORE, MAX_SCORE);
+        }
+        for (int i = 0; i < skillBonuses.length; i++) {
+            skillBonuses[i] = new IntHistogram(MIN_BONUS, MAX_BONUS);
+        }
+        this.hitPoints = new QuantileSketch(hitPointAccuracy);
+    }
+
+    /**
+     * Counts one character.
+     *
+     * @param sheet The character.
+     */
+    public void add(CharacterSheet sheet) {
+        for (Ability ability : ABILITIES) {
+            Integer score = sheet.getAbilityScores().get(ability);
+            if (score != null) {
+                abilityScores[ability.ordinal()].add(score);
+            }
+        }
+        for (Skill skill : SKILLS) {
+            Integer bonus = sheet.getSkillBonuses().get(skill);
+            if (bonus != null) {
+                skillBonuses[skill.ordinal()].add(bonus);
+            }
+        }
+        armorClass.add(sheet.getArmorClass());
+        levels.add(sheet.getLevel());
+        hitPoints.add(sheet.getMaxHitPoints());
+    }
+
+    /**
+     * Adds the characters of another summary to this one.
+     *
+     * @param other A summary with the same hit point accuracy.
+     * @throws IllegalArgumentException if the accuracies differ.
+     */
+    public void merge(StatSummary other) {
+        hitPoints.merge(other.hitPoints);
+        for (int i = 0; i < abilityScores.length; i++) {
+            abilityScores[i].merge(other.abilityScores[i]);
+        }
+        for (int i = 0; i < skillBonuses.length; i++) {
+            skillBonuses[i].merge(other.skillBonuses[i]);
+        }
+        armorClass.merge(other.armorClass);
+        levels.merge(other.levels);
+    }
+
+    /**
+     * Returns the number of characters counted.
+     *
+     * @return The number of characters.
+     */
+    public long getCount() {
+        return levels.getCount();
+    }
+
+    /**
+     * Returns the distribution of one ability score.
+     *
+     * @param ability The ability.
+     * @return The histogram; read it, but do not add to it.
+     */
+    public IntHistogram getAbilityScores(Ability ability) {
+        return abilityScores[ability.ordinal()];
+    }
+
+    /**
+     * Returns the distribution of one skill's total bonus.
+     *
+     * @param skill The skill.
+     * @return The histogram; read it, but do not add to it.
+     */
+    public IntHistogram getSkillBonuses(Skill skill) {
+        return skillBonuses[skill.ordinal()];
+    }
+
+    /**
+     * Returns the distribution of Armor Class.
+     *
+     * @return The histogram; read it, but do not add to it.
+     */
+    public IntHistogram getArmorClass() {
+        return armorClass;
+    }
+
+    /**
+     * Returns the distribution of level.
+     *
+     * @return The histogram; read it, but do not add to it.
+     */
+    public IntHistogram getLevels() {
+        return levels;
+    }
+
+    /**
+     * Returns the distribution of maximum hit points.
+     *
+     * @return The sketch; read it, but do not add to it.
+     */
+    public QuantileSketch getHitPoints() {
+        return hitPoints;
+    }
+}
@@ -3,12 +3,199 @@
  */
 package chargen.cli;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+import chargen.activity.BatchGenerator;
+import chargen.activity.CharacterGenerator;
+import chargen.activity.Population;
+import chargen.analytics.PopulationAnalytics;
+import chargen.metrics.Metrics;
+import chargen.service.TraitCatalogLoader;
+import chargen.service.TraitService;
+import chargen.store.CharacterStore;
+
+/**
+ * Headless batch generator: rolls characters in parallel and streams them out as NDJSON.
+ * <p>
+ * Usage: {@code App [--count N] [--seed S] [--first I] [--threads T] [--output FILE] [--store DIR]
+ * [--report FILE] [--traits DIR] [--metrics FILE]}
+ * <p>
+ * Characters go to standard output unless {@code --output} is given, or are appended to a
+ * {@link CharacterStore} with {@code --store}; everything else goes to standard error. The same seed and
+ * count always produce the same characters, whatever the thread count. With {@code --first}, the characters
+ * are instead indexes {@code I} to {@code I + N - 1} of the seed's {@link Population}, each determined by the
+ * seed and its index alone, so a large population can be generated in shards. With {@code --report}, the
+ * characters are not kept at all: their statistics are gathered as they are generated (see
+ * {@link PopulationAnalytics}) and written as a text report to a file or, for {@code -}, to standard
+ * output. With {@code --metrics}, the {@link Metrics} registry is dumped once the batch is done, to a file or,
+ * for {@code -}, to standard error.
+ */
 public class App {
-    public String getGreeting() {
-        return "Hello World!";
+
+    private static final String USAGE =
+            "Usage: App [--count N] [--seed S] [--first I] [--threads T] [--output FILE] [--store DIR]"
+                    + " [--report FILE] [--traits DIR] [--metrics FILE]";
+
+    private long count = 10;
+    private long seed = System.nanoTime();
+    // The first population index to generate, or -1 for a seeded batch.
+    private long first = -1;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private Path output;
+    private Path store;
+    private String report;
+    private Path traitsDirectory;
+    private String metrics;
+
+    /**
+     * Parses command-line options.
+     *
+     * @param args The options.
+     * @return The configured application.
+     * @throws IllegalArgumentException if an option is unknown, missing its value or out of range.
+     */
+    public static App parse(String... args) {
+        App app = new App();
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--count" -> app.count = parseLong(option, value, 0, Long.MAX_VALUE);
+                case "--seed" -> app.seed = parseLong(option, value, Long.MIN_VALUE, Long.MAX_VALUE);
+                case "--first" -> app.first = parseLong(option, value, 0, Long.MAX_VALUE);
+                case "--threads" -> app.threads = (int) parseLong(option, value, 1, Integer.MAX_VALUE);
+                case "--output" -> app.output = Path.of(value);
+                case "--store" -> app.store = Path.of(value);
+                case "--report" -> app.report = value;
+                case "--traits" -> app.traitsDirectory = Path.of(value);
+                case "--metrics" -> app.metrics = value;
+                default -> throw new IllegalArgumentException("Unknown option " + option);
+            }
+        }
+        if ((app.output != null ? 1 : 0) + (app.store != null ? 1 : 0) + (app.report != null ? 1 : 0) > 1) {
+            throw new IllegalArgumentException("Only one of --output, --store and --report can be given");
+        }
+        if (app.first > Long.MAX_VALUE - app.count) {
+            throw new IllegalArgumentException("--first plus --count runs past the last index");
+        }
+        return app;
+    }
+
+    private static long parseLong(String option, String value, long min, long max) {
+        long parsed;
+        try {
+            parsed = Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(option + " expects a number: " + value, e);
+        }
+        if (parsed < min || parsed > max) {
+            throw new IllegalArgumentException(option + " is out of range: " + value);
+        }
+        return parsed;
+    }
+
+    /**
+     * Generates the configured batch.
+     *
+     * @param stdout The stream to write to when no output file or store was given; flushed, not closed.
+     * @throws IOException if the traits directory cannot be read or the output, store or metrics file cannot
+     *         be written.
+     */
+    public void run(OutputStream stdout) throws IOException {
+        TraitService traitService = traitsDirectory == null
+                ? new TraitService()
+                : new TraitService(new TraitCatalogLoader(ForkJoinPool.commonPool()).addDirectory(traitsDirectory));
+        CharacterGenerator generator = new CharacterGenerator(traitService);
+        BatchGenerator batch = new BatchGenerator(generator, threads);
+        Population population = first < 0 ? null : new Population(generator, seed);
+
+        System.err.println("App: Generating " + count + " characters with seed " + seed
+                + (population == null ? "" : " from index " + first) + " on " + threads + " threads");
+        if (report != null) {
+            PopulationAnalytics analytics = population == null
+                    ? batch.analyze(count, seed, PopulationAnalytics::new)
+                    : batch.analyze(population, first, count, PopulationAnalytics::new);
+            writeReport(analytics, stdout);
+        } else if (store != null) {
+            try (CharacterStore characterStore = CharacterStore.open(store)) {
+                long firstId = characterStore.size();
+                if (population == null) {
+                    batch.generate(count, seed, characterStore::append);
+                } else {
+                    batch.generate(population, first, count, characterStore::append);
+                }
+                System.err.println("App: Appended " + (characterStore.size() - firstId) + " characters to " + store
+                        + ", starting at id " + firstId);
+            }
+        } else if (output == null) {
+            write(batch, population, stdout);
+        } else {
+            try (OutputStream out = Files.newOutputStream(output)) {
+                write(batch, population, out);
+            }
+        }
+        dumpMetrics();
+    }
+
+    private void write(BatchGenerator batch, Population population, OutputStream out) throws IOException {
+        if (population == null) {
+            batch.generate(count, seed, out);
+        } else {
+            batch.generate(population, first, count, out);
+        }
+    }
+
+    private void writeReport(PopulationAnalytics analytics, OutputStream stdout) throws IOException {
+        if ("-".equals(report)) {
+            PrintStream out = new PrintStream(stdout, false, StandardCharsets.UTF_8);
+            analytics.writeReport(out);
+            out.flush();
+            return;
+        }
+        try (PrintStream out = new PrintStream(Files.newOutputStream(Path.of(report)), false,
+                StandardCharsets.UTF_8)) {
+            analytics.writeReport(out);
+        }
+    }
+
+    private void dumpMetrics() throws IOException {
+        if (metrics == null) {
+            return;
+        }
+        if ("-".equals(metrics)) {
+            Metrics.dump(System.err);
+            return;
+        }
+        try (PrintStream out = new PrintStream(Files.newOutputStream(Path.of(metrics)), false,
+                StandardCharsets.UTF_8)) {
+            Metrics.dump(out);
+        }
     }
 
     public static void main(String[] args) {
-        System.out.println(new App().getGreeting());
+        App app;
+        try {
+            app = parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        try {
+            app.run(System.out);
+        } catch (IOException e) {
+            System.err.println("Character generation failed: " + e.getMessage());
+            System.exit(1);
+        }
     }
 }
@@ -0,0 +1,63 @@
+package chargen.cli;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Hands values computed on background threads to the UI thread, keeping only the newest.
+ * <p>
+ * At most one update is queued on the UI executor ({@code Platform::runLater} in the application) at a
+ * time. Values published while it waits replace each other, and the update applies whichever is newest
+ * when it runs. A burst of results therefore costs the UI thread one layout pass, not one per result.
+ *
+ * @param <T> The type of the published values.
+ */
+final class CoalescingUpdater<T> {
+
+    private final Executor uiExecutor;
+    private final Consumer<? super T> apply;
+    private final AtomicReference<T> latest = new AtomicReference<>();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong applied = new AtomicLong();
+
+    CoalescingUpdater(Executor uiExecutor, Consumer<? super T> apply) {
+        this.uiExecutor = Objects.requireNonNull(uiExecutor, "uiExecutor cannot be null");
+        this.apply = Objects.requireNonNull(apply, "apply cannot be null");
+    }
+
+    /**
+     * Publishes a value from any thread.
+     */
+    void publish(T value) {
+        Objects.requireNonNull(value, "value cannot be null");
+        published.incrementAndGet();
+        if (latest.getAndSet(value) == null) {
+            uiExecutor.execute(this::flush);
+        }
+    }
+
+    private void flush() {
+        T value = latest.getAndSet(null);
+        if (value != null) {
+            applied.incrementAndGet();
+            apply.accept(value);
+        }
+    }
+
+    /**
+     * Returns the number of values published.
+     */
+    long getPublishedCount() {
+        return published.get();
+    }
+
+    /**
+     * Returns the number of values applied; the rest were overtaken by newer ones.
+     */
+    long getAppliedCount() {
+        return applied.get();
+    }
+}
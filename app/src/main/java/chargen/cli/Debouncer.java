@@ -0,0 +1,64 @@
+package chargen.cli;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs only the last of a burst of tasks, once nothing new has been submitted for a quiet period. A spinner
+ * held down or a word typed into a filter then costs one recompute instead of one per keystroke.
+ * <p>
+ * Tasks run on the given scheduler, never on the calling thread, so submitting from the FX Application
+ * Thread never blocks it.
+ */
+final class Debouncer {
+
+    /**
+     * Runs a task once a delay has passed, e.g. on a {@link ScheduledExecutorService}; tests pass one driven
+     * by a manual clock.
+     */
+    @FunctionalInterface
+    interface Scheduler {
+        Future<?> schedule(Runnable task, long delayNanos);
+    }
+
+    private final Scheduler scheduler;
+    private final long delayNanos;
+    private final AtomicLong skipped = new AtomicLong();
+    private Future<?> pending;
+
+    Debouncer(ScheduledExecutorService executor, Duration delay) {
+        this(schedulerOf(executor), delay);
+    }
+
+    Debouncer(Scheduler scheduler, Duration delay) {
+        this.scheduler = Objects.requireNonNull(scheduler, "scheduler cannot be null");
+        this.delayNanos = delay.toNanos();
+    }
+
+    private static Scheduler schedulerOf(ScheduledExecutorService executor) {
+        Objects.requireNonNull(executor, "executor cannot be null");
+        return (task, delayNanos) -> executor.schedule(task, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Schedules a task after the quiet period, replacing the one still waiting, if any.
+     */
+    synchronized void submit(Runnable task) {
+        Objects.requireNonNull(task, "task cannot be null");
+        if (pending != null && pending.cancel(false)) {
+            skipped.incrementAndGet();
+        }
+        pending = scheduler.schedule(task, delayNanos);
+    }
+
+    /**
+     * Returns the number of tasks that were replaced before they ran.
+     */
+    long getSkippedCount() {
+        return skipped.get();
+    }
+}
@@ -0,0 +1,90 @@
+package chargen.cli;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import chargen.metrics.LatencyHistogram;
+import chargen.metrics.Metrics;
+import javafx.animation.AnimationTimer;
+import javafx.scene.control.Label;
+
+/**
+ * A corner label showing frame rate and frame times, plus whatever the controller adds (recompute times,
+ * update counts). Frames are timed by an {@link AnimationTimer}, which JavaFX calls once per pulse, so the
+ * gap between calls is the frame time. The timer only runs while the overlay is shown, and the text is
+ * refreshed a few times a second rather than every frame.
+ */
+final class DebugOverlay {
+
+    private static final LatencyHistogram FRAME_TIME = Metrics.histogram("ui.frame");
+    private static final int WINDOW = 120;
+    private static final long REFRESH_NANOS = 250_000_000L;
+
+    private final Label label;
+    private final Supplier<String> details;
+    // The last WINDOW frame times, as a ring.
+    private final long[] frames = new long[WINDOW];
+    private int frameCount;
+    private long lastFrame;
+    private long lastRefresh;
+
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            if (lastFrame != 0) {
+                long frame = now - lastFrame;
+                frames[frameCount++ % WINDOW] = frame;
+                FRAME_TIME.record(frame);
+            }
+            lastFrame = now;
+            if (now - lastRefresh >= REFRESH_NANOS) {
+                lastRefresh = now;
+                refresh();
+            }
+        }
+    };
+
+    DebugOverlay(Label label, Supplier<String> details) {
+        this.label = Objects.requireNonNull(label, "label cannot be null");
+        this.details = Objects.requireNonNull(details, "details cannot be null");
+        label.setVisible(false);
+        label.setMouseTransparent(true);
+    }
+
+    /**
+     * Shows the overlay if hidden, hides it if shown.
+     */
+    void toggle() {
+        boolean show = !label.isVisible();
+        label.setVisible(show);
+        if (show) {
+            lastFrame = 0;
+            frameCount = 0;
+            timer.start();
+        } else {
+            timer.stop();
+        }
+    }
+
+    void stop() {
+        timer.stop();
+    }
+
+    private void refresh() {
+        int count = Math.min(frameCount, WINDOW);
+        if (count == 0) {
+            return;
+        }
+        long[] window = Arrays.copyOf(frames, count);
+        Arrays.sort(window);
+        long total = 0;
+        for (long frame : window) {
+            total += frame;
+        }
+        double mean = (double) total / count;
+        label.setText(String.format("%.0f fps   frame p50 %.1f ms, p99 %.1f ms, max %.1f ms%n%s", 1e9 / mean,
+                window[count / 2] / 1e6, window[Math.min(count - 1, (int) Math.ceil(count * 0.99) - 1)] / 1e6,
+                window[count - 1] / 1e6, details.get()));
+    }
+}
@@ -1,16 +1,279 @@
 package chargen.cli;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import chargen.metrics.LatencyHistogram;
+import chargen.metrics.Metrics;
+import chargen.model.Ability;
+import chargen.model.Modifier;
+import chargen.model.Trait;
+import chargen.service.TraitService;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.Spinner;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.MouseButton;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
 
+/**
+ * Controller of the character sheet in {@code scene.fxml}.
+ * <p>
+ * The FX Application Thread only reads controls and applies finished results. Everything else, from loading
+ * the catalog to filtering it and recomputing the sheet, runs on one background worker:
+ * <ol>
+ * <li>an edit snapshots the inputs on the FX thread and hands them to a {@link Debouncer}, so a burst of
+ * edits runs one recompute, on the worker;</li>
+ * <li>the worker publishes the result through a {@link CoalescingUpdater}, which queues at most one
+ * {@link Platform#runLater} at a time and applies only the newest result.</li>
+ * </ol>
+ * The trait list and the tables are virtualized with fixed cell heights, so only the visible rows have cells
+ * and nothing is measured per item. The full catalog is shown by wrapping its list, never by copying it.
+ * F3 toggles a {@link DebugOverlay} with frame times, recompute times and update counts.
+ */
 public class FXMLController {
 
+    private static final Ability[] ABILITIES = Ability.values();
+    private static final Duration DEBOUNCE = Duration.ofMillis(50);
+    private static final int MAX_FILTER_RESULTS = 500;
+    private static final double CELL_HEIGHT = 24;
+    private static final LatencyHistogram RECOMPUTE_TIME = Metrics.histogram("ui.recompute");
+    private static final LatencyHistogram QUERY_TIME = Metrics.histogram("ui.query");
+
+    @FXML
+    private HBox abilityBox;
+    @FXML
+    private Spinner<Integer> levelSpinner;
+    @FXML
+    private TextField filterField;
+    @FXML
+    private ListView<Trait> traitList;
+    @FXML
+    private ListView<String> chosenList;
+    @FXML
+    private TableView<Modifier> modifierTable;
+    @FXML
+    private TableView<SheetCalculator.Row> statTable;
+    @FXML
+    private Label statusLabel;
     @FXML
-    private Label label;
+    private Label debugLabel;
 
+    private final List<Spinner<Integer>> abilitySpinners = new ArrayList<>();
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "chargen-fx-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Debouncer recomputeDebouncer = new Debouncer(worker, DEBOUNCE);
+    private final Debouncer filterDebouncer = new Debouncer(worker, DEBOUNCE);
+    private final CoalescingUpdater<List<SheetCalculator.Row>> statUpdates =
+            new CoalescingUpdater<>(Platform::runLater, rows -> statTable.getItems().setAll(rows));
+    private final CoalescingUpdater<List<Trait>> traitUpdates = new CoalescingUpdater<>(Platform::runLater,
+            traits -> traitList.setItems(FXCollections.observableList(traits)));
+    private final AtomicLong lastRecomputeNanos = new AtomicLong();
+    private final AtomicLong lastQueryNanos = new AtomicLong();
+    // Written once by the worker; read by the worker afterwards, so no further synchronization is needed.
+    private TraitService traitService;
+    private SheetCalculator calculator;
+    private DebugOverlay debugOverlay;
+
+    @FXML
     public void initialize() {
-        String javaVersion = System.getProperty("java.version");
-        String javafxVersion = System.getProperty("javafx.version");
-        label.setText("Hello, JavaFX " + javafxVersion + "\nRunning on Java " + javaVersion + ".");
+        for (Ability ability : ABILITIES) {
+            Spinner<Integer> spinner = new Spinner<>(1, 30, 10);
+            spinner.setPrefWidth(72);
+            spinner.valueProperty().addListener((observable, previous, value) -> scheduleRecompute());
+            abilitySpinners.add(spinner);
+            Label label = new Label(ability.name().substring(0, 3));
+            abilityBox.getChildren().add(new VBox(2, label, spinner));
+        }
+        levelSpinner.valueProperty().addListener((observable, previous, value) -> scheduleRecompute());
+
+        traitList.setFixedCellSize(CELL_HEIGHT);
+        traitList.setCellFactory(list -> new TraitCell());
+        traitList.getSelectionModel().selectedItemProperty().addListener((observable, previous, trait) ->
+                modifierTable.setItems(trait == null
+                        ? FXCollections.emptyObservableList()
+                        : FXCollections.observableList(trait.getModifiers())));
+        traitList.setOnMouseClicked(event -> {
+            if (event.getButton() == MouseButton.PRIMARY && event.getClickCount() == 2) {
+                chooseSelectedTrait();
+            }
+        });
+        traitList.setOnKeyPressed(event -> {
+            if (event.getCode() == KeyCode.ENTER) {
+                chooseSelectedTrait();
+            }
+        });
+        chosenList.setFixedCellSize(CELL_HEIGHT);
+        chosenList.setOnKeyPressed(event -> {
+            if (event.getCode() == KeyCode.DELETE || event.getCode() == KeyCode.BACK_SPACE) {
+                removeChosenTrait();
+            }
+        });
+
+        modifierTable.setFixedCellSize(CELL_HEIGHT);
+        modifierTable.getColumns().setAll(List.of(
+                column("Target", modifier -> modifier.getTarget().name()),
+                column("Qualifier", Modifier::getTargetQualifier),
+                column("Operation", modifier -> modifier.getOperation().name()),
+                column("Value", modifier -> String.valueOf(modifier.getValue())),
+                column("Source", Modifier::getSourceId)));
+        statTable.setFixedCellSize(CELL_HEIGHT);
+        statTable.getColumns().setAll(List.of(
+                column("Statistic", SheetCalculator.Row::getName),
+                column("Value", SheetCalculator.Row::getValue)));
+
+        filterField.textProperty().addListener((observable, previous, text) -> {
+            String query = text.strip();
+            filterDebouncer.submit(() -> filter(query));
+        });
+        debugOverlay = new DebugOverlay(debugLabel, this::debugDetails);
+
+        statusLabel.setText("Loading traits...");
+        worker.execute(this::loadCatalog);
+    }
+
+    /**
+     * Shows or hides the debug overlay.
+     */
+    public void toggleDebugOverlay() {
+        debugOverlay.toggle();
+    }
+
+    /**
+     * Stops the background worker and the overlay's frame timer; called when the window closes.
+     */
+    public void shutdown() {
+        debugOverlay.stop();
+        worker.shutdownNow();
+    }
+
+    // --- FX Application Thread ---
+
+    private void scheduleRecompute() {
+        int[] scores = new int[ABILITIES.length];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = abilitySpinners.get(i).getValue();
+        }
+        int level = levelSpinner.getValue();
+        List<String> traitNames = List.copyOf(chosenList.getItems());
+        recomputeDebouncer.submit(() -> recompute(scores, level, traitNames));
+    }
+
+    private void chooseSelectedTrait() {
+        Trait trait = traitList.getSelectionModel().getSelectedItem();
+        if (trait != null && !chosenList.getItems().contains(trait.getName())) {
+            chosenList.getItems().add(trait.getName());
+            scheduleRecompute();
+        }
+    }
+
+    private void removeChosenTrait() {
+        int index = chosenList.getSelectionModel().getSelectedIndex();
+        if (index >= 0) {
+            chosenList.getItems().remove(index);
+            scheduleRecompute();
+        }
+    }
+
+    private String debugDetails() {
+        return String.format("recompute %.2f ms (p99 %.2f ms)   query %.2f ms (p99 %.2f ms)%n"
+                + "updates %d published, %d applied   edits debounced %d",
+                lastRecomputeNanos.get() / 1e6, RECOMPUTE_TIME.getPercentileNanos(99) / 1e6,
+                lastQueryNanos.get() / 1e6, QUERY_TIME.getPercentileNanos(99) / 1e6,
+                statUpdates.getPublishedCount() + traitUpdates.getPublishedCount(),
+                statUpdates.getAppliedCount() + traitUpdates.getAppliedCount(),
+                recomputeDebouncer.getSkippedCount() + filterDebouncer.getSkippedCount());
+    }
+
+    private static <S> TableColumn<S, String> column(String title, Function<S, String> value) {
+        TableColumn<S, String> column = new TableColumn<>(title);
+        column.setCellValueFactory(cell -> new ReadOnlyStringWrapper(value.apply(cell.getValue())));
+        column.setSortable(false);
+        return column;
+    }
+
+    // --- Worker thread ---
+
+    private void loadCatalog() {
+        try {
+            traitService = new TraitService();
+            calculator = new SheetCalculator(traitService);
+        } catch (RuntimeException e) {
+            Platform.runLater(() -> statusLabel.setText("Could not load traits: " + e.getMessage()));
+            return;
+        }
+        int size = traitService.getAllTraits().size();
+        Platform.runLater(() -> {
+            statusLabel.setText(size + " traits");
+            scheduleRecompute();
+        });
+        filter("");
+    }
+
+    private void filter(String query) {
+        if (traitService == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        List<Trait> traits;
+        if (query.isEmpty()) {
+            traits = traitService.getAllTraits();
+        } else {
+            // Name completions first, then description matches, without repeats.
+            Set<Trait> matches = new LinkedHashSet<>(traitService.completeTraitName(query, MAX_FILTER_RESULTS));
+            for (Trait trait : traitService.searchDescriptions(query, MAX_FILTER_RESULTS)) {
+                if (matches.size() == MAX_FILTER_RESULTS) {
+                    break;
+                }
+                matches.add(trait);
+            }
+            traits = List.copyOf(matches);
+        }
+        long elapsed = System.nanoTime() - start;
+        lastQueryNanos.set(elapsed);
+        QUERY_TIME.record(elapsed);
+        traitUpdates.publish(traits);
+    }
+
+    private void recompute(int[] scores, int level, List<String> traitNames) {
+        if (calculator == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        List<SheetCalculator.Row> rows = calculator.compute(scores, level, traitNames);
+        long elapsed = System.nanoTime() - start;
+        lastRecomputeNanos.set(elapsed);
+        RECOMPUTE_TIME.record(elapsed);
+        statUpdates.publish(rows);
+    }
+
+    /**
+     * A trait list cell that only swaps its text when reused, so scrolling the catalog creates no nodes.
+     */
+    private static final class TraitCell extends ListCell<Trait> {
+        @Override
+        protected void updateItem(Trait trait, boolean empty) {
+            super.updateItem(trait, empty);
+            setText(empty || trait == null ? null : trait.getName());
+        }
     }
 }
@@ -4,22 +4,39 @@ import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.scene.input.KeyCode;
 import javafx.stage.Stage;
 
 public class MainApp extends Application {
 
+    private FXMLController controller;
+
     @Override
     public void start(Stage stage) throws Exception {
-        Parent root = FXMLLoader.load(getClass().getResource("scene.fxml"));
+        FXMLLoader loader = new FXMLLoader(getClass().getResource("scene.fxml"));
+        Parent root = loader.load();
+        controller = loader.getController();
 
         Scene scene = new Scene(root);
         scene.getStylesheets().add(getClass().getResource("styles.css").toExternalForm());
+        scene.setOnKeyPressed(event -> {
+            if (event.getCode() == KeyCode.F3) {
+                controller.toggleDebugOverlay();
+            }
+        });
 
-        stage.setTitle("JavaFX and Gradle");
+        stage.setTitle("Character Generator");
         stage.setScene(scene);
         stage.show();
     }
 
+    @Override
+    public void stop() {
+        if (controller != null) {
+            controller.shutdown();
+        }
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
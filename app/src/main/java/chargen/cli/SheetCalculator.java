@@ -0,0 +1,130 @@
+package chargen.cli;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+import chargen.engine.StatGraph;
+import chargen.engine.StatProgram;
+import chargen.model.Ability;
+import chargen.model.MovementType;
+import chargen.model.Sense;
+import chargen.model.Skill;
+import chargen.service.TraitService;
+
+/**
+ * Derives the rows of the character sheet from what the user has entered. Pure computation with no
+ * JavaFX types, so the controller can run it on a background thread and hand only the finished rows to
+ * the FX Application Thread.
+ */
+final class SheetCalculator {
+
+    private static final Ability[] ABILITIES = Ability.values();
+    private static final Skill[] SKILLS = Skill.values();
+    private static final MovementType[] MOVEMENT_TYPES = MovementType.values();
+    private static final Sense[] SENSES = Sense.values();
+    private static final int HIT_DIE = 8;
+
+    private final TraitService traitService;
+
+    SheetCalculator(TraitService traitService) {
+        this.traitService = Objects.requireNonNull(traitService, "traitService cannot be null");
+    }
+
+    /**
+     * Computes the sheet for a set of base scores, a level and the chosen traits. Unknown trait names are
+     * ignored, e.g. ones dropped by a catalog reload.
+     */
+    List<Row> compute(int[] baseScores, int level, List<String> traitNames) {
+        StatGraph graph = new StatGraph();
+        graph.setLevel(level);
+        // The same hit points as generated characters: maximum die at first level, rounded-up average after.
+        graph.setBaseHitPoints(HIT_DIE + (level - 1) * (HIT_DIE / 2 + 1));
+        for (Ability ability : ABILITIES) {
+            graph.setBaseAbilityScore(ability, baseScores[ability.ordinal()]);
+        }
+        for (String name : traitNames) {
+            StatProgram program = traitService.getProgramByName(name);
+            if (program != null) {
+                graph.addProgram(program);
+            }
+        }
+
+        List<Row> rows = new ArrayList<>(ABILITIES.length + SKILLS.length + 16);
+        for (Ability ability : ABILITIES) {
+            int modifier = graph.getAbilityModifier(ability);
+            rows.add(new Row(label(ability), graph.getAbilityScore(ability) + " (" + signed(modifier) + ")"));
+        }
+        rows.add(new Row("Proficiency bonus", signed(graph.getProficiencyBonus())));
+        rows.add(new Row("Armor class", Integer.toString(graph.getArmorClass())));
+        rows.add(new Row("Hit points", Integer.toString(graph.getMaxHitPoints())));
+        rows.add(new Row("Initiative", signed(graph.getInitiative())));
+        rows.add(new Row("Passive perception", Integer.toString(graph.getPassivePerception())));
+        for (MovementType movementType : MOVEMENT_TYPES) {
+            int speed = graph.getSpeed(movementType);
+            if (speed != 0) {
+                rows.add(new Row(label(movementType) + " speed", speed + " ft."));
+            }
+        }
+        for (Sense sense : SENSES) {
+            int range = graph.getSenseRange(sense);
+            if (range != 0) {
+                rows.add(new Row(label(sense), range + " ft."));
+            }
+        }
+        for (Skill skill : SKILLS) {
+            rows.add(new Row(label(skill), signed(graph.getSkillBonus(skill))));
+        }
+        return Collections.unmodifiableList(rows);
+    }
+
+    private static String signed(int value) {
+        return value >= 0 ? "+" + value : Integer.toString(value);
+    }
+
+    /**
+     * Turns a constant name into a label, e.g. SLEIGHT_OF_HAND into "Sleight of hand".
+     */
+    static String label(Enum<?> constant) {
+        String words = constant.name().replace('_', ' ').toLowerCase(Locale.ROOT);
+        return Character.toUpperCase(words.charAt(0)) + words.substring(1);
+    }
+
+    /**
+     * One line of the sheet.
+     */
+    static final class Row {
+        private final String name;
+        private final String value;
+
+        Row(String name, String value) {
+            this.name = name;
+            this.value = value;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        String getValue() {
+            return value;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Row row && name.equals(row.name) && value.equals(row.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode() * 31 + value.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return name + ": " + value;
+        }
+    }
+}
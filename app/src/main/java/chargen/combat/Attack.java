@@ -0,0 +1,137 @@
+package chargen.combat;
+
+import java.util.List;
+import java.util.Objects;
+
+import chargen.dice.DiceExpression;
+import chargen.dice.DiceTerm;
+import chargen.model.DamageType;
+
+/**
+ * One attack a {@link Combatant} makes each round: a d20 attack roll against Armor Class, then damage of one
+ * type if it hits. A natural 20 hits and doubles the damage dice; a natural 1 misses.
+ * <p>
+ * Damage is written as a dice expression with at most one kind of die, e.g. {@code "1d8+3"} or, for a die
+ * rerolled at or below a face, {@code "2d6r2+4"}. Dice that are kept or dropped are not supported. Instances
+ * are immutable.
+ */
+public final class Attack {
+
+    private final String name;
+    private final int attackBonus;
+    private final DiceExpression damage;
+    private final int diceCount;
+    private final int diceSides;
+    private final int rerollAtOrBelow;
+    private final int damageBonus;
+    private final DamageType damageType;
+
+    /**
+     * Creates an attack.
+     *
+     * @param name The attack's name, e.g. "Longsword".
+     * @param attackBonus The bonus added to the d20 attack roll.
+     * @param damage The damage dice expression, e.g. "1d8+3".
+     * @param damageType The type of damage dealt.
+     * @throws IllegalArgumentException if the damage expression is invalid, has more than one kind of die,
+     *         subtracts dice, or keeps or drops dice.
+     */
+    public Attack(String name, int attackBonus, String damage, DamageType damageType) {
+        this.name = Objects.requireNonNull(name, "name cannot be null");
+        this.damageType = Objects.requireNonNull(damageType, "damageType cannot be null");
+        this.attackBonus = attackBonus;
+        DiceExpression expression = DiceExpression.parse(Objects.requireNonNull(damage, "damage cannot be null"));
+        this.damage = expression;
+        List<DiceTerm> terms = expression.getTerms();
+        if (terms.size() > 1) {
+            throw new IllegalArgumentException("Damage must use one kind of die: " + damage);
+        }
+        DiceTerm term = terms.isEmpty() ? null : terms.get(0);
+        if (term != null && (term.isNegative() || term.getKeep() != term.getCount())) {
+            throw new IllegalArgumentException("Damage dice cannot be subtracted, kept or dropped: " + damage);
+        }
+        this.diceCount = term == null ? 0 : term.getCount();
+        this.diceSides = term == null ? 1 : term.getSides();
+        this.rerollAtOrBelow = term == null ? 0 : term.getRerollAtOrBelow();
+        this.damageBonus = expression.getConstant();
+    }
+
+    /**
+     * Returns the attack's name.
+     *
+     * @return The name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the bonus added to the attack roll.
+     *
+     * @return The attack bonus.
+     */
+    public int getAttackBonus() {
+        return attackBonus;
+    }
+
+    /**
+     * Returns the number of damage dice rolled on a hit; doubled on a critical hit.
+     *
+     * @return The damage dice count.
+     */
+    public int getDiceCount() {
+        return diceCount;
+    }
+
+    /**
+     * Returns the number of faces on each damage die.
+     *
+     * @return The die size.
+     */
+    public int getDiceSides() {
+        return diceSides;
+    }
+
+    /**
+     * Returns the compiled damage dice rolled on an ordinary hit.
+     *
+     * @return The damage expression.
+     */
+    public DiceExpression getDamage() {
+        return damage;
+    }
+
+    /**
+     * Returns the face at or below which a damage die is rerolled once.
+     *
+     * @return The reroll threshold, 0 if damage dice are never rerolled.
+     */
+    public int getRerollAtOrBelow() {
+        return rerollAtOrBelow;
+    }
+
+    /**
+     * Returns the flat damage added on a hit.
+     *
+     * @return The damage bonus.
+     */
+    public int getDamageBonus() {
+        return damageBonus;
+    }
+
+    /**
+     * Returns the type of damage dealt.
+     *
+     * @return The damage type.
+     */
+    public DamageType getDamageType() {
+        return damageType;
+    }
+
+    @Override
+    public String toString() {
+        return name + " " + (attackBonus < 0 ? "" : "+") + attackBonus + " (" + diceCount + "d" + diceSides
+                + (rerollAtOrBelow > 0 ? "r" + rerollAtOrBelow : "") + (damageBonus < 0 ? "" : "+") + damageBonus
+                + " " + damageType + ")";
+    }
+}
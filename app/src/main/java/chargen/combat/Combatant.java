@@ -0,0 +1,304 @@
+package chargen.combat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import chargen.engine.StatGraph;
+import chargen.engine.StatLayout;
+import chargen.engine.StatProgram;
+import chargen.model.Ability;
+import chargen.model.CharacterSheet;
+import chargen.model.DamageType;
+import chargen.model.ModifierTarget;
+import chargen.model.WeaponProperty;
+import chargen.service.TraitService;
+
+/**
+ * One side's fighter in an {@link Encounter}: hit points, Armor Class, initiative, the attacks it makes each
+ * round, how it takes each damage type, and how it rolls its d20s.
+ * <p>
+ * A combatant is either a stat block put together with {@link #builder(String)}, or a generated character
+ * armed with a weapon through {@link #fromCharacter(CharacterSheet, TraitService, String, String, DamageType,
+ * Set)}, which reads resistances and rerolls off the character's traits. Instances are immutable.
+ */
+public final class Combatant {
+
+    private static final DamageType[] DAMAGE_TYPES = DamageType.values();
+
+    private final String name;
+    private final int maxHitPoints;
+    private final int armorClass;
+    private final int initiativeBonus;
+    private final List<Attack> attacks;
+    private final int[] resistances;
+    private final int d20RerollAtMost;
+    private final int advantage;
+
+    private Combatant(Builder builder) {
+        this.name = builder.name;
+        this.maxHitPoints = builder.maxHitPoints;
+        this.armorClass = builder.armorClass;
+        this.initiativeBonus = builder.initiativeBonus;
+        this.attacks = Collections.unmodifiableList(new ArrayList<>(builder.attacks));
+        this.resistances = builder.resistances.clone();
+        this.d20RerollAtMost = builder.d20RerollAtMost;
+        this.advantage = builder.advantage;
+    }
+
+    /**
+     * Starts a stat block.
+     *
+     * @param name The combatant's name.
+     * @return A builder with 1 hit point, Armor Class 10, no attacks and no resistances.
+     */
+    public static Builder builder(String name) {
+        return new Builder(name);
+    }
+
+    /**
+     * Arms a generated character with a weapon. The attack uses Strength, or Dexterity for a ranged weapon,
+     * or the better of the two for a finesse weapon, plus the proficiency bonus and the general
+     * {@code ATTACK_ROLL_FLAT_BONUS} and {@code DAMAGE_ROLL_FLAT_BONUS} of the character's traits. Resistances
+     * come from the traits' {@code DAMAGE_RESISTANCE} modifiers, summed and clamped to -1..2 as described
+     * there, and rerolls from their general {@code D20_REROLL_AT_MOST}; traits missing from the catalog are
+     * ignored.
+     *
+     * @param sheet The character.
+     * @param traitService The catalog the character's traits come from.
+     * @param weaponName The weapon's name.
+     * @param weaponDice The weapon's damage dice, e.g. "1d8".
+     * @param damageType The weapon's damage type.
+     * @param properties The weapon's properties.
+     * @return The combatant, named after the weapon and the character's index.
+     * @throws IllegalArgumentException if the weapon dice are not valid attack damage.
+     */
+    public static Combatant fromCharacter(CharacterSheet sheet, TraitService traitService, String weaponName,
+            String weaponDice, DamageType damageType, Set<WeaponProperty> properties) {
+        StatProgram traits = StatProgram.EMPTY;
+        for (String traitName : sheet.getTraitNames()) {
+            StatProgram program = traitService.getProgramByName(traitName);
+            if (program != null) {
+                traits = traits.merge(program);
+            }
+        }
+        int strength = StatGraph.abilityModifier(sheet.getAbilityScores().getOrDefault(Ability.STRENGTH, 10));
+        int dexterity = StatGraph.abilityModifier(sheet.getAbilityScores().getOrDefault(Ability.DEXTERITY, 10));
+        int modifier = properties.contains(WeaponProperty.FINESSE) ? Math.max(strength, dexterity)
+                : properties.contains(WeaponProperty.RANGED) ? dexterity : strength;
+        int attackBonus = sheet.getProficiencyBonus() + modifier
+                + traits.evaluate(StatLayout.slotOf(ModifierTarget.ATTACK_ROLL_FLAT_BONUS), 0);
+        int damageBonus = modifier + traits.evaluate(StatLayout.slotOf(ModifierTarget.DAMAGE_ROLL_FLAT_BONUS), 0);
+
+        Builder builder = builder("Character " + sheet.getIndex() + " (" + weaponName + ")")
+                .maxHitPoints(sheet.getMaxHitPoints())
+                .armorClass(sheet.getArmorClass())
+                .initiativeBonus(sheet.getInitiative())
+                .d20RerollAtMost(Math.max(0, Math.min(19,
+                        traits.evaluate(StatLayout.slotOf(ModifierTarget.D20_REROLL_AT_MOST), 0))))
+                .attack(new Attack(weaponName, attackBonus, weaponDice
+                        + (damageBonus < 0 ? "" : "+") + damageBonus, damageType));
+        for (DamageType type : DAMAGE_TYPES) {
+            builder.resistance(type, Math.max(-1, Math.min(2, traits.evaluate(StatLayout.slotOf(type), 0))));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the combatant's name.
+     *
+     * @return The name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the hit points the combatant starts every encounter with.
+     *
+     * @return The hit point maximum.
+     */
+    public int getMaxHitPoints() {
+        return maxHitPoints;
+    }
+
+    /**
+     * Returns the Armor Class attacks must meet to hit.
+     *
+     * @return The Armor Class.
+     */
+    public int getArmorClass() {
+        return armorClass;
+    }
+
+    /**
+     * Returns the bonus added to the initiative roll.
+     *
+     * @return The initiative bonus.
+     */
+    public int getInitiativeBonus() {
+        return initiativeBonus;
+    }
+
+    /**
+     * Returns the attacks made each round, in order.
+     *
+     * @return The attacks.
+     */
+    public List<Attack> getAttacks() {
+        return attacks;
+    }
+
+    /**
+     * Returns how damage of a type is taken, as for {@link ModifierTarget#DAMAGE_RESISTANCE}.
+     *
+     * @param damageType The damage type.
+     * @return 0 for normal damage, 1 for resistance, 2 or more for immunity, -1 or less for vulnerability.
+     */
+    public int getResistance(DamageType damageType) {
+        return resistances[damageType.ordinal()];
+    }
+
+    /**
+     * Returns the face at or below which the combatant rerolls a d20 once.
+     *
+     * @return The reroll threshold, 0 if d20s are never rerolled.
+     */
+    public int getD20RerollAtMost() {
+        return d20RerollAtMost;
+    }
+
+    /**
+     * Returns whether the combatant's attack rolls have advantage or disadvantage.
+     *
+     * @return 1 for advantage, -1 for disadvantage, 0 for neither.
+     */
+    public int getAdvantage() {
+        return advantage;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (HP " + maxHitPoints + ", AC " + armorClass + ", " + attacks + ")";
+    }
+
+    /**
+     * Builder for {@link Combatant}.
+     */
+    public static final class Builder {
+        private final String name;
+        private int maxHitPoints = 1;
+        private int armorClass = 10;
+        private int initiativeBonus;
+        private final List<Attack> attacks = new ArrayList<>();
+        private final int[] resistances = new int[DAMAGE_TYPES.length];
+        private int d20RerollAtMost;
+        private int advantage;
+
+        private Builder(String name) {
+            this.name = Objects.requireNonNull(name, "name cannot be null");
+        }
+
+        /**
+         * Sets the starting hit points; 1 by default.
+         *
+         * @param maxHitPoints The hit points, 1 or more.
+         * @return This builder.
+         * @throws IllegalArgumentException if maxHitPoints is below 1.
+         */
+        public Builder maxHitPoints(int maxHitPoints) {
+            if (maxHitPoints < 1) {
+                throw new IllegalArgumentException("maxHitPoints must be at least 1: " + maxHitPoints);
+            }
+            this.maxHitPoints = maxHitPoints;
+            return this;
+        }
+
+        /**
+         * Sets the Armor Class; 10 by default.
+         *
+         * @param armorClass The Armor Class.
+         * @return This builder.
+         */
+        public Builder armorClass(int armorClass) {
+            this.armorClass = armorClass;
+            return this;
+        }
+
+        /**
+         * Sets the initiative bonus; 0 by default.
+         *
+         * @param initiativeBonus The bonus.
+         * @return This builder.
+         */
+        public Builder initiativeBonus(int initiativeBonus) {
+            this.initiativeBonus = initiativeBonus;
+            return this;
+        }
+
+        /**
+         * Adds an attack made each round, after those already added.
+         *
+         * @param attack The attack.
+         * @return This builder.
+         */
+        public Builder attack(Attack attack) {
+            attacks.add(Objects.requireNonNull(attack, "attack cannot be null"));
+            return this;
+        }
+
+        /**
+         * Sets how damage of a type is taken.
+         *
+         * @param damageType The damage type.
+         * @param level 0 for normal damage, 1 for resistance, 2 or more for immunity, -1 or less for
+         *        vulnerability.
+         * @return This builder.
+         */
+        public Builder resistance(DamageType damageType, int level) {
+            resistances[damageType.ordinal()] = level;
+            return this;
+        }
+
+        /**
+         * Rerolls every d20 showing this face or less, once; 0, the default, for no rerolls.
+         *
+         * @param face The reroll threshold, from 0 to 19.
+         * @return This builder.
+         * @throws IllegalArgumentException if face is outside 0 to 19.
+         */
+        public Builder d20RerollAtMost(int face) {
+            if (face < 0 || face > 19) {
+                throw new IllegalArgumentException("d20RerollAtMost must be between 0 and 19: " + face);
+            }
+            this.d20RerollAtMost = face;
+            return this;
+        }
+
+        /**
+         * Gives the combatant's attack rolls advantage or disadvantage; neither by default.
+         *
+         * @param advantage 1 for advantage, -1 for disadvantage, 0 for neither.
+         * @return This builder.
+         * @throws IllegalArgumentException if advantage is not -1, 0 or 1.
+         */
+        public Builder advantage(int advantage) {
+            if (advantage < -1 || advantage > 1) {
+                throw new IllegalArgumentException("advantage must be -1, 0 or 1: " + advantage);
+            }
+            this.advantage = advantage;
+            return this;
+        }
+
+        /**
+         * Builds the combatant.
+         *
+         * @return The combatant.
+         */
+        public Combatant build() {
+            return new Combatant(this);
+        }
+    }
+}
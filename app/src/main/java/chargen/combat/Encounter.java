@@ -0,0 +1,56 @@
+package chargen.combat;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Two sides of {@link Combatant}s that fight until one side is down. Instances are immutable.
+ */
+public final class Encounter {
+
+    /**
+     * The two sides of an encounter.
+     */
+    public enum Side {
+        FIRST,
+        SECOND
+    }
+
+    private final List<Combatant> first;
+    private final List<Combatant> second;
+
+    private Encounter(List<Combatant> first, List<Combatant> second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    /**
+     * Creates an encounter.
+     *
+     * @param first The combatants of the first side.
+     * @param second The combatants of the second side.
+     * @return The encounter.
+     * @throws IllegalArgumentException if a side is empty.
+     */
+    public static Encounter of(List<Combatant> first, List<Combatant> second) {
+        if (first.isEmpty() || second.isEmpty()) {
+            throw new IllegalArgumentException("Both sides need at least one combatant");
+        }
+        return new Encounter(List.copyOf(first), List.copyOf(second));
+    }
+
+    /**
+     * Returns the combatants on one side.
+     *
+     * @param side The side.
+     * @return The combatants, in the order given.
+     */
+    public List<Combatant> getCombatants(Side side) {
+        return Objects.requireNonNull(side, "side cannot be null") == Side.FIRST ? first : second;
+    }
+
+    @Override
+    public String toString() {
+        return first + " vs " + second;
+    }
+}
@@ -0,0 +1,174 @@
+package chargen.combat;
+
+import java.util.Locale;
+
+/**
+ * The outcome of many simulated runs of one {@link Encounter}: how often each side won, how much damage each
+ * side dealt per round, and how long fights lasted, each with a 95% confidence interval.
+ * <p>
+ * Win rates use the Wilson score interval, which stays inside [0, 1] and behaves at rates near 0 or 1.
+ * Damage per round is measured per encounter (the damage a side dealt, after resistances and counting
+ * overkill, divided by the rounds fought) and averaged, with a normal interval on the mean.
+ */
+public final class EncounterResult {
+
+    /** The standard normal quantile of a two-sided 95% interval. */
+    static final double Z_95 = 1.959963984540054;
+
+    private final long encounters;
+    private final long[] wins;
+    private final long draws;
+    private final Estimate[] damagePerRound;
+    private final Estimate rounds;
+
+    EncounterResult(long encounters, long[] wins, long draws, Estimate[] damagePerRound, Estimate rounds) {
+        this.encounters = encounters;
+        this.wins = wins.clone();
+        this.draws = draws;
+        this.damagePerRound = damagePerRound.clone();
+        this.rounds = rounds;
+    }
+
+    /**
+     * Returns the number of encounters simulated.
+     *
+     * @return The encounter count.
+     */
+    public long getEncounters() {
+        return encounters;
+    }
+
+    /**
+     * Returns how many encounters a side won.
+     *
+     * @param side The side.
+     * @return The win count.
+     */
+    public long getWins(Encounter.Side side) {
+        return wins[side.ordinal()];
+    }
+
+    /**
+     * Returns how many encounters ended with both sides standing after
+     * {@link EncounterSimulator#MAX_ROUNDS} rounds.
+     *
+     * @return The draw count.
+     */
+    public long getDraws() {
+        return draws;
+    }
+
+    /**
+     * Returns the fraction of encounters a side won.
+     *
+     * @param side The side.
+     * @return The win rate, with its Wilson score interval.
+     */
+    public Estimate getWinRate(Encounter.Side side) {
+        return Estimate.proportion(wins[side.ordinal()], encounters);
+    }
+
+    /**
+     * Returns the average damage a side dealt per round.
+     *
+     * @param side The side.
+     * @return The damage per round, with the interval of its mean.
+     */
+    public Estimate getDamagePerRound(Encounter.Side side) {
+        return damagePerRound[side.ordinal()];
+    }
+
+    /**
+     * Returns the average number of rounds fought.
+     *
+     * @return The rounds per encounter, with the interval of its mean.
+     */
+    public Estimate getRounds() {
+        return rounds;
+    }
+
+    @Override
+    public String toString() {
+        return encounters + " encounters: first wins " + getWinRate(Encounter.Side.FIRST) + ", second wins "
+                + getWinRate(Encounter.Side.SECOND) + ", DPR " + damagePerRound[0] + " vs " + damagePerRound[1]
+                + ", rounds " + rounds;
+    }
+
+    /**
+     * An estimated value with a 95% confidence interval.
+     */
+    public static final class Estimate {
+        private final double value;
+        private final double low;
+        private final double high;
+
+        Estimate(double value, double low, double high) {
+            this.value = value;
+            this.low = low;
+            this.high = high;
+        }
+
+        static Estimate proportion(long successes, long trials) {
+            if (trials == 0) {
+                return new Estimate(Double.NaN, 0, 1);
+            }
+            double p = (double) successes / trials;
+            double z2 = Z_95 * Z_95;
+            double denominator = 1 + z2 / trials;
+            double centre = (p + z2 / (2 * trials)) / denominator;
+            double margin = Z_95 * Math.sqrt(p * (1 - p) / trials + z2 / (4.0 * trials * trials)) / denominator;
+            return new Estimate(p, Math.max(0, centre - margin), Math.min(1, centre + margin));
+        }
+
+        static Estimate mean(long count, double mean, double sumOfSquares) {
+            if (count == 0) {
+                return new Estimate(Double.NaN, Double.NaN, Double.NaN);
+            }
+            double margin = count < 2 ? Double.POSITIVE_INFINITY
+                    : Z_95 * Math.sqrt(sumOfSquares / (count - 1) / count);
+            return new Estimate(mean, mean - margin, mean + margin);
+        }
+
+        /**
+         * Returns the point estimate.
+         *
+         * @return The estimated value; NaN if nothing was measured.
+         */
+        public double getValue() {
+            return value;
+        }
+
+        /**
+         * Returns the lower end of the 95% confidence interval.
+         *
+         * @return The lower bound.
+         */
+        public double getLow() {
+            return low;
+        }
+
+        /**
+         * Returns the upper end of the 95% confidence interval.
+         *
+         * @return The upper bound.
+         */
+        public double getHigh() {
+            return high;
+        }
+
+        /**
+         * Returns whether the confidence interval contains a value.
+         *
+         * @param candidate The value.
+         * @return {@code true} if the value lies within the interval.
+         */
+        public boolean contains(double candidate) {
+            return candidate >= low && candidate <= high;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%.4f [%.4f, %.4f]", value, low, high);
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package chargen.combat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.random.RandomGenerator;
+
+import chargen.activity.CounterRandom;
+import chargen.dice.DiceExpression;
+import chargen.metrics.Counter;
+import chargen.metrics.LatencyHistogram;
+import chargen.metrics.Metrics;
+import chargen.model.DamageType;
+
+/**
+ * Runs an {@link Encounter} many times over and reports win rates and damage per round.
+ * <p>
+ * Each run rolls initiative (a d20 plus the initiative bonus, ties broken at random), then goes round by
+ * round in initiative order. On its turn a standing combatant makes each of its attacks against the standing
+ * enemy with the fewest hit points. Attack rolls apply advantage or disadvantage and the attacker's d20
+ * reroll to each die; a natural 20 is a critical hit that doubles the damage dice, and a natural 1 misses.
+ * Damage is halved (rounded down) by resistance, doubled by vulnerability and ignored by immunity. A run ends
+ * when one side is down, or as a draw after {@link #MAX_ROUNDS} rounds.
+ * <p>
+ * The encounter is compiled once into flat {@code int} arrays and {@link DiceExpression}s: each combatant's
+ * initiative and attack d20 (e.g. {@code 2d20kh1r1} for a Lucky attacker with advantage) and each attack's
+ * normal and critical damage. Each worker reuses a handful of scratch arrays for hit points, turn order and
+ * the dice, so a run allocates nothing but its random generator. Run {@code i}
+ * draws only from {@link CounterRandom#of(long, long) CounterRandom.of(seed, i)}, and runs are split into
+ * ranges on a fixed binary tree whose partial results are merged in order, so the result for a seed is the
+ * same whatever the pool's parallelism. Runs are counted in {@code combat.encounters} and each call is timed
+ * into {@code combat.simulate}.
+ */
+public final class EncounterSimulator {
+
+    /** The most rounds a run lasts before it is called a draw. */
+    public static final int MAX_ROUNDS = 100;
+
+    // Runs per leaf task: large enough to amortise the scratch arrays, small enough to balance the pool.
+    private static final int RUNS_PER_TASK = 1024;
+    private static final int DAMAGE_TYPES = DamageType.values().length;
+    private static final int FIRST = 0;
+    private static final int SECOND = 1;
+    private static final int DRAW = -1;
+    private static final Counter ENCOUNTERS = Metrics.counter("combat.encounters");
+    private static final LatencyHistogram SIMULATE_TIME = Metrics.histogram("combat.simulate");
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a simulator that runs on the common pool.
+     */
+    public EncounterSimulator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a simulator.
+     *
+     * @param pool The pool to run on.
+     */
+    public EncounterSimulator(ForkJoinPool pool) {
+        this.pool = Objects.requireNonNull(pool, "pool cannot be null");
+    }
+
+    /**
+     * Runs an encounter a number of times.
+     *
+     * @param encounter The encounter.
+     * @param runs The number of runs, 0 or more.
+     * @param seed The seed that determines every run.
+     * @return The statistics over all runs.
+     * @throws IllegalArgumentException if runs is negative.
+     */
+    public EncounterResult simulate(Encounter encounter, long runs, long seed) {
+        if (runs < 0) {
+            throw new IllegalArgumentException("runs must not be negative: " + runs);
+        }
+        long start = Metrics.startTimer();
+        Plan plan = new Plan(encounter);
+        Tally tally = pool.invoke(new Runs(plan, seed, 0, runs));
+        SIMULATE_TIME.recordSince(start);
+        return tally.result();
+    }
+
+    /**
+     * An encounter flattened into arrays indexed by combatant, first side first, and by attack.
+     */
+    private static final class Plan {
+        final int size;
+        final int[] side;
+        final int[] maxHitPoints;
+        final int[] armorClass;
+        final int[] initiativeBonus;
+        final DiceExpression[] initiativeRoll;
+        final DiceExpression[] attackRoll;
+        // Indexed [combatant * DAMAGE_TYPES + damage type ordinal].
+        final int[] resistance;
+        // Combatant c's attacks are attackStart[c] up to attackStart[c + 1].
+        final int[] attackStart;
+        final int[] attackBonus;
+        final DiceExpression[] damage;
+        final DiceExpression[] criticalDamage;
+        final int[] damageType;
+        final int[] sideSize = new int[2];
+        final int scratchSize;
+
+        Plan(Encounter encounter) {
+            List<Combatant> combatants = new ArrayList<>(encounter.getCombatants(Encounter.Side.FIRST));
+            sideSize[FIRST] = combatants.size();
+            combatants.addAll(encounter.getCombatants(Encounter.Side.SECOND));
+            size = combatants.size();
+            sideSize[SECOND] = size - sideSize[FIRST];
+            side = new int[size];
+            maxHitPoints = new int[size];
+            armorClass = new int[size];
+            initiativeBonus = new int[size];
+            initiativeRoll = new DiceExpression[size];
+            attackRoll = new DiceExpression[size];
+            resistance = new int[size * DAMAGE_TYPES];
+            attackStart = new int[size + 1];
+            List<Attack> attacks = new ArrayList<>();
+            for (int c = 0; c < size; c++) {
+                Combatant combatant = combatants.get(c);
+                side[c] = c < sideSize[FIRST] ? FIRST : SECOND;
+                maxHitPoints[c] = combatant.getMaxHitPoints();
+                armorClass[c] = combatant.getArmorClass();
+                initiativeBonus[c] = combatant.getInitiativeBonus();
+                String reroll = combatant.getD20RerollAtMost() > 0 ? "r" + combatant.getD20RerollAtMost() : "";
+                initiativeRoll[c] = DiceExpression.parse("1d20" + reroll);
+                int advantage = combatant.getAdvantage();
+                attackRoll[c] = DiceExpression.parse((advantage > 0 ? "2d20kh1" : advantage < 0 ? "2d20kl1" : "1d20")
+                        + reroll);
+                for (DamageType type : DamageType.values()) {
+                    resistance[c * DAMAGE_TYPES + type.ordinal()] = combatant.getResistance(type);
+                }
+                attackStart[c] = attacks.size();
+                attacks.addAll(combatant.getAttacks());
+            }
+            attackStart[size] = attacks.size();
+            attackBonus = new int[attacks.size()];
+            damage = new DiceExpression[attacks.size()];
+            criticalDamage = new DiceExpression[attacks.size()];
+            damageType = new int[attacks.size()];
+            for (int a = 0; a < attacks.size(); a++) {
+                Attack attack = attacks.get(a);
+                attackBonus[a] = attack.getAttackBonus();
+                damage[a] = attack.getDamage();
+                criticalDamage[a] = attack.getDiceCount() == 0 ? attack.getDamage()
+                        : DiceExpression.parse(2 * attack.getDiceCount() + "d" + attack.getDiceSides()
+                                + (attack.getRerollAtOrBelow() > 0 ? "r" + attack.getRerollAtOrBelow() : "")
+                                + (attack.getDamageBonus() < 0 ? "" : "+") + attack.getDamageBonus());
+                damageType[a] = attack.getDamageType().ordinal();
+            }
+            int most = 0;
+            for (DiceExpression roll : attackRoll) {
+                most = Math.max(most, roll.getScratchSize());
+            }
+            scratchSize = most;
+        }
+    }
+
+    /**
+     * Simulates a range of runs, splitting it in half until it is small enough to run directly.
+     */
+    private static final class Runs extends RecursiveTask<Tally> {
+        private final Plan plan;
+        private final long seed;
+        private final long from;
+        private final long to;
+
+        Runs(Plan plan, long seed, long from, long to) {
+            this.plan = plan;
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Tally compute() {
+            if (to - from <= RUNS_PER_TASK) {
+                Fight fight = new Fight(plan);
+                Tally tally = new Tally();
+                for (long run = from; run < to; run++) {
+                    fight.run(CounterRandom.of(seed, run), tally);
+                }
+                ENCOUNTERS.add(to - from);
+                return tally;
+            }
+            long middle = from + (to - from) / 2;
+            Runs left = new Runs(plan, seed, from, middle);
+            left.fork();
+            Tally right = new Runs(plan, seed, middle, to).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    /**
+     * The scratch state of one worker: everything a run changes, kept in primitive arrays reused run to run.
+     */
+    private static final class Fight {
+        private final Plan plan;
+        private final int[] hitPoints;
+        private final int[] order;
+        private final int[] initiative;
+        private final int[] standing = new int[2];
+        private final long[] damage = new long[2];
+        private final int[] dice;
+
+        Fight(Plan plan) {
+            this.plan = plan;
+            this.dice = new int[plan.scratchSize];
+            this.hitPoints = new int[plan.size];
+            this.order = new int[plan.size];
+            this.initiative = new int[plan.size];
+        }
+
+        void run(RandomGenerator random, Tally tally) {
+            rollInitiative(random);
+            System.arraycopy(plan.maxHitPoints, 0, hitPoints, 0, plan.size);
+            standing[FIRST] = plan.sideSize[FIRST];
+            standing[SECOND] = plan.sideSize[SECOND];
+            damage[FIRST] = 0;
+            damage[SECOND] = 0;
+            int rounds = 0;
+            while (standing[FIRST] > 0 && standing[SECOND] > 0 && rounds < MAX_ROUNDS) {
+                rounds++;
+                for (int turn = 0; turn < plan.size && standing[FIRST] > 0 && standing[SECOND] > 0; turn++) {
+                    int attacker = order[turn];
+                    if (hitPoints[attacker] > 0) {
+                        takeTurn(random, attacker);
+                    }
+                }
+            }
+            int winner = standing[SECOND] == 0 ? FIRST : standing[FIRST] == 0 ? SECOND : DRAW;
+            tally.add(winner, (double) damage[FIRST] / rounds, (double) damage[SECOND] / rounds, rounds);
+        }
+
+        private void rollInitiative(RandomGenerator random) {
+            for (int c = 0; c < plan.size; c++) {
+                // The low bits break ties at random.
+                initiative[c] = (plan.initiativeRoll[c].rollOnce(random, dice) + plan.initiativeBonus[c]) * 64
+                        + random.nextInt(64);
+                int i = c;
+                while (i > 0 && initiative[order[i - 1]] < initiative[c]) {
+                    order[i] = order[i - 1];
+                    i--;
+                }
+                order[i] = c;
+            }
+        }
+
+        private void takeTurn(RandomGenerator random, int attacker) {
+            int enemySide = 1 - plan.side[attacker];
+            for (int a = plan.attackStart[attacker]; a < plan.attackStart[attacker + 1]; a++) {
+                int target = weakestStanding(enemySide);
+                if (target < 0) {
+                    return;
+                }
+                int roll = plan.attackRoll[attacker].rollOnce(random, dice);
+                boolean critical = roll == 20;
+                if (roll == 1 || !critical && roll + plan.attackBonus[a] < plan.armorClass[target]) {
+                    continue;
+                }
+                int dealt = resist(rollDamage(random, a, critical),
+                        plan.resistance[target * DAMAGE_TYPES + plan.damageType[a]]);
+                damage[plan.side[attacker]] += dealt;
+                hitPoints[target] -= dealt;
+                if (hitPoints[target] <= 0) {
+                    standing[enemySide]--;
+                }
+            }
+        }
+
+        private int weakestStanding(int side) {
+            int weakest = -1;
+            for (int c = 0; c < plan.size; c++) {
+                if (plan.side[c] == side && hitPoints[c] > 0 && (weakest < 0 || hitPoints[c] < hitPoints[weakest])) {
+                    weakest = c;
+                }
+            }
+            return weakest;
+        }
+
+        private int rollDamage(RandomGenerator random, int attack, boolean critical) {
+            DiceExpression roll = critical ? plan.criticalDamage[attack] : plan.damage[attack];
+            return Math.max(0, roll.rollOnce(random, dice));
+        }
+
+        private static int resist(int damage, int level) {
+            if (level >= 2) {
+                return 0;
+            }
+            if (level == 1) {
+                return damage / 2;
+            }
+            return level < 0 ? damage * 2 : damage;
+        }
+    }
+
+    /**
+     * Running totals over a range of runs: win counts, and Welford means and sums of squared deviations for
+     * damage per round and rounds, merged pairwise with Chan's formula.
+     */
+    private static final class Tally {
+        private long runs;
+        private final long[] wins = new long[2];
+        private long draws;
+        private final double[] means = new double[3];
+        private final double[] squares = new double[3];
+
+        void add(int winner, double firstDamage, double secondDamage, int rounds) {
+            runs++;
+            if (winner == DRAW) {
+                draws++;
+            } else {
+                wins[winner]++;
+            }
+            update(0, firstDamage);
+            update(1, secondDamage);
+            update(2, rounds);
+        }
+
+        private void update(int measure, double value) {
+            double delta = value - means[measure];
+            means[measure] += delta / runs;
+            squares[measure] += delta * (value - means[measure]);
+        }
+
+        Tally merge(Tally other) {
+            long total = runs + other.runs;
+            if (other.runs > 0) {
+                for (int m = 0; m < means.length; m++) {
+                    double delta = other.means[m] - means[m];
+                    means[m] += delta * other.runs / total;
+                    squares[m] += other.squares[m] + delta * delta * runs * other.runs / total;
+                }
+            }
+            runs = total;
+            wins[FIRST] += other.wins[FIRST];
+            wins[SECOND] += other.wins[SECOND];
+            draws += other.draws;
+            return this;
+        }
+
+        EncounterResult result() {
+            EncounterResult.Estimate[] damagePerRound = {
+                EncounterResult.Estimate.mean(runs, means[0], squares[0]),
+                EncounterResult.Estimate.mean(runs, means[1], squares[1])
+            };
+            return new EncounterResult(runs, wins, draws, damagePerRound,
+                    EncounterResult.Estimate.mean(runs, means[2], squares[2]));
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package chargen.dice;
+
+import java.util.Arrays;
+
+/**
+ * The exact probability of every outcome of a dice expression, as computed by
+ * {@link DiceExpression#distribution()}. Instances are immutable.
+ */
+public final class DiceDistribution {
+
+    private final int min;
+    private final double[] probabilities;
+
+    DiceDistribution(int min, double[] probabilities) {
+        this.min = min;
+        this.probabilities = probabilities;
+    }
+
+    /**
+     * The distribution of a fixed value.
+     */
+    static DiceDistribution constant(int value) {
+        return new DiceDistribution(value, new double[] {1.0});
+    }
+
+    /**
+     * The distribution of the sum of two independent outcomes.
+     */
+    DiceDistribution plus(DiceDistribution other) {
+        double[] sum = new double[probabilities.length + other.probabilities.length - 1];
+        for (int i = 0; i < probabilities.length; i++) {
+            if (probabilities[i] == 0) {
+                continue;
+            }
+            for (int j = 0; j < other.probabilities.length; j++) {
+                sum[i + j] += probabilities[i] * other.probabilities[j];
+            }
+        }
+        return new DiceDistribution(Math.addExact(min, other.min), sum);
+    }
+
+    /**
+     * The distribution of the negated outcome.
+     */
+    DiceDistribution negate() {
+        double[] reversed = new double[probabilities.length];
+        for (int i = 0; i < probabilities.length; i++) {
+            reversed[i] = probabilities[probabilities.length - 1 - i];
+        }
+        return new DiceDistribution(-getMax(), reversed);
+    }
+
+    /**
+     * Returns the lowest possible outcome.
+     *
+     * @return The minimum.
+     */
+    public int getMin() {
+        return min;
+    }
+
+    /**
+     * Returns the highest possible outcome.
+     *
+     * @return The maximum.
+     */
+    public int getMax() {
+        return min + probabilities.length - 1;
+    }
+
+    /**
+     * Returns the probability of rolling exactly a value.
+     *
+     * @param value The outcome.
+     * @return Its probability, 0 if it cannot be rolled.
+     */
+    public double probability(int value) {
+        return value < min || value > getMax() ? 0 : probabilities[value - min];
+    }
+
+    /**
+     * Returns the probability of rolling a value or higher, e.g. of meeting a DC.
+     *
+     * @param value The threshold.
+     * @return The probability of an outcome of at least {@code value}.
+     */
+    public double probabilityAtLeast(int value) {
+        double total = 0;
+        for (int i = Math.max(0, value - min); i < probabilities.length; i++) {
+            total += probabilities[i];
+        }
+        return Math.min(1.0, total);
+    }
+
+    /**
+     * Returns the probability of rolling a value or lower.
+     *
+     * @param value The threshold.
+     * @return The probability of an outcome of at most {@code value}.
+     */
+    public double probabilityAtMost(int value) {
+        return value < min ? 0 : 1.0 - probabilityAtLeast(value + 1);
+    }
+
+    /**
+     * Returns the expected outcome.
+     *
+     * @return The mean.
+     */
+    public double getMean() {
+        double mean = 0;
+        for (int i = 0; i < probabilities.length; i++) {
+            mean += (min + i) * probabilities[i];
+        }
+        return mean;
+    }
+
+    /**
+     * Returns the variance of the outcome.
+     *
+     * @return The variance.
+     */
+    public double getVariance() {
+        double mean = getMean();
+        double variance = 0;
+        for (int i = 0; i < probabilities.length; i++) {
+            double deviation = min + i - mean;
+            variance += deviation * deviation * probabilities[i];
+        }
+        return variance;
+    }
+
+    /**
+     * Returns the probability of every outcome from {@link #getMin()} to {@link #getMax()}.
+     *
+     * @return A copy of the probabilities, indexed by outcome minus the minimum.
+     */
+    public double[] toArray() {
+        return probabilities.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "DiceDistribution[min=" + min + ", probabilities=" + Arrays.toString(probabilities) + "]";
+    }
+}
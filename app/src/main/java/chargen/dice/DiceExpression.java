@@ -0,0 +1,358 @@
+package chargen.dice;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.random.RandomGenerator;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * A compiled dice expression such as {@code "2d6+3"}, {@code "4d6dl1"} or {@code "d20adv"}.
+ * <p>
+ * An expression is a sum of dice terms and whole numbers, e.g. {@code 1d8 + 2d6 - 1}. Each dice term is
+ * {@code [count]d<sides>} followed by any of:
+ * <ul>
+ *   <li>{@code kh<n>} / {@code k<n>}: keep the highest n dice; {@code dl<n>}: drop the lowest n.</li>
+ *   <li>{@code kl<n>}: keep the lowest n dice; {@code dh<n>}: drop the highest n.</li>
+ *   <li>{@code r<n>}: reroll a die showing n or less, once, and keep the new roll
+ *       (the Halfling's Lucky trait is {@code d20r1}).</li>
+ *   <li>{@code adv} / {@code dis}: advantage or disadvantage on a single die, i.e. {@code 2d<sides>kh1} or
+ *       {@code 2d<sides>kl1}.</li>
+ * </ul>
+ * Text is parsed once: {@link #parse(String)} caches recently used compiled expressions by their text, and
+ * catalog loading keeps every dice value it compiles. A compiled expression can then be rolled from any
+ * caller-supplied random generator, one result or a batch at a time; only terms that keep or drop dice need a
+ * scratch buffer, which hot loops can pass in and reuse. It also gives its exact outcome
+ * {@link #distribution()}, computed by convolution on first use and cached. Instances are immutable and thread-safe.
+ */
+public final class DiceExpression {
+
+    /** Most dice in one term. */
+    public static final int MAX_COUNT = 100;
+    /** Most dice in one term that keeps or drops dice, which is costlier to compute exactly. */
+    public static final int MAX_KEEP_COUNT = 20;
+    /** Largest die. */
+    public static final int MAX_SIDES = 1000;
+
+    /** Most compiled expressions kept by {@link #parse(String)}; the least recently used are dropped first. */
+    static final int MAX_PARSED = 4096;
+
+    // Catalogs reuse a handful of expressions, but parse() also sees arbitrary text, so the cache is bounded.
+    private static final Cache<String, DiceExpression> PARSED = CacheBuilder.newBuilder()
+            .maximumSize(MAX_PARSED)
+            .concurrencyLevel(Runtime.getRuntime().availableProcessors())
+            .build();
+
+    private final List<DiceTerm> terms;
+    private final int constant;
+    private static final int[] NO_SCRATCH = new int[0];
+
+    private final int scratchSize;
+    private volatile DiceDistribution distribution;
+
+    private DiceExpression(List<DiceTerm> terms, int constant) {
+        this.terms = List.copyOf(terms);
+        this.constant = constant;
+        int most = 0;
+        for (DiceTerm term : terms) {
+            if (term.getKeep() != term.getCount()) {
+                most = Math.max(most, term.getCount());
+            }
+        }
+        this.scratchSize = most;
+    }
+
+    /**
+     * Returns the compiled form of a dice expression, parsing it only the first time it is seen.
+     *
+     * @param text The expression, e.g. "2d6+3". Case and whitespace are ignored.
+     * @return The compiled expression.
+     * @throws IllegalArgumentException if the text is not a valid dice expression.
+     */
+    public static DiceExpression parse(String text) {
+        Objects.requireNonNull(text, "text cannot be null");
+        DiceExpression expression = PARSED.getIfPresent(text);
+        if (expression == null) {
+            expression = new Parser(text).parse();
+            PARSED.put(text, expression);
+        }
+        return expression;
+    }
+
+    /**
+     * Returns the dice terms, in the order written.
+     *
+     * @return An unmodifiable list of the terms.
+     */
+    public List<DiceTerm> getTerms() {
+        return terms;
+    }
+
+    /**
+     * Returns the sum of the whole-number terms.
+     *
+     * @return The flat part of the expression.
+     */
+    public int getConstant() {
+        return constant;
+    }
+
+    /**
+     * Returns how long a scratch buffer {@link #roll(RandomGenerator, int[], int[])} and
+     * {@link #rollOnce(RandomGenerator, int[])} need: the most dice in a term that keeps or drops dice.
+     *
+     * @return The scratch length, 0 if no term keeps or drops dice.
+     */
+    public int getScratchSize() {
+        return scratchSize;
+    }
+
+    /**
+     * Rolls the expression once.
+     *
+     * @param random The random generator to draw from.
+     * @return The result.
+     */
+    public int roll(RandomGenerator random) {
+        return rollTerms(random, scratch());
+    }
+
+    /**
+     * Rolls the expression once per element of {@code results}, reusing one scratch buffer for all of them.
+     *
+     * @param random The random generator to draw from.
+     * @param results The array to fill with results.
+     */
+    public void roll(RandomGenerator random, int[] results) {
+        roll(random, results, scratch());
+    }
+
+    /**
+     * Rolls the expression once per element of {@code results}, with a caller's scratch buffer.
+     *
+     * @param random The random generator to draw from.
+     * @param results The array to fill with results.
+     * @param scratch A buffer of at least {@link #getScratchSize()} ints, overwritten.
+     * @throws IllegalArgumentException if the scratch buffer is too short.
+     */
+    public void roll(RandomGenerator random, int[] results, int[] scratch) {
+        checkScratch(scratch);
+        for (int i = 0; i < results.length; i++) {
+            results[i] = rollTerms(random, scratch);
+        }
+    }
+
+    /**
+     * Rolls the expression once with a caller's scratch buffer, so that a loop over many rolls allocates
+     * nothing.
+     *
+     * @param random The random generator to draw from.
+     * @param scratch A buffer of at least {@link #getScratchSize()} ints, overwritten.
+     * @return The result.
+     * @throws IllegalArgumentException if the scratch buffer is too short.
+     */
+    public int rollOnce(RandomGenerator random, int[] scratch) {
+        checkScratch(scratch);
+        return rollTerms(random, scratch);
+    }
+
+    private int[] scratch() {
+        return scratchSize == 0 ? NO_SCRATCH : new int[scratchSize];
+    }
+
+    private void checkScratch(int[] scratch) {
+        if (scratch.length < scratchSize) {
+            throw new IllegalArgumentException("Dice expression " + this + " needs " + scratchSize
+                    + " ints of scratch, got " + scratch.length);
+        }
+    }
+
+    private int rollTerms(RandomGenerator random, int[] scratch) {
+        int total = constant;
+        for (DiceTerm term : terms) {
+            total += term.roll(random, scratch);
+        }
+        return total;
+    }
+
+    /**
+     * Returns the exact probability of every outcome, computed on first use and then cached.
+     *
+     * @return The outcome distribution.
+     */
+    public DiceDistribution distribution() {
+        DiceDistribution result = distribution;
+        if (result == null) {
+            result = DiceDistribution.constant(constant);
+            for (DiceTerm term : terms) {
+                result = result.plus(term.distribution());
+            }
+            // Racing threads compute equal distributions, so whichever is stored last is fine.
+            distribution = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the lowest possible result.
+     *
+     * @return The minimum.
+     */
+    public int getMin() {
+        return distribution().getMin();
+    }
+
+    /**
+     * Returns the highest possible result.
+     *
+     * @return The maximum.
+     */
+    public int getMax() {
+        return distribution().getMax();
+    }
+
+    /**
+     * Formats the expression in canonical form, e.g. {@code "2d20kh1+3"} for {@code "d20 adv + 3"}.
+     *
+     * @return The canonical text.
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (DiceTerm term : terms) {
+            text.append(term);
+        }
+        if (constant != 0 || terms.isEmpty()) {
+            text.append(constant < 0 ? "" : "+").append(constant);
+        }
+        return text.charAt(0) == '+' ? text.substring(1) : text.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof DiceExpression && toString().equals(o.toString());
+    }
+
+    @Override
+    public int hashCode() {
+        return toString().hashCode();
+    }
+
+    /**
+     * Recursive-descent parser over the expression text, with spaces removed and lower-cased.
+     */
+    private static final class Parser {
+        private final String original;
+        private final String text;
+        private int pos;
+
+        Parser(String original) {
+            this.original = original;
+            this.text = original.replace(" ", "").toLowerCase(Locale.ROOT);
+        }
+
+        DiceExpression parse() {
+            if (text.isEmpty()) {
+                throw error("is empty");
+            }
+            List<DiceTerm> terms = new ArrayList<>();
+            long constant = 0;
+            boolean first = true;
+            while (pos < text.length()) {
+                boolean negative = false;
+                if (peek() == '+' || peek() == '-') {
+                    negative = text.charAt(pos++) == '-';
+                } else if (!first) {
+                    throw error("expects + or - at position " + pos);
+                }
+                first = false;
+                int count = peek() == 'd' ? 1 : number();
+                if (peek() == 'd') {
+                    pos++;
+                    terms.add(dice(count, number(), negative));
+                } else {
+                    constant += negative ? -count : count;
+                    if (Math.abs(constant) > Integer.MAX_VALUE / 2) {
+                        throw error("has too large a constant");
+                    }
+                }
+            }
+            return new DiceExpression(terms, (int) constant);
+        }
+
+        private DiceTerm dice(int count, int sides, boolean negative) {
+            if (count < 1 || count > MAX_COUNT) {
+                throw error("must roll between 1 and " + MAX_COUNT + " dice");
+            }
+            if (sides < 1 || sides > MAX_SIDES) {
+                throw error("must use dice with between 1 and " + MAX_SIDES + " sides");
+            }
+            int keep = count;
+            boolean keepHighest = true;
+            int reroll = 0;
+            while (pos < text.length() && Character.isLetter(peek())) {
+                if (text.startsWith("adv", pos) || text.startsWith("dis", pos)) {
+                    if (count != 1 || keep != count) {
+                        throw error("only allows advantage or disadvantage on a single die");
+                    }
+                    keepHighest = text.startsWith("adv", pos);
+                    pos += 3;
+                    count = 2;
+                    keep = 1;
+                } else if (text.startsWith("kh", pos) || text.startsWith("kl", pos)) {
+                    keepHighest = text.charAt(pos + 1) == 'h';
+                    pos += 2;
+                    keep = number();
+                } else if (text.startsWith("dl", pos) || text.startsWith("dh", pos)) {
+                    keepHighest = text.charAt(pos + 1) == 'l';
+                    pos += 2;
+                    keep = count - number();
+                } else if (peek() == 'k') {
+                    pos++;
+                    keep = number();
+                } else if (peek() == 'r') {
+                    pos++;
+                    reroll = number();
+                    if (reroll >= sides) {
+                        throw error("would reroll every face of a d" + sides);
+                    }
+                } else {
+                    throw error("has an unknown dice option at position " + pos);
+                }
+            }
+            if (keep < 1 || keep > count) {
+                throw error("must keep between 1 and " + count + " dice");
+            }
+            if (keep != count && count > MAX_KEEP_COUNT) {
+                throw error("can keep or drop dice from at most " + MAX_KEEP_COUNT + " dice");
+            }
+            return new DiceTerm(count, sides, keep, keepHighest, reroll, negative);
+        }
+
+        private int number() {
+            int start = pos;
+            while (pos < text.length() && Character.isDigit(peek())) {
+                pos++;
+            }
+            if (start == pos) {
+                throw error("expects a number at position " + start);
+            }
+            try {
+                return Integer.parseInt(text, start, pos, 10);
+            } catch (NumberFormatException e) {
+                throw error("has too large a number at position " + start);
+            }
+        }
+
+        private char peek() {
+            return pos < text.length() ? text.charAt(pos) : '\0';
+        }
+
+        private IllegalArgumentException error(String problem) {
+            return new IllegalArgumentException("Dice expression '" + original + "' " + problem);
+        }
+    }
+}
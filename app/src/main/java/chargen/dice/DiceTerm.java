@@ -0,0 +1,181 @@
+package chargen.dice;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * One group of identical dice in a {@link DiceExpression}, such as {@code 4d6kh3} or {@code -1d4}: how many
+ * dice are rolled, how many of them are kept, and which faces are rerolled. Instances are immutable.
+ */
+public final class DiceTerm {
+
+    private final int count;
+    private final int sides;
+    private final int keep;
+    private final boolean keepHighest;
+    private final int rerollAtOrBelow;
+    private final boolean negative;
+
+    DiceTerm(int count, int sides, int keep, boolean keepHighest, int rerollAtOrBelow, boolean negative) {
+        this.count = count;
+        this.sides = sides;
+        this.keep = keep;
+        this.keepHighest = keepHighest;
+        this.rerollAtOrBelow = rerollAtOrBelow;
+        this.negative = negative;
+    }
+
+    /**
+     * Returns the number of dice rolled.
+     *
+     * @return The dice count.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the number of faces on each die.
+     *
+     * @return The die size.
+     */
+    public int getSides() {
+        return sides;
+    }
+
+    /**
+     * Returns how many of the rolled dice are added up.
+     *
+     * @return The kept dice count; equal to {@link #getCount()} when every die counts.
+     */
+    public int getKeep() {
+        return keep;
+    }
+
+    /**
+     * Returns whether the highest dice are kept (advantage, {@code kh}, {@code dl}) rather than the lowest.
+     *
+     * @return {@code true} if the highest dice are kept.
+     */
+    public boolean isKeepHighest() {
+        return keepHighest;
+    }
+
+    /**
+     * Returns the face at or below which a die is rerolled once, keeping the new roll.
+     *
+     * @return The reroll threshold, 0 if dice are never rerolled.
+     */
+    public int getRerollAtOrBelow() {
+        return rerollAtOrBelow;
+    }
+
+    /**
+     * Returns whether the term is subtracted from the total.
+     *
+     * @return {@code true} for a subtracted term.
+     */
+    public boolean isNegative() {
+        return negative;
+    }
+
+    int roll(RandomGenerator random, int[] scratch) {
+        int total = 0;
+        if (keep == count) {
+            for (int i = 0; i < count; i++) {
+                total += rollDie(random);
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                scratch[i] = rollDie(random);
+            }
+            Arrays.sort(scratch, 0, count);
+            int from = keepHighest ? count - keep : 0;
+            for (int i = from; i < from + keep; i++) {
+                total += scratch[i];
+            }
+        }
+        return negative ? -total : total;
+    }
+
+    private int rollDie(RandomGenerator random) {
+        int face = 1 + random.nextInt(sides);
+        if (face <= rerollAtOrBelow) {
+            face = 1 + random.nextInt(sides);
+        }
+        return face;
+    }
+
+    /**
+     * Probability of each face of a single die, index 0 unused, after the reroll rule.
+     */
+    private double[] faceProbabilities() {
+        double[] faces = new double[sides + 1];
+        double rerolled = (double) rerollAtOrBelow / sides;
+        for (int face = 1; face <= sides; face++) {
+            faces[face] = (face > rerollAtOrBelow ? 1.0 / sides : 0) + rerolled / sides;
+        }
+        return faces;
+    }
+
+    DiceDistribution distribution() {
+        double[] faces = faceProbabilities();
+        DiceDistribution total;
+        if (keep == count) {
+            DiceDistribution die = new DiceDistribution(1, Arrays.copyOfRange(faces, 1, sides + 1));
+            total = DiceDistribution.constant(0);
+            for (int i = 0; i < count; i++) {
+                total = total.plus(die);
+            }
+        } else {
+            total = keptDistribution(faces);
+        }
+        return negative ? total.negate() : total;
+    }
+
+    /**
+     * Exact distribution of the sum of the kept dice. Faces are visited from the best kept face to the
+     * worst; state[used][sum] is the probability that {@code used} dice show a face visited so far and the
+     * kept ones among them add up to {@code sum}. Adding c dice showing face f to a state is weighted by
+     * C(remaining, c) * p(f)^c, and those dice are kept while kept slots remain.
+     */
+    private DiceDistribution keptDistribution(double[] faces) {
+        int maxSum = keep * sides;
+        double[][] state = new double[count + 1][maxSum + 1];
+        state[0][0] = 1.0;
+        for (int step = 0; step < sides; step++) {
+            int face = keepHighest ? sides - step : step + 1;
+            double[][] next = new double[count + 1][maxSum + 1];
+            for (int used = 0; used <= count; used++) {
+                for (int sum = 0; sum <= maxSum; sum++) {
+                    double p = state[used][sum];
+                    if (p == 0) {
+                        continue;
+                    }
+                    double weight = p;
+                    for (int c = 0; used + c <= count; c++) {
+                        int kept = Math.min(keep, used + c) - Math.min(keep, used);
+                        next[used + c][sum + kept * face] += weight;
+                        weight *= faces[face] * (count - used - c) / (c + 1);
+                    }
+                }
+            }
+            state = next;
+        }
+        double[] sums = state[count];
+        return new DiceDistribution(keep, Arrays.copyOfRange(sums, keep, maxSum + 1));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append(negative ? '-' : '+').append(count).append('d').append(sides);
+        if (rerollAtOrBelow > 0) {
+            text.append('r').append(rerollAtOrBelow);
+        }
+        if (keep != count) {
+            text.append(keepHighest ? "kh" : "kl").append(keep);
+        }
+        return text.toString();
+    }
+}
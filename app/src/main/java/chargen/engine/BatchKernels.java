@@ -0,0 +1,88 @@
+package chargen.engine;
+
+/**
+ * The column kernels {@link CharacterBatch} evaluates with. Every kernel reads and writes the rows
+ * {@code [from, to)} of whole columns, so an implementation is free to process several rows per instruction.
+ * <p>
+ * {@link #best()} picks the SIMD implementation when the {@code jdk.incubator.vector} module has been added
+ * to the JVM ({@code --add-modules jdk.incubator.vector}), and the scalar one otherwise.
+ */
+interface BatchKernels {
+
+    /**
+     * Writes {@code floor((score - 10) / 2)} for each score.
+     *
+     * @param scores The ability score column.
+     * @param modifiers The column to write.
+     * @param from The first row.
+     * @param to The row after the last.
+     */
+    void abilityModifiers(int[] scores, int[] modifiers, int from, int to);
+
+    /**
+     * Writes the ability modifier, plus the proficiency bonus where bit {@code skill} of the row's proficiency
+     * mask is set.
+     *
+     * @param modifiers The modifier column of the skill's ability.
+     * @param proficientSkills The proficiency masks, one bit per {@link chargen.model.Skill} ordinal.
+     * @param skill The skill's ordinal.
+     * @param proficiencyBonuses The proficiency bonus column.
+     * @param bonuses The column to write.
+     * @param from The first row.
+     * @param to The row after the last.
+     */
+    void skillBonuses(int[] modifiers, int[] proficientSkills, int skill, int[] proficiencyBonuses, int[] bonuses,
+            int from, int to);
+
+    /**
+     * Writes {@code a + b}.
+     *
+     * @param a The first operand column.
+     * @param b The second operand column.
+     * @param out The column to write; may be one of the operands.
+     * @param from The first row.
+     * @param to The row after the last.
+     */
+    void add(int[] a, int[] b, int[] out, int from, int to);
+
+    /**
+     * Writes {@code a * b + c}.
+     *
+     * @param a The first factor column.
+     * @param b The second factor column.
+     * @param c The addend column.
+     * @param out The column to write; may be one of the operands.
+     * @param from The first row.
+     * @param to The row after the last.
+     */
+    void multiplyAdd(int[] a, int[] b, int[] c, int[] out, int from, int to);
+
+    /**
+     * Writes {@code max(a, b)}.
+     *
+     * @param a The first operand column.
+     * @param b The second operand column.
+     * @param out The column to write; may be one of the operands.
+     * @param from The first row.
+     * @param to The row after the last.
+     */
+    void max(int[] a, int[] b, int[] out, int from, int to);
+
+    /**
+     * Returns the fastest kernels this JVM can run. Setting the system property {@code chargen.vector} to
+     * {@code false} forces the scalar kernels.
+     *
+     * @return The kernels to use.
+     */
+    static BatchKernels best() {
+        if (!Boolean.parseBoolean(System.getProperty("chargen.vector", "true"))
+                || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return ScalarKernels.INSTANCE;
+        }
+        try {
+            return VectorKernels.INSTANCE;
+        } catch (LinkageError e) {
+            return ScalarKernels.INSTANCE;
+        }
+    }
+}
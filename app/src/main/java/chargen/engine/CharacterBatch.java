@@ -0,0 +1,386 @@
+package chargen.engine;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import chargen.metrics.Counter;
+import chargen.metrics.LatencyHistogram;
+import chargen.metrics.Metrics;
+import chargen.metrics.StatEvaluationEvent;
+import chargen.model.Ability;
+import chargen.model.ModifierTarget;
+import chargen.model.MovementType;
+import chargen.model.Skill;
+
+/**
+ * The core statistics of many characters, stored column by column: one primitive array per ability score,
+ * ability modifier, skill bonus, speed and so on, with one row per character.
+ * <p>
+ * Inputs are set row by row, then {@link #evaluate(int, int)} derives every output for a range of rows in
+ * the same order {@link StatGraph} does, one column at a time, with each row's {@link StatProgram} applied
+ * where StatGraph applies it. The arithmetic runs through {@link BatchKernels}, which use the Vector API
+ * when the JVM has {@code jdk.incubator.vector} and plain loops otherwise; rows are processed in tiles small
+ * enough to keep their columns in cache. Evaluation allocates nothing, so a batch can be refilled and
+ * re-evaluated indefinitely.
+ * <p>
+ * A batch covers the statistics StatGraph derives from ability scores, level and proficiencies; senses,
+ * initiative, passive Perception and spellcasting stay with StatGraph. A batch is not thread-safe, but
+ * disjoint row ranges may be evaluated concurrently once their inputs are set.
+ */
+public final class CharacterBatch {
+
+    private static final Ability[] ABILITIES = Ability.values();
+    private static final Skill[] SKILLS = Skill.values();
+    private static final MovementType[] MOVEMENT_TYPES = MovementType.values();
+    private static final int[] SKILL_ABILITIES = new int[SKILLS.length];
+    private static final int DEXTERITY = Ability.DEXTERITY.ordinal();
+    private static final int CONSTITUTION = Ability.CONSTITUTION.ordinal();
+    private static final int PROFICIENCY_SLOT = StatLayout.slotOf(ModifierTarget.PROFICIENCY_BONUS);
+    private static final int ARMOR_CLASS_SLOT = StatLayout.slotOf(ModifierTarget.ARMOR_CLASS);
+    private static final int MAX_HIT_POINTS_SLOT = StatLayout.slotOf(ModifierTarget.MAX_HIT_POINTS);
+    // Rows per tile: about 40 int columns of 1024 rows stay within a typical L2 cache.
+    private static final int TILE = 1024;
+    private static final LatencyHistogram EVALUATE_TIME = Metrics.histogram("stat.evaluate");
+    private static final Counter EVALUATED_ROWS = Metrics.counter("stat.evaluate.rows");
+
+    static {
+        for (Skill skill : SKILLS) {
+            SKILL_ABILITIES[skill.ordinal()] = skill.getDefaultAbility().orElseThrow().ordinal();
+        }
+    }
+
+    private final int size;
+    private final BatchKernels kernels;
+
+    // Inputs
+    private final int[][] baseScores = new int[ABILITIES.length][];
+    private final int[][] baseSpeeds = new int[MOVEMENT_TYPES.length][];
+    private final int[] levels;
+    private final int[] proficientSkills;
+    private final int[] baseArmorClasses;
+    private final int[] baseHitPoints;
+    private final StatProgram[] programs;
+
+    // Outputs
+    private final int[][] scores = new int[ABILITIES.length][];
+    private final int[][] modifiers = new int[ABILITIES.length][];
+    private final int[][] skillBonuses = new int[SKILLS.length][];
+    private final int[][] speeds = new int[MOVEMENT_TYPES.length][];
+    private final int[] proficiencyBonuses;
+    private final int[] armorClasses;
+    private final int[] maxHitPoints;
+
+    /**
+     * Creates a batch whose rows all start as a level 1 character with every ability score at 10, a walking
+     * speed of 30 and no traits, like a new {@link StatGraph}.
+     *
+     * @param size The number of rows.
+     * @throws IllegalArgumentException if size is negative.
+     */
+    public CharacterBatch(int size) {
+        this(size, BatchKernels.best());
+    }
+
+    CharacterBatch(int size, BatchKernels kernels) {
+        if (size < 0) {
+            throw new IllegalArgumentException("size must not be negative: " + size);
+        }
+        this.size = size;
+        this.kernels = Objects.requireNonNull(kernels, "kernels cannot be null");
+        for (int ability = 0; ability < ABILITIES.length; ability++) {
+            baseScores[ability] = new int[size];
+            scores[ability] = new int[size];
+            modifiers[ability] = new int[size];
+        }
+        for (int movementType = 0; movementType < MOVEMENT_TYPES.length; movementType++) {
+            baseSpeeds[movementType] = new int[size];
+            speeds[movementType] = new int[size];
+        }
+        for (int skill = 0; skill < SKILLS.length; skill++) {
+            skillBonuses[skill] = new int[size];
+        }
+        this.levels = new int[size];
+        this.proficientSkills = new int[size];
+        this.baseArmorClasses = new int[size];
+        this.baseHitPoints = new int[size];
+        this.programs = new StatProgram[size];
+        this.proficiencyBonuses = new int[size];
+        this.armorClasses = new int[size];
+        this.maxHitPoints = new int[size];
+        reset(0, size);
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return The row count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Describes the kernels evaluation runs on, e.g. "vector (256-bit)" or "scalar".
+     *
+     * @return A short description.
+     */
+    public String getKernelDescription() {
+        return kernels.toString();
+    }
+
+    /**
+     * Returns a range of rows to the defaults a new batch starts with. Outputs keep their old values until
+     * the rows are evaluated again.
+     *
+     * @param from The first row.
+     * @param to The row after the last.
+     * @throws IndexOutOfBoundsException if the range is not within the batch.
+     */
+    public void reset(int from, int to) {
+        Objects.checkFromToIndex(from, to, size);
+        for (int[] column : baseScores) {
+            Arrays.fill(column, from, to, 10);
+        }
+        for (int[] column : baseSpeeds) {
+            Arrays.fill(column, from, to, 0);
+        }
+        Arrays.fill(baseSpeeds[MovementType.WALKING.ordinal()], from, to, 30);
+        Arrays.fill(levels, from, to, 1);
+        Arrays.fill(proficientSkills, from, to, 0);
+        Arrays.fill(baseArmorClasses, from, to, 10);
+        Arrays.fill(baseHitPoints, from, to, 8);
+        Arrays.fill(programs, from, to, null);
+    }
+
+    // --- Inputs ---
+
+    /**
+     * Sets a row's ability score before trait modifiers are applied.
+     *
+     * @param row The row.
+     * @param ability The ability.
+     * @param score The rolled or assigned score.
+     */
+    public void setBaseAbilityScore(int row, Ability ability, int score) {
+        baseScores[ability.ordinal()][row] = score;
+    }
+
+    /**
+     * Sets a row's character level.
+     *
+     * @param row The row.
+     * @param level The character level, 1 or higher.
+     * @throws IllegalArgumentException if the level is below 1.
+     */
+    public void setLevel(int row, int level) {
+        if (level < 1) {
+            throw new IllegalArgumentException("Level must be at least 1: " + level);
+        }
+        levels[row] = level;
+    }
+
+    /**
+     * Sets whether a row adds its proficiency bonus to a skill.
+     *
+     * @param row The row.
+     * @param skill The skill.
+     * @param proficient {@code true} if the character is proficient.
+     */
+    public void setProficient(int row, Skill skill, boolean proficient) {
+        int bit = 1 << skill.ordinal();
+        proficientSkills[row] = proficient ? proficientSkills[row] | bit : proficientSkills[row] & ~bit;
+    }
+
+    /**
+     * Sets a row's speed before trait modifiers are applied.
+     *
+     * @param row The row.
+     * @param movementType The movement type.
+     * @param speed The base speed in feet.
+     */
+    public void setBaseSpeed(int row, MovementType movementType, int speed) {
+        baseSpeeds[movementType.ordinal()][row] = speed;
+    }
+
+    /**
+     * Sets a row's Armor Class before the Dexterity modifier and trait modifiers are added.
+     *
+     * @param row The row.
+     * @param armorClass The base Armor Class.
+     */
+    public void setBaseArmorClass(int row, int armorClass) {
+        baseArmorClasses[row] = armorClass;
+    }
+
+    /**
+     * Sets a row's hit points from hit dice, before the Constitution modifier and trait modifiers.
+     *
+     * @param row The row.
+     * @param hitPoints The base hit points.
+     */
+    public void setBaseHitPoints(int row, int hitPoints) {
+        baseHitPoints[row] = hitPoints;
+    }
+
+    /**
+     * Sets the trait modifiers applied to a row, e.g. the merged program of its traits. Programs are only
+     * referenced, so rows with the same traits can share one.
+     *
+     * @param row The row.
+     * @param program The program, or {@code null} for none.
+     */
+    public void setProgram(int row, StatProgram program) {
+        programs[row] = program;
+    }
+
+    // --- Evaluation ---
+
+    /**
+     * Derives every output of every row.
+     */
+    public void evaluate() {
+        evaluate(0, size);
+    }
+
+    /**
+     * Derives every output of a range of rows.
+     *
+     * @param from The first row.
+     * @param to The row after the last.
+     * @throws IndexOutOfBoundsException if the range is not within the batch.
+     */
+    public void evaluate(int from, int to) {
+        Objects.checkFromToIndex(from, to, size);
+        long timer = Metrics.startTimer();
+        StatEvaluationEvent event = new StatEvaluationEvent();
+        event.begin();
+        for (int start = from; start < to; start += TILE) {
+            evaluateTile(start, Math.min(to, start + TILE));
+        }
+        EVALUATE_TIME.recordSince(timer);
+        EVALUATED_ROWS.add(to - from);
+        if (event.shouldCommit()) {
+            event.rows = to - from;
+            event.kernels = kernels.toString();
+            event.commit();
+        }
+    }
+
+    private void evaluateTile(int from, int to) {
+        for (int ability = 0; ability < ABILITIES.length; ability++) {
+            System.arraycopy(baseScores[ability], from, scores[ability], from, to - from);
+            applyPrograms(StatLayout.slotOf(ABILITIES[ability]), scores[ability], from, to);
+            kernels.abilityModifiers(scores[ability], modifiers[ability], from, to);
+        }
+
+        for (int row = from; row < to; row++) {
+            proficiencyBonuses[row] = StatGraph.proficiencyBonus(levels[row]);
+        }
+        applyPrograms(PROFICIENCY_SLOT, proficiencyBonuses, from, to);
+        for (int skill = 0; skill < SKILLS.length; skill++) {
+            kernels.skillBonuses(modifiers[SKILL_ABILITIES[skill]], proficientSkills, skill, proficiencyBonuses,
+                    skillBonuses[skill], from, to);
+        }
+
+        kernels.add(baseArmorClasses, modifiers[DEXTERITY], armorClasses, from, to);
+        applyPrograms(ARMOR_CLASS_SLOT, armorClasses, from, to);
+
+        kernels.multiplyAdd(modifiers[CONSTITUTION], levels, baseHitPoints, maxHitPoints, from, to);
+        applyPrograms(MAX_HIT_POINTS_SLOT, maxHitPoints, from, to);
+        kernels.max(maxHitPoints, levels, maxHitPoints, from, to);
+
+        for (int movementType = 0; movementType < MOVEMENT_TYPES.length; movementType++) {
+            System.arraycopy(baseSpeeds[movementType], from, speeds[movementType], from, to - from);
+            applyPrograms(StatLayout.slotOf(MOVEMENT_TYPES[movementType]), speeds[movementType], from, to);
+        }
+    }
+
+    /**
+     * Applies each row's program to one slot's column. Programs touch few slots and differ from row to row,
+     * so this stays scalar; rows without a program cost one null check.
+     */
+    private void applyPrograms(int slot, int[] column, int from, int to) {
+        for (int row = from; row < to; row++) {
+            StatProgram program = programs[row];
+            if (program != null) {
+                column[row] = program.evaluate(slot, column[row]);
+            }
+        }
+    }
+
+    // --- Outputs, valid once the row has been evaluated ---
+
+    /**
+     * Returns a row's ability score with trait modifiers applied.
+     *
+     * @param row The row.
+     * @param ability The ability.
+     * @return The final score.
+     */
+    public int getAbilityScore(int row, Ability ability) {
+        return scores[ability.ordinal()][row];
+    }
+
+    /**
+     * Returns the modifier of a row's final ability score.
+     *
+     * @param row The row.
+     * @param ability The ability.
+     * @return The ability modifier.
+     */
+    public int getAbilityModifier(int row, Ability ability) {
+        return modifiers[ability.ordinal()][row];
+    }
+
+    /**
+     * Returns a row's proficiency bonus.
+     *
+     * @param row The row.
+     * @return The proficiency bonus.
+     */
+    public int getProficiencyBonus(int row) {
+        return proficiencyBonuses[row];
+    }
+
+    /**
+     * Returns a row's total bonus for a skill check.
+     *
+     * @param row The row.
+     * @param skill The skill.
+     * @return The ability modifier plus the proficiency bonus if proficient.
+     */
+    public int getSkillBonus(int row, Skill skill) {
+        return skillBonuses[skill.ordinal()][row];
+    }
+
+    /**
+     * Returns a row's Armor Class.
+     *
+     * @param row The row.
+     * @return Armor Class.
+     */
+    public int getArmorClass(int row) {
+        return armorClasses[row];
+    }
+
+    /**
+     * Returns a row's maximum hit points, never less than one per level.
+     *
+     * @param row The row.
+     * @return Maximum hit points.
+     */
+    public int getMaxHitPoints(int row) {
+        return maxHitPoints[row];
+    }
+
+    /**
+     * Returns a row's speed with trait modifiers applied.
+     *
+     * @param row The row.
+     * @param movementType The movement type.
+     * @return The speed in feet.
+     */
+    public int getSpeed(int row, MovementType movementType) {
+        return speeds[movementType.ordinal()][row];
+    }
+}
@@ -0,0 +1,238 @@
+package chargen.engine;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+
+import chargen.dice.DiceExpression;
+import chargen.metrics.LatencyHistogram;
+import chargen.metrics.Metrics;
+import chargen.metrics.ModifierCompileEvent;
+import chargen.model.Modifier;
+import chargen.model.Trait;
+
+/**
+ * Compiles {@link Modifier}s into a {@link StatProgram}.
+ * All of the String matching, unboxing and {@link chargen.model.Operation} dispatch happens here,
+ * once, so that the resulting program can be evaluated as often as needed for free.
+ * <p>
+ * Only numeric values are folded. Sums saturate at the {@code int} range, as when programs are
+ * {@link StatProgram#merge merged}, but a single value that does not fit one is rejected, as is a value that
+ * is neither a number nor a String. Modifiers whose value is a dice String (e.g., "1d4") are rolled rather
+ * than applied to a fixed stat; their expression is compiled here, so that bad dice fail the catalog load,
+ * and kept on the program with its slot ({@link StatProgram#diceAt}), so rolls never parse the text again.
+ */
+public final class ModifierCompiler {
+
+    private static final LatencyHistogram COMPILE_TIME = Metrics.histogram("modifier.compile");
+
+    private final StatLayout layout;
+
+    /**
+     * Creates a compiler that resolves (target, qualifier) pairs through the given layout.
+     *
+     * @param layout The layout programs produced by this compiler are indexed against.
+     */
+    public ModifierCompiler(StatLayout layout) {
+        this.layout = Objects.requireNonNull(layout, "layout cannot be null");
+    }
+
+    /**
+     * Compiles the combined modifiers of several traits, e.g. everything a character has.
+     *
+     * @param traits The traits whose modifiers should be compiled.
+     * @return The compiled program.
+     * @throws IllegalArgumentException if a qualifier is not valid for its target, a numeric modifier has an
+     *         unusable or out-of-range value, a String value is not a dice expression, or a value has any
+     *         other type.
+     */
+    public StatProgram compileTraits(Collection<Trait> traits) {
+        int count = 0;
+        for (Trait trait : traits) {
+            count += trait.getModifiers().size();
+        }
+        Modifier[] modifiers = new Modifier[count];
+        int i = 0;
+        for (Trait trait : traits) {
+            for (Modifier modifier : trait.getModifiers()) {
+                modifiers[i++] = modifier;
+            }
+        }
+        return compile(Arrays.asList(modifiers));
+    }
+
+    /**
+     * Compiles a list of modifiers into a program.
+     *
+     * @param modifiers The modifiers to compile.
+     * @return The compiled program.
+     * @throws IllegalArgumentException if a qualifier is not valid for its target, a numeric modifier has an
+     *         unusable or out-of-range value, a String value is not a dice expression, or a value has any
+     *         other type.
+     */
+    public StatProgram compile(Collection<Modifier> modifiers) {
+        long start = Metrics.startTimer();
+        ModifierCompileEvent event = new ModifierCompileEvent();
+        event.begin();
+        // Pack (slot, position) into longs so one primitive sort groups the modifiers by slot
+        // while keeping their declaration order within a slot.
+        long[] order = new long[modifiers.size()];
+        Modifier[] numeric = new Modifier[modifiers.size()];
+        int count = 0;
+        int[] diceSlots = null;
+        DiceExpression[] dice = null;
+        int diceCount = 0;
+        for (Modifier modifier : modifiers) {
+            // Resolve every qualifier, even on modifiers that are skipped, so bad data fails here and not in use.
+            int slot = layout.slotOf(modifier.getTarget(), modifier.getTargetQualifier());
+            if (modifier.getValue() instanceof Number || modifier.getValue() == null) {
+                order[count] = ((long) slot << 32) | count;
+                numeric[count++] = modifier;
+            } else if (modifier.getValue() instanceof String) {
+                if (dice == null) {
+                    diceSlots = new int[modifiers.size()];
+                    dice = new DiceExpression[modifiers.size()];
+                }
+                diceSlots[diceCount] = slot;
+                dice[diceCount++] = compileDice(modifier);
+            } else {
+                throw new IllegalArgumentException(describe(modifier) + " has a value that is neither a number nor "
+                        + "a dice expression: " + modifier.getValue());
+            }
+        }
+        Arrays.sort(order, 0, count);
+
+        int entries = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || (int) (order[i] >>> 32) != (int) (order[i - 1] >>> 32)) {
+                entries++;
+            }
+        }
+
+        StatProgram program = diceCount == 0 ? new StatProgram(entries)
+                : new StatProgram(entries, Arrays.copyOf(diceSlots, diceCount), Arrays.copyOf(dice, diceCount));
+        int entry = -1;
+        int previousSlot = -1;
+        for (int i = 0; i < count; i++) {
+            int slot = (int) (order[i] >>> 32);
+            if (slot != previousSlot) {
+                entry++;
+                program.slots[entry] = slot;
+                previousSlot = slot;
+            }
+            fold(program, entry, numeric[(int) order[i]]);
+        }
+
+        COMPILE_TIME.recordSince(start);
+        if (event.shouldCommit()) {
+            event.modifierCount = modifiers.size();
+            event.slotCount = entries;
+            event.commit();
+        }
+        return program;
+    }
+
+    private static DiceExpression compileDice(Modifier modifier) {
+        try {
+            return DiceExpression.parse((String) modifier.getValue());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(describe(modifier) + " has an invalid value: " + e.getMessage(), e);
+        }
+    }
+
+    private static void fold(StatProgram program, int entry, Modifier modifier) {
+        Number value = (Number) modifier.getValue();
+        if (value == null) {
+            throw new IllegalArgumentException(describe(modifier) + " has no value");
+        }
+        switch (modifier.getOperation()) {
+            case ADD:
+                program.addends[entry] = saturate((long) program.addends[entry] + wholeNumber(modifier, value));
+                break;
+            case SUBTRACT:
+                program.addends[entry] = saturate((long) program.addends[entry] - wholeNumber(modifier, value));
+                break;
+            case MULTIPLY: {
+                long[] fraction = fraction(modifier, value);
+                program.foldFraction(entry, fraction[0], fraction[1]);
+                break;
+            }
+            case DIVIDE: {
+                long[] fraction = fraction(modifier, value);
+                if (fraction[0] == 0) {
+                    throw new IllegalArgumentException(describe(modifier) + " divides by zero");
+                }
+                // Invert, keeping the denominator positive.
+                long sign = Long.signum(fraction[0]);
+                program.foldFraction(entry, sign * fraction[1], sign * fraction[0]);
+                break;
+            }
+            case SET:
+                program.foldSet(entry, wholeNumber(modifier, value));
+                break;
+            case AT_MOST:
+                program.caps[entry] = Math.min(program.caps[entry], wholeNumber(modifier, value));
+                break;
+            case AT_LEAST:
+                program.floors[entry] = Math.max(program.floors[entry], wholeNumber(modifier, value));
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported operation: " + modifier.getOperation());
+        }
+    }
+
+    private static int wholeNumber(Modifier modifier, Number value) {
+        if (value instanceof Double || value instanceof Float) {
+            double d = value.doubleValue();
+            if (d != Math.rint(d)) {
+                throw new IllegalArgumentException(describe(modifier) + " needs a whole number, got " + value);
+            }
+        }
+        long whole = value instanceof Double || value instanceof Float ? (long) value.doubleValue()
+                : integral(modifier, value);
+        if (whole != (int) whole) {
+            throw new IllegalArgumentException(describe(modifier) + " is out of range: " + value);
+        }
+        return (int) whole;
+    }
+
+    private static long[] fraction(Modifier modifier, Number value) {
+        if (value instanceof Double || value instanceof Float || value instanceof BigDecimal) {
+            if (!Double.isFinite(value.doubleValue())) {
+                throw new IllegalArgumentException(describe(modifier) + " is not a finite number: " + value);
+            }
+            BigDecimal decimal = new BigDecimal(value.toString()).stripTrailingZeros();
+            try {
+                if (decimal.scale() <= 0) {
+                    return new long[] {decimal.longValueExact(), 1L};
+                }
+                long numerator = decimal.unscaledValue().longValueExact();
+                long denominator = BigDecimal.TEN.pow(decimal.scale()).longValueExact();
+                long gcd = StatProgram.gcd(Math.abs(numerator), denominator);
+                return new long[] {numerator / gcd, denominator / gcd};
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException(describe(modifier) + " is out of range: " + value, e);
+            }
+        }
+        return new long[] {integral(modifier, value), 1L};
+    }
+
+    private static long integral(Modifier modifier, Number value) {
+        if (value instanceof BigInteger && ((BigInteger) value).bitLength() >= Long.SIZE) {
+            throw new IllegalArgumentException(describe(modifier) + " is out of range: " + value);
+        }
+        return value.longValue();
+    }
+
+    private static int saturate(long value) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, value));
+    }
+
+    private static String describe(Modifier modifier) {
+        return "Modifier " + modifier.getOperation() + " " + modifier.getTarget()
+                + (modifier.getTargetQualifier() == null ? "" : "/" + modifier.getTargetQualifier())
+                + " from '" + modifier.getSourceId() + "'";
+    }
+}
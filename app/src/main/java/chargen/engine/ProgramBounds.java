@@ -0,0 +1,164 @@
+package chargen.engine;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Upper bounds on what adding some of a list of candidate programs can do to a few slots, for pruning
+ * searches over trait combinations.
+ * <p>
+ * Given the program chosen so far, {@link #upperBound(StatProgram, int, int)} returns a program that, applied
+ * to any base value, gives at least as much in each bounded slot as the chosen program merged with any
+ * {@code picks} of the candidates from a position onwards. Each slot is bounded on its own, from the highest
+ * {@code SET} and {@code AT_LEAST} and the largest positive {@code ADD}s among the remaining candidates,
+ * with the chosen program's fraction and caps. A slot that a remaining candidate multiplies or divides, or
+ * that the chosen program scales by a negative fraction, is bounded by {@link #UNBOUNDED}. The bound is
+ * monotone in the base value, so running it through a {@link StatGraph} bounds every value derived from the
+ * slots as well.
+ * <p>
+ * The suffix tables are built once, in {@code slots × candidates × picks} time and space; a query allocates
+ * only the returned program.
+ */
+public final class ProgramBounds {
+
+    /** The value a slot is bounded by when nothing tighter is known; far above any reachable stat. */
+    public static final int UNBOUNDED = 1 << 24;
+
+    private final int[] slots;
+    private final int candidateCount;
+    private final int maxPicks;
+    // Indexed [slot index][suffix start]; Long.MIN_VALUE when no remaining candidate sets the slot.
+    private final long[][] maxSets;
+    private final long[][] maxFloors;
+    private final boolean[][] scaled;
+    // Indexed [slot index][suffix start * (maxPicks + 1) + picks]: the sum of the largest positive addends.
+    private final long[][] addSums;
+
+    /**
+     * Builds the tables for a list of candidates.
+     *
+     * @param candidates The candidate programs, in the order the search will consider them.
+     * @param slots The slots to bound.
+     * @param maxPicks The most candidates a query will add.
+     */
+    public ProgramBounds(List<StatProgram> candidates, int[] slots, int maxPicks) {
+        this.slots = slots.clone();
+        Arrays.sort(this.slots);
+        this.candidateCount = candidates.size();
+        this.maxPicks = Math.max(0, maxPicks);
+        int n = candidateCount;
+        int stride = this.maxPicks + 1;
+        this.maxSets = new long[this.slots.length][n + 1];
+        this.maxFloors = new long[this.slots.length][n + 1];
+        this.scaled = new boolean[this.slots.length][n + 1];
+        this.addSums = new long[this.slots.length][(n + 1) * stride];
+
+        long[] top = new long[this.maxPicks];
+        for (int j = 0; j < this.slots.length; j++) {
+            int slot = this.slots[j];
+            maxSets[j][n] = Long.MIN_VALUE;
+            maxFloors[j][n] = Long.MIN_VALUE;
+            Arrays.fill(top, 0);
+            for (int i = n - 1; i >= 0; i--) {
+                StatProgram candidate = candidates.get(i);
+                int index = Arrays.binarySearch(candidate.slots, slot);
+                maxSets[j][i] = maxSets[j][i + 1];
+                maxFloors[j][i] = maxFloors[j][i + 1];
+                scaled[j][i] = scaled[j][i + 1];
+                if (index >= 0) {
+                    if (candidate.hasSet[index]) {
+                        maxSets[j][i] = Math.max(maxSets[j][i], candidate.setValues[index]);
+                    }
+                    maxFloors[j][i] = Math.max(maxFloors[j][i], candidate.floors[index]);
+                    scaled[j][i] |= candidate.numerators[index] != candidate.denominators[index];
+                    insert(top, candidate.addends[index]);
+                }
+                long sum = 0;
+                for (int picks = 1; picks <= this.maxPicks; picks++) {
+                    sum += top[picks - 1];
+                    addSums[j][i * stride + picks] = sum;
+                }
+            }
+        }
+    }
+
+    // Keeps the largest positive values in descending order.
+    private static void insert(long[] top, long value) {
+        if (top.length == 0 || value <= top[top.length - 1]) {
+            return;
+        }
+        int i = top.length - 1;
+        while (i > 0 && top[i - 1] < value) {
+            top[i] = top[i - 1];
+            i--;
+        }
+        top[i] = value;
+    }
+
+    /**
+     * Returns a program that bounds, from above, the chosen program merged with any {@code picks} of the
+     * candidates from {@code from} onwards, in every bounded slot. Other slots keep the chosen program's
+     * entries.
+     *
+     * @param chosen The program chosen so far.
+     * @param from The position of the first candidate still available.
+     * @param picks The most candidates that may still be added.
+     * @return The bounding program; {@code chosen} itself when nothing can be added.
+     */
+    public StatProgram upperBound(StatProgram chosen, int from, int picks) {
+        picks = Math.min(picks, maxPicks);
+        if (from >= candidateCount || picks <= 0) {
+            return chosen;
+        }
+        int entries = chosen.slots.length;
+        for (int slot : slots) {
+            if (Arrays.binarySearch(chosen.slots, slot) < 0) {
+                entries++;
+            }
+        }
+        StatProgram bound = new StatProgram(entries);
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < entries; k++) {
+            if (j == slots.length || (i < chosen.slots.length && chosen.slots[i] < slots[j])) {
+                bound.copyEntry(k, chosen, i++);
+                continue;
+            }
+            bound.slots[k] = slots[j];
+            if (i < chosen.slots.length && chosen.slots[i] == slots[j]) {
+                bound.copyEntry(k, chosen, i++);
+            }
+            bound(bound, k, j++, from, picks);
+        }
+        return bound;
+    }
+
+    private void bound(StatProgram bound, int k, int j, int from, int picks) {
+        int cap = bound.caps[k];
+        if (scaled[j][from] || bound.numerators[k] < 0) {
+            bound.hasSet[k] = false;
+            bound.addends[k] = 0;
+            bound.numerators[k] = 1;
+            bound.denominators[k] = 1;
+            bound.floors[k] = Math.min(UNBOUNDED, cap);
+            return;
+        }
+        long add = clamp(bound.addends[k] + addSums[j][from * (maxPicks + 1) + picks]);
+        bound.addends[k] = (int) add;
+        long floor = Math.max(bound.floors[k], maxFloors[j][from]);
+        long set = maxSets[j][from];
+        if (set != Long.MIN_VALUE) {
+            if (bound.hasSet[k]) {
+                bound.setValues[k] = Math.max(bound.setValues[k], (int) set);
+            } else {
+                // Either the base or the best remaining SET wins; a floor at the SET's result covers the latter.
+                floor = Math.max(floor, StatProgram.scale(set + add, bound.numerators[k], bound.denominators[k]));
+            }
+        }
+        bound.floors[k] = (int) clamp(floor);
+    }
+
+    private static long clamp(long value) {
+        return Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, value));
+    }
+}
@@ -0,0 +1,53 @@
+package chargen.engine;
+
+/**
+ * Plain loops over the columns; also used for the tail rows the vector kernels leave over.
+ */
+final class ScalarKernels implements BatchKernels {
+
+    static final ScalarKernels INSTANCE = new ScalarKernels();
+
+    private ScalarKernels() {
+    }
+
+    @Override
+    public void abilityModifiers(int[] scores, int[] modifiers, int from, int to) {
+        for (int i = from; i < to; i++) {
+            modifiers[i] = (scores[i] - 10) >> 1;
+        }
+    }
+
+    @Override
+    public void skillBonuses(int[] modifiers, int[] proficientSkills, int skill, int[] proficiencyBonuses,
+            int[] bonuses, int from, int to) {
+        for (int i = from; i < to; i++) {
+            bonuses[i] = modifiers[i] + (proficientSkills[i] >>> skill & 1) * proficiencyBonuses[i];
+        }
+    }
+
+    @Override
+    public void add(int[] a, int[] b, int[] out, int from, int to) {
+        for (int i = from; i < to; i++) {
+            out[i] = a[i] + b[i];
+        }
+    }
+
+    @Override
+    public void multiplyAdd(int[] a, int[] b, int[] c, int[] out, int from, int to) {
+        for (int i = from; i < to; i++) {
+            out[i] = a[i] * b[i] + c[i];
+        }
+    }
+
+    @Override
+    public void max(int[] a, int[] b, int[] out, int from, int to) {
+        for (int i = from; i < to; i++) {
+            out[i] = Math.max(a[i], b[i]);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,563 @@
+package chargen.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+import chargen.model.Ability;
+import chargen.model.ModifierTarget;
+import chargen.model.MovementType;
+import chargen.model.Sense;
+import chargen.model.Skill;
+
+/**
+ * The derived statistics of one character, kept as a dependency graph so that a change only
+ * recomputes the values downstream of it.
+ * <p>
+ * Ability scores feed ability modifiers, which feed skills (through {@link Skill#getDefaultAbility()}),
+ * passive Perception, initiative, Armor Class, hit points and spellcasting numbers. Every value that a
+ * {@link ModifierTarget} can adjust has the merged {@link StatProgram} of the character's traits applied
+ * to it. Setting an input or adding a trait only marks the affected nodes dirty; they are recomputed
+ * lazily, the next time something reads them.
+ * <p>
+ * A graph is not thread-safe; confine each one to a single editing session or worker thread.
+ */
+public final class StatGraph {
+
+    private static final Ability[] ABILITIES = Ability.values();
+    private static final Skill[] SKILLS = Skill.values();
+    private static final MovementType[] MOVEMENT_TYPES = MovementType.values();
+    private static final Sense[] SENSES = Sense.values();
+
+    // Node ids, numbered so every node comes after the nodes it depends on.
+    private static final int SCORE = 0;
+    private static final int MODIFIER = SCORE + ABILITIES.length;
+    private static final int PROFICIENCY = MODIFIER + ABILITIES.length;
+    private static final int SKILL = PROFICIENCY + 1;
+    private static final int PASSIVE_PERCEPTION = SKILL + SKILLS.length;
+    private static final int INITIATIVE = PASSIVE_PERCEPTION + 1;
+    private static final int ARMOR_CLASS = INITIATIVE + 1;
+    private static final int MAX_HIT_POINTS = ARMOR_CLASS + 1;
+    private static final int SPEED = MAX_HIT_POINTS + 1;
+    private static final int SENSE = SPEED + MOVEMENT_TYPES.length;
+    private static final int SPELL_SAVE_DC = SENSE + SENSES.length;
+    private static final int SPELL_ATTACK = SPELL_SAVE_DC + 1;
+    private static final int NODE_COUNT = SPELL_ATTACK + 1;
+
+    private static final int[] SKILL_ABILITIES = new int[SKILLS.length];
+    private static final int[][] DEPENDENTS;
+    private static final int[] NODE_BY_SLOT = new int[StatLayout.FIXED_SLOTS];
+    private static final int[] SLOT_BY_NODE = new int[NODE_COUNT];
+
+    static {
+        List<List<Integer>> dependents = new ArrayList<>();
+        for (int i = 0; i < NODE_COUNT; i++) {
+            dependents.add(new ArrayList<>());
+        }
+        int dexterity = MODIFIER + Ability.DEXTERITY.ordinal();
+        for (Ability ability : ABILITIES) {
+            dependents.get(SCORE + ability.ordinal()).add(MODIFIER + ability.ordinal());
+        }
+        for (Skill skill : SKILLS) {
+            SKILL_ABILITIES[skill.ordinal()] = skill.getDefaultAbility().orElseThrow().ordinal();
+            dependents.get(MODIFIER + SKILL_ABILITIES[skill.ordinal()]).add(SKILL + skill.ordinal());
+            dependents.get(PROFICIENCY).add(SKILL + skill.ordinal());
+        }
+        dependents.get(SKILL + Skill.PERCEPTION.ordinal()).add(PASSIVE_PERCEPTION);
+        dependents.get(dexterity).add(INITIATIVE);
+        dependents.get(dexterity).add(ARMOR_CLASS);
+        dependents.get(MODIFIER + Ability.CONSTITUTION.ordinal()).add(MAX_HIT_POINTS);
+        // Spellcasting also depends on the modifier of whichever ability is currently the spellcasting
+        // one; that edge can change at runtime, so invalidate() follows it by hand.
+        dependents.get(PROFICIENCY).add(SPELL_SAVE_DC);
+        dependents.get(PROFICIENCY).add(SPELL_ATTACK);
+
+        DEPENDENTS = new int[NODE_COUNT][];
+        for (int i = 0; i < NODE_COUNT; i++) {
+            DEPENDENTS[i] = dependents.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        Arrays.fill(NODE_BY_SLOT, -1);
+        Arrays.fill(SLOT_BY_NODE, -1);
+        for (Ability ability : ABILITIES) {
+            link(StatLayout.slotOf(ability), SCORE + ability.ordinal());
+        }
+        link(StatLayout.slotOf(ModifierTarget.PROFICIENCY_BONUS), PROFICIENCY);
+        link(StatLayout.slotOf(ModifierTarget.PASSIVE_PERCEPTION), PASSIVE_PERCEPTION);
+        link(StatLayout.slotOf(ModifierTarget.INITIATIVE_BONUS), INITIATIVE);
+        link(StatLayout.slotOf(ModifierTarget.ARMOR_CLASS), ARMOR_CLASS);
+        link(StatLayout.slotOf(ModifierTarget.MAX_HIT_POINTS), MAX_HIT_POINTS);
+        for (MovementType movementType : MOVEMENT_TYPES) {
+            link(StatLayout.slotOf(movementType), SPEED + movementType.ordinal());
+        }
+        for (Sense sense : SENSES) {
+            link(StatLayout.slotOf(sense), SENSE + sense.ordinal());
+        }
+        link(StatLayout.slotOf(ModifierTarget.SPELL_SAVE_DC), SPELL_SAVE_DC);
+        link(StatLayout.slotOf(ModifierTarget.SPELL_ATTACK_BONUS), SPELL_ATTACK);
+    }
+
+    private static void link(int slot, int node) {
+        NODE_BY_SLOT[slot] = node;
+        SLOT_BY_NODE[node] = slot;
+    }
+
+    /**
+     * Returns every slot whose modifiers can change the value {@link #getStat(int)} gives for a slot: the slot
+     * itself and the slots of every value it is derived from. For example passive Perception is derived
+     * from the Wisdom score and the proficiency bonus.
+     *
+     * @param slot The slot of the value.
+     * @param spellcastingAbility The ability spellcasting values are based on.
+     * @return The slots, in ascending order.
+     */
+    public static int[] slotsAffecting(int slot, Ability spellcastingAbility) {
+        if (slot >= NODE_BY_SLOT.length || NODE_BY_SLOT[slot] < 0) {
+            return new int[] {slot};
+        }
+        boolean[] upstream = new boolean[NODE_COUNT];
+        upstream[NODE_BY_SLOT[slot]] = true;
+        // Nodes are numbered after everything they depend on, so one backward pass finds every ancestor.
+        for (int node = NODE_COUNT - 1; node >= 0; node--) {
+            if (!upstream[node]) {
+                for (int dependent : DEPENDENTS[node]) {
+                    upstream[node] |= upstream[dependent];
+                }
+                if (node == MODIFIER + spellcastingAbility.ordinal()) {
+                    upstream[node] |= upstream[SPELL_SAVE_DC] || upstream[SPELL_ATTACK];
+                }
+            }
+        }
+        return IntStream.range(0, NODE_COUNT)
+                .filter(node -> upstream[node] && SLOT_BY_NODE[node] >= 0)
+                .map(node -> SLOT_BY_NODE[node])
+                .sorted()
+                .toArray();
+    }
+
+    // Inputs
+    private final int[] baseScores = new int[ABILITIES.length];
+    private final int[] baseSpeeds = new int[MOVEMENT_TYPES.length];
+    private final boolean[] proficientSkills = new boolean[SKILLS.length];
+    private int level = 1;
+    private int baseArmorClass = 10;
+    private int baseHitPoints = 8;
+    private Ability spellcastingAbility = Ability.INTELLIGENCE;
+    private final List<StatProgram> programs = new ArrayList<>();
+    private StatProgram program = StatProgram.EMPTY;
+
+    // Cached node values
+    private final int[] values = new int[NODE_COUNT];
+    private final boolean[] dirty = new boolean[NODE_COUNT];
+    private long recomputeCount;
+
+    /**
+     * Creates a level 1 character with every ability score at 10, a walking speed of 30 and no traits.
+     */
+    public StatGraph() {
+        Arrays.fill(baseScores, 10);
+        baseSpeeds[MovementType.WALKING.ordinal()] = 30;
+        Arrays.fill(dirty, true);
+    }
+
+    /**
+     * Returns the modifier for an ability score: {@code floor((score - 10) / 2)}.
+     *
+     * @param score The ability score.
+     * @return The ability modifier.
+     */
+    public static int abilityModifier(int score) {
+        return Math.floorDiv(score - 10, 2);
+    }
+
+    /**
+     * Returns the proficiency bonus for a character level: +2 at level 1, rising by one every four levels.
+     *
+     * @param level The character level, 1 or higher.
+     * @return The base proficiency bonus.
+     */
+    public static int proficiencyBonus(int level) {
+        return 2 + (level - 1) / 4;
+    }
+
+    // --- Inputs ---
+
+    /**
+     * Sets an ability score before trait modifiers are applied.
+     *
+     * @param ability The ability.
+     * @param score The rolled or assigned score.
+     */
+    public void setBaseAbilityScore(Ability ability, int score) {
+        if (baseScores[ability.ordinal()] != score) {
+            baseScores[ability.ordinal()] = score;
+            invalidate(SCORE + ability.ordinal());
+        }
+    }
+
+    /**
+     * Sets the character level, which drives the proficiency bonus and the minimum hit points.
+     *
+     * @param level The character level, 1 or higher.
+     * @throws IllegalArgumentException if the level is below 1.
+     */
+    public void setLevel(int level) {
+        if (level < 1) {
+            throw new IllegalArgumentException("Level must be at least 1: " + level);
+        }
+        if (this.level != level) {
+            this.level = level;
+            invalidate(PROFICIENCY);
+            invalidate(MAX_HIT_POINTS);
+        }
+    }
+
+    /**
+     * Sets whether the character adds its proficiency bonus to a skill.
+     *
+     * @param skill The skill.
+     * @param proficient {@code true} if the character is proficient.
+     */
+    public void setProficient(Skill skill, boolean proficient) {
+        if (proficientSkills[skill.ordinal()] != proficient) {
+            proficientSkills[skill.ordinal()] = proficient;
+            invalidate(SKILL + skill.ordinal());
+        }
+    }
+
+    /**
+     * Sets a speed before trait modifiers are applied.
+     *
+     * @param movementType The movement type.
+     * @param speed The base speed in feet.
+     */
+    public void setBaseSpeed(MovementType movementType, int speed) {
+        if (baseSpeeds[movementType.ordinal()] != speed) {
+            baseSpeeds[movementType.ordinal()] = speed;
+            invalidate(SPEED + movementType.ordinal());
+        }
+    }
+
+    /**
+     * Sets the Armor Class before the Dexterity modifier and trait modifiers are added (10 when unarmored).
+     *
+     * @param armorClass The base Armor Class.
+     */
+    public void setBaseArmorClass(int armorClass) {
+        if (baseArmorClass != armorClass) {
+            baseArmorClass = armorClass;
+            invalidate(ARMOR_CLASS);
+        }
+    }
+
+    /**
+     * Sets the hit points gained from hit dice, before the Constitution modifier and trait modifiers.
+     *
+     * @param hitPoints The base hit points.
+     */
+    public void setBaseHitPoints(int hitPoints) {
+        if (baseHitPoints != hitPoints) {
+            baseHitPoints = hitPoints;
+            invalidate(MAX_HIT_POINTS);
+        }
+    }
+
+    /**
+     * Sets the ability that spell save DC and spell attack bonus are based on.
+     *
+     * @param ability The spellcasting ability.
+     */
+    public void setSpellcastingAbility(Ability ability) {
+        Objects.requireNonNull(ability, "ability cannot be null");
+        if (spellcastingAbility != ability) {
+            spellcastingAbility = ability;
+            invalidate(SPELL_SAVE_DC);
+            invalidate(SPELL_ATTACK);
+        }
+    }
+
+    /**
+     * Adds the compiled modifiers of a trait. Only values the program touches are invalidated.
+     *
+     * @param traitProgram The trait's program, indexed against the fixed slots of a {@link StatLayout}.
+     */
+    public void addProgram(StatProgram traitProgram) {
+        programs.add(traitProgram);
+        program = program.merge(traitProgram);
+        invalidateSlots(traitProgram);
+    }
+
+    /**
+     * Removes a program previously passed to {@link #addProgram(StatProgram)}.
+     *
+     * @param traitProgram The program to remove.
+     * @return {@code true} if the program had been added.
+     */
+    public boolean removeProgram(StatProgram traitProgram) {
+        for (int i = 0; i < programs.size(); i++) {
+            if (programs.get(i) == traitProgram) {
+                programs.remove(i);
+                StatProgram merged = StatProgram.EMPTY;
+                for (StatProgram remaining : programs) {
+                    merged = merged.merge(remaining);
+                }
+                program = merged;
+                invalidateSlots(traitProgram);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Replaces every program added so far with a single merged one, e.g. to try out whole trait sets in turn
+     * on one graph. Only values touched by the old or the new program are invalidated.
+     *
+     * @param traitProgram The merged program of all the character's traits.
+     */
+    public void setProgram(StatProgram traitProgram) {
+        Objects.requireNonNull(traitProgram, "traitProgram cannot be null");
+        StatProgram previous = program;
+        programs.clear();
+        programs.add(traitProgram);
+        program = traitProgram;
+        invalidateSlots(previous);
+        invalidateSlots(traitProgram);
+    }
+
+    private void invalidateSlots(StatProgram changed) {
+        for (int i = 0; i < changed.size(); i++) {
+            int slot = changed.slotAt(i);
+            if (slot < NODE_BY_SLOT.length && NODE_BY_SLOT[slot] >= 0) {
+                invalidate(NODE_BY_SLOT[slot]);
+            }
+        }
+    }
+
+    private void invalidate(int node) {
+        if (dirty[node]) {
+            // Everything downstream of a dirty node is already dirty.
+            return;
+        }
+        dirty[node] = true;
+        for (int dependent : DEPENDENTS[node]) {
+            invalidate(dependent);
+        }
+        if (node == MODIFIER + spellcastingAbility.ordinal()) {
+            invalidate(SPELL_SAVE_DC);
+            invalidate(SPELL_ATTACK);
+        }
+    }
+
+    // --- Derived values ---
+
+    /**
+     * Returns an ability score with trait modifiers applied.
+     *
+     * @param ability The ability.
+     * @return The final score.
+     */
+    public int getAbilityScore(Ability ability) {
+        return get(SCORE + ability.ordinal());
+    }
+
+    /**
+     * Returns the modifier of the final ability score.
+     *
+     * @param ability The ability.
+     * @return The ability modifier.
+     */
+    public int getAbilityModifier(Ability ability) {
+        return get(MODIFIER + ability.ordinal());
+    }
+
+    /**
+     * Returns the proficiency bonus.
+     *
+     * @return The proficiency bonus.
+     */
+    public int getProficiencyBonus() {
+        return get(PROFICIENCY);
+    }
+
+    /**
+     * Returns the total bonus for a skill check.
+     *
+     * @param skill The skill.
+     * @return The ability modifier plus the proficiency bonus if proficient.
+     */
+    public int getSkillBonus(Skill skill) {
+        return get(SKILL + skill.ordinal());
+    }
+
+    /**
+     * Returns passive Perception: 10 plus the Perception bonus, with trait modifiers applied.
+     *
+     * @return Passive Perception.
+     */
+    public int getPassivePerception() {
+        return get(PASSIVE_PERCEPTION);
+    }
+
+    /**
+     * Returns the initiative bonus: the Dexterity modifier plus any initiative modifiers.
+     *
+     * @return The initiative bonus.
+     */
+    public int getInitiative() {
+        return get(INITIATIVE);
+    }
+
+    /**
+     * Returns Armor Class: the base Armor Class plus the Dexterity modifier, with trait modifiers applied.
+     *
+     * @return Armor Class.
+     */
+    public int getArmorClass() {
+        return get(ARMOR_CLASS);
+    }
+
+    /**
+     * Returns maximum hit points: base hit points plus the Constitution modifier per level, with trait
+     * modifiers applied, and never less than one per level.
+     *
+     * @return Maximum hit points.
+     */
+    public int getMaxHitPoints() {
+        return get(MAX_HIT_POINTS);
+    }
+
+    /**
+     * Returns a speed with trait modifiers applied.
+     *
+     * @param movementType The movement type.
+     * @return The speed in feet.
+     */
+    public int getSpeed(MovementType movementType) {
+        return get(SPEED + movementType.ordinal());
+    }
+
+    /**
+     * Returns the range of a sense, 0 if the character does not have it.
+     *
+     * @param sense The sense.
+     * @return The range in feet.
+     */
+    public int getSenseRange(Sense sense) {
+        return get(SENSE + sense.ordinal());
+    }
+
+    /**
+     * Returns the spell save DC: 8 plus the proficiency bonus and spellcasting modifier.
+     *
+     * @return The spell save DC.
+     */
+    public int getSpellSaveDc() {
+        return get(SPELL_SAVE_DC);
+    }
+
+    /**
+     * Returns the spell attack bonus: the proficiency bonus plus the spellcasting modifier.
+     *
+     * @return The spell attack bonus.
+     */
+    public int getSpellAttackBonus() {
+        return get(SPELL_ATTACK);
+    }
+
+    /**
+     * Returns the value of a slot that has no base of its own (e.g. a named resource maximum), i.e. the
+     * result of applying the traits' modifiers to 0.
+     *
+     * @param slot The slot.
+     * @return The modified value.
+     */
+    public int getValue(int slot) {
+        return program.evaluate(slot, 0);
+    }
+
+    /**
+     * Returns the final value of any slot: the derived value for slots the graph computes (ability scores,
+     * Armor Class, passive Perception and so on), and {@link #getValue(int)} for the others.
+     *
+     * @param slot The slot.
+     * @return The value with every trait modifier applied.
+     */
+    public int getStat(int slot) {
+        if (slot < NODE_BY_SLOT.length && NODE_BY_SLOT[slot] >= 0) {
+            return get(NODE_BY_SLOT[slot]);
+        }
+        return getValue(slot);
+    }
+
+    /**
+     * Returns the trait modifiers currently applied, merged into one program.
+     *
+     * @return The merged program.
+     */
+    public StatProgram getProgram() {
+        return program;
+    }
+
+    /**
+     * Recomputes every dirty value now rather than on the next read.
+     */
+    public void refresh() {
+        for (int node = 0; node < NODE_COUNT; node++) {
+            get(node);
+        }
+    }
+
+    /**
+     * Returns how many node values have been recomputed since the graph was created.
+     *
+     * @return The number of recomputations.
+     */
+    public long getRecomputeCount() {
+        return recomputeCount;
+    }
+
+    private int get(int node) {
+        if (dirty[node]) {
+            values[node] = compute(node);
+            dirty[node] = false;
+            recomputeCount++;
+        }
+        return values[node];
+    }
+
+    private int compute(int node) {
+        int base;
+        if (node < MODIFIER) {
+            base = baseScores[node - SCORE];
+        } else if (node < PROFICIENCY) {
+            return abilityModifier(get(SCORE + node - MODIFIER));
+        } else if (node == PROFICIENCY) {
+            base = proficiencyBonus(level);
+        } else if (node < PASSIVE_PERCEPTION) {
+            int skill = node - SKILL;
+            int bonus = get(MODIFIER + SKILL_ABILITIES[skill]);
+            return proficientSkills[skill] ? bonus + get(PROFICIENCY) : bonus;
+        } else if (node == PASSIVE_PERCEPTION) {
+            base = 10 + get(SKILL + Skill.PERCEPTION.ordinal());
+        } else if (node == INITIATIVE) {
+            return get(MODIFIER + Ability.DEXTERITY.ordinal()) + program.evaluate(SLOT_BY_NODE[node], 0);
+        } else if (node == ARMOR_CLASS) {
+            base = baseArmorClass + get(MODIFIER + Ability.DEXTERITY.ordinal());
+        } else if (node == MAX_HIT_POINTS) {
+            int hitPoints = baseHitPoints + get(MODIFIER + Ability.CONSTITUTION.ordinal()) * level;
+            return Math.max(level, program.evaluate(SLOT_BY_NODE[node], hitPoints));
+        } else if (node < SENSE) {
+            base = baseSpeeds[node - SPEED];
+        } else if (node < SPELL_SAVE_DC) {
+            base = 0;
+        } else if (node == SPELL_SAVE_DC) {
+            base = 8 + get(PROFICIENCY) + get(MODIFIER + spellcastingAbility.ordinal());
+        } else {
+            base = get(PROFICIENCY) + get(MODIFIER + spellcastingAbility.ordinal());
+        }
+        return program.evaluate(SLOT_BY_NODE[node], base);
+    }
+}
@@ -0,0 +1,75 @@
+package chargen.engine;
+
+import java.util.Objects;
+
+import chargen.model.ModifierTarget;
+
+/**
+ * A {@link ModifierTarget} together with its resolved, typed qualifier and the {@link StatLayout} slot
+ * the pair maps to. Produced once per distinct qualifier when a catalog is loaded.
+ * <p>
+ * The qualifier is an {@link chargen.model.Ability}, {@link chargen.model.MovementType} or
+ * {@link chargen.model.Sense} constant, an {@link Integer} spell level, an interned String name, or
+ * {@code null}, depending on the target's {@link chargen.model.QualifierType}.
+ */
+public final class StatKey {
+
+    private final ModifierTarget target;
+    private final Object qualifier;
+    private final int slot;
+
+    StatKey(ModifierTarget target, Object qualifier, int slot) {
+        this.target = target;
+        this.qualifier = qualifier;
+        this.slot = slot;
+    }
+
+    /**
+     * Returns the broad category of statistic.
+     *
+     * @return The target.
+     */
+    public ModifierTarget getTarget() {
+        return target;
+    }
+
+    /**
+     * Returns the typed qualifier.
+     *
+     * @return The qualifier, or {@code null} if the key has none.
+     */
+    public Object getQualifier() {
+        return qualifier;
+    }
+
+    /**
+     * Returns the dense slot index this key occupies in its layout.
+     *
+     * @return The slot index.
+     */
+    public int getSlot() {
+        return slot;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof StatKey)) {
+            return false;
+        }
+        StatKey other = (StatKey) o;
+        return slot == other.slot && target == other.target && Objects.equals(qualifier, other.qualifier);
+    }
+
+    @Override
+    public int hashCode() {
+        return slot;
+    }
+
+    @Override
+    public String toString() {
+        return qualifier == null ? target.name() : target.name() + "/" + qualifier;
+    }
+}
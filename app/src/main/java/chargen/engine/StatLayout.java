@@ -0,0 +1,288 @@
+package chargen.engine;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+import chargen.model.Ability;
+import chargen.model.DamageType;
+import chargen.model.ModifierTarget;
+import chargen.model.MovementType;
+import chargen.model.QualifierType;
+import chargen.model.Sense;
+
+/**
+ * Assigns a dense integer slot to every (target, qualifier) pair that a {@link StatProgram} can touch.
+ * <p>
+ * Targets whose qualifiers come from a closed set (abilities, movement types, senses, damage types, spell
+ * levels, or no qualifier at all) occupy the first {@link #FIXED_SLOTS} slots, at positions that are the same
+ * in every layout and can be computed directly from an enum constant. Free-form named qualifiers (e.g. a
+ * {@code RESOURCE_MAX} of "LUCK_POINTS") are interned per layout after the fixed region.
+ * <p>
+ * Qualifier Strings are parsed and validated exactly once, in {@link #resolve(ModifierTarget, String)};
+ * a character's stats can then live in a plain {@code int[]} of {@link #size()} entries, or be addressed
+ * through the typed {@code slotOf} overloads without any String hashing.
+ */
+public final class StatLayout {
+
+    /** Highest spell level that has spell slots. */
+    public static final int MAX_SPELL_LEVEL = 9;
+
+    private static final String SPELL_LEVEL_PREFIX = "LEVEL_";
+    private static final Pattern NAME_PATTERN = Pattern.compile("[A-Z][A-Z0-9_]*");
+
+    private static final ModifierTarget[] TARGETS = ModifierTarget.values();
+    private static final int[] BASE_SLOTS = new int[TARGETS.length];
+    private static final StatKey[] FIXED_KEYS;
+
+    /** Number of slots whose position is the same in every layout. */
+    public static final int FIXED_SLOTS;
+
+    static {
+        List<StatKey> fixed = new ArrayList<>();
+        for (ModifierTarget target : TARGETS) {
+            BASE_SLOTS[target.ordinal()] = fixed.size();
+            for (Object qualifier : fixedQualifiers(target.getQualifierType())) {
+                fixed.add(new StatKey(target, qualifier, fixed.size()));
+            }
+        }
+        FIXED_KEYS = fixed.toArray(new StatKey[0]);
+        FIXED_SLOTS = FIXED_KEYS.length;
+    }
+
+    private final Map<String, StatKey>[] namedKeys;
+    private final List<StatKey> namedKeysBySlot = new ArrayList<>();
+
+    /**
+     * Creates a layout with only the fixed slots assigned.
+     */
+    @SuppressWarnings("unchecked")
+    public StatLayout() {
+        this.namedKeys = new Map[TARGETS.length];
+        for (int i = 0; i < TARGETS.length; i++) {
+            namedKeys[i] = new HashMap<>();
+        }
+    }
+
+    private static Object[] fixedQualifiers(QualifierType type) {
+        switch (type) {
+            case NONE:
+            case OPTIONAL_NAME:
+                return new Object[] {null};
+            case ABILITY:
+                return Ability.values();
+            case MOVEMENT_TYPE:
+                return MovementType.values();
+            case SENSE:
+                return Sense.values();
+            case DAMAGE_TYPE:
+                return DamageType.values();
+            case SPELL_LEVEL: {
+                Object[] levels = new Object[MAX_SPELL_LEVEL];
+                for (int level = 1; level <= MAX_SPELL_LEVEL; level++) {
+                    levels[level - 1] = level;
+                }
+                return levels;
+            }
+            case NAME:
+                return new Object[0];
+            default:
+                throw new IllegalStateException("Unhandled qualifier type: " + type);
+        }
+    }
+
+    /**
+     * Returns the slot of a target that takes no qualifier, or the general slot of one whose qualifier is optional.
+     *
+     * @param target The target.
+     * @return The fixed slot index.
+     * @throws IllegalArgumentException if the target requires a qualifier.
+     */
+    public static int slotOf(ModifierTarget target) {
+        QualifierType type = target.getQualifierType();
+        if (type != QualifierType.NONE && type != QualifierType.OPTIONAL_NAME) {
+            throw new IllegalArgumentException(target + " requires a " + type + " qualifier");
+        }
+        return BASE_SLOTS[target.ordinal()];
+    }
+
+    /**
+     * Returns the {@link ModifierTarget#ABILITY_SCORE} slot of an ability.
+     *
+     * @param ability The ability.
+     * @return The fixed slot index.
+     */
+    public static int slotOf(Ability ability) {
+        return BASE_SLOTS[ModifierTarget.ABILITY_SCORE.ordinal()] + ability.ordinal();
+    }
+
+    /**
+     * Returns the {@link ModifierTarget#SPEED} slot of a movement type.
+     *
+     * @param movementType The movement type.
+     * @return The fixed slot index.
+     */
+    public static int slotOf(MovementType movementType) {
+        return BASE_SLOTS[ModifierTarget.SPEED.ordinal()] + movementType.ordinal();
+    }
+
+    /**
+     * Returns the {@link ModifierTarget#SENSE_RANGE} slot of a sense.
+     *
+     * @param sense The sense.
+     * @return The fixed slot index.
+     */
+    public static int slotOf(Sense sense) {
+        return BASE_SLOTS[ModifierTarget.SENSE_RANGE.ordinal()] + sense.ordinal();
+    }
+
+    /**
+     * Returns the {@link ModifierTarget#DAMAGE_RESISTANCE} slot of a damage type.
+     *
+     * @param damageType The damage type.
+     * @return The fixed slot index.
+     */
+    public static int slotOf(DamageType damageType) {
+        return BASE_SLOTS[ModifierTarget.DAMAGE_RESISTANCE.ordinal()] + damageType.ordinal();
+    }
+
+    /**
+     * Returns the {@link ModifierTarget#MAX_SPELL_SLOTS} slot of a spell level.
+     *
+     * @param level The spell level, from 1 to {@link #MAX_SPELL_LEVEL}.
+     * @return The fixed slot index.
+     * @throws IllegalArgumentException if the level is out of range.
+     */
+    public static int spellLevelSlot(int level) {
+        if (level < 1 || level > MAX_SPELL_LEVEL) {
+            throw new IllegalArgumentException("Spell level must be between 1 and " + MAX_SPELL_LEVEL + ": " + level);
+        }
+        return BASE_SLOTS[ModifierTarget.MAX_SPELL_SLOTS.ordinal()] + level - 1;
+    }
+
+    /**
+     * Parses and validates a qualifier String, returning its typed key. Named qualifiers are assigned the
+     * next free slot on first use.
+     *
+     * @param target The broad category of statistic.
+     * @param qualifier The qualifier as written in the data file (e.g., "STRENGTH"). Can be null.
+     * @return The typed key for the pair.
+     * @throws IllegalArgumentException if the qualifier is missing, unexpected or not recognised for the target.
+     */
+    public StatKey resolve(ModifierTarget target, String qualifier) {
+        Objects.requireNonNull(target, "target cannot be null");
+        QualifierType type = target.getQualifierType();
+        int base = BASE_SLOTS[target.ordinal()];
+        if (qualifier == null) {
+            if (type != QualifierType.NONE && type != QualifierType.OPTIONAL_NAME) {
+                throw new IllegalArgumentException(target + " requires a " + type + " qualifier");
+            }
+            return FIXED_KEYS[base];
+        }
+        switch (type) {
+            case NONE:
+                throw new IllegalArgumentException(target + " does not take a qualifier, got '" + qualifier + "'");
+            case ABILITY:
+                return FIXED_KEYS[base + parseEnum(Ability.class, target, qualifier).ordinal()];
+            case MOVEMENT_TYPE:
+                return FIXED_KEYS[base + parseEnum(MovementType.class, target, qualifier).ordinal()];
+            case SENSE:
+                return FIXED_KEYS[base + parseEnum(Sense.class, target, qualifier).ordinal()];
+            case DAMAGE_TYPE:
+                return FIXED_KEYS[base + parseEnum(DamageType.class, target, qualifier).ordinal()];
+            case SPELL_LEVEL:
+                return FIXED_KEYS[base + parseSpellLevel(target, qualifier) - 1];
+            case NAME:
+            case OPTIONAL_NAME:
+                return resolveName(target, qualifier);
+            default:
+                throw new IllegalStateException("Unhandled qualifier type: " + type);
+        }
+    }
+
+    /**
+     * Returns the slot for a (target, qualifier) pair. Equivalent to {@code resolve(target, qualifier).getSlot()}.
+     *
+     * @param target The broad category of statistic.
+     * @param qualifier The qualifier as written in the data file. Can be null.
+     * @return The dense slot index for the pair.
+     * @throws IllegalArgumentException if the qualifier is not valid for the target.
+     */
+    public int slotOf(ModifierTarget target, String qualifier) {
+        return resolve(target, qualifier).getSlot();
+    }
+
+    /**
+     * Returns the key a slot was assigned for.
+     *
+     * @param slot A slot index lower than {@link #size()}.
+     * @return The slot's typed key.
+     */
+    public synchronized StatKey keyOf(int slot) {
+        return slot < FIXED_SLOTS ? FIXED_KEYS[slot] : namedKeysBySlot.get(slot - FIXED_SLOTS);
+    }
+
+    /**
+     * Returns the number of slots assigned so far, i.e. the length a dense stat array needs.
+     *
+     * @return The number of assigned slots.
+     */
+    public synchronized int size() {
+        return FIXED_SLOTS + namedKeysBySlot.size();
+    }
+
+    /**
+     * Formats a key's qualifier back into the String form used in data files.
+     *
+     * @param key The key.
+     * @return The qualifier String, or {@code null} if the key has none.
+     */
+    public static String qualifierName(StatKey key) {
+        Object qualifier = key.getQualifier();
+        if (qualifier == null) {
+            return null;
+        }
+        if (qualifier instanceof Integer) {
+            return SPELL_LEVEL_PREFIX + qualifier;
+        }
+        return qualifier instanceof Enum ? ((Enum<?>) qualifier).name() : (String) qualifier;
+    }
+
+    private synchronized StatKey resolveName(ModifierTarget target, String qualifier) {
+        Map<String, StatKey> keys = namedKeys[target.ordinal()];
+        StatKey key = keys.get(qualifier);
+        if (key == null) {
+            if (!NAME_PATTERN.matcher(qualifier).matches()) {
+                throw new IllegalArgumentException("Qualifier for " + target + " must be UPPER_SNAKE_CASE, got '"
+                        + qualifier + "'");
+            }
+            key = new StatKey(target, qualifier.intern(), FIXED_SLOTS + namedKeysBySlot.size());
+            keys.put(qualifier, key);
+            namedKeysBySlot.add(key);
+        }
+        return key;
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, ModifierTarget target, String qualifier) {
+        try {
+            return Enum.valueOf(type, qualifier);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown " + type.getSimpleName() + " qualifier for " + target + ": '"
+                    + qualifier + "'", e);
+        }
+    }
+
+    private static int parseSpellLevel(ModifierTarget target, String qualifier) {
+        if (qualifier.startsWith(SPELL_LEVEL_PREFIX)) {
+            String digits = qualifier.substring(SPELL_LEVEL_PREFIX.length());
+            if (digits.length() == 1 && digits.charAt(0) >= '1' && digits.charAt(0) <= '0' + MAX_SPELL_LEVEL) {
+                return digits.charAt(0) - '0';
+            }
+        }
+        throw new IllegalArgumentException("Unknown spell level qualifier for " + target + ": '" + qualifier
+                + "', expected LEVEL_1 to LEVEL_" + MAX_SPELL_LEVEL);
+    }
+}
@@ -0,0 +1,305 @@
+package chargen.engine;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import chargen.dice.DiceExpression;
+
+/**
+ * An immutable, pre-folded set of {@link chargen.model.Modifier}s, stored as flat primitive arrays
+ * with one entry per touched {@link StatLayout} slot.
+ * <p>
+ * Every slot is evaluated in a fixed order, no matter what order the modifiers were declared in:
+ * <ol>
+ *     <li>{@code SET} replaces the base value (the highest SET wins),</li>
+ *     <li>{@code ADD} and {@code SUBTRACT} are summed and added,</li>
+ *     <li>{@code MULTIPLY} and {@code DIVIDE} are folded into one exact fraction and applied once,
+ *         rounding down,</li>
+ *     <li>{@code AT_LEAST} raises the value to the highest floor,</li>
+ *     <li>{@code AT_MOST} lowers the value to the lowest cap.</li>
+ * </ol>
+ * Because each step folds associatively, two programs can be {@link #merge merged} without going back
+ * to the source modifiers. Evaluation allocates nothing and boxes nothing, and results outside the
+ * {@code int} range saturate to its bounds. Merging never fails either: sums saturate, and a fraction whose
+ * terms outgrow 64 bits is replaced by the nearest one that fits.
+ * <p>
+ * Modifiers whose value is dice are rolled rather than folded, so they are not evaluated here; the program
+ * keeps each one's slot and compiled {@link DiceExpression}, and merging concatenates them.
+ */
+public final class StatProgram {
+
+    private static final int[] NO_DICE_SLOTS = new int[0];
+    private static final DiceExpression[] NO_DICE = new DiceExpression[0];
+
+    /** A program that leaves every stat untouched. */
+    public static final StatProgram EMPTY = new StatProgram(0);
+
+    // Parallel arrays, indexed by entry; 'slots' is sorted ascending so lookups can binary search.
+    final int[] slots;
+    final boolean[] hasSet;
+    final int[] setValues;
+    final int[] addends;
+    final long[] numerators;
+    final long[] denominators;
+    final int[] floors;
+    final int[] caps;
+    // Dice modifiers in declaration order, with the slot each one targets.
+    final int[] diceSlots;
+    final DiceExpression[] dice;
+
+    StatProgram(int entries) {
+        this(entries, NO_DICE_SLOTS, NO_DICE);
+    }
+
+    StatProgram(int entries, int[] diceSlots, DiceExpression[] dice) {
+        this.slots = new int[entries];
+        this.hasSet = new boolean[entries];
+        this.setValues = new int[entries];
+        this.addends = new int[entries];
+        this.numerators = new long[entries];
+        this.denominators = new long[entries];
+        this.floors = new int[entries];
+        this.caps = new int[entries];
+        this.diceSlots = diceSlots;
+        this.dice = dice;
+        Arrays.fill(numerators, 1L);
+        Arrays.fill(denominators, 1L);
+        Arrays.fill(floors, Integer.MIN_VALUE);
+        Arrays.fill(caps, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the number of slots this program touches.
+     *
+     * @return The number of compiled slot entries.
+     */
+    public int size() {
+        return slots.length;
+    }
+
+    /**
+     * Returns the slot of the {@code index}-th entry. Entries are sorted by slot.
+     *
+     * @param index An entry index between 0 and {@link #size()} (exclusive).
+     * @return The slot the entry applies to.
+     */
+    public int slotAt(int index) {
+        return slots[index];
+    }
+
+    /**
+     * Returns the number of dice modifiers this program carries.
+     *
+     * @return The number of dice entries.
+     */
+    public int diceCount() {
+        return dice.length;
+    }
+
+    /**
+     * Returns the slot the {@code index}-th dice modifier targets. Dice entries are in declaration order.
+     *
+     * @param index A dice entry index between 0 and {@link #diceCount()} (exclusive).
+     * @return The slot the rolled value applies to.
+     */
+    public int diceSlotAt(int index) {
+        return diceSlots[index];
+    }
+
+    /**
+     * Returns the compiled expression of the {@code index}-th dice modifier, ready to roll.
+     *
+     * @param index A dice entry index between 0 and {@link #diceCount()} (exclusive).
+     * @return The compiled dice.
+     */
+    public DiceExpression diceAt(int index) {
+        return dice[index];
+    }
+
+    /**
+     * Returns whether this program changes the given slot at all.
+     *
+     * @param slot The slot to check.
+     * @return {@code true} if the program has an entry for the slot.
+     */
+    public boolean touches(int slot) {
+        return Arrays.binarySearch(slots, slot) >= 0;
+    }
+
+    /**
+     * Evaluates a single slot against a base value.
+     *
+     * @param slot The slot to evaluate.
+     * @param base The unmodified value of the stat.
+     * @return The modified value, or {@code base} if the program does not touch the slot.
+     */
+    public int evaluate(int slot, int base) {
+        int index = Arrays.binarySearch(slots, slot);
+        return index < 0 ? base : apply(index, base);
+    }
+
+    /**
+     * Applies every entry in place to a dense stat array indexed by slot.
+     *
+     * @param stats The stat values, at least as long as the highest touched slot.
+     */
+    public void applyTo(int[] stats) {
+        for (int i = 0; i < slots.length; i++) {
+            stats[slots[i]] = apply(i, stats[slots[i]]);
+        }
+    }
+
+    int apply(int index, int base) {
+        long value = hasSet[index] ? setValues[index] : base;
+        value += addends[index];
+        long numerator = numerators[index];
+        long denominator = denominators[index];
+        if (numerator != denominator) {
+            value = scale(value, numerator, denominator);
+        }
+        value = Math.max(value, floors[index]);
+        value = Math.min(value, caps[index]);
+        return (int) Math.max(Integer.MIN_VALUE, value);
+    }
+
+    /**
+     * Returns {@code floor(value * numerator / denominator)} for a positive denominator, exactly, saturating at
+     * the {@code long} range.
+     */
+    static long scale(long value, long numerator, long denominator) {
+        long product = value * numerator;
+        if (Math.multiplyHigh(value, numerator) == product >> 63) {
+            return Math.floorDiv(product, denominator);
+        }
+        // Only reached by absurd modifiers, so the exact slow path is fine.
+        BigInteger[] quotient = BigInteger.valueOf(value).multiply(BigInteger.valueOf(numerator))
+                .divideAndRemainder(BigInteger.valueOf(denominator));
+        return saturate(quotient[1].signum() < 0 ? quotient[0].subtract(BigInteger.ONE) : quotient[0]);
+    }
+
+    private static long saturate(BigInteger value) {
+        if (value.bitLength() < Long.SIZE) {
+            return value.longValue();
+        }
+        return value.signum() < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+    }
+
+    /**
+     * Combines this program with another, as if both sets of modifiers had been compiled together.
+     *
+     * @param other The program to merge with.
+     * @return A new program covering the slots of both.
+     */
+    public StatProgram merge(StatProgram other) {
+        if (other.slots.length == 0 && other.dice.length == 0) {
+            return this;
+        }
+        if (slots.length == 0 && dice.length == 0) {
+            return other;
+        }
+        int entries = 0;
+        for (int i = 0, j = 0; i < slots.length || j < other.slots.length; entries++) {
+            if (j == other.slots.length || (i < slots.length && slots[i] < other.slots[j])) {
+                i++;
+            } else if (i == slots.length || other.slots[j] < slots[i]) {
+                j++;
+            } else {
+                i++;
+                j++;
+            }
+        }
+
+        StatProgram merged;
+        if (other.dice.length == 0) {
+            merged = new StatProgram(entries, diceSlots, dice);
+        } else if (dice.length == 0) {
+            merged = new StatProgram(entries, other.diceSlots, other.dice);
+        } else {
+            int[] mergedSlots = Arrays.copyOf(diceSlots, dice.length + other.dice.length);
+            System.arraycopy(other.diceSlots, 0, mergedSlots, dice.length, other.dice.length);
+            DiceExpression[] mergedDice = Arrays.copyOf(dice, mergedSlots.length);
+            System.arraycopy(other.dice, 0, mergedDice, dice.length, other.dice.length);
+            merged = new StatProgram(entries, mergedSlots, mergedDice);
+        }
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < entries; k++) {
+            if (j == other.slots.length || (i < slots.length && slots[i] < other.slots[j])) {
+                merged.copyEntry(k, this, i++);
+            } else if (i == slots.length || other.slots[j] < slots[i]) {
+                merged.copyEntry(k, other, j++);
+            } else {
+                merged.copyEntry(k, this, i++);
+                merged.foldEntry(k, other, j++);
+            }
+        }
+        return merged;
+    }
+
+    void copyEntry(int index, StatProgram source, int sourceIndex) {
+        slots[index] = source.slots[sourceIndex];
+        hasSet[index] = source.hasSet[sourceIndex];
+        setValues[index] = source.setValues[sourceIndex];
+        addends[index] = source.addends[sourceIndex];
+        numerators[index] = source.numerators[sourceIndex];
+        denominators[index] = source.denominators[sourceIndex];
+        floors[index] = source.floors[sourceIndex];
+        caps[index] = source.caps[sourceIndex];
+    }
+
+    void foldEntry(int index, StatProgram source, int sourceIndex) {
+        if (source.hasSet[sourceIndex]) {
+            foldSet(index, source.setValues[sourceIndex]);
+        }
+        addends[index] = (int) Math.max(Integer.MIN_VALUE,
+                Math.min(Integer.MAX_VALUE, (long) addends[index] + source.addends[sourceIndex]));
+        foldFraction(index, source.numerators[sourceIndex], source.denominators[sourceIndex]);
+        floors[index] = Math.max(floors[index], source.floors[sourceIndex]);
+        caps[index] = Math.min(caps[index], source.caps[sourceIndex]);
+    }
+
+    void foldSet(int index, int value) {
+        setValues[index] = hasSet[index] ? Math.max(setValues[index], value) : value;
+        hasSet[index] = true;
+    }
+
+    void foldFraction(int index, long numerator, long denominator) {
+        long n = numerators[index] * numerator;
+        long d = denominators[index] * denominator;
+        if (Math.multiplyHigh(numerators[index], numerator) == n >> 63
+                && Math.multiplyHigh(denominators[index], denominator) == d >> 63
+                && n != Long.MIN_VALUE) {
+            long gcd = gcd(Math.abs(n), d);
+            numerators[index] = n / gcd;
+            denominators[index] = d / gcd;
+            return;
+        }
+        BigInteger bigN = BigInteger.valueOf(numerators[index]).multiply(BigInteger.valueOf(numerator));
+        BigInteger bigD = BigInteger.valueOf(denominators[index]).multiply(BigInteger.valueOf(denominator));
+        BigInteger gcd = bigN.gcd(bigD);
+        if (gcd.signum() != 0) {
+            bigN = bigN.divide(gcd);
+            bigD = bigD.divide(gcd);
+        }
+        // Drop low bits from both terms until they fit, which keeps the ratio to within a part in 2^61.
+        int shift = Math.max(0, Math.max(bigN.bitLength(), bigD.bitLength()) - (Long.SIZE - 2));
+        bigD = bigD.shiftRight(shift);
+        if (bigD.signum() == 0) {
+            // Larger than any stat can be, whatever it multiplies.
+            numerators[index] = bigN.signum() < 0 ? -Long.MAX_VALUE : Long.MAX_VALUE;
+            denominators[index] = 1;
+            return;
+        }
+        numerators[index] = bigN.shiftRight(shift).longValueExact();
+        denominators[index] = bigD.longValueExact();
+    }
+
+    static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a == 0 ? 1 : a;
+    }
+}
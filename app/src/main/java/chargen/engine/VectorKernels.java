@@ -0,0 +1,81 @@
+package chargen.engine;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The column kernels written against the incubating Vector API, at the platform's preferred vector width.
+ * Only loaded once {@link BatchKernels#best()} has checked that the module is present.
+ */
+final class VectorKernels implements BatchKernels {
+
+    static final VectorKernels INSTANCE = new VectorKernels();
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    private VectorKernels() {
+    }
+
+    @Override
+    public void abilityModifiers(int[] scores, int[] modifiers, int from, int to) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            IntVector.fromArray(SPECIES, scores, i)
+                    .sub(10)
+                    .lanewise(VectorOperators.ASHR, 1)
+                    .intoArray(modifiers, i);
+        }
+        ScalarKernels.INSTANCE.abilityModifiers(scores, modifiers, i, to);
+    }
+
+    @Override
+    public void skillBonuses(int[] modifiers, int[] proficientSkills, int skill, int[] proficiencyBonuses,
+            int[] bonuses, int from, int to) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            IntVector proficient = IntVector.fromArray(SPECIES, proficientSkills, i)
+                    .lanewise(VectorOperators.LSHR, skill)
+                    .and(1);
+            IntVector.fromArray(SPECIES, modifiers, i)
+                    .add(proficient.mul(IntVector.fromArray(SPECIES, proficiencyBonuses, i)))
+                    .intoArray(bonuses, i);
+        }
+        ScalarKernels.INSTANCE.skillBonuses(modifiers, proficientSkills, skill, proficiencyBonuses, bonuses, i, to);
+    }
+
+    @Override
+    public void add(int[] a, int[] b, int[] out, int from, int to) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            IntVector.fromArray(SPECIES, a, i).add(IntVector.fromArray(SPECIES, b, i)).intoArray(out, i);
+        }
+        ScalarKernels.INSTANCE.add(a, b, out, i, to);
+    }
+
+    @Override
+    public void multiplyAdd(int[] a, int[] b, int[] c, int[] out, int from, int to) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            IntVector.fromArray(SPECIES, a, i)
+                    .mul(IntVector.fromArray(SPECIES, b, i))
+                    .add(IntVector.fromArray(SPECIES, c, i))
+                    .intoArray(out, i);
+        }
+        ScalarKernels.INSTANCE.multiplyAdd(a, b, c, out, i, to);
+    }
+
+    @Override
+    public void max(int[] a, int[] b, int[] out, int from, int to) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            IntVector.fromArray(SPECIES, a, i).max(IntVector.fromArray(SPECIES, b, i)).intoArray(out, i);
+        }
+        ScalarKernels.INSTANCE.max(a, b, out, i, to);
+    }
+
+    @Override
+    public String toString() {
+        return "vector (" + SPECIES.vectorBitSize() + "-bit)";
+    }
+}
@@ -0,0 +1,31 @@
+package chargen.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for one trait source being parsed or mapped; its duration is the load time.
+ */
+@Name("chargen.CatalogLoad")
+@Label("Trait Catalog Load")
+@Category({"Chargen", "Catalog"})
+@Description("A trait source file parsed or a snapshot opened")
+public final class CatalogLoadEvent extends Event {
+
+    /** The resource path or file path. */
+    @Label("Source")
+    public String source;
+
+    /** The size of the source. */
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    /** The number of traits the source holds. */
+    @Label("Trait Count")
+    public int traitCount;
+}
@@ -0,0 +1,59 @@
+package chargen.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A monotonically increasing count, e.g. of trait lookups. Increments are striped across threads, so
+ * counting from many threads at once does not contend on one cache line.
+ */
+public final class Counter {
+
+    private final String name;
+    private final LongAdder value = new LongAdder();
+
+    Counter(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the name the counter is registered under.
+     *
+     * @return The name, e.g. {@code trait.lookup}.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Adds one to the count, unless metrics are disabled.
+     */
+    public void increment() {
+        if (Metrics.ENABLED) {
+            value.increment();
+        }
+    }
+
+    /**
+     * Adds to the count, unless metrics are disabled.
+     *
+     * @param amount The amount to add.
+     */
+    public void add(long amount) {
+        if (Metrics.ENABLED) {
+            value.add(amount);
+        }
+    }
+
+    /**
+     * Returns the current count.
+     *
+     * @return The sum of everything added since the last reset.
+     */
+    public long get() {
+        return value.sum();
+    }
+
+    void reset() {
+        value.reset();
+    }
+}
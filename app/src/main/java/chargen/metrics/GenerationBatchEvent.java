@@ -0,0 +1,26 @@
+package chargen.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for one batch of characters generated: a chunk of a command-line batch, or a
+ * micro-batch of server requests.
+ */
+@Name("chargen.GenerationBatch")
+@Label("Generation Batch")
+@Category({"Chargen", "Generation"})
+@Description("A batch of characters rolled and rendered")
+public final class GenerationBatchEvent extends Event {
+
+    /** The number of characters generated. */
+    @Label("Characters")
+    public int characters;
+
+    /** The number of requests the batch served; 1 for a command-line chunk. */
+    @Label("Requests")
+    public int requests;
+}
@@ -0,0 +1,99 @@
+package chargen.metrics;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The process-wide registry of {@link Counter}s and {@link LatencyHistogram}s.
+ * <p>
+ * Instrumented classes look their metrics up once, into static fields, and then only increment and record.
+ * Metrics are on unless the JVM is started with {@code -Dchargen.metrics=false}; the flag is read once into a
+ * constant, so when it is off the JIT removes every increment, record and {@link #startTimer()} call
+ * outright. Flight Recorder events (see {@link CatalogLoadEvent} and the other events in this package)
+ * are switched on and off by the recording settings instead, independently of this flag.
+ * <p>
+ * The command line dumps the registry with {@link #dump(PrintStream)}; the HTTP server serves the same
+ * text at {@code /metrics}.
+ */
+public final class Metrics {
+
+    /** Whether counters and histograms record anything. */
+    static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("chargen.metrics", "true"));
+
+    private static final Map<String, Counter> COUNTERS = new ConcurrentSkipListMap<>();
+    private static final Map<String, LatencyHistogram> HISTOGRAMS = new ConcurrentSkipListMap<>();
+
+    private Metrics() {
+    }
+
+    /**
+     * Returns whether counters and histograms are recording.
+     *
+     * @return {@code false} if the JVM was started with {@code -Dchargen.metrics=false}.
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Returns the counter registered under a name, registering it first if needed.
+     *
+     * @param name The name, dot-separated by area, e.g. {@code trait.lookup}.
+     * @return The counter; the same instance for every call with this name.
+     */
+    public static Counter counter(String name) {
+        return COUNTERS.computeIfAbsent(name, Counter::new);
+    }
+
+    /**
+     * Returns the histogram registered under a name, registering it first if needed.
+     *
+     * @param name The name, dot-separated by area, e.g. {@code catalog.load}.
+     * @return The histogram; the same instance for every call with this name.
+     */
+    public static LatencyHistogram histogram(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, LatencyHistogram::new);
+    }
+
+    /**
+     * Reads the clock for a later {@link LatencyHistogram#recordSince(long)}, or skips it when metrics are
+     * disabled.
+     *
+     * @return The current {@link System#nanoTime()}, or 0 when disabled.
+     */
+    public static long startTimer() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Writes every metric as one line of text, counters first, each group in name order. Durations are in
+     * microseconds.
+     *
+     * @param out The stream to write to.
+     */
+    public static void dump(PrintStream out) {
+        if (!ENABLED) {
+            out.println("# metrics disabled (-Dchargen.metrics=false)");
+            return;
+        }
+        for (Counter counter : COUNTERS.values()) {
+            out.println(counter.getName() + " " + counter.get());
+        }
+        for (LatencyHistogram histogram : HISTOGRAMS.values()) {
+            long count = histogram.getCount();
+            out.printf("%s count=%d mean_us=%.1f p50_us=%.1f p99_us=%.1f max_us=%.1f%n", histogram.getName(), count,
+                    count == 0 ? 0.0 : histogram.getTotalNanos() / 1e3 / count,
+                    histogram.getPercentileNanos(50) / 1e3, histogram.getPercentileNanos(99) / 1e3,
+                    histogram.getMaxNanos() / 1e3);
+        }
+    }
+
+    /**
+     * Zeroes every registered metric, e.g. between benchmark phases. Metrics stay registered.
+     */
+    public static void reset() {
+        COUNTERS.values().forEach(Counter::reset);
+        HISTOGRAMS.values().forEach(LatencyHistogram::reset);
+    }
+}
@@ -0,0 +1,25 @@
+package chargen.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for one list of modifiers compiled into a stat program.
+ */
+@Name("chargen.ModifierCompile")
+@Label("Modifier Compilation")
+@Category({"Chargen", "Engine"})
+@Description("Modifiers compiled into a stat program")
+public final class ModifierCompileEvent extends Event {
+
+    /** The number of modifiers compiled. */
+    @Label("Modifiers")
+    public int modifierCount;
+
+    /** The number of stat slots the resulting program touches. */
+    @Label("Slots")
+    public int slotCount;
+}
@@ -0,0 +1,25 @@
+package chargen.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for one evaluation pass over a range of rows of a character batch.
+ */
+@Name("chargen.StatEvaluation")
+@Label("Stat Evaluation")
+@Category({"Chargen", "Engine"})
+@Description("Derived statistics evaluated for a range of batch rows")
+public final class StatEvaluationEvent extends Event {
+
+    /** The number of rows evaluated. */
+    @Label("Rows")
+    public int rows;
+
+    /** The kernels used, e.g. scalar or a vector species. */
+    @Label("Kernels")
+    public String kernels;
+}
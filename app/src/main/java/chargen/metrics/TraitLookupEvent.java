@@ -0,0 +1,28 @@
+package chargen.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for one trait looked up by name. Lookups happen several times per generated
+ * character, so the event is off unless a recording enables {@code chargen.TraitLookup} explicitly.
+ */
+@Name("chargen.TraitLookup")
+@Label("Trait Lookup")
+@Category({"Chargen", "Catalog"})
+@Description("A trait or its compiled program looked up by name")
+@Enabled(false)
+public final class TraitLookupEvent extends Event {
+
+    /** The name looked up. */
+    @Label("Name")
+    public String name;
+
+    /** Whether the catalog has a trait by that name. */
+    @Label("Found")
+    public boolean found;
+}
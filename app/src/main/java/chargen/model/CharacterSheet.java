@@ -0,0 +1,51 @@
+package chargen.model;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Singular;
+import lombok.Value;
+
+/**
+ * An immutable, fully derived character, as produced by the generator.
+ * Maps are keyed in enum order and only hold the entries that apply (e.g. senses the character has).
+ */
+@Value
+@Builder(toBuilder = true)
+@SuppressFBWarnings(value = "EI_EXPOSE_REP", justification = "Lombok @Value + " +
+        "@Singular ensures unmodifiable collections")
+public class CharacterSheet {
+    long index;
+    @NonNull
+    Alignment alignment;
+    @NonNull
+    CreatureSize size;
+    int level;
+    @NonNull
+    @Singular
+    Map<Ability, Integer> abilityScores;
+    int proficiencyBonus;
+    int armorClass;
+    int maxHitPoints;
+    int initiative;
+    int passivePerception;
+    @NonNull
+    @Singular
+    Map<MovementType, Integer> speeds;
+    @NonNull
+    @Singular("sense")
+    Map<Sense, Integer> senses;
+    @NonNull
+    @Singular("skillBonus")
+    Map<Skill, Integer> skillBonuses;
+    @NonNull
+    @Singular
+    Set<Skill> proficientSkills;
+    @NonNull
+    @Singular
+    List<String> traitNames;
+}
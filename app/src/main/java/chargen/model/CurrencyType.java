@@ -1,9 +1,27 @@
 package chargen.model;
 
+/**
+ * The coins of the realm, each with its value in copper pieces.
+ */
 public enum CurrencyType {
-    CP,
-    SP,
-    EP,
-    GP,
-    PP
+    CP(1),
+    SP(10),
+    EP(50),
+    GP(100),
+    PP(1000);
+
+    private final int copperValue;
+
+    CurrencyType(int copperValue) {
+        this.copperValue = copperValue;
+    }
+
+    /**
+     * Returns what one coin is worth in copper pieces.
+     *
+     * @return The value in copper pieces.
+     */
+    public int getCopperValue() {
+        return copperValue;
+    }
 }
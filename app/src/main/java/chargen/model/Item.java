@@ -0,0 +1,48 @@
+package chargen.model;
+
+import java.util.Set;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Singular;
+import lombok.Value;
+
+/**
+ * A piece of equipment: a weapon, a suit of armor or a shield, adventuring gear or a tool.
+ * <p>
+ * Weight and cost are fixed-point integers, so that totals over many items are exact: weight in thousandths
+ * of a pound (see {@link #WEIGHT_SCALE}) and cost in copper pieces. Weapon fields are unset for items that
+ * are not weapons, and armor fields for items that are not armor.
+ */
+@Value
+@Builder(toBuilder = true)
+@SuppressFBWarnings(value = "EI_EXPOSE_REP", justification = "Lombok @Value + " +
+        "@Singular ensures an unmodifiable set for 'properties'")
+public class Item {
+
+    /** Weights are stored in units of one pound divided by this. */
+    public static final int WEIGHT_SCALE = 1000;
+
+    @NonNull
+    String name;
+    @NonNull
+    ItemCategory category;
+    /** Weight in thousandths of a pound. */
+    long weight;
+    /** Price in copper pieces. */
+    long cost;
+    /** The proficiency needed to use the item well, or {@code null} if anyone can. */
+    ProficiencyType proficiency;
+    /** Damage dice of a weapon, e.g. "1d8", or {@code null}. */
+    String damage;
+    /** Damage type of a weapon, or {@code null}. */
+    DamageType damageType;
+    @NonNull
+    @Singular
+    Set<WeaponProperty> properties;
+    /** Kind of armor, or {@code null} for items that are not armor. */
+    ArmorType armorType;
+    /** Base Armor Class of armor, or the bonus of a shield; 0 for other items. */
+    int armorClass;
+}
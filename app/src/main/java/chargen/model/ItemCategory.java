@@ -0,0 +1,8 @@
+package chargen.model;
+
+public enum ItemCategory {
+    WEAPON,
+    ARMOR,
+    GEAR,
+    TOOL
+}
@@ -0,0 +1,74 @@
+package chargen.model;
+
+import java.util.Objects;
+
+/**
+ * A handle to text that need not stay on the heap, such as a trait description that is only read back from
+ * its source file when a sheet is rendered. The handle produces the text on demand.
+ * <p>
+ * Handles compare by identity. To compare text, compare what {@link #get()} returns.
+ */
+public abstract class LazyText {
+
+    /**
+     * Creates a handle; for subclasses.
+     */
+    protected LazyText() {
+    }
+
+    /**
+     * Wraps text that is already in memory.
+     *
+     * @param text The text.
+     * @return A handle that returns the text as is.
+     * @throws NullPointerException if text is null.
+     */
+    public static LazyText of(String text) {
+        return new Resident(Objects.requireNonNull(text, "text cannot be null"));
+    }
+
+    /**
+     * Returns the text, reading it back from where it is kept if it is not in memory.
+     *
+     * @return The text.
+     * @throws java.io.UncheckedIOException if the text can no longer be read.
+     */
+    public abstract String get();
+
+    /**
+     * Returns whether this handle holds its text in memory, so that {@link #get()} does no work.
+     *
+     * @return {@code true} for text from {@link #of(String)}.
+     */
+    public boolean isResident() {
+        return false;
+    }
+
+    /**
+     * Returns the text.
+     *
+     * @return The same as {@link #get()}.
+     */
+    @Override
+    public String toString() {
+        return get();
+    }
+
+    private static final class Resident extends LazyText {
+        private final String text;
+
+        Resident(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public String get() {
+            return text;
+        }
+
+        @Override
+        public boolean isResident() {
+            return true;
+        }
+    }
+}
@@ -1,12 +1,21 @@
 package chargen.model;
 
+import java.util.Objects;
+
+import lombok.AccessLevel;
 import lombok.Builder;
+import lombok.Getter;
 import lombok.NonNull;
+import lombok.ToString;
 import lombok.Value; // For an immutable class with getters, equals, hashCode, toString
 
 /**
  * An immutable rule that applies a calculable adjustment to a character statistic.
  * Typically used for numerical changes.
+ * <p>
+ * Catalogs share one instance between every trait that grants the same modifier (see
+ * {@code chargen.service.ModifierPool}), so the hash is computed once, up front, and {@link #equals(Object)}
+ * answers from identity or the hashes in the common cases before comparing fields.
  *
  * @param target The broad category of statistic being modified.
  * @param targetQualifier Optional specifier for the target (e.g., "STRENGTH" if target is ABILITY_SCORE). Can be null.
@@ -16,8 +25,7 @@ import lombok.Value; // For an immutable class with getters, equals, hashCode, t
  * @param sourceId A unique identifier for the game element (race, feat, item) that grants this modifier.
  * @param description Optional player-facing text describing this specific modifier instance. Can be null.
  */
-@Value // Makes class final, all fields private final, generates getters, equals, hashCode, toString
-@Builder(toBuilder = true) // Generates a builder pattern
+@Value // Makes class final, all fields private final, generates getters and toString
 public class Modifier {
 
     @NonNull ModifierTarget target;
@@ -26,6 +34,9 @@ public class Modifier {
     Object value;           // Nullable, using Object for flexibility (Number, String for dice)
     @NonNull String sourceId;
     String description;     // Nullable
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    int hash;
 
     // Lombok's @Builder handles constructor creation.
     // Custom validation can be done in a private constructor called by the builder,
@@ -34,6 +45,7 @@ public class Modifier {
     // or by ensuring data sources are correct.
     // If strict constructor validation is needed with @Builder, it's a bit more involved.
     // One way is a private all-args constructor that the builder calls, and that constructor does validation.
+    @Builder(toBuilder = true) // Generates a builder pattern
     private Modifier(@NonNull ModifierTarget target, String targetQualifier, @NonNull Operation operation,
                      Object value, @NonNull String sourceId, String description) {
         // Perform Objects.requireNonNull checks and other validations here if desired
@@ -45,7 +57,43 @@ public class Modifier {
         // this.max = max;
         this.sourceId = sourceId;
         this.description = description;
+        this.hash = Objects.hash(target, targetQualifier, operation, value, sourceId, description);
 
         // Similar validation logic as in the record's compact constructor can go here.
     }
+
+    /**
+     * Compares every field. Shared instances and modifiers with different hashes are told apart without
+     * looking at the fields.
+     *
+     * @param o The object to compare with.
+     * @return {@code true} if o is a modifier with equal fields.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof Modifier)) {
+            return false;
+        }
+        Modifier other = (Modifier) o;
+        return hash == other.hash
+                && target == other.target
+                && operation == other.operation
+                && Objects.equals(targetQualifier, other.targetQualifier)
+                && Objects.equals(value, other.value)
+                && sourceId.equals(other.sourceId)
+                && Objects.equals(description, other.description);
+    }
+
+    /**
+     * Returns the hash computed when the modifier was built.
+     *
+     * @return The hash of all fields.
+     */
+    @Override
+    public int hashCode() {
+        return hash;
+    }
 }
@@ -13,46 +13,46 @@ public enum ModifierTarget {
      * Modifies a base ability score (e.g., Strength, Dexterity).
      * Qualifier: String representing the {@link Ability} enum constant name (e.g., "STRENGTH").
      */
-    ABILITY_SCORE,
+    ABILITY_SCORE(QualifierType.ABILITY),
 
     /**
      * Modifies the character's proficiency bonus.
      * (Rarely modified directly, usually scales with character level).
      */
-    PROFICIENCY_BONUS,
+    PROFICIENCY_BONUS(QualifierType.NONE),
 
     // --- Primary Combat Stats ---
     /**
      * Modifies Armor Class.
      * Qualifier: Not typically needed.
      */
-    ARMOR_CLASS,
+    ARMOR_CLASS(QualifierType.NONE),
 
     /**
      * Modifies the maximum hit points.
      * Qualifier: Not typically needed.
      */
-    MAX_HIT_POINTS,
+    MAX_HIT_POINTS(QualifierType.NONE),
 
     /**
      * Modifies the initiative bonus (excluding Dexterity modifier, which is added separately).
      * Qualifier: Not typically needed.
      */
-    INITIATIVE_BONUS,
+    INITIATIVE_BONUS(QualifierType.NONE),
 
     // --- Movement ---
     /**
      * Modifies a specific type of speed (e.g., walking, flying).
      * Qualifier: String representing the movement type (e.g., "WALKING", "FLYING").
      */
-    SPEED,
+    SPEED(QualifierType.MOVEMENT_TYPE),
 
     // --- Skills & Senses (Passive Scores or Direct Bonuses to Checks shown on sheet) ---
     /**
      * Modifies the character's passive Perception score directly.
      * Qualifier: Not typically needed.
      */
-    PASSIVE_PERCEPTION, // Could also be PASSIVE_SKILL with qualifier "PERCEPTION"
+    PASSIVE_PERCEPTION(QualifierType.NONE), // Could also be PASSIVE_SKILL with qualifier "PERCEPTION"
 
     // PASSIVE_INSIGHT, PASSIVE_INVESTIGATION (could be added if you want to calculate these)
 
@@ -61,10 +61,9 @@ public enum ModifierTarget {
      * The character sheet would display each sense and its effective range.
      * Qualifier: A String uniquely identifying the sense (e.g., "NORMAL_VISION", "DARKVISION", 
      *              "BLINDSIGHT", "TREMORSENSE").
-     *            It's recommended to use constants or an internal enum for these qualifier strings if possible
-     *            on the consuming side for consistency.
+     *            Must be a {@link Sense} enum constant name.
      */
-    SENSE_RANGE,
+    SENSE_RANGE(QualifierType.SENSE),
 
     // --- Saving Throws (Direct bonuses shown on sheet) ---
     /**
@@ -83,53 +82,85 @@ public enum ModifierTarget {
      * Modifies the spell attack bonus (beyond ability mod + proficiency).
      * Qualifier: Optional String if bonus is for a specific class or spell type (e.g., "WIZARD_SPELLS", "FIRE_SPELLS").
      */
-    SPELL_ATTACK_BONUS,
+    SPELL_ATTACK_BONUS(QualifierType.OPTIONAL_NAME),
 
     /**
      * Modifies the spell save DC (beyond 8 + ability mod + proficiency).
      * Qualifier: Optional String if DC change is for a specific class.
      */
-    SPELL_SAVE_DC,
+    SPELL_SAVE_DC(QualifierType.OPTIONAL_NAME),
 
     /**
      * Modifies the maximum number of spell slots for a given spell level.
      * Used for *bonus* slots from items/feats, not base class progression.
      * Qualifier: String indicating the spell level (e.g., "LEVEL_1", "LEVEL_5").
      */
-    MAX_SPELL_SLOTS,
+    MAX_SPELL_SLOTS(QualifierType.SPELL_LEVEL),
 
     // --- Resources / Pools ---
     /**
      * Modifies the maximum number of a specific named resource.
      * Qualifier: String naming the resource (e.g., "LUCK_POINTS", "KI_POINTS", "SORCERY_POINTS").
      */
-    RESOURCE_MAX, // This is generic. Your Feats.LUCKY used "luckPoints" directly.
+    RESOURCE_MAX(QualifierType.NAME), // This is generic. Your Feats.LUCKY used "luckPoints" directly.
                   // We could have specific targets like LUCK_POINTS_MAX or use this generic one.
                   // Let's go with specific for now if the list is small.
 
-    LUCK_POINTS_MAX, // From your Lucky feat example
+    LUCK_POINTS_MAX(QualifierType.NONE), // From your Lucky feat example
 
     // --- Attack & Damage Rolls (Flat bonuses shown on sheet, NOT situational choices like GWM/SS penalty/bonus) ---
     /**
      * Applies a flat bonus/penalty to attack rolls under certain broad conditions.
      * Qualifier: String describing context (e.g., "MELEE_WEAPON_ATTACKS", "RANGED_SPELL_ATTACKS", "ANY").
      */
-    ATTACK_ROLL_FLAT_BONUS,
+    ATTACK_ROLL_FLAT_BONUS(QualifierType.OPTIONAL_NAME),
 
     /**
      * Applies a flat bonus/penalty to damage rolls under certain broad conditions.
      * Qualifier: String describing context (e.g., "MELEE_WEAPON_ATTACKS", "FIRE_DAMAGE_SPELLS", "ANY").
      */
-    DAMAGE_ROLL_FLAT_BONUS,
+    DAMAGE_ROLL_FLAT_BONUS(QualifierType.OPTIONAL_NAME),
 
 
     // --- Other Specific Numerical Values from your examples ---
     // From Feats.SPELL_SNIPER's "spellRange" (assuming it's a multiplier to base ranges)
     // Could be handled differently if spell range is a property of each spell object.
     // For now, if there's a general "spell range multiplier" stat on the character:
-    SPELL_RANGE_MULTIPLIER, // Qualifier: Not typically needed, applies generally.
+    SPELL_RANGE_MULTIPLIER(QualifierType.NONE), // Qualifier: Not typically needed, applies generally.
+
+    // --- Defences & Rerolls (used numerically by the combat simulator) ---
+    /**
+     * How damage of one type is taken. Every source ADDs its level: 1 for resistance (halved), -1 for
+     * vulnerability (doubled) and 3 for immunity. The levels are summed and the total is clamped to -1..2,
+     * read as vulnerability, normal, resistance or immunity; so a resistance and a vulnerability from
+     * different traits cancel to normal damage, as the rules say, and immunity outweighs a vulnerability.
+     * Qualifier: DamageType name (e.g., "POISON").
+     */
+    DAMAGE_RESISTANCE(QualifierType.DAMAGE_TYPE),
+
+    /**
+     * A d20 showing this number or less may be rerolled once, and the new roll must be used (e.g. 1 for the
+     * Halfling's Lucky trait). 0 means no reroll.
+     * Qualifier: String describing which rolls (e.g., "ATTACK_ROLLS"); omitted for every d20 roll.
+     */
+    D20_REROLL_AT_MOST(QualifierType.OPTIONAL_NAME);
 
     // The boolean flags like "ignoreHalfCover", "immuneToSleep" are NOT ModifierTargets.
     // They are informational aspects of Features/Traits, conveyed by their descriptions.
     // The generator doesn't need to *calculate* with "immuneToSleep" numerically.
-}
\ No newline at end of file
+
+    private final QualifierType qualifierType;
+
+    ModifierTarget(QualifierType qualifierType) {
+        this.qualifierType = qualifierType;
+    }
+
+    /**
+     * Describes which {@code targetQualifier} values are valid for this target.
+     *
+     * @return The kind of qualifier this target takes.
+     */
+    public QualifierType getQualifierType() {
+        return qualifierType;
+    }
+}
@@ -0,0 +1,166 @@
+package chargen.model;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * An immutable purse of coins, counted per {@link CurrencyType}.
+ * <p>
+ * All arithmetic is on whole coins and copper pieces, so totals are exact however many purses are added up.
+ * Coins weigh {@value #COIN_WEIGHT} thousandths of a pound each (fifty to the pound), in the same fixed-point
+ * units as {@link Item#getWeight()}.
+ */
+public final class Purse {
+
+    /** The weight of one coin, in thousandths of a pound. */
+    public static final int COIN_WEIGHT = Item.WEIGHT_SCALE / 50;
+
+    private static final CurrencyType[] CURRENCIES = CurrencyType.values();
+    /** A purse with no coins in it. */
+    public static final Purse EMPTY = new Purse(new long[CURRENCIES.length]);
+    // Largest coin first, for making change. Electrum is left out, as it rarely is given as change.
+    private static final CurrencyType[] CHANGE = {CurrencyType.PP, CurrencyType.GP, CurrencyType.SP,
+            CurrencyType.CP};
+
+    private final long[] coins;
+
+    private Purse(long[] coins) {
+        this.coins = coins;
+    }
+
+    /**
+     * Returns a purse holding some coins of one kind.
+     *
+     * @param currency The kind of coin.
+     * @param count The number of coins, 0 or more.
+     * @return The purse.
+     * @throws IllegalArgumentException if count is negative.
+     */
+    public static Purse of(CurrencyType currency, long count) {
+        return EMPTY.plus(currency, count);
+    }
+
+    /**
+     * Returns a purse worth the given amount in the fewest platinum, gold, silver and copper coins.
+     *
+     * @param copper The value in copper pieces, 0 or more.
+     * @return The purse.
+     * @throws IllegalArgumentException if copper is negative.
+     */
+    public static Purse fromCopper(long copper) {
+        if (copper < 0) {
+            throw new IllegalArgumentException("copper must not be negative: " + copper);
+        }
+        long[] coins = new long[CURRENCIES.length];
+        long remaining = copper;
+        for (CurrencyType currency : CHANGE) {
+            coins[currency.ordinal()] = remaining / currency.getCopperValue();
+            remaining %= currency.getCopperValue();
+        }
+        return new Purse(coins);
+    }
+
+    /**
+     * Returns this purse with some coins added.
+     *
+     * @param currency The kind of coin.
+     * @param count The number of coins, 0 or more.
+     * @return The new purse.
+     * @throws IllegalArgumentException if count is negative.
+     * @throws ArithmeticException if the count of that coin overflows.
+     */
+    public Purse plus(CurrencyType currency, long count) {
+        Objects.requireNonNull(currency, "currency cannot be null");
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative: " + count);
+        }
+        long[] sum = coins.clone();
+        sum[currency.ordinal()] = Math.addExact(sum[currency.ordinal()], count);
+        return new Purse(sum);
+    }
+
+    /**
+     * Returns the coins of this purse and another together.
+     *
+     * @param other The other purse.
+     * @return The new purse.
+     * @throws ArithmeticException if the count of any coin overflows.
+     */
+    public Purse plus(Purse other) {
+        long[] sum = coins.clone();
+        for (int i = 0; i < sum.length; i++) {
+            sum[i] = Math.addExact(sum[i], other.coins[i]);
+        }
+        return new Purse(sum);
+    }
+
+    /**
+     * Returns the number of coins of one kind.
+     *
+     * @param currency The kind of coin.
+     * @return The number of coins.
+     */
+    public long getCoins(CurrencyType currency) {
+        return coins[currency.ordinal()];
+    }
+
+    /**
+     * Returns the number of coins of every kind together.
+     *
+     * @return The number of coins.
+     */
+    public long getCoinCount() {
+        long count = 0;
+        for (long coin : coins) {
+            count += coin;
+        }
+        return count;
+    }
+
+    /**
+     * Returns what the purse is worth.
+     *
+     * @return The value in copper pieces.
+     * @throws ArithmeticException if the value overflows.
+     */
+    public long getCopperValue() {
+        long value = 0;
+        for (CurrencyType currency : CURRENCIES) {
+            value = Math.addExact(value, Math.multiplyExact(coins[currency.ordinal()], currency.getCopperValue()));
+        }
+        return value;
+    }
+
+    /**
+     * Returns what the coins weigh.
+     *
+     * @return The weight in thousandths of a pound.
+     */
+    public long getWeight() {
+        return getCoinCount() * COIN_WEIGHT;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Purse && Arrays.equals(coins, ((Purse) o).coins);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(coins);
+    }
+
+    /**
+     * Lists the coins largest first, e.g. "3 GP 5 SP"; "0 CP" for an empty purse.
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (int i = CURRENCIES.length - 1; i >= 0; i--) {
+            if (coins[i] != 0) {
+                text.append(text.length() == 0 ? "" : " ").append(coins[i]).append(' ').append(CURRENCIES[i]);
+            }
+        }
+        return text.length() == 0 ? "0 CP" : text.toString();
+    }
+}
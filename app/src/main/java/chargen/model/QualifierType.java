@@ -0,0 +1,15 @@
+package chargen.model;
+
+/**
+ * Describes what a {@link Modifier}'s {@code targetQualifier} must look like for a given {@link ModifierTarget}.
+ */
+public enum QualifierType {
+    NONE,          // no qualifier allowed
+    ABILITY,       // an Ability constant name, e.g. "STRENGTH"
+    MOVEMENT_TYPE, // a MovementType constant name, e.g. "WALKING"
+    SENSE,         // a Sense constant name, e.g. "DARKVISION"
+    DAMAGE_TYPE,   // a DamageType constant name, e.g. "POISON"
+    SPELL_LEVEL,   // "LEVEL_1" through "LEVEL_9"
+    NAME,          // a required free-form UPPER_SNAKE_CASE name, e.g. "LUCK_POINTS"
+    OPTIONAL_NAME  // as NAME, but may be omitted to mean "applies generally"
+}
@@ -0,0 +1,9 @@
+package chargen.model;
+
+public enum Sense {
+    NORMAL_VISION,
+    DARKVISION,
+    BLINDSIGHT,
+    TREMORSENSE,
+    TRUESIGHT
+}
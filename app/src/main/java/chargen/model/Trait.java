@@ -4,12 +4,22 @@ import java.util.List;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import lombok.Builder;
+import lombok.EqualsAndHashCode;
 import lombok.NonNull;
 import lombok.Singular;
+import lombok.ToString;
 import lombok.Value;
 
 // Assuming Modifier, ModifierTarget, Operation are in the same package or imported
 
+/**
+ * A named bundle of modifiers, such as a racial feature or a feat.
+ * <p>
+ * The description is held as a {@link LazyText}: catalogs loaded from files keep only its location on the
+ * heap, and {@link #getDescription()} reads it back when it is asked for. Equality, hashing and
+ * {@code toString} leave the description out, so they never read it; trait names are unique within a catalog,
+ * and the modifiers carry everything that changes a character.
+ */
 @Value
 @Builder(toBuilder = true)
 @SuppressFBWarnings(value = "EI_EXPOSE_REP", justification = "Lombok @Value + " +
@@ -18,8 +28,57 @@ public class Trait {
     @NonNull
     String name;
     @NonNull
-    String description;
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    LazyText description;
     @NonNull
     @Singular
     List<Modifier> modifiers;
+
+    /**
+     * Returns the description, reading it back from the catalog's source if it is not in memory.
+     *
+     * @return The description.
+     * @throws java.io.UncheckedIOException if the source can no longer be read.
+     */
+    public String getDescription() {
+        return description.get();
+    }
+
+    /**
+     * Returns the description without reading it.
+     *
+     * @return The handle to the description.
+     */
+    public LazyText getDescriptionText() {
+        return description;
+    }
+
+    /**
+     * Builder for {@link Trait}; the description can be given as text or as a {@link LazyText}.
+     */
+    public static class TraitBuilder {
+
+        /**
+         * Sets the description to text held in memory.
+         *
+         * @param description The description.
+         * @return This builder.
+         */
+        public TraitBuilder description(String description) {
+            this.description = description == null ? null : LazyText.of(description);
+            return this;
+        }
+
+        /**
+         * Sets the description to text that may be read lazily.
+         *
+         * @param description The handle to the description.
+         * @return This builder.
+         */
+        public TraitBuilder description(LazyText description) {
+            this.description = description;
+            return this;
+        }
+    }
 }
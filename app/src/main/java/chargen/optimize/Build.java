@@ -0,0 +1,84 @@
+package chargen.optimize;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import chargen.model.Ability;
+
+/**
+ * One build found by a {@link BuildSearch}: an ability score allocation, a set of traits and the value of
+ * the objective they reach.
+ */
+public final class Build {
+
+    /**
+     * Best first: higher value, then fewer traits, then the allocation and trait names in order.
+     */
+    static final Comparator<Build> BEST_FIRST = Comparator.comparingInt(Build::getValue).reversed()
+            .thenComparingInt(build -> build.traitNames.size())
+            .thenComparing(build -> build.scores, Arrays::compare)
+            .thenComparing(build -> build.traitNames, Build::compareNames);
+
+    private final int[] scores;
+    private final List<String> traitNames;
+    private final int value;
+
+    Build(int[] scores, List<String> traitNames, int value) {
+        this.scores = scores.clone();
+        this.traitNames = List.copyOf(traitNames);
+        this.value = value;
+    }
+
+    /**
+     * Returns the score assigned to an ability, before trait modifiers.
+     *
+     * @param ability The ability.
+     * @return The base score.
+     */
+    public int getScore(Ability ability) {
+        return scores[ability.ordinal()];
+    }
+
+    /**
+     * Returns the assigned scores, before trait modifiers.
+     *
+     * @return A copy of the scores, indexed by {@link Ability#ordinal()}.
+     */
+    public int[] getScores() {
+        return scores.clone();
+    }
+
+    /**
+     * Returns the build's traits, required ones first.
+     *
+     * @return The trait names.
+     */
+    public List<String> getTraitNames() {
+        return traitNames;
+    }
+
+    /**
+     * Returns the value of the objective the build reaches.
+     *
+     * @return The objective's value.
+     */
+    public int getValue() {
+        return value;
+    }
+
+    private static int compareNames(List<String> a, List<String> b) {
+        for (int i = 0; i < Math.min(a.size(), b.size()); i++) {
+            int order = a.get(i).compareTo(b.get(i));
+            if (order != 0) {
+                return order;
+            }
+        }
+        return Integer.compare(a.size(), b.size());
+    }
+
+    @Override
+    public String toString() {
+        return value + " " + Arrays.toString(scores) + " " + traitNames;
+    }
+}
@@ -0,0 +1,361 @@
+package chargen.optimize;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+import chargen.activity.AbilityScoreMethod;
+import chargen.model.Ability;
+import chargen.model.ModifierTarget;
+import chargen.model.Skill;
+
+/**
+ * What a {@link BuildSearch} should maximise, over which builds, and for how long.
+ * <p>
+ * The objective is a stat, named as a {@link ModifierTarget} and qualifier the way trait files name it, e.g.
+ * {@code PASSIVE_PERCEPTION} or {@code ABILITY_SCORE}/{@code "CONSTITUTION"}. A build is an ability score
+ * allocation drawn from the {@linkplain Builder#allocation(AbilityScoreMethod) allocation method} plus up to
+ * {@linkplain Builder#maxTraits(int) a number of traits}, always including the required ones and never the
+ * excluded ones. Level, skill proficiencies and the spellcasting ability are fixed for the whole search.
+ * <p>
+ * Queries are immutable; create them with {@link #builder(ModifierTarget)}.
+ */
+public final class BuildQuery {
+
+    private final ModifierTarget target;
+    private final String qualifier;
+    private final AbilityScoreMethod allocation;
+    private final int level;
+    private final int maxTraits;
+    private final Set<String> requiredTraits;
+    private final Set<String> excludedTraits;
+    private final Set<Skill> proficientSkills;
+    private final Ability spellcastingAbility;
+    private final int topK;
+    private final Duration timeBudget;
+    private final long nodeBudget;
+
+    private BuildQuery(Builder builder) {
+        this.target = builder.target;
+        this.qualifier = builder.qualifier;
+        this.allocation = builder.allocation;
+        this.level = builder.level;
+        this.maxTraits = builder.maxTraits;
+        this.requiredTraits = Collections.unmodifiableSet(new LinkedHashSet<>(builder.requiredTraits));
+        this.excludedTraits = Collections.unmodifiableSet(new LinkedHashSet<>(builder.excludedTraits));
+        this.proficientSkills = Collections.unmodifiableSet(EnumSet.copyOf(builder.proficientSkills));
+        this.spellcastingAbility = builder.spellcastingAbility;
+        this.topK = builder.topK;
+        this.timeBudget = builder.timeBudget;
+        this.nodeBudget = builder.nodeBudget;
+    }
+
+    /**
+     * Starts a query that maximises a stat.
+     *
+     * @param target The stat to maximise.
+     * @return A builder with every other setting at its default.
+     */
+    public static Builder builder(ModifierTarget target) {
+        return new Builder(target);
+    }
+
+    /**
+     * Returns the stat to maximise.
+     *
+     * @return The objective's target.
+     */
+    public ModifierTarget getTarget() {
+        return target;
+    }
+
+    /**
+     * Returns the objective's qualifier, as written in trait files.
+     *
+     * @return The qualifier, or {@code null} for targets without one.
+     */
+    public String getQualifier() {
+        return qualifier;
+    }
+
+    /**
+     * Returns the method whose legal score blocks the search may assign.
+     *
+     * @return {@link AbilityScoreMethod#STANDARD_ARRAY} or {@link AbilityScoreMethod#POINT_BUY}.
+     */
+    public AbilityScoreMethod getAllocation() {
+        return allocation;
+    }
+
+    /**
+     * Returns the character level.
+     *
+     * @return The level.
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Returns the most traits a build may have, required ones included.
+     *
+     * @return The trait limit.
+     */
+    public int getMaxTraits() {
+        return maxTraits;
+    }
+
+    /**
+     * Returns the traits every build must have.
+     *
+     * @return The required trait names.
+     */
+    public Set<String> getRequiredTraits() {
+        return requiredTraits;
+    }
+
+    /**
+     * Returns the traits no build may have.
+     *
+     * @return The excluded trait names.
+     */
+    public Set<String> getExcludedTraits() {
+        return excludedTraits;
+    }
+
+    /**
+     * Returns the skills every build is proficient in.
+     *
+     * @return The proficient skills.
+     */
+    public Set<Skill> getProficientSkills() {
+        return proficientSkills;
+    }
+
+    /**
+     * Returns the ability spell save DC and spell attack bonus are based on.
+     *
+     * @return The spellcasting ability.
+     */
+    public Ability getSpellcastingAbility() {
+        return spellcastingAbility;
+    }
+
+    /**
+     * Returns how many of the best builds to return.
+     *
+     * @return The number of builds wanted.
+     */
+    public int getTopK() {
+        return topK;
+    }
+
+    /**
+     * Returns how long the search may run before it returns the best builds found so far.
+     *
+     * @return The time budget, or {@code null} for none.
+     */
+    public Duration getTimeBudget() {
+        return timeBudget;
+    }
+
+    /**
+     * Returns how many search nodes may be visited before the search returns the best builds found so far.
+     *
+     * @return The node budget; {@link Long#MAX_VALUE} for none.
+     */
+    public long getNodeBudget() {
+        return nodeBudget;
+    }
+
+    /**
+     * Builder for {@link BuildQuery}.
+     */
+    public static final class Builder {
+        private final ModifierTarget target;
+        private String qualifier;
+        private AbilityScoreMethod allocation = AbilityScoreMethod.POINT_BUY;
+        private int level = 1;
+        private int maxTraits = 3;
+        private final Set<String> requiredTraits = new LinkedHashSet<>();
+        private final Set<String> excludedTraits = new LinkedHashSet<>();
+        private final Set<Skill> proficientSkills = EnumSet.noneOf(Skill.class);
+        private Ability spellcastingAbility = Ability.INTELLIGENCE;
+        private int topK = 10;
+        private Duration timeBudget;
+        private long nodeBudget = Long.MAX_VALUE;
+
+        private Builder(ModifierTarget target) {
+            this.target = Objects.requireNonNull(target, "target cannot be null");
+        }
+
+        /**
+         * Sets the objective's qualifier, e.g. {@code "WISDOM"} for an {@code ABILITY_SCORE} objective.
+         *
+         * @param qualifier The qualifier as written in trait files, or {@code null}.
+         * @return This builder.
+         */
+        public Builder qualifier(String qualifier) {
+            this.qualifier = qualifier;
+            return this;
+        }
+
+        /**
+         * Sets the method whose score blocks may be assigned; point-buy by default.
+         *
+         * @param allocation {@link AbilityScoreMethod#STANDARD_ARRAY} or {@link AbilityScoreMethod#POINT_BUY}.
+         * @return This builder.
+         * @throws IllegalArgumentException if the method rolls dice.
+         */
+        public Builder allocation(AbilityScoreMethod allocation) {
+            Objects.requireNonNull(allocation, "allocation cannot be null");
+            if (allocation == AbilityScoreMethod.ROLL_4D6_DROP_LOWEST) {
+                throw new IllegalArgumentException("Rolled scores cannot be searched; use STANDARD_ARRAY or POINT_BUY");
+            }
+            this.allocation = allocation;
+            return this;
+        }
+
+        /**
+         * Sets the character level; 1 by default.
+         *
+         * @param level The level, 1 or higher.
+         * @return This builder.
+         * @throws IllegalArgumentException if the level is below 1.
+         */
+        public Builder level(int level) {
+            if (level < 1) {
+                throw new IllegalArgumentException("level must be at least 1: " + level);
+            }
+            this.level = level;
+            return this;
+        }
+
+        /**
+         * Sets the most traits a build may have, required ones included; 3 by default.
+         *
+         * @param maxTraits The trait limit, 0 or more.
+         * @return This builder.
+         * @throws IllegalArgumentException if the limit is negative.
+         */
+        public Builder maxTraits(int maxTraits) {
+            if (maxTraits < 0) {
+                throw new IllegalArgumentException("maxTraits must not be negative: " + maxTraits);
+            }
+            this.maxTraits = maxTraits;
+            return this;
+        }
+
+        /**
+         * Requires a trait in every build.
+         *
+         * @param name The trait name.
+         * @return This builder.
+         */
+        public Builder requiredTrait(String name) {
+            requiredTraits.add(Objects.requireNonNull(name, "name cannot be null"));
+            return this;
+        }
+
+        /**
+         * Keeps a trait out of every build.
+         *
+         * @param name The trait name.
+         * @return This builder.
+         */
+        public Builder excludedTrait(String name) {
+            excludedTraits.add(Objects.requireNonNull(name, "name cannot be null"));
+            return this;
+        }
+
+        /**
+         * Makes every build proficient in a skill.
+         *
+         * @param skill The skill.
+         * @return This builder.
+         */
+        public Builder proficientSkill(Skill skill) {
+            proficientSkills.add(Objects.requireNonNull(skill, "skill cannot be null"));
+            return this;
+        }
+
+        /**
+         * Sets the spellcasting ability; Intelligence by default.
+         *
+         * @param ability The ability.
+         * @return This builder.
+         */
+        public Builder spellcastingAbility(Ability ability) {
+            this.spellcastingAbility = Objects.requireNonNull(ability, "ability cannot be null");
+            return this;
+        }
+
+        /**
+         * Sets how many of the best builds to return; 10 by default.
+         *
+         * @param topK The number of builds, 1 or more.
+         * @return This builder.
+         * @throws IllegalArgumentException if topK is below 1.
+         */
+        public Builder topK(int topK) {
+            if (topK < 1) {
+                throw new IllegalArgumentException("topK must be at least 1: " + topK);
+            }
+            this.topK = topK;
+            return this;
+        }
+
+        /**
+         * Limits how long the search runs; unlimited by default.
+         *
+         * @param timeBudget The time budget, or {@code null} for none.
+         * @return This builder.
+         * @throws IllegalArgumentException if the budget is negative.
+         */
+        public Builder timeBudget(Duration timeBudget) {
+            if (timeBudget != null && timeBudget.isNegative()) {
+                throw new IllegalArgumentException("timeBudget must not be negative: " + timeBudget);
+            }
+            this.timeBudget = timeBudget;
+            return this;
+        }
+
+        /**
+         * Limits how many search nodes are visited; unlimited by default.
+         *
+         * @param nodeBudget The node budget, 1 or more.
+         * @return This builder.
+         * @throws IllegalArgumentException if the budget is below 1.
+         */
+        public Builder nodeBudget(long nodeBudget) {
+            if (nodeBudget < 1) {
+                throw new IllegalArgumentException("nodeBudget must be at least 1: " + nodeBudget);
+            }
+            this.nodeBudget = nodeBudget;
+            return this;
+        }
+
+        /**
+         * Builds the query.
+         *
+         * @return The query.
+         * @throws IllegalArgumentException if a trait is both required and excluded, or more traits are
+         *         required than the limit allows.
+         */
+        public BuildQuery build() {
+            for (String name : requiredTraits) {
+                if (excludedTraits.contains(name)) {
+                    throw new IllegalArgumentException("Trait '" + name + "' is both required and excluded");
+                }
+            }
+            if (requiredTraits.size() > maxTraits) {
+                throw new IllegalArgumentException(requiredTraits.size() + " traits are required but at most "
+                        + maxTraits + " are allowed");
+            }
+            return new BuildQuery(this);
+        }
+    }
+}
@@ -0,0 +1,443 @@
+package chargen.optimize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+import chargen.activity.AbilityScoreMethod;
+import chargen.activity.AbilityScoreTables;
+import chargen.engine.ProgramBounds;
+import chargen.engine.StatGraph;
+import chargen.engine.StatLayout;
+import chargen.engine.StatProgram;
+import chargen.metrics.Counter;
+import chargen.metrics.LatencyHistogram;
+import chargen.metrics.Metrics;
+import chargen.model.Ability;
+import chargen.model.Skill;
+import chargen.model.Trait;
+import chargen.service.TraitService;
+
+/**
+ * Finds the builds, ability score allocations plus trait sets, that maximise a stat, by parallel branch and
+ * bound over a {@link TraitService} catalog.
+ * <p>
+ * The search first narrows the problem down to what can matter. Only the slots the objective is derived
+ * from are considered (see {@link StatGraph#slotsAffecting(int, Ability)}), so traits that touch none of
+ * them are dropped, and allocations that agree on every ability the objective depends on are searched once.
+ * What is left is a tree: each allocation is a root, and each node adds one more trait, in a fixed candidate
+ * order. Before a subtree is entered, {@link ProgramBounds} gives an upper bound on anything in it. If that
+ * bound cannot beat the worst of the top k builds found so far, the subtree and every later sibling are
+ * skipped, since later siblings choose from fewer candidates.
+ * <p>
+ * Subtrees run as tasks on a {@link ForkJoinPool}. A node forks its children only while the pool is short of
+ * queued work, so splitting follows idle workers. The only shared state is the top-k list and a node count,
+ * and a task touches the count once every few dozen nodes, so the search scales with the pool's parallelism.
+ * When the time or node budget runs out, every task stops at its next node and the best builds found so far
+ * are returned, marked incomplete.
+ * <p>
+ * A complete search returns builds whose values are exactly the k best. If several builds tie with the
+ * k-th, the ones returned among them can depend on scheduling. Searches are counted in
+ * {@code optimize.nodes} and timed into {@code optimize.search}.
+ */
+public final class BuildSearch {
+
+    private static final int NODES_PER_CHECK = 64;
+    // A node forks its children only while fewer than this many tasks are queued on its worker.
+    private static final int SURPLUS_TASKS = 3;
+    private static final Ability[] ABILITIES = Ability.values();
+    private static final Counter NODES = Metrics.counter("optimize.nodes");
+    private static final LatencyHistogram SEARCH_TIME = Metrics.histogram("optimize.search");
+
+    private final TraitService traitService;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a search over a service's catalog that runs on the common pool.
+     *
+     * @param traitService The service to take traits from.
+     */
+    public BuildSearch(TraitService traitService) {
+        this(traitService, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a search over a service's catalog.
+     *
+     * @param traitService The service to take traits from.
+     * @param pool The pool to run on.
+     */
+    public BuildSearch(TraitService traitService, ForkJoinPool pool) {
+        this.traitService = Objects.requireNonNull(traitService, "traitService cannot be null");
+        this.pool = Objects.requireNonNull(pool, "pool cannot be null");
+    }
+
+    /**
+     * Runs a search.
+     *
+     * @param query What to maximise and under which constraints.
+     * @return The best builds found, best first, with whether the search finished within its budgets.
+     * @throws IllegalArgumentException if the objective's qualifier is not valid, or a required or excluded
+     *         trait is not in the catalog.
+     */
+    public Result search(BuildQuery query) {
+        long start = System.nanoTime();
+        StatLayout layout = traitService.getStatLayout();
+        int objective = layout.slotOf(query.getTarget(), query.getQualifier());
+        int[] relevantSlots = StatGraph.slotsAffecting(objective, query.getSpellcastingAbility());
+
+        StatProgram required = StatProgram.EMPTY;
+        for (String name : query.getRequiredTraits()) {
+            required = required.merge(program(name));
+        }
+        for (String name : query.getExcludedTraits()) {
+            program(name);
+        }
+        List<String> candidateNames = new ArrayList<>();
+        List<StatProgram> candidatePrograms = new ArrayList<>();
+        for (Trait trait : traitService.getAllTraits()) {
+            String name = trait.getName();
+            if (query.getRequiredTraits().contains(name) || query.getExcludedTraits().contains(name)) {
+                continue;
+            }
+            StatProgram program = program(name);
+            if (touchesAny(program, relevantSlots)) {
+                candidateNames.add(name);
+                candidatePrograms.add(program);
+            }
+        }
+        int picks = query.getMaxTraits() - query.getRequiredTraits().size();
+        List<int[]> allocations = allocations(query.getAllocation(), relevantSlots);
+
+        Search search = new Search(query, objective, required, start);
+        // Best allocation first, then candidates by what each adds to it alone, so good builds are found early
+        // and the bound starts pruning soon.
+        ProgramBounds unordered = new ProgramBounds(candidatePrograms, relevantSlots, picks);
+        StatGraph graph = search.newGraph(allocations.get(0));
+        int[] rootBounds = new int[allocations.size()];
+        for (int a = 0; a < allocations.size(); a++) {
+            search.setScores(graph, allocations.get(a));
+            graph.setProgram(unordered.upperBound(required, 0, picks));
+            rootBounds[a] = graph.getStat(objective);
+        }
+        Integer[] allocationOrder = order(allocations.size(), Comparator.comparingInt(a -> -rootBounds[a]));
+        search.setScores(graph, allocations.get(allocationOrder[0]));
+        int[] gains = new int[candidatePrograms.size()];
+        for (int c = 0; c < gains.length; c++) {
+            graph.setProgram(required.merge(candidatePrograms.get(c)));
+            gains[c] = graph.getStat(objective);
+        }
+        Integer[] candidateOrder = order(gains.length, Comparator.comparingInt(c -> -gains[c]));
+        List<StatProgram> ordered = new ArrayList<>(gains.length);
+        String[] orderedNames = new String[gains.length];
+        for (int c = 0; c < gains.length; c++) {
+            ordered.add(candidatePrograms.get(candidateOrder[c]));
+            orderedNames[c] = candidateNames.get(candidateOrder[c]);
+        }
+        search.candidates = ordered.toArray(new StatProgram[0]);
+        search.candidateNames = orderedNames;
+        search.bounds = new ProgramBounds(ordered, relevantSlots, picks);
+
+        List<NodeTask> roots = new ArrayList<>(allocations.size());
+        for (Integer a : allocationOrder) {
+            roots.add(new NodeTask(search, allocations.get(a), required, 0, picks, new int[0]));
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(roots);
+            }
+        });
+        SEARCH_TIME.recordSince(start);
+        return new Result(search.topBuilds(), search.nodes.get(), !search.stopped,
+                Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private StatProgram program(String name) {
+        StatProgram program = traitService.getProgramByName(name);
+        if (program == null) {
+            throw new IllegalArgumentException("No trait named '" + name + "'");
+        }
+        return program;
+    }
+
+    private static boolean touchesAny(StatProgram program, int[] slots) {
+        for (int slot : slots) {
+            if (program.touches(slot)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Integer[] order(int size, Comparator<Integer> comparator) {
+        Integer[] order = new Integer[size];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, comparator.thenComparingInt(i -> i));
+        return order;
+    }
+
+    /**
+     * Lists the legal allocations, keeping only the first of those that agree on every relevant ability.
+     */
+    private static List<int[]> allocations(AbilityScoreMethod method, int[] relevantSlots) {
+        List<int[]> all = new ArrayList<>();
+        if (method == AbilityScoreMethod.STANDARD_ARRAY) {
+            int[] scores = AbilityScoreTables.STANDARD_ARRAY.stream().mapToInt(Integer::intValue).toArray();
+            permute(scores, 0, all);
+        } else {
+            for (int i = 0; i < AbilityScoreTables.pointBuyAllocationCount(); i++) {
+                int[] scores = new int[ABILITIES.length];
+                AbilityScoreTables.pointBuyAllocation(i, scores);
+                all.add(scores);
+            }
+        }
+        boolean[] relevant = new boolean[ABILITIES.length];
+        for (Ability ability : ABILITIES) {
+            relevant[ability.ordinal()] = Arrays.binarySearch(relevantSlots, StatLayout.slotOf(ability)) >= 0;
+        }
+        Map<List<Integer>, int[]> distinct = new LinkedHashMap<>();
+        for (int[] scores : all) {
+            List<Integer> key = new ArrayList<>();
+            for (int ability = 0; ability < scores.length; ability++) {
+                key.add(relevant[ability] ? scores[ability] : 0);
+            }
+            distinct.putIfAbsent(key, scores);
+        }
+        return new ArrayList<>(distinct.values());
+    }
+
+    private static void permute(int[] scores, int from, List<int[]> out) {
+        if (from == scores.length) {
+            out.add(scores.clone());
+            return;
+        }
+        for (int i = from; i < scores.length; i++) {
+            swap(scores, from, i);
+            permute(scores, from + 1, out);
+            swap(scores, from, i);
+        }
+    }
+
+    private static void swap(int[] values, int i, int j) {
+        int swap = values[i];
+        values[i] = values[j];
+        values[j] = swap;
+    }
+
+    /**
+     * The state one search shares between its tasks.
+     */
+    private static final class Search {
+        final BuildQuery query;
+        final int objective;
+        final StatProgram required;
+        final boolean hasDeadline;
+        final long deadline;
+        final AtomicLong nodes = new AtomicLong();
+        final PriorityQueue<Build> top = new PriorityQueue<>(Build.BEST_FIRST.reversed());
+        StatProgram[] candidates;
+        String[] candidateNames;
+        ProgramBounds bounds;
+        // The value a build must beat to enter the top k; Long.MIN_VALUE until k builds have been found.
+        volatile long threshold = Long.MIN_VALUE;
+        volatile boolean stopped;
+
+        Search(BuildQuery query, int objective, StatProgram required, long start) {
+            this.query = query;
+            this.objective = objective;
+            this.required = required;
+            Duration budget = query.getTimeBudget();
+            // nanoTime may be negative, so there is no "never" value to compare against; the flag stands for it.
+            this.hasDeadline = budget != null;
+            this.deadline = hasDeadline ? start + Math.min(budget.toNanos(), Long.MAX_VALUE / 2) : 0;
+        }
+
+        StatGraph newGraph(int[] scores) {
+            StatGraph graph = new StatGraph();
+            graph.setLevel(query.getLevel());
+            graph.setSpellcastingAbility(query.getSpellcastingAbility());
+            for (Skill skill : query.getProficientSkills()) {
+                graph.setProficient(skill, true);
+            }
+            setScores(graph, scores);
+            return graph;
+        }
+
+        void setScores(StatGraph graph, int[] scores) {
+            for (Ability ability : ABILITIES) {
+                graph.setBaseAbilityScore(ability, scores[ability.ordinal()]);
+            }
+        }
+
+        /**
+         * Adds a batch of visited nodes to the count and stops the search once a budget is spent.
+         */
+        void count(long visited) {
+            long total = nodes.addAndGet(visited);
+            NODES.add(visited);
+            if (total >= query.getNodeBudget() || (hasDeadline && System.nanoTime() - deadline >= 0)) {
+                stopped = true;
+            }
+        }
+
+        void offer(int[] scores, int[] chosen, int value) {
+            if (value < threshold) {
+                return;
+            }
+            List<String> names = new ArrayList<>(query.getRequiredTraits());
+            for (int c : chosen) {
+                names.add(candidateNames[c]);
+            }
+            Build build = new Build(scores, names, value);
+            synchronized (top) {
+                if (top.size() < query.getTopK()) {
+                    top.add(build);
+                } else if (Build.BEST_FIRST.compare(build, top.peek()) < 0) {
+                    top.poll();
+                    top.add(build);
+                } else {
+                    return;
+                }
+                if (top.size() == query.getTopK()) {
+                    threshold = top.peek().getValue();
+                }
+            }
+        }
+
+        List<Build> topBuilds() {
+            synchronized (top) {
+                List<Build> builds = new ArrayList<>(top);
+                builds.sort(Build.BEST_FIRST);
+                return builds;
+            }
+        }
+    }
+
+    /**
+     * Searches the subtree under one node: an allocation and the traits chosen so far.
+     */
+    private static final class NodeTask extends RecursiveAction {
+        private final Search search;
+        private final int[] scores;
+        private final StatProgram program;
+        private final int from;
+        private final int picks;
+        private final int[] chosen;
+        private long pending;
+
+        NodeTask(Search search, int[] scores, StatProgram program, int from, int picks, int[] chosen) {
+            this.search = search;
+            this.scores = scores;
+            this.program = program;
+            this.from = from;
+            this.picks = picks;
+            this.chosen = chosen;
+        }
+
+        @Override
+        protected void compute() {
+            explore(search.newGraph(scores), program, from, picks, chosen);
+            search.count(pending);
+        }
+
+        private void explore(StatGraph graph, StatProgram current, int first, int picksLeft, int[] traits) {
+            if (search.stopped) {
+                return;
+            }
+            if (++pending == NODES_PER_CHECK) {
+                search.count(pending);
+                pending = 0;
+            }
+            graph.setProgram(current);
+            search.offer(scores, traits, graph.getStat(search.objective));
+            if (picksLeft == 0) {
+                return;
+            }
+            List<NodeTask> forked = new ArrayList<>();
+            for (int c = first; c < search.candidates.length && !search.stopped; c++) {
+                // The bound covers this child and every later sibling, so once it fails the rest can go.
+                graph.setProgram(search.bounds.upperBound(current, c, picksLeft));
+                if (graph.getStat(search.objective) <= search.threshold) {
+                    break;
+                }
+                StatProgram child = current.merge(search.candidates[c]);
+                int[] childTraits = Arrays.copyOf(traits, traits.length + 1);
+                childTraits[traits.length] = c;
+                if (picksLeft > 1 && getSurplusQueuedTaskCount() < SURPLUS_TASKS) {
+                    NodeTask task = new NodeTask(search, scores, child, c + 1, picksLeft - 1, childTraits);
+                    task.fork();
+                    forked.add(task);
+                } else {
+                    explore(graph, child, c + 1, picksLeft - 1, childTraits);
+                }
+            }
+            for (NodeTask task : forked) {
+                task.join();
+            }
+        }
+    }
+
+    /**
+     * The outcome of a search.
+     */
+    public static final class Result {
+        private final List<Build> builds;
+        private final long nodeCount;
+        private final boolean complete;
+        private final Duration elapsed;
+
+        Result(List<Build> builds, long nodeCount, boolean complete, Duration elapsed) {
+            this.builds = List.copyOf(builds);
+            this.nodeCount = nodeCount;
+            this.complete = complete;
+            this.elapsed = elapsed;
+        }
+
+        /**
+         * Returns the best builds found, best first.
+         *
+         * @return Up to {@link BuildQuery#getTopK()} builds.
+         */
+        public List<Build> getBuilds() {
+            return builds;
+        }
+
+        /**
+         * Returns whether the whole space was searched. If not, a budget ran out and the builds are only the
+         * best found by then.
+         *
+         * @return {@code true} if the builds are the best there are.
+         */
+        public boolean isComplete() {
+            return complete;
+        }
+
+        /**
+         * Returns the number of search nodes visited.
+         *
+         * @return The node count.
+         */
+        public long getNodeCount() {
+            return nodeCount;
+        }
+
+        /**
+         * Returns how long the search took.
+         *
+         * @return The elapsed time.
+         */
+        public Duration getElapsed() {
+            return elapsed;
+        }
+    }
+}
@@ -0,0 +1,403 @@
+package chargen.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Type-ahead lookup over the names of a fixed set of items (traits now; spells and items later).
+ * <p>
+ * Names are folded (lower-cased, diacritics removed) and stored in a trie flattened into a few primitive
+ * arrays. Nodes are numbered breadth-first with children in label order, so a lower node id always means a
+ * shorter name, or an equally long one that sorts earlier. Each node also records the lowest id in its subtree
+ * that ends a name, so a top-k query is a best-first walk over subtrees keyed by that id: it only descends
+ * toward the next result, touching about k times the name length in nodes however many names share the
+ * prefix.
+ * <p>
+ * Fuzzy queries walk the trie with one Levenshtein row per depth and prune every branch whose row is
+ * already over the edit budget. An index is immutable and safe to share between threads.
+ *
+ * @param <T> The type of the indexed items.
+ */
+public final class NameIndex<T> {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final int NO_ENTRY = Integer.MAX_VALUE;
+    private static final long RANK = 0xFFFFFFFF00000000L;
+
+    private final List<T> items;
+    // Node n has the edges [firstEdge[n], firstEdge[n + 1]), sorted by label, and the items whose folded
+    // name ends at n are items[entries[firstEntry[n]]] up to firstEntry[n + 1].
+    private final int[] firstEdge;
+    private final char[] labels;
+    private final int[] targets;
+    private final int[] firstEntry;
+    private final int[] entries;
+    // The lowest node id in each node's subtree that ends a name, or NO_ENTRY if none does.
+    private final int[] firstNamed;
+    private final int maxDepth;
+
+    private NameIndex(List<T> items, int[] firstEdge, char[] labels, int[] targets, int[] firstEntry,
+            int[] entries, int maxDepth) {
+        this.items = items;
+        this.firstEdge = firstEdge;
+        this.labels = labels;
+        this.targets = targets;
+        this.firstEntry = firstEntry;
+        this.entries = entries;
+        this.maxDepth = maxDepth;
+        int nodes = firstEdge.length - 1;
+        this.firstNamed = new int[nodes];
+        // Children always have higher ids than their parent, so one backwards pass sees them first.
+        for (int n = nodes - 1; n >= 0; n--) {
+            int first = NO_ENTRY;
+            if (firstEntry[n] < firstEntry[n + 1]) {
+                first = n;
+            } else {
+                for (int e = firstEdge[n]; e < firstEdge[n + 1]; e++) {
+                    first = Math.min(first, firstNamed[targets[e]]);
+                }
+            }
+            firstNamed[n] = first;
+        }
+    }
+
+    /**
+     * Builds an index over a collection of named items.
+     *
+     * @param items The items to index.
+     * @param nameOf Extracts the name to match against.
+     * @param <T> The type of the items.
+     * @return The index.
+     */
+    public static <T> NameIndex<T> of(Collection<? extends T> items, Function<? super T, String> nameOf) {
+        Objects.requireNonNull(nameOf, "nameOf cannot be null");
+        List<T> sorted = new ArrayList<>(items);
+        List<String> names = new ArrayList<>(sorted.size());
+        sorted.sort(Comparator.comparing(nameOf));
+        for (T item : sorted) {
+            names.add(nameOf.apply(item));
+        }
+
+        // Build a pointer trie, then flatten it breadth-first.
+        Node root = new Node();
+        int maxDepth = 0;
+        for (int i = 0; i < names.size(); i++) {
+            String key = fold(names.get(i));
+            maxDepth = Math.max(maxDepth, key.length());
+            Node node = root;
+            for (int c = 0; c < key.length(); c++) {
+                node = node.children.computeIfAbsent(key.charAt(c), label -> new Node());
+            }
+            node.items.add(i);
+        }
+
+        List<Node> order = new ArrayList<>();
+        order.add(root);
+        for (int n = 0; n < order.size(); n++) {
+            order.addAll(order.get(n).children.values());
+        }
+        int[] firstEdge = new int[order.size() + 1];
+        char[] labels = new char[order.size() - 1];
+        int[] targets = new int[order.size() - 1];
+        int[] firstEntry = new int[order.size() + 1];
+        int[] entries = new int[sorted.size()];
+        int edge = 0;
+        int entry = 0;
+        int nextChild = 1;
+        for (int n = 0; n < order.size(); n++) {
+            Node node = order.get(n);
+            firstEdge[n] = edge;
+            for (Map.Entry<Character, Node> child : node.children.entrySet()) {
+                labels[edge] = child.getKey();
+                targets[edge] = nextChild++;
+                edge++;
+            }
+            firstEntry[n] = entry;
+            for (int item : node.items) {
+                entries[entry++] = item;
+            }
+        }
+        firstEdge[order.size()] = edge;
+        firstEntry[order.size()] = entry;
+        return new NameIndex<>(Collections.unmodifiableList(sorted), firstEdge, labels, targets, firstEntry,
+                entries, maxDepth);
+    }
+
+    /**
+     * Folds a name the way the index compares it: Unicode-decomposed, diacritics removed, lower case.
+     *
+     * @param name The name.
+     * @return The folded key, e.g. "naive" for "Naïve".
+     */
+    public static String fold(String name) {
+        return MARKS.matcher(Normalizer.normalize(name, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the number of indexed items.
+     *
+     * @return The item count.
+     */
+    public int size() {
+        return items.size();
+    }
+
+    /**
+     * Finds the items whose name starts with a prefix, shortest names first, then alphabetically.
+     *
+     * @param prefix The prefix; case and diacritics are ignored.
+     * @param limit The maximum number of results.
+     * @return Up to {@code limit} matching items.
+     */
+    public List<T> prefix(String prefix, int limit) {
+        String key = fold(prefix);
+        int node = 0;
+        for (int i = 0; i < key.length() && node >= 0; i++) {
+            node = child(node, key.charAt(i));
+        }
+        if (node < 0 || limit <= 0) {
+            return List.of();
+        }
+        List<T> results = new ArrayList<>(Math.min(limit, 16));
+        collect(new long[] {node}, 1, limit, results);
+        return results;
+    }
+
+    /**
+     * Finds the items whose name starts with something within a number of edits (insertions, deletions or
+     * substitutions) of the query. Results are ordered by edit count, then as for {@link #prefix}.
+     *
+     * @param query The query; case and diacritics are ignored.
+     * @param maxEdits The edit budget, 0 or more.
+     * @param limit The maximum number of results.
+     * @return Up to {@code limit} matching items.
+     * @throws IllegalArgumentException if maxEdits is negative.
+     */
+    public List<T> fuzzy(String query, int maxEdits, int limit) {
+        if (maxEdits < 0) {
+            throw new IllegalArgumentException("maxEdits must not be negative: " + maxEdits);
+        }
+        if (limit <= 0) {
+            return List.of();
+        }
+        String key = fold(query);
+        int[][] rows = new int[maxDepth + 1][key.length() + 1];
+        for (int i = 0; i <= key.length(); i++) {
+            rows[0][i] = i;
+        }
+        // Every node whose path is within budget of the whole query, keyed (edits << 32 | node) so the
+        // heap pops closer matches first.
+        long[] matches = new long[16];
+        int matchCount = 0;
+        if (key.length() <= maxEdits) {
+            matches[matchCount++] = ((long) key.length() << 32);
+        }
+        // Depth-first over edges. A node's row is computed when it is popped, from its parent's row one depth
+        // up, which is still intact: only deeper rows have been written since the parent was popped.
+        int[] stackEdges = new int[Math.max(16, firstEdge[1])];
+        int[] stackDepths = new int[stackEdges.length];
+        int top = 0;
+        for (int e = firstEdge[0]; e < firstEdge[1]; e++) {
+            stackEdges[top] = e;
+            stackDepths[top] = 1;
+            top++;
+        }
+        while (top > 0) {
+            top--;
+            int edge = stackEdges[top];
+            int depth = stackDepths[top];
+            int[] previous = rows[depth - 1];
+            int[] row = rows[depth];
+            row[0] = depth;
+            int best = row[0];
+            for (int i = 1; i <= key.length(); i++) {
+                int substitute = previous[i - 1] + (key.charAt(i - 1) == labels[edge] ? 0 : 1);
+                row[i] = Math.min(substitute, Math.min(previous[i], row[i - 1]) + 1);
+                best = Math.min(best, row[i]);
+            }
+            if (best > maxEdits) {
+                continue;
+            }
+            int node = targets[edge];
+            if (row[key.length()] <= maxEdits) {
+                if (matchCount == matches.length) {
+                    matches = Arrays.copyOf(matches, matchCount * 2);
+                }
+                matches[matchCount++] = ((long) row[key.length()] << 32) | node;
+            }
+            int children = firstEdge[node + 1] - firstEdge[node];
+            if (top + children > stackEdges.length) {
+                stackEdges = Arrays.copyOf(stackEdges, Math.max(top + children, top * 2));
+                stackDepths = Arrays.copyOf(stackDepths, stackEdges.length);
+            }
+            for (int e = firstEdge[node]; e < firstEdge[node + 1]; e++) {
+                stackEdges[top] = e;
+                stackDepths[top] = depth + 1;
+                top++;
+            }
+        }
+        List<T> results = new ArrayList<>(Math.min(limit, 16));
+        collect(matches, matchCount, limit, results);
+        return results;
+    }
+
+    /**
+     * Autocompletes a partly typed name: prefix matches first, then, if there are fewer than {@code limit},
+     * fuzzy matches with an edit budget that grows with the query (none below 3 characters, one below 6,
+     * two from then on).
+     *
+     * @param query The text typed so far.
+     * @param limit The maximum number of results.
+     * @return Up to {@code limit} suggestions, best first.
+     */
+    public List<T> complete(String query, int limit) {
+        List<T> results = prefix(query, limit);
+        int length = query.length();
+        int maxEdits = length < 3 ? 0 : length < 6 ? 1 : 2;
+        if (results.size() >= limit || maxEdits == 0) {
+            return results;
+        }
+        List<T> combined = new ArrayList<>(results);
+        for (T item : fuzzy(query, maxEdits, limit)) {
+            if (combined.size() == limit) {
+                break;
+            }
+            if (!results.contains(item)) {
+                combined.add(item);
+            }
+        }
+        return combined;
+    }
+
+    private int child(int node, char label) {
+        int low = firstEdge[node];
+        int high = firstEdge[node + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (labels[mid] < label) {
+                low = mid + 1;
+            } else if (labels[mid] > label) {
+                high = mid - 1;
+            } else {
+                return targets[mid];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Best-first walk from a set of start nodes, each tagged with a rank in its high 32 bits: subtrees of
+     * lower-ranked starts come first, and within a rank names come in node id order. A subtree is keyed by the
+     * first named node in it, so only the branch holding the next result is opened.
+     */
+    private void collect(long[] starts, int startCount, int limit, List<T> results) {
+        Frontier frontier = new Frontier(Math.max(16, startCount));
+        for (int i = 0; i < startCount; i++) {
+            int node = (int) starts[i];
+            if (firstNamed[node] != NO_ENTRY) {
+                frontier.push((starts[i] & RANK) | firstNamed[node], node);
+            }
+        }
+        // Fuzzy starts can nest, so the same subtree may be reached under two ranks; a single prefix start
+        // cannot.
+        BitSet expanded = startCount > 1 ? new BitSet() : null;
+        while (frontier.size > 0 && results.size() < limit) {
+            long key = frontier.keys[0];
+            int node = frontier.pop();
+            if (expanded != null) {
+                if (expanded.get(node)) {
+                    continue;
+                }
+                expanded.set(node);
+            }
+            if (firstNamed[node] == node) {
+                for (int e = firstEntry[node]; e < firstEntry[node + 1] && results.size() < limit; e++) {
+                    results.add(items.get(entries[e]));
+                }
+            }
+            long rank = key & RANK;
+            for (int e = firstEdge[node]; e < firstEdge[node + 1]; e++) {
+                int child = targets[e];
+                frontier.push(rank | firstNamed[child], child);
+            }
+        }
+    }
+
+    /**
+     * A binary min-heap of subtree roots keyed by rank and first named node, kept in parallel primitive
+     * arrays so a walk allocates nothing per node.
+     */
+    private static final class Frontier {
+        private long[] keys;
+        private int[] nodes;
+        private int size;
+
+        private Frontier(int capacity) {
+            keys = new long[capacity];
+            nodes = new int[capacity];
+        }
+
+        private void push(long key, int node) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                nodes = Arrays.copyOf(nodes, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[parent] <= key) {
+                    break;
+                }
+                keys[i] = keys[parent];
+                nodes[i] = nodes[parent];
+                i = parent;
+            }
+            keys[i] = key;
+            nodes[i] = node;
+        }
+
+        private int pop() {
+            int top = nodes[0];
+            size--;
+            long key = keys[size];
+            int node = nodes[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && keys[child + 1] < keys[child]) {
+                    child++;
+                }
+                if (key <= keys[child]) {
+                    break;
+                }
+                keys[i] = keys[child];
+                nodes[i] = nodes[child];
+                i = child;
+            }
+            keys[i] = key;
+            nodes[i] = node;
+            return top;
+        }
+    }
+
+    private static final class Node {
+        final TreeMap<Character, Node> children = new TreeMap<>();
+        final List<Integer> items = new ArrayList<>(1);
+    }
+}
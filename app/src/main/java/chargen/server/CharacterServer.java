@@ -0,0 +1,358 @@
+package chargen.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import chargen.metrics.Counter;
+import chargen.metrics.LatencyHistogram;
+import chargen.metrics.Metrics;
+import chargen.model.Modifier;
+import chargen.model.Trait;
+import chargen.service.TraitService;
+
+/**
+ * Serves character generation and trait lookups over HTTP, so other services can use one warm JVM instead
+ * of starting their own.
+ * <p>
+ * Endpoints (all {@code GET}):
+ * <pre>
+ * /characters?count=N[&amp;seed=S]   N characters as NDJSON; the seed used is echoed in X-Seed
+ * /traits/NAME                      one trait as JSON, or 404
+ * /traits?q=TEXT[&amp;limit=L]        traits ranked by how well their description matches
+ * /traits?complete=TEXT[&amp;limit=L] traits whose name completes the text
+ * /metrics                          the {@link Metrics} registry as text, one metric per line
+ * </pre>
+ * Every exchange runs on its own virtual thread. Generation requests are coalesced into micro-batches by a
+ * {@link GenerationBatcher}, so many small requests cost about as much as a few large ones. Load is shed
+ * rather than queued without bound: past the in-flight limit, or when the generation queue is full, the
+ * server answers {@code 503} with {@code Retry-After} straight away.
+ */
+public final class CharacterServer implements AutoCloseable {
+
+    /** The default port of {@link #main(String[])}. */
+    public static final int DEFAULT_PORT = 8080;
+    /** The most characters one request may ask for. */
+    public static final int MAX_COUNT = 1000;
+
+    private static final int DEFAULT_LIMIT = 10;
+    private static final int MAX_LIMIT = 100;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final LatencyHistogram REQUEST_TIME = Metrics.histogram("server.request");
+    private static final Counter REJECTED = Metrics.counter("server.rejected");
+
+    private final TraitService traitService;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final GenerationBatcher batcher;
+    private final Semaphore inFlight;
+
+    private CharacterServer(TraitService traitService, InetSocketAddress address, int maxInFlight, int queueCapacity,
+            int maxBatchCharacters) throws IOException {
+        this.traitService = Objects.requireNonNull(traitService, "traitService cannot be null");
+        this.inFlight = new Semaphore(maxInFlight);
+        this.server = HttpServer.create(address, 0);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.batcher = new GenerationBatcher(traitService, Runtime.getRuntime().availableProcessors(), queueCapacity,
+                maxBatchCharacters);
+        server.setExecutor(executor);
+        server.createContext("/characters", exchange -> handle(exchange, this::characters));
+        server.createContext("/traits", exchange -> handle(exchange, this::traits));
+        server.createContext("/metrics", exchange -> handle(exchange, CharacterServer::metrics));
+    }
+
+    /**
+     * Starts a server.
+     *
+     * @param traitService The service to generate from and look traits up in.
+     * @param address The address to listen on; port 0 picks a free port.
+     * @param maxInFlight The most requests handled at once; more are rejected with 503.
+     * @param queueCapacity The most generation requests waiting for a batch; more are rejected with 503.
+     * @param maxBatchCharacters The most characters coalesced into one batch.
+     * @return The running server.
+     * @throws IOException if the address cannot be bound.
+     * @throws IllegalArgumentException if a limit is below 1.
+     */
+    public static CharacterServer start(TraitService traitService, InetSocketAddress address, int maxInFlight,
+            int queueCapacity, int maxBatchCharacters) throws IOException {
+        if (maxInFlight < 1 || queueCapacity < 1 || maxBatchCharacters < 1) {
+            throw new IllegalArgumentException("Server limits must be at least 1");
+        }
+        CharacterServer characterServer = new CharacterServer(traitService, address, maxInFlight, queueCapacity,
+                maxBatchCharacters);
+        characterServer.server.start();
+        return characterServer;
+    }
+
+    /**
+     * Starts a server on localhost with limits sized for the machine.
+     *
+     * @param traitService The service to generate from and look traits up in.
+     * @param port The port to listen on; 0 picks a free port.
+     * @return The running server.
+     * @throws IOException if the port cannot be bound.
+     */
+    public static CharacterServer start(TraitService traitService, int port) throws IOException {
+        int processors = Runtime.getRuntime().availableProcessors();
+        return start(traitService, new InetSocketAddress("localhost", port), 256 * processors, 64 * processors,
+                4 * MAX_COUNT);
+    }
+
+    /**
+     * Returns the address the server is listening on.
+     *
+     * @return The bound address, with the actual port.
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /**
+     * Returns the number of micro-batches the generation workers have rendered.
+     *
+     * @return The batch count.
+     */
+    public long getBatchCount() {
+        return batcher.getBatchCount();
+    }
+
+    /**
+     * Returns the number of generation requests rendered; divided by {@link #getBatchCount()}, it gives the
+     * average micro-batch size.
+     *
+     * @return The generation request count.
+     */
+    public long getGenerationRequestCount() {
+        return batcher.getJobCount();
+    }
+
+    /**
+     * Stops accepting connections, gives exchanges in progress a second to finish, and stops the workers.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        batcher.close();
+        executor.shutdownNow();
+    }
+
+    // --- Handlers ---
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpExchange exchange, Map<String, String> query) throws IOException;
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        long start = Metrics.startTimer();
+        try (exchange) {
+            if (!inFlight.tryAcquire()) {
+                reject(exchange, "Too many requests in flight");
+                return;
+            }
+            try {
+                if (!"GET".equals(exchange.getRequestMethod())) {
+                    exchange.getResponseHeaders().set("Allow", "GET");
+                    sendText(exchange, 405, "Only GET is supported");
+                    return;
+                }
+                handler.handle(exchange, parseQuery(exchange.getRequestURI().getRawQuery()));
+            } catch (IllegalArgumentException e) {
+                sendText(exchange, 400, e.getMessage());
+            } catch (RejectedExecutionException e) {
+                reject(exchange, e.getMessage());
+            } catch (UncheckedIOException e) {
+                sendText(exchange, 500, "Trait data could not be read: " + e.getMessage());
+            } finally {
+                inFlight.release();
+                REQUEST_TIME.recordSince(start);
+            }
+        }
+    }
+
+    private void characters(HttpExchange exchange, Map<String, String> query) throws IOException {
+        if (!"/characters".equals(exchange.getRequestURI().getPath())) {
+            sendText(exchange, 404, "Not found");
+            return;
+        }
+        int count = (int) parseLong(query, "count", 1, 1, MAX_COUNT);
+        long seed = query.containsKey("seed")
+                ? parseLong(query, "seed", 0, Long.MIN_VALUE, Long.MAX_VALUE)
+                : ThreadLocalRandom.current().nextLong();
+        CompletableFuture<byte[]> result = batcher.submit(count, seed);
+        byte[] body;
+        try {
+            body = result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reject(exchange, "Server is shutting down");
+            return;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RejectedExecutionException) {
+                reject(exchange, e.getCause().getMessage());
+            } else {
+                sendText(exchange, 500, "Character generation failed: " + e.getCause().getMessage());
+            }
+            return;
+        }
+        exchange.getResponseHeaders().set("X-Seed", Long.toString(seed));
+        send(exchange, 200, "application/x-ndjson", body);
+    }
+
+    private void traits(HttpExchange exchange, Map<String, String> query) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (path.startsWith("/traits/")) {
+            Trait trait = traitService.getTraitByName(path.substring("/traits/".length()));
+            if (trait == null) {
+                sendText(exchange, 404, "No trait named '" + path.substring("/traits/".length()) + "'");
+            } else {
+                sendJson(exchange, List.of(trait), false);
+            }
+            return;
+        }
+        if (!"/traits".equals(path)) {
+            sendText(exchange, 404, "Not found");
+            return;
+        }
+        int limit = (int) parseLong(query, "limit", DEFAULT_LIMIT, 1, MAX_LIMIT);
+        if (query.containsKey("q")) {
+            sendJson(exchange, traitService.searchDescriptions(query.get("q"), limit), true);
+        } else if (query.containsKey("complete")) {
+            sendJson(exchange, traitService.completeTraitName(query.get("complete"), limit), true);
+        } else {
+            throw new IllegalArgumentException("Expected a q or complete parameter");
+        }
+    }
+
+    private static void metrics(HttpExchange exchange, Map<String, String> query) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (PrintStream out = new PrintStream(bytes, false, StandardCharsets.UTF_8)) {
+            Metrics.dump(out);
+        }
+        send(exchange, 200, "text/plain; charset=utf-8", bytes.toByteArray());
+    }
+
+    // --- Helpers ---
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String key = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            query.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    private static long parseLong(Map<String, String> query, String name, long fallback, long min, long max) {
+        String value = query.get(name);
+        if (value == null) {
+            return fallback;
+        }
+        long parsed;
+        try {
+            parsed = Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " expects a number: " + value, e);
+        }
+        if (parsed < min || parsed > max) {
+            throw new IllegalArgumentException(name + " must be between " + min + " and " + max + ": " + value);
+        }
+        return parsed;
+    }
+
+    private static void sendJson(HttpExchange exchange, List<Trait> traits, boolean array) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(bytes, JsonEncoding.UTF8)) {
+            if (array) {
+                json.writeStartArray();
+            }
+            for (Trait trait : traits) {
+                writeTrait(json, trait);
+            }
+            if (array) {
+                json.writeEndArray();
+            }
+        }
+        send(exchange, 200, "application/json", bytes.toByteArray());
+    }
+
+    private static void writeTrait(JsonGenerator json, Trait trait) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("name", trait.getName());
+        json.writeStringField("description", trait.getDescription());
+        json.writeArrayFieldStart("modifiers");
+        for (Modifier modifier : trait.getModifiers()) {
+            json.writeStartObject();
+            json.writeStringField("target", modifier.getTarget().name());
+            json.writeStringField("targetQualifier", modifier.getTargetQualifier());
+            json.writeStringField("operation", modifier.getOperation().name());
+            json.writeFieldName("value");
+            json.writeObject(modifier.getValue());
+            json.writeStringField("sourceId", modifier.getSourceId());
+            json.writeStringField("description", modifier.getDescription());
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+        json.writeEndObject();
+    }
+
+    private static void reject(HttpExchange exchange, String message) throws IOException {
+        REJECTED.increment();
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        sendText(exchange, 503, message);
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String message) throws IOException {
+        send(exchange, status, "text/plain; charset=utf-8", (message + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body)
+            throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Runs a server until the JVM is stopped.
+     *
+     * @param args Optionally, the port to listen on; {@link #DEFAULT_PORT} by default.
+     * @throws IOException if the port cannot be bound.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        CharacterServer characterServer = start(new TraitService(), port);
+        Runtime.getRuntime().addShutdownHook(new Thread(characterServer::close, "chargen-server-shutdown"));
+        System.err.println("CharacterServer: Listening on http://" + characterServer.getAddress().getHostString() + ":"
+                + characterServer.getAddress().getPort());
+    }
+}
@@ -0,0 +1,251 @@
+package chargen.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import chargen.activity.CharacterGenerator;
+import chargen.activity.CharacterJsonWriter;
+import chargen.metrics.Counter;
+import chargen.metrics.GenerationBatchEvent;
+import chargen.metrics.LatencyHistogram;
+import chargen.metrics.Metrics;
+import chargen.service.TraitService;
+import chargen.service.TraitSetCache;
+
+/**
+ * Coalesces generation requests from many connections into micro-batches for a few worker threads.
+ * <p>
+ * Requests wait in a bounded queue. A worker takes the oldest request and, with it, every request queued
+ * behind it, up to a number of characters per batch, then renders them all in one pass through one generator
+ * and one JSON writer into one buffer, which is cut into each request's response at the request boundaries.
+ * Nothing waits for a batch to fill: when the server is idle a batch is a single request,
+ * and batches grow by themselves as requests arrive faster than the workers finish them. When the queue is
+ * full, new requests are rejected rather than left to pile up.
+ * <p>
+ * Each request's characters depend only on its seed, not on the batch it was rendered in. All workers merge
+ * trait sets through one shared {@link TraitSetCache}, which empties itself when the catalog is reloaded.
+ */
+final class GenerationBatcher implements AutoCloseable {
+
+    private static final LatencyHistogram BATCH_TIME = Metrics.histogram("server.batch");
+    private static final Counter CHARACTERS = Metrics.counter("server.characters");
+
+    private final TraitService traitService;
+    private final TraitSetCache traitSets;
+    private final BlockingQueue<Job> queue;
+    private final int maxBatchCharacters;
+    private final Thread[] workers;
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong jobCount = new AtomicLong();
+    private volatile CachedGenerator cached;
+
+    GenerationBatcher(TraitService traitService, int workerCount, int queueCapacity, int maxBatchCharacters) {
+        this.traitService = traitService;
+        this.traitSets = new TraitSetCache(traitService, TraitSetCache.DEFAULT_MAXIMUM_SIZE);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchCharacters = maxBatchCharacters;
+        this.workers = new Thread[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new Thread(this::work, "chargen-server-batcher-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    /**
+     * Queues a request for characters.
+     *
+     * @param count The number of characters.
+     * @param seed The seed that determines them.
+     * @return The NDJSON rendering of the characters, once a worker has produced it.
+     * @throws RejectedExecutionException if the queue is full.
+     */
+    CompletableFuture<byte[]> submit(int count, long seed) {
+        Job job = new Job(count, seed);
+        if (!queue.offer(job)) {
+            throw new RejectedExecutionException("Generation queue is full");
+        }
+        return job.result;
+    }
+
+    long getBatchCount() {
+        return batchCount.get();
+    }
+
+    long getJobCount() {
+        return jobCount.get();
+    }
+
+    private void work() {
+        List<Job> batch = new ArrayList<>();
+        BatchOutput output = new BatchOutput();
+        try {
+            while (true) {
+                Job first = queue.take();
+                batch.add(first);
+                int characters = first.count;
+                Job next = queue.peek();
+                while (next != null && characters + next.count <= maxBatchCharacters) {
+                    Job taken = queue.poll();
+                    if (taken == null) {
+                        break;
+                    }
+                    // If another worker took the peeked job first, the one polled instead may overshoot the limit.
+                    batch.add(taken);
+                    characters += taken.count;
+                    next = queue.peek();
+                }
+                render(batch, output);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // Closed.
+        }
+    }
+
+    private void render(List<Job> batch, BatchOutput output) {
+        batchCount.incrementAndGet();
+        jobCount.addAndGet(batch.size());
+        long start = Metrics.startTimer();
+        GenerationBatchEvent event = new GenerationBatchEvent();
+        event.begin();
+        int characters = 0;
+        for (Job job : batch) {
+            characters += job.count;
+        }
+        renderJobs(batch, output);
+        BATCH_TIME.recordSince(start);
+        CHARACTERS.add(characters);
+        if (event.shouldCommit()) {
+            event.characters = characters;
+            event.requests = batch.size();
+            event.commit();
+        }
+    }
+
+    private void renderJobs(List<Job> batch, BatchOutput output) {
+        CharacterGenerator generator;
+        try {
+            generator = generator();
+        } catch (RuntimeException e) {
+            for (Job job : batch) {
+                job.result.completeExceptionally(e);
+            }
+            return;
+        }
+        output.reset();
+        int[] ends = new int[batch.size()];
+        for (int j = 0; j < batch.size(); j++) {
+            Job job = batch.get(j);
+            int start = output.size();
+            try {
+                CharacterJsonWriter writer = output.writer();
+                SplittableRandom random = new SplittableRandom(job.seed);
+                for (int i = 0; i < job.count; i++) {
+                    writer.write(generator.generate(i, random));
+                }
+                writer.flush();
+            } catch (IOException | RuntimeException e) {
+                output.discardFrom(start);
+                job.result.completeExceptionally(e);
+            }
+            ends[j] = output.size();
+        }
+        // Responses are only handed out once the whole batch is rendered, each as a copy of its own slice.
+        int start = 0;
+        for (int j = 0; j < batch.size(); j++) {
+            Job job = batch.get(j);
+            if (!job.result.isDone()) {
+                job.result.complete(output.slice(start, ends[j]));
+            }
+            start = ends[j];
+        }
+    }
+
+    /**
+     * Returns a generator over the current catalog, building a new one only after a reload.
+     */
+    private CharacterGenerator generator() {
+        long version = traitService.getCatalogVersion();
+        CachedGenerator current = cached;
+        if (current == null || current.version != version) {
+            current = new CachedGenerator(version, new CharacterGenerator(traitService, traitSets));
+            cached = current;
+        }
+        return current.generator;
+    }
+
+    /**
+     * Stops the workers. Requests still queued are failed.
+     */
+    @Override
+    public void close() {
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        Job job;
+        while ((job = queue.poll()) != null) {
+            job.result.completeExceptionally(new RejectedExecutionException("Server is shutting down"));
+        }
+    }
+
+    private static final class Job {
+        final int count;
+        final long seed;
+        final CompletableFuture<byte[]> result = new CompletableFuture<>();
+
+        Job(int count, long seed) {
+            this.count = count;
+            this.seed = seed;
+        }
+    }
+
+    /**
+     * A worker's output buffer and the JSON writer over it, both kept for the life of the worker.
+     */
+    private static final class BatchOutput extends ByteArrayOutputStream {
+        private CharacterJsonWriter writer;
+
+        BatchOutput() {
+            super(1 << 16);
+        }
+
+        CharacterJsonWriter writer() throws IOException {
+            if (writer == null) {
+                writer = new CharacterJsonWriter(this);
+            }
+            return writer;
+        }
+
+        /**
+         * Drops what a failed request wrote, along with the writer, which may have been left mid-object.
+         */
+        void discardFrom(int start) {
+            writer = null;
+            count = start;
+        }
+
+        byte[] slice(int from, int to) {
+            return Arrays.copyOfRange(buf, from, to);
+        }
+    }
+
+    private static final class CachedGenerator {
+        final long version;
+        final CharacterGenerator generator;
+
+        CachedGenerator(long version, CharacterGenerator generator) {
+            this.version = version;
+            this.generator = generator;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package chargen.server;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import chargen.service.TraitService;
+
+/**
+ * A closed-loop load generator for {@link CharacterServer}: a number of virtual-thread clients each send
+ * generation requests back to back, and the driver reports throughput and latency percentiles.
+ * <p>
+ * Usage: {@code LoadDriver [--url URL] [--requests N] [--concurrency C] [--count K]}
+ * <p>
+ * Without {@code --url}, the driver starts a server on a free localhost port and drives that.
+ */
+public final class LoadDriver {
+
+    private static final String USAGE =
+            "Usage: LoadDriver [--url URL] [--requests N] [--concurrency C] [--count K]";
+
+    private final URI baseUri;
+    private final int requests;
+    private final int concurrency;
+    private final int count;
+
+    /**
+     * Creates a driver.
+     *
+     * @param baseUri The server's base URI, e.g. {@code http://localhost:8080}.
+     * @param requests The total number of requests to send.
+     * @param concurrency The number of clients sending at once.
+     * @param count The number of characters each request asks for.
+     * @throws IllegalArgumentException if a number is below 1.
+     */
+    public LoadDriver(URI baseUri, int requests, int concurrency, int count) {
+        if (requests < 1 || concurrency < 1 || count < 1) {
+            throw new IllegalArgumentException("requests, concurrency and count must be at least 1");
+        }
+        this.baseUri = baseUri;
+        this.requests = requests;
+        this.concurrency = concurrency;
+        this.count = count;
+    }
+
+    /**
+     * Sends every request and waits for the answers.
+     *
+     * @return The measurements.
+     * @throws InterruptedException if the calling thread is interrupted.
+     */
+    public Report run() throws InterruptedException {
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger completed = new AtomicInteger();
+        AtomicLong rejected = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        long start = System.nanoTime();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < concurrency; c++) {
+                clients.execute(() -> {
+                    for (int i = next.getAndIncrement(); i < requests; i = next.getAndIncrement()) {
+                        HttpRequest request = HttpRequest.newBuilder(
+                                baseUri.resolve("/characters?count=" + count + "&seed=" + i)).build();
+                        long sent = System.nanoTime();
+                        try {
+                            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            if (status == 200) {
+                                latencies[completed.getAndIncrement()] = System.nanoTime() - sent;
+                            } else if (status == 503) {
+                                rejected.incrementAndGet();
+                            } else {
+                                failed.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            failed.incrementAndGet();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                });
+            }
+            clients.shutdown();
+            clients.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        long elapsed = System.nanoTime() - start;
+        long[] successful = Arrays.copyOf(latencies, completed.get());
+        Arrays.sort(successful);
+        return new Report(successful, rejected.get(), failed.get(), elapsed, count);
+    }
+
+    /**
+     * The outcome of a run. Latencies cover successful requests only.
+     */
+    public static final class Report {
+        private final long[] sortedLatencies;
+        private final long rejected;
+        private final long failed;
+        private final long elapsedNanos;
+        private final int charactersPerRequest;
+
+        Report(long[] sortedLatencies, long rejected, long failed, long elapsedNanos, int charactersPerRequest) {
+            this.sortedLatencies = sortedLatencies;
+            this.rejected = rejected;
+            this.failed = failed;
+            this.elapsedNanos = elapsedNanos;
+            this.charactersPerRequest = charactersPerRequest;
+        }
+
+        /**
+         * Returns the number of requests answered with 200.
+         *
+         * @return The successful request count.
+         */
+        public int getSucceeded() {
+            return sortedLatencies.length;
+        }
+
+        /**
+         * Returns the number of requests the server shed with 503.
+         *
+         * @return The rejected request count.
+         */
+        public long getRejected() {
+            return rejected;
+        }
+
+        /**
+         * Returns the number of requests that failed any other way.
+         *
+         * @return The failed request count.
+         */
+        public long getFailed() {
+            return failed;
+        }
+
+        /**
+         * Returns a latency percentile of the successful requests (nearest rank).
+         *
+         * @param percentile The percentile, from 0 to 100.
+         * @return The latency in microseconds, or 0 if no request succeeded.
+         */
+        public double getLatencyMicros(double percentile) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percentile / 100 * sortedLatencies.length);
+            return sortedLatencies[Math.max(0, Math.min(sortedLatencies.length - 1, rank - 1))] / 1e3;
+        }
+
+        /**
+         * Prints a one-line-per-figure summary.
+         *
+         * @param out The stream to print to.
+         */
+        public void print(PrintStream out) {
+            double seconds = elapsedNanos / 1e9;
+            out.printf("requests:   %d ok, %d rejected, %d failed in %.2f s%n", getSucceeded(), rejected, failed,
+                    seconds);
+            out.printf("throughput: %.0f requests/s, %.0f characters/s%n", getSucceeded() / seconds,
+                    (double) getSucceeded() * charactersPerRequest / seconds);
+            out.printf("latency:    p50 %.0f us, p99 %.0f us, max %.0f us%n", getLatencyMicros(50),
+                    getLatencyMicros(99), getLatencyMicros(100));
+        }
+    }
+
+    /**
+     * Runs the driver from the command line.
+     *
+     * @param args The options; see the class description.
+     * @throws Exception if the local server cannot start or the run is interrupted.
+     */
+    public static void main(String[] args) throws Exception {
+        String url = null;
+        int requests = 10_000;
+        int concurrency = 64;
+        int count = 1;
+        try {
+            for (int i = 0; i < args.length; i += 2) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + args[i]);
+                }
+                switch (args[i]) {
+                    case "--url" -> url = args[i + 1];
+                    case "--requests" -> requests = Integer.parseInt(args[i + 1]);
+                    case "--concurrency" -> concurrency = Integer.parseInt(args[i + 1]);
+                    case "--count" -> count = Integer.parseInt(args[i + 1]);
+                    default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        CharacterServer server = url == null ? CharacterServer.start(new TraitService(), 0) : null;
+        try {
+            URI baseUri = server == null
+                    ? URI.create(url)
+                    : URI.create("http://localhost:" + server.getAddress().getPort());
+            System.err.println("LoadDriver: " + requests + " requests of " + count + " characters, " + concurrency
+                    + " at a time, against " + baseUri);
+            new LoadDriver(baseUri, requests, concurrency, count).run().print(System.out);
+            if (server != null) {
+                System.out.printf("batching:   %.1f requests per micro-batch%n",
+                        (double) server.getGenerationRequestCount() / Math.max(1, server.getBatchCount()));
+            }
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package chargen.service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import chargen.model.LazyText;
+
+/**
+ * A JSON trait file whose descriptions stay on disk. The loader records where each description's string
+ * token starts and ends, and {@link LazyText#get()} reads those bytes back and decodes them through the
+ * shared {@link TextCache}.
+ * <p>
+ * Descriptions are read from a private copy of the file, written as the file is parsed, so the file is read
+ * only once and the offsets stay valid however the original is edited or replaced: a catalog that is kept in
+ * service after a failed reload can still show its descriptions. The copy is unlinked as soon as it is
+ * created and only its open channel is kept, so it takes no name in the temporary directory and its space
+ * is freed once no trait refers to it any more. Where an open file cannot be unlinked, it is deleted then.
+ */
+final class DescriptionFile {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final FileChannel channel;
+    private final TextCache cache;
+
+    private DescriptionFile(FileChannel channel, Path undeleted, TextCache cache) {
+        this.channel = channel;
+        this.cache = cache;
+        CLEANER.register(this, new Release(channel, undeleted));
+    }
+
+    /**
+     * Creates an empty private copy, to be filled through {@link #copying(InputStream)}.
+     */
+    static DescriptionFile create(TextCache cache) throws IOException {
+        Path copy = Files.createTempFile("chargen-traits-", ".json");
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(copy, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            Files.deleteIfExists(copy);
+            throw e;
+        }
+        Path undeleted = null;
+        try {
+            Files.delete(copy);
+        } catch (IOException e) {
+            undeleted = copy;
+        }
+        return new DescriptionFile(channel, undeleted, cache);
+    }
+
+    /**
+     * Wraps the original file's stream so that every byte parsed is also written to the copy, at the same
+     * offset.
+     */
+    InputStream copying(InputStream original) {
+        return new FilterInputStream(original) {
+            private long position;
+
+            @Override
+            public int read() throws IOException {
+                byte[] one = new byte[1];
+                return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int count = super.read(buffer, offset, length);
+                if (count > 0) {
+                    ByteBuffer bytes = ByteBuffer.wrap(buffer, offset, count);
+                    while (bytes.hasRemaining()) {
+                        position += channel.write(bytes, position);
+                    }
+                }
+                return count;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                return read(new byte[(int) Math.min(n, 8192)], 0, (int) Math.min(n, 8192));
+            }
+        };
+    }
+
+    /**
+     * Returns a handle to the JSON string token at a byte range of the file, quotes included.
+     */
+    LazyText text(long start, long end) {
+        return new FileText(this, start, (int) (end - start));
+    }
+
+    private String read(long start, int length) {
+        try {
+            ByteBuffer bytes = ByteBuffer.allocate(length);
+            while (bytes.hasRemaining()) {
+                if (channel.read(bytes, start + bytes.position()) < 0) {
+                    throw new IOException("Trait file copy ended early");
+                }
+            }
+            try (JsonParser parser = JSON_FACTORY.createParser(bytes.array())) {
+                if (parser.nextToken() != JsonToken.VALUE_STRING) {
+                    throw new IOException("No description at byte " + start + " of the trait file copy");
+                }
+                return parser.getText();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Closes the copy, and deletes it if it could not be unlinked while open. Holds only the channel and
+     * path, so it does not keep the file object reachable.
+     */
+    private static final class Release implements Runnable {
+        private final FileChannel channel;
+        private final Path undeleted;
+
+        Release(FileChannel channel, Path undeleted) {
+            this.channel = channel;
+            this.undeleted = undeleted;
+        }
+
+        @Override
+        public void run() {
+            try {
+                channel.close();
+                if (undeleted != null) {
+                    Files.deleteIfExists(undeleted);
+                }
+            } catch (IOException e) {
+                // Nothing more can be done; the temporary directory is cleaned by the system.
+            }
+        }
+    }
+
+    private static final class FileText extends LazyText {
+        private final DescriptionFile source;
+        private final long start;
+        private final int length;
+
+        FileText(DescriptionFile source, long start, int length) {
+            this.source = source;
+            this.start = start;
+            this.length = length;
+        }
+
+        @Override
+        public String get() {
+            return source.cache.get(this, () -> source.read(start, length));
+        }
+    }
+}
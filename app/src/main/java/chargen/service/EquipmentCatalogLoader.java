@@ -0,0 +1,175 @@
+package chargen.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import chargen.dice.DiceExpression;
+import chargen.model.ArmorType;
+import chargen.model.CurrencyType;
+import chargen.model.DamageType;
+import chargen.model.Item;
+import chargen.model.ItemCategory;
+import chargen.model.ProficiencyType;
+import chargen.model.WeaponProperty;
+
+/**
+ * Reads {@link Item} definitions from a JSON array, token by token like {@link TraitCatalogLoader}.
+ * <p>
+ * Weights are written in pounds, e.g. {@code 0.25}, and converted to thousandths of a pound without going
+ * through a {@code double}, so a weight with more decimals than {@link Item#WEIGHT_SCALE} allows is an error
+ * rather than silently rounded. Costs are written as an amount and a coin, e.g. {@code "5 SP"}, and stored in
+ * copper pieces. Damage must be a {@link DiceExpression}, so a bad one fails the load rather than the first
+ * attack made with the weapon.
+ */
+final class EquipmentCatalogLoader {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final int WEIGHT_DIGITS = 3;
+
+    private EquipmentCatalogLoader() {
+    }
+
+    /**
+     * Reads every item of one source, in file order.
+     */
+    static List<Item> load(InputStream inputStream) throws IOException {
+        List<Item> items = new ArrayList<>();
+        try (JsonParser parser = JSON_FACTORY.createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Expected an array of items");
+            }
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                items.add(readItem(parser));
+            }
+        }
+        return items;
+    }
+
+    private static Item readItem(JsonParser parser) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_OBJECT, "an item object");
+        Item.ItemBuilder builder = Item.builder();
+        String name = null;
+        ItemCategory category = null;
+        while (parser.nextToken() != JsonToken.END_OBJECT) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "name":
+                    name = parser.getValueAsString();
+                    break;
+                case "category":
+                    category = parseEnum(parser, ItemCategory.class);
+                    break;
+                case "weight":
+                    builder.weight(readWeight(parser, token));
+                    break;
+                case "cost":
+                    builder.cost(readCost(parser));
+                    break;
+                case "proficiency":
+                    builder.proficiency(parseEnum(parser, ProficiencyType.class));
+                    break;
+                case "damage":
+                    builder.damage(readDamage(parser));
+                    break;
+                case "damageType":
+                    builder.damageType(parseEnum(parser, DamageType.class));
+                    break;
+                case "properties":
+                    expect(parser, token, JsonToken.START_ARRAY, "an array of weapon properties");
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        builder.property(parseEnum(parser, WeaponProperty.class));
+                    }
+                    break;
+                case "armorType":
+                    builder.armorType(parseEnum(parser, ArmorType.class));
+                    break;
+                case "armorClass":
+                    expect(parser, token, JsonToken.VALUE_NUMBER_INT, "a whole Armor Class");
+                    builder.armorClass(parser.getIntValue());
+                    break;
+                default:
+                    throw new JsonParseException(parser, "Unknown item field '" + field + "'");
+            }
+        }
+        if (name == null || category == null) {
+            throw new JsonParseException(parser, "Item " + (name == null ? "" : "'" + name + "' ")
+                    + "is missing a name or category");
+        }
+        return builder.name(name).category(category).build();
+    }
+
+    private static long readWeight(JsonParser parser, JsonToken token) throws IOException {
+        if (token != JsonToken.VALUE_NUMBER_INT && token != JsonToken.VALUE_NUMBER_FLOAT) {
+            throw new JsonParseException(parser, "Expected a weight in pounds but found " + token);
+        }
+        BigDecimal pounds = parser.getDecimalValue();
+        try {
+            long weight = pounds.movePointRight(WEIGHT_DIGITS).longValueExact();
+            if (weight < 0) {
+                throw new JsonParseException(parser, "Weight must not be negative: " + pounds);
+            }
+            return weight;
+        } catch (ArithmeticException e) {
+            throw new JsonParseException(parser, "Weight " + pounds + " is finer than a thousandth of a pound", e);
+        }
+    }
+
+    private static String readDamage(JsonParser parser) throws IOException {
+        String text = parser.getValueAsString();
+        if (text == null) {
+            throw new JsonParseException(parser, "Expected damage dice like \"1d8\" but found "
+                    + parser.currentToken());
+        }
+        try {
+            DiceExpression.parse(text);
+        } catch (IllegalArgumentException e) {
+            throw new JsonParseException(parser, "Invalid damage: " + e.getMessage(), e);
+        }
+        return text;
+    }
+
+    private static long readCost(JsonParser parser) throws IOException {
+        String text = parser.getValueAsString();
+        String[] parts = text == null ? new String[0] : text.trim().split("\\s+");
+        if (parts.length != 2) {
+            throw new JsonParseException(parser, "Expected a cost like \"5 SP\" but found " + text);
+        }
+        long amount;
+        CurrencyType currency;
+        try {
+            amount = Long.parseLong(parts[0]);
+            currency = CurrencyType.valueOf(parts[1]);
+        } catch (IllegalArgumentException e) {
+            throw new JsonParseException(parser, "Invalid cost '" + text + "'", e);
+        }
+        if (amount < 0) {
+            throw new JsonParseException(parser, "Cost must not be negative: " + text);
+        }
+        return amount * currency.getCopperValue();
+    }
+
+    private static <E extends Enum<E>> E parseEnum(JsonParser parser, Class<E> type) throws IOException {
+        String text = parser.getValueAsString();
+        try {
+            return Enum.valueOf(type, text);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new JsonParseException(parser, "Unknown " + type.getSimpleName() + " '" + text + "'", e);
+        }
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected, String what)
+            throws IOException {
+        if (actual != expected) {
+            throw new JsonParseException(parser, "Expected " + what + " but found " + actual);
+        }
+    }
+}
@@ -0,0 +1,464 @@
+package chargen.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import chargen.metrics.Counter;
+import chargen.metrics.LatencyHistogram;
+import chargen.metrics.Metrics;
+import chargen.model.Item;
+import chargen.model.ItemCategory;
+import chargen.model.ProficiencyType;
+import chargen.model.WeaponProperty;
+
+/**
+ * Service providing the equipment catalog: weapons, armor, adventuring gear and tools, loaded from a JSON
+ * file by {@link EquipmentCatalogLoader}.
+ * <p>
+ * Items are sorted by name and numbered from 0, and everything a query touches is packed into primitive
+ * arrays indexed by that id: each item's weapon properties as an {@code int} bitmask, and for every
+ * category, weapon property and proficiency a posting bitset of the items that have it, 64 items to a
+ * {@code long}. Finding "the FINESSE and LIGHT weapons usable with WEAPON_SIMPLE" is then a few ANDs and ORs
+ * per word, and the answer for each (category, properties, proficiencies) mask is kept in a small cache, so
+ * asking again costs one lookup.
+ * <p>
+ * Weights and costs are fixed point, in thousandths of a pound and copper pieces, so loadout totals are
+ * exact sums of {@code long}s. The catalog does not change once loaded and the service may be shared
+ * between threads. Selections are counted in {@code equipment.select} and those that missed the cache in
+ * {@code equipment.select.miss}; loading is timed into {@code equipment.load}.
+ */
+public class EquipmentService {
+
+    /** The number of selections kept by default. */
+    public static final int DEFAULT_SELECTION_CACHE_SIZE = 4096;
+
+    private static final String DEFAULT_EQUIPMENT_FILE_PATH = "/data/equipment/equipment.json";
+    private static final ItemCategory[] CATEGORIES = ItemCategory.values();
+    private static final WeaponProperty[] PROPERTIES = WeaponProperty.values();
+    private static final ProficiencyType[] PROFICIENCIES = ProficiencyType.values();
+    // Each mask gets 24 bits of a selection key.
+    private static final int MASK_BITS = 24;
+    private static final LatencyHistogram LOAD_TIME = Metrics.histogram("equipment.load");
+    private static final Counter SELECTIONS = Metrics.counter("equipment.select");
+    private static final Counter SELECTION_MISSES = Metrics.counter("equipment.select.miss");
+
+    static {
+        if (PROPERTIES.length > MASK_BITS || PROFICIENCIES.length > MASK_BITS) {
+            throw new IllegalStateException("Too many weapon properties or proficiencies for a selection key");
+        }
+    }
+
+    private final List<Item> items;
+    private final Map<String, Integer> idsByName;
+    private final int[] propertyMasks;
+    private final long[] weights;
+    private final long[] costs;
+    private final int words;
+    // Posting bitsets: bit i of word i / 64 is set when item i is in the posting.
+    private final long[][] categoryPostings;
+    private final long[][] propertyPostings;
+    private final long[][] proficiencyPostings;
+    private final long[] unrestricted;
+    private final Cache<Long, Selection> selections = CacheBuilder.newBuilder()
+            .maximumSize(DEFAULT_SELECTION_CACHE_SIZE)
+            .build();
+
+    /**
+     * The ids of the items matching one selection, and the items themselves.
+     */
+    private static final class Selection {
+        final int[] ids;
+        final List<Item> items;
+
+        Selection(int[] ids, List<Item> items) {
+            this.ids = ids;
+            this.items = items;
+        }
+    }
+
+    /**
+     * Constructs the service from the default equipment file.
+     *
+     * @throws UncheckedIOException if the file cannot be read or is not a valid equipment file.
+     */
+    public EquipmentService() {
+        this(DEFAULT_EQUIPMENT_FILE_PATH);
+    }
+
+    /**
+     * Constructs the service from a JSON file on the classpath.
+     *
+     * @param resourceFilePath The path to the JSON file within the classpath resources.
+     * @throws UncheckedIOException if the file cannot be found, read or parsed.
+     */
+    public EquipmentService(String resourceFilePath) {
+        this(loadResource(Objects.requireNonNull(resourceFilePath, "resourceFilePath cannot be null")),
+                resourceFilePath);
+    }
+
+    /**
+     * Constructs the service from a JSON file.
+     *
+     * @param file The JSON file.
+     * @throws IOException if the file cannot be read or is not a valid equipment file.
+     */
+    public EquipmentService(Path file) throws IOException {
+        this(loadFile(Objects.requireNonNull(file, "file cannot be null")), file.toString());
+    }
+
+    /**
+     * Constructs the service over items built in code.
+     *
+     * @param items The items; when two share a name, the first is kept.
+     */
+    public EquipmentService(Collection<Item> items) {
+        this(new ArrayList<>(Objects.requireNonNull(items, "items cannot be null")), "memory");
+    }
+
+    private EquipmentService(List<Item> loaded, String sourceName) {
+        Map<String, Item> byName = new HashMap<>();
+        List<Item> sorted = new ArrayList<>(loaded.size());
+        for (Item item : loaded) {
+            if (byName.putIfAbsent(item.getName(), item) == null) {
+                sorted.add(item);
+            } else {
+                System.err.println("Warning: Duplicate item name encountered and ignored for '"
+                        + item.getName() + "'. Keeping the first instance.");
+            }
+        }
+        sorted.sort((a, b) -> a.getName().compareTo(b.getName()));
+        this.items = Collections.unmodifiableList(sorted);
+
+        int size = sorted.size();
+        this.words = (size + Long.SIZE - 1) / Long.SIZE;
+        this.idsByName = new HashMap<>(size * 2);
+        this.propertyMasks = new int[size];
+        this.weights = new long[size];
+        this.costs = new long[size];
+        this.categoryPostings = new long[CATEGORIES.length][words];
+        this.propertyPostings = new long[PROPERTIES.length][words];
+        this.proficiencyPostings = new long[PROFICIENCIES.length][words];
+        this.unrestricted = new long[words];
+        for (int id = 0; id < size; id++) {
+            Item item = sorted.get(id);
+            int word = id / Long.SIZE;
+            long bit = 1L << id;
+            idsByName.put(item.getName(), id);
+            propertyMasks[id] = propertyMask(item.getProperties());
+            weights[id] = item.getWeight();
+            costs[id] = item.getCost();
+            categoryPostings[item.getCategory().ordinal()][word] |= bit;
+            for (WeaponProperty property : item.getProperties()) {
+                propertyPostings[property.ordinal()][word] |= bit;
+            }
+            if (item.getProficiency() == null) {
+                unrestricted[word] |= bit;
+            } else {
+                proficiencyPostings[item.getProficiency().ordinal()][word] |= bit;
+            }
+        }
+        System.err.println("EquipmentService: Loaded " + size + " items from " + sourceName);
+    }
+
+    private static List<Item> loadResource(String resourcePath) {
+        long start = Metrics.startTimer();
+        try (InputStream inputStream = EquipmentService.class.getResourceAsStream(resourcePath)) {
+            if (inputStream == null) {
+                throw new IOException("Cannot find the equipment resource file: " + resourcePath);
+            }
+            List<Item> loaded = EquipmentCatalogLoader.load(inputStream);
+            LOAD_TIME.recordSince(start);
+            return loaded;
+        } catch (IOException e) {
+            throw new UncheckedIOException(resourcePath + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static List<Item> loadFile(Path file) throws IOException {
+        long start = Metrics.startTimer();
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            List<Item> loaded = EquipmentCatalogLoader.load(inputStream);
+            LOAD_TIME.recordSince(start);
+            return loaded;
+        }
+    }
+
+    /**
+     * Packs weapon properties into a bitmask, bit {@code p.ordinal()} for property {@code p}.
+     *
+     * @param properties The properties.
+     * @return The bitmask.
+     */
+    public static int propertyMask(Collection<WeaponProperty> properties) {
+        int mask = 0;
+        for (WeaponProperty property : properties) {
+            mask |= 1 << property.ordinal();
+        }
+        return mask;
+    }
+
+    /**
+     * Packs proficiencies into a bitmask, bit {@code p.ordinal()} for proficiency {@code p}.
+     *
+     * @param proficiencies The proficiencies.
+     * @return The bitmask.
+     */
+    public static int proficiencyMask(Collection<ProficiencyType> proficiencies) {
+        int mask = 0;
+        for (ProficiencyType proficiency : proficiencies) {
+            mask |= 1 << proficiency.ordinal();
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the number of items in the catalog.
+     *
+     * @return The number of items; ids run from 0 to one less than this.
+     */
+    public int size() {
+        return items.size();
+    }
+
+    /**
+     * Retrieves all items.
+     *
+     * @return An unmodifiable list of all items, sorted by name; an item's id is its position in the list.
+     */
+    public List<Item> getAllItems() {
+        return items;
+    }
+
+    /**
+     * Retrieves an item by id.
+     *
+     * @param id The item's id.
+     * @return The item.
+     * @throws IndexOutOfBoundsException if there is no item with that id.
+     */
+    public Item getItem(int id) {
+        return items.get(id);
+    }
+
+    /**
+     * Returns the id of an item.
+     *
+     * @param name The item's name.
+     * @return The id, or -1 if no such item is loaded.
+     */
+    public int getId(String name) {
+        Integer id = idsByName.get(name);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Retrieves an item by its unique name.
+     *
+     * @param name The name of the item.
+     * @return The item, or {@code null} if no such item is loaded.
+     */
+    public Item getItemByName(String name) {
+        int id = getId(name);
+        return id < 0 ? null : items.get(id);
+    }
+
+    /**
+     * Returns the weapon properties of an item as a bitmask, see {@link #propertyMask(Collection)}.
+     *
+     * @param id The item's id.
+     * @return The bitmask.
+     * @throws ArrayIndexOutOfBoundsException if there is no item with that id.
+     */
+    public int getPropertyMask(int id) {
+        return propertyMasks[id];
+    }
+
+    /**
+     * Finds the items of a category that have every one of some weapon properties and that can be used with
+     * some proficiencies: those that need no proficiency, and those that need one of the given ones.
+     *
+     * @param category The category, e.g. {@link ItemCategory#WEAPON}.
+     * @param properties The weapon properties an item must all have; empty for any.
+     * @param proficiencies The proficiencies held.
+     * @return An unmodifiable list of matching items in name order; empty if there are none.
+     */
+    public List<Item> findUsable(ItemCategory category, Collection<WeaponProperty> properties,
+            Collection<ProficiencyType> proficiencies) {
+        return select(category, propertyMask(properties), proficiencyMask(proficiencies)).items;
+    }
+
+    /**
+     * Returns the ids of the items {@link #findUsable(ItemCategory, Collection, Collection)} finds, given the
+     * properties and proficiencies as bitmasks.
+     *
+     * @param category The category.
+     * @param propertyMask The weapon properties an item must all have, see {@link #propertyMask(Collection)}.
+     * @param proficiencyMask The proficiencies held, see {@link #proficiencyMask(Collection)}.
+     * @return A new array of the matching ids, in increasing order.
+     */
+    public int[] selectIds(ItemCategory category, int propertyMask, int proficiencyMask) {
+        return select(category, propertyMask, proficiencyMask).ids.clone();
+    }
+
+    /**
+     * Counts the items {@link #selectIds(ItemCategory, int, int)} would return, without copying them.
+     *
+     * @param category The category.
+     * @param propertyMask The weapon properties an item must all have.
+     * @param proficiencyMask The proficiencies held.
+     * @return The number of matching items.
+     */
+    public int countUsable(ItemCategory category, int propertyMask, int proficiencyMask) {
+        return select(category, propertyMask, proficiencyMask).ids.length;
+    }
+
+    private Selection select(ItemCategory category, int propertyMask, int proficiencyMask) {
+        Objects.requireNonNull(category, "category cannot be null");
+        // Bits for properties and proficiencies that do not exist can never match, so drop them from the key.
+        int properties = propertyMask & ((1 << PROPERTIES.length) - 1);
+        int proficiencies = proficiencyMask & ((1 << PROFICIENCIES.length) - 1);
+        if (properties != propertyMask) {
+            return new Selection(new int[0], List.of());
+        }
+        SELECTIONS.increment();
+        long key = (long) category.ordinal() << (2 * MASK_BITS) | (long) proficiencies << MASK_BITS | properties;
+        try {
+            return selections.get(key, () -> {
+                SELECTION_MISSES.increment();
+                return compute(category.ordinal(), properties, proficiencies);
+            });
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private Selection compute(int category, int propertyMask, int proficiencyMask) {
+        long[] bits = new long[words];
+        int count = 0;
+        for (int w = 0; w < words; w++) {
+            long word = categoryPostings[category][w];
+            for (int m = propertyMask; m != 0 && word != 0; m &= m - 1) {
+                word &= propertyPostings[Integer.numberOfTrailingZeros(m)][w];
+            }
+            long usable = unrestricted[w];
+            for (int m = proficiencyMask; m != 0; m &= m - 1) {
+                usable |= proficiencyPostings[Integer.numberOfTrailingZeros(m)][w];
+            }
+            bits[w] = word & usable;
+            count += Long.bitCount(bits[w]);
+        }
+        int[] ids = new int[count];
+        Item[] matches = new Item[count];
+        int i = 0;
+        for (int w = 0; w < words; w++) {
+            for (long word = bits[w]; word != 0; word &= word - 1) {
+                int id = w * Long.SIZE + Long.numberOfTrailingZeros(word);
+                ids[i] = id;
+                matches[i++] = items.get(id);
+            }
+        }
+        return new Selection(ids, List.of(matches));
+    }
+
+    /**
+     * Adds up the weight of a loadout.
+     *
+     * @param ids The ids of the items carried.
+     * @param quantities How many of each item are carried, in the same order as the ids.
+     * @return The total weight in thousandths of a pound.
+     * @throws IllegalArgumentException if the arrays differ in length.
+     * @throws ArrayIndexOutOfBoundsException if an id is not in the catalog.
+     */
+    public long totalWeight(int[] ids, int[] quantities) {
+        checkLengths(ids, quantities);
+        return sum(weights, ids, quantities, 0, ids.length);
+    }
+
+    /**
+     * Adds up the price of a loadout.
+     *
+     * @param ids The ids of the items bought.
+     * @param quantities How many of each item are bought, in the same order as the ids.
+     * @return The total price in copper pieces.
+     * @throws IllegalArgumentException if the arrays differ in length.
+     * @throws ArrayIndexOutOfBoundsException if an id is not in the catalog.
+     */
+    public long totalCost(int[] ids, int[] quantities) {
+        checkLengths(ids, quantities);
+        return sum(costs, ids, quantities, 0, ids.length);
+    }
+
+    /**
+     * Adds up the weight of many loadouts at once. The loadouts are packed one after another: loadout
+     * {@code i} is the entries from {@code offsets[i]} up to {@code offsets[i + 1]} of the id and quantity
+     * arrays.
+     *
+     * @param offsets Where each loadout starts, with one more entry marking the end of the last.
+     * @param ids The ids of the items carried.
+     * @param quantities How many of each item are carried.
+     * @param totals Receives the weight of each loadout in thousandths of a pound; at least
+     *        {@code offsets.length - 1} long.
+     * @throws IllegalArgumentException if the arrays are too short for the offsets.
+     * @throws ArrayIndexOutOfBoundsException if an id is not in the catalog.
+     */
+    public void totalWeights(int[] offsets, int[] ids, int[] quantities, long[] totals) {
+        sums(weights, offsets, ids, quantities, totals);
+    }
+
+    /**
+     * Adds up the price of many loadouts at once, packed as for
+     * {@link #totalWeights(int[], int[], int[], long[])}.
+     *
+     * @param offsets Where each loadout starts, with one more entry marking the end of the last.
+     * @param ids The ids of the items bought.
+     * @param quantities How many of each item are bought.
+     * @param totals Receives the price of each loadout in copper pieces; at least {@code offsets.length - 1}
+     *        long.
+     * @throws IllegalArgumentException if the arrays are too short for the offsets.
+     * @throws ArrayIndexOutOfBoundsException if an id is not in the catalog.
+     */
+    public void totalCosts(int[] offsets, int[] ids, int[] quantities, long[] totals) {
+        sums(costs, offsets, ids, quantities, totals);
+    }
+
+    private static void sums(long[] values, int[] offsets, int[] ids, int[] quantities, long[] totals) {
+        checkLengths(ids, quantities);
+        int loadouts = offsets.length - 1;
+        if (loadouts < 0 || totals.length < loadouts || offsets[loadouts] > ids.length) {
+            throw new IllegalArgumentException("offsets must describe " + totals.length + " or fewer loadouts of "
+                    + ids.length + " entries");
+        }
+        for (int i = 0; i < loadouts; i++) {
+            totals[i] = sum(values, ids, quantities, offsets[i], offsets[i + 1]);
+        }
+    }
+
+    private static long sum(long[] values, int[] ids, int[] quantities, int from, int to) {
+        long total = 0;
+        for (int i = from; i < to; i++) {
+            total += values[ids[i]] * quantities[i];
+        }
+        return total;
+    }
+
+    private static void checkLengths(int[] ids, int[] quantities) {
+        if (ids.length != quantities.length) {
+            throw new IllegalArgumentException("ids and quantities differ in length: " + ids.length + " and "
+                    + quantities.length);
+        }
+    }
+}
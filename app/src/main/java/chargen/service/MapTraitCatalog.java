@@ -0,0 +1,41 @@
+package chargen.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import chargen.model.Trait;
+
+/**
+ * A {@link TraitCatalog} over a fully loaded name index.
+ */
+final class MapTraitCatalog implements TraitCatalog {
+
+    private final Map<String, Trait> traitsByName;
+    private final List<Trait> allTraits;
+
+    MapTraitCatalog(Map<String, Trait> traitsByName) {
+        this.traitsByName = traitsByName;
+        List<Trait> sorted = new ArrayList<>(traitsByName.values());
+        sorted.sort(Comparator.comparing(Trait::getName));
+        this.allTraits = Collections.unmodifiableList(sorted);
+    }
+
+    @Override
+    public Trait getTraitByName(String name) {
+        return traitsByName.get(name);
+    }
+
+    @Override
+    public List<Trait> getAllTraits() {
+        // Built once; the map never changes after loading.
+        return allTraits;
+    }
+
+    @Override
+    public int size() {
+        return traitsByName.size();
+    }
+}
@@ -0,0 +1,84 @@
+package chargen.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import chargen.model.Modifier;
+
+/**
+ * Canonical instances of the modifiers in one catalog, and of the strings and values they hold.
+ * <p>
+ * Large catalogs repeat the same modifier (say {@code SENSE_RANGE DARKVISION SET 60}) across hundreds of
+ * traits. The loaders pass each modifier they build through {@link #modifier(Modifier)}, so all equal
+ * modifiers become one shared object and the duplicates, with their qualifier strings and boxed values,
+ * are left to the garbage collector. Equality checks between shared modifiers then succeed on identity.
+ * <p>
+ * A pool lives as long as the catalog it was built for and is safe to use from several parsing threads.
+ * {@link #unshared()} gives one that shares nothing, the baseline for measuring what pooling saves.
+ */
+final class ModifierPool {
+
+    private final Map<String, String> strings = new ConcurrentHashMap<>();
+    private final Map<Object, Object> values = new ConcurrentHashMap<>();
+    private final Map<Modifier, Modifier> modifiers = new ConcurrentHashMap<>();
+    private final boolean sharing;
+
+    ModifierPool() {
+        this(true);
+    }
+
+    private ModifierPool(boolean sharing) {
+        this.sharing = sharing;
+    }
+
+    /**
+     * Returns a pool that hands every object back unchanged, so each trait keeps its own copies.
+     */
+    static ModifierPool unshared() {
+        return new ModifierPool(false);
+    }
+
+    /**
+     * Returns the shared copy of a qualifier, source id or description.
+     */
+    String string(String text) {
+        if (text == null || !sharing) {
+            return text;
+        }
+        String shared = strings.putIfAbsent(text, text);
+        return shared == null ? text : shared;
+    }
+
+    /**
+     * Returns the shared copy of a modifier value. Numbers of different types stay distinct, as
+     * {@link Integer#equals(Object)} and friends already keep them.
+     */
+    Object value(Object value) {
+        if (value == null || value instanceof Boolean || !sharing) {
+            return value;
+        }
+        if (value instanceof String) {
+            return string((String) value);
+        }
+        Object shared = values.putIfAbsent(value, value);
+        return shared == null ? value : shared;
+    }
+
+    /**
+     * Returns the shared instance equal to a modifier, making it the shared one if it is the first.
+     */
+    Modifier modifier(Modifier modifier) {
+        if (!sharing) {
+            return modifier;
+        }
+        Modifier shared = modifiers.putIfAbsent(modifier, modifier);
+        return shared == null ? modifier : shared;
+    }
+
+    /**
+     * Returns the number of distinct modifiers seen, or 0 if the pool does not share.
+     */
+    int size() {
+        return modifiers.size();
+    }
+}
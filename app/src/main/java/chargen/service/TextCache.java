@@ -0,0 +1,52 @@
+package chargen.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import chargen.model.LazyText;
+
+/**
+ * A small least-recently-used cache of text read back through {@link LazyText} handles, so a description
+ * that is viewed again, or shown in several places at once, is decoded once.
+ * <p>
+ * Keys are the handles themselves, which compare by identity. Duplicate descriptions share one handle, so
+ * they also share one entry. Text is loaded outside the lock, so a slow read never blocks other threads.
+ * Two threads missing the same entry at once may both load it, and that is harmless.
+ */
+final class TextCache {
+
+    /** The number of texts kept by the caches the service creates. */
+    static final int DEFAULT_CAPACITY = 256;
+
+    private final Map<LazyText, String> entries;
+
+    TextCache(int capacity) {
+        this.entries = new LinkedHashMap<>(capacity * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<LazyText, String> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    String get(LazyText key, Supplier<String> loader) {
+        synchronized (entries) {
+            String text = entries.get(key);
+            if (text != null) {
+                return text;
+            }
+        }
+        String text = loader.get();
+        synchronized (entries) {
+            entries.put(key, text);
+        }
+        return text;
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+}
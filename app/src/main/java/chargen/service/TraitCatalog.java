@@ -0,0 +1,18 @@
+package chargen.service;
+
+import java.util.List;
+
+import chargen.model.Trait;
+
+/**
+ * The read-only name index behind a {@link TraitService}: either a map built from JSON,
+ * or a memory-mapped {@link TraitSnapshot}.
+ */
+interface TraitCatalog {
+
+    Trait getTraitByName(String name);
+
+    List<Trait> getAllTraits();
+
+    int size();
+}
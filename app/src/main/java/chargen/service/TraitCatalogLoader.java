@@ -0,0 +1,426 @@
+package chargen.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import chargen.metrics.CatalogLoadEvent;
+import chargen.metrics.Counter;
+import chargen.metrics.LatencyHistogram;
+import chargen.metrics.Metrics;
+import chargen.model.LazyText;
+import chargen.model.Modifier;
+import chargen.model.ModifierTarget;
+import chargen.model.Operation;
+import chargen.model.Trait;
+
+/**
+ * Loads {@link Trait} definitions from one or more JSON content packs.
+ * <p>
+ * Each source must hold a JSON array of trait objects. Sources are read token by token with Jackson's
+ * {@link JsonParser}, and every trait goes straight into the shared name index as soon as it is parsed,
+ * so no intermediate list of the whole file is ever built. Independent sources are parsed in parallel on
+ * the supplied {@link Executor}.
+ * <p>
+ * When two traits share a name, the one from the earliest added source wins (and, within one source,
+ * the first one), no matter which file finishes parsing first.
+ * <p>
+ * Trait descriptions from files are not kept on the heap. Each file is copied to a private temporary file as
+ * it is parsed; the loader records where each description lies in the copy and hands the trait a
+ * {@link LazyText} that reads it back on demand, through a small cache shared by the whole catalog.
+ * Editing the original afterwards therefore never breaks a catalog that is still in use. Identical
+ * descriptions, such as boilerplate repeated across a content pack, share one handle. Classpath resources
+ * packed in a jar cannot be read at an offset, so their descriptions stay in memory, though they are still
+ * shared.
+ * <p>
+ * Modifiers, and the strings and values inside them, go through a {@link ModifierPool}, so every trait that
+ * grants the same modifier shares one instance.
+ * <p>
+ * Each source parsed is timed into the {@code catalog.load} histogram and recorded as a
+ * {@link CatalogLoadEvent}.
+ */
+public final class TraitCatalogLoader {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final LatencyHistogram LOAD_TIME = Metrics.histogram("catalog.load");
+    private static final Counter LOADED_TRAITS = Metrics.counter("catalog.traits");
+
+    private final Executor executor;
+    private final List<Source> sources = new ArrayList<>();
+    private boolean pooling = true;
+
+    /**
+     * Creates a loader that parses independent sources on the given executor.
+     * Pass {@code Runnable::run} to parse everything on the calling thread.
+     *
+     * @param executor The executor to parse sources on.
+     */
+    public TraitCatalogLoader(Executor executor) {
+        this.executor = Objects.requireNonNull(executor, "executor cannot be null");
+    }
+
+    /**
+     * Turns modifier pooling off, so that every trait keeps its own modifiers, strings and values. Only for
+     * measuring what pooling saves.
+     *
+     * @return This loader.
+     */
+    TraitCatalogLoader withoutPooling() {
+        pooling = false;
+        return this;
+    }
+
+    /**
+     * Adds a classpath resource to load.
+     *
+     * @param resourcePath The path to the JSON file within the classpath resources.
+     * @return This loader.
+     */
+    public TraitCatalogLoader addResource(String resourcePath) {
+        Objects.requireNonNull(resourcePath, "resourcePath cannot be null");
+        sources.add(new Source(resourcePath, resourceFile(resourcePath), () -> {
+            InputStream inputStream = TraitCatalogLoader.class.getResourceAsStream(resourcePath);
+            if (inputStream == null) {
+                throw new IOException("Cannot find the traits resource file: " + resourcePath);
+            }
+            return inputStream;
+        }));
+        return this;
+    }
+
+    /**
+     * Adds a file to load.
+     *
+     * @param file The JSON file.
+     * @return This loader.
+     */
+    public TraitCatalogLoader addFile(Path file) {
+        Objects.requireNonNull(file, "file cannot be null");
+        sources.add(new Source(file.toString(), file, () -> Files.newInputStream(file)));
+        return this;
+    }
+
+    /**
+     * Adds every {@code *.json} file directly inside a directory, in file name order.
+     *
+     * @param directory The directory holding the content pack.
+     * @return This loader.
+     * @throws IOException if the directory cannot be listed.
+     */
+    public TraitCatalogLoader addDirectory(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.json")) {
+            for (Path file : stream) {
+                if (Files.isRegularFile(file)) {
+                    files.add(file);
+                }
+            }
+        }
+        files.sort(null);
+        files.forEach(this::addFile);
+        return this;
+    }
+
+    /**
+     * Returns the names of the sources added so far, in load order.
+     *
+     * @return The source names (resource paths or file paths).
+     */
+    public List<String> getSourceNames() {
+        List<String> names = new ArrayList<>(sources.size());
+        sources.forEach(source -> names.add(source.name));
+        return names;
+    }
+
+    /**
+     * Parses every added source and returns the resulting name index.
+     *
+     * @return A map of trait name to trait.
+     * @throws IOException if any source cannot be read or is not a valid trait file.
+     */
+    public Map<String, Trait> load() throws IOException {
+        Map<String, Trait> traitsByName = new ConcurrentHashMap<>();
+        // Only needed while loading, to keep duplicate resolution independent of parse order.
+        Map<String, Integer> sourceByName = new ConcurrentHashMap<>();
+        // Likewise only needed while loading: one description handle per distinct text, by fingerprint.
+        Map<Long, LazyText> descriptions = new ConcurrentHashMap<>();
+        TextCache cache = new TextCache(TextCache.DEFAULT_CAPACITY);
+        ModifierPool pool = pooling ? new ModifierPool() : ModifierPool.unshared();
+
+        List<CompletableFuture<Void>> tasks = new ArrayList<>(sources.size());
+        for (int i = 0; i < sources.size(); i++) {
+            int order = i;
+            Source source = sources.get(i);
+            tasks.add(CompletableFuture.runAsync(() -> {
+                long start = Metrics.startTimer();
+                CatalogLoadEvent event = new CatalogLoadEvent();
+                event.begin();
+                int[] traitCount = new int[1];
+                try {
+                    // Copied as it is parsed into the private file the descriptions are read back from, so
+                    // offsets stay valid however the original is edited afterwards.
+                    DescriptionFile file = source.file == null ? null : DescriptionFile.create(cache);
+                    try (InputStream inputStream = file == null ? source.opener.open()
+                                    : file.copying(source.opener.open());
+                            JsonParser parser = JSON_FACTORY.createParser(inputStream)) {
+                        parseTraits(parser, file, descriptions, pool, trait -> {
+                            traitCount[0]++;
+                            index(traitsByName, sourceByName, trait, order);
+                        });
+                        event.end();
+                        LOAD_TIME.recordSince(start);
+                        LOADED_TRAITS.add(traitCount[0]);
+                        if (event.shouldCommit()) {
+                            event.source = source.name;
+                            event.bytes = parser.currentLocation().getByteOffset();
+                            event.traitCount = traitCount[0];
+                            event.commit();
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(source.name + ": " + e.getMessage(), e);
+                }
+            }, executor));
+        }
+
+        try {
+            CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw new IOException(e.getCause().getMessage(), e.getCause().getCause());
+            }
+            throw e;
+        }
+        return traitsByName;
+    }
+
+    private static void index(Map<String, Trait> traitsByName, Map<String, Integer> sourceByName, Trait trait,
+            int order) {
+        traitsByName.compute(trait.getName(), (name, existing) -> {
+            if (existing == null) {
+                sourceByName.put(name, order);
+                return trait;
+            }
+            Trait kept = existing;
+            Trait ignored = trait;
+            if (order < sourceByName.get(name)) {
+                sourceByName.put(name, order);
+                kept = trait;
+                ignored = existing;
+            }
+            System.err.println("Warning: Duplicate trait name encountered and ignored for '"
+                    + ignored.getName() + "'. Keeping the first instance.");
+            return kept;
+        });
+    }
+
+    /**
+     * Streams the traits of one JSON array to a consumer, one at a time. Descriptions are left in the file
+     * when one is given, and shared through the map of descriptions seen so far; modifiers are shared
+     * through the pool.
+     */
+    static void parseTraits(JsonParser parser, DescriptionFile file, Map<Long, LazyText> descriptions,
+            ModifierPool pool, TraitConsumer consumer) throws IOException {
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new JsonParseException(parser, "Expected an array of traits");
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            consumer.accept(readTrait(parser, file, descriptions, pool));
+        }
+    }
+
+    private static Trait readTrait(JsonParser parser, DescriptionFile file, Map<Long, LazyText> descriptions,
+            ModifierPool pool) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_OBJECT, "a trait object");
+        Trait.TraitBuilder builder = Trait.builder();
+        String name = null;
+        LazyText description = null;
+        while (parser.nextToken() != JsonToken.END_OBJECT) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "name":
+                    name = parser.getValueAsString();
+                    break;
+                case "description":
+                    description = readDescription(parser, token, file, descriptions);
+                    break;
+                case "modifiers":
+                    expect(parser, token, JsonToken.START_ARRAY, "an array of modifiers");
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        builder.modifier(readModifier(parser, pool));
+                    }
+                    break;
+                default:
+                    throw new JsonParseException(parser, "Unknown trait field '" + field + "'");
+            }
+        }
+        if (name == null || description == null) {
+            throw new JsonParseException(parser, "Trait " + (name == null ? "" : "'" + name + "' ")
+                    + "is missing a name or description");
+        }
+        return builder.name(name).description(description).build();
+    }
+
+    private static LazyText readDescription(JsonParser parser, JsonToken token, DescriptionFile file,
+            Map<Long, LazyText> descriptions) throws IOException {
+        long start = parser.currentTokenLocation().getByteOffset();
+        String text = parser.getValueAsString();
+        if (text == null) {
+            return null;
+        }
+        long end = parser.currentLocation().getByteOffset();
+        boolean lazy = file != null && token == JsonToken.VALUE_STRING && start >= 0 && end > start;
+        long key = fingerprint(text);
+        LazyText shared = descriptions.get(key);
+        if (shared != null && shared.get().equals(text)) {
+            return shared;
+        }
+        LazyText created = lazy ? file.text(start, end) : LazyText.of(text);
+        // On a fingerprint collision the first text keeps the slot and this one gets a handle of its own.
+        shared = descriptions.putIfAbsent(key, created);
+        return shared != null && shared.get().equals(text) ? shared : created;
+    }
+
+    /**
+     * A 64-bit FNV-1a hash of the text mixed with its length, used to spot repeated descriptions without
+     * keeping them in memory.
+     */
+    static long fingerprint(String text) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash ^ ((long) text.length() << 32);
+    }
+
+    private static Path resourceFile(String resourcePath) {
+        URL url = TraitCatalogLoader.class.getResource(resourcePath);
+        if (url == null || !"file".equals(url.getProtocol())) {
+            return null;
+        }
+        try {
+            return Path.of(url.toURI());
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static Modifier readModifier(JsonParser parser, ModifierPool pool) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_OBJECT, "a modifier object");
+        Modifier.ModifierBuilder builder = Modifier.builder();
+        boolean hasTarget = false;
+        boolean hasOperation = false;
+        boolean hasSourceId = false;
+        while (parser.nextToken() != JsonToken.END_OBJECT) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "target":
+                    builder.target(parseEnum(parser, ModifierTarget.class));
+                    hasTarget = true;
+                    break;
+                case "targetQualifier":
+                    builder.targetQualifier(pool.string(parser.getValueAsString()));
+                    break;
+                case "operation":
+                    builder.operation(parseEnum(parser, Operation.class));
+                    hasOperation = true;
+                    break;
+                case "value":
+                    builder.value(pool.value(readScalar(parser, token)));
+                    break;
+                case "sourceId":
+                    builder.sourceId(pool.string(parser.getValueAsString()));
+                    hasSourceId = token == JsonToken.VALUE_STRING;
+                    break;
+                case "description":
+                    builder.description(pool.string(parser.getValueAsString()));
+                    break;
+                default:
+                    throw new JsonParseException(parser, "Unknown modifier field '" + field + "'");
+            }
+        }
+        if (!hasTarget || !hasOperation || !hasSourceId) {
+            throw new JsonParseException(parser, "Modifier is missing a target, operation or sourceId");
+        }
+        return pool.modifier(builder.build());
+    }
+
+    private static Object readScalar(JsonParser parser, JsonToken token) throws IOException {
+        switch (token) {
+            case VALUE_NUMBER_INT:
+                return parser.getNumberValue();
+            case VALUE_NUMBER_FLOAT:
+                return parser.getDoubleValue();
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_TRUE:
+            case VALUE_FALSE:
+                return parser.getBooleanValue();
+            case VALUE_NULL:
+                return null;
+            default:
+                throw new JsonParseException(parser, "Modifier value must be a number, string or boolean");
+        }
+    }
+
+    private static <E extends Enum<E>> E parseEnum(JsonParser parser, Class<E> type) throws IOException {
+        String text = parser.getValueAsString();
+        try {
+            return Enum.valueOf(type, text);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new JsonParseException(parser, "Unknown " + type.getSimpleName() + " '" + text + "'", e);
+        }
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected, String what)
+            throws IOException {
+        if (actual != expected) {
+            throw new JsonParseException(parser, "Expected " + what + " but found " + actual);
+        }
+    }
+
+    /**
+     * Receives traits as they are parsed.
+     */
+    interface TraitConsumer {
+        void accept(Trait trait) throws IOException;
+    }
+
+    private interface StreamOpener {
+        InputStream open() throws IOException;
+    }
+
+    private static final class Source {
+        private final String name;
+        // The file behind the source, or null if it cannot be read at an offset.
+        private final Path file;
+        private final StreamOpener opener;
+
+        Source(String name, Path file, StreamOpener opener) {
+            this.name = name;
+            this.file = file;
+            this.opener = opener;
+        }
+    }
+}
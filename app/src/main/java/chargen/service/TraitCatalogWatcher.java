@@ -0,0 +1,147 @@
+package chargen.service;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Watch mode for content designers: reloads a {@link TraitService} from a content-pack directory whenever
+ * one of its {@code *.json} files is created, changed or deleted.
+ * <p>
+ * Changes are picked up by a {@link WatchService} on a background daemon thread, which waits for the
+ * directory to go quiet (editors often save a file in several writes) and then calls
+ * {@link TraitService#reload(TraitCatalogLoader)}. A reload that fails leaves the previous catalog in
+ * service; the error is printed and kept for {@link #getLastFailure()}.
+ */
+public final class TraitCatalogWatcher implements AutoCloseable {
+
+    private static final long QUIET_PERIOD_MILLIS = 200;
+
+    private final TraitService traitService;
+    private final Path directory;
+    private final Executor executor;
+    private final WatchService watchService;
+    private final Thread thread;
+    private final AtomicLong reloadCount = new AtomicLong();
+    private volatile Exception lastFailure;
+
+    private TraitCatalogWatcher(TraitService traitService, Path directory, Executor executor) throws IOException {
+        this.traitService = Objects.requireNonNull(traitService, "traitService cannot be null");
+        this.directory = Objects.requireNonNull(directory, "directory cannot be null");
+        this.executor = Objects.requireNonNull(executor, "executor cannot be null");
+        this.watchService = directory.getFileSystem().newWatchService();
+        try {
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            watchService.close();
+            throw e;
+        }
+        this.thread = new Thread(this::watch, "trait-catalog-watcher");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Starts watching a directory. The service is not reloaded until something in the directory changes;
+     * call {@link #reloadNow()} to load it straight away.
+     *
+     * @param traitService The service to reload.
+     * @param directory The content-pack directory to watch.
+     * @param executor The executor to parse the directory's files on.
+     * @return The running watcher; close it to stop watching.
+     * @throws IOException if the directory cannot be watched.
+     */
+    public static TraitCatalogWatcher start(TraitService traitService, Path directory, Executor executor)
+            throws IOException {
+        TraitCatalogWatcher watcher = new TraitCatalogWatcher(traitService, directory, executor);
+        watcher.thread.start();
+        return watcher;
+    }
+
+    /**
+     * Reloads the service from the directory on the calling thread.
+     *
+     * @return {@code true} if the new catalog was published, {@code false} if the previous one was kept.
+     */
+    public boolean reloadNow() {
+        try {
+            traitService.reload(new TraitCatalogLoader(executor).addDirectory(directory));
+            reloadCount.incrementAndGet();
+            lastFailure = null;
+            return true;
+        } catch (IOException | RuntimeException e) {
+            lastFailure = e;
+            System.err.println("Failed to reload traits from " + directory + ", keeping the previous catalog: "
+                    + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Returns the number of reloads that have been published since the watcher started.
+     *
+     * @return The successful reload count.
+     */
+    public long getReloadCount() {
+        return reloadCount.get();
+    }
+
+    /**
+     * Returns the error of the most recent reload, if it failed.
+     *
+     * @return The error, or {@code null} if the most recent reload succeeded or none has run yet.
+     */
+    public Exception getLastFailure() {
+        return lastFailure;
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                boolean changed = drain(watchService.take());
+                WatchKey next = watchService.poll(QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+                while (next != null) {
+                    changed |= drain(next);
+                    next = watchService.poll(QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                if (changed) {
+                    reloadNow();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Closed by close(); stop watching.
+        }
+    }
+
+    private static boolean drain(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || event.context().toString().endsWith(".json")) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    /**
+     * Stops watching. A reload that is already running is allowed to finish.
+     *
+     * @throws IOException if the watch service cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+}
@@ -0,0 +1,198 @@
+package chargen.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+import chargen.model.Modifier;
+import chargen.model.ModifierTarget;
+import chargen.model.Trait;
+import chargen.search.NameIndex;
+
+/**
+ * Secondary indexes over one trait catalog, built once and then only read.
+ * <p>
+ * Traits are indexed by name for autocomplete (see {@link NameIndex}), and by the targets and (target,
+ * qualifier) pairs their modifiers touch; modifiers and traits by {@code sourceId}; and descriptions through
+ * an inverted token index ranked with BM25. Every target and source lookup returns a precomputed
+ * unmodifiable list, so answering it allocates nothing; lists keep traits in name order.
+ */
+final class TraitIndex {
+
+    // BM25 parameters: term-frequency saturation and description-length normalisation.
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // A query word that only matches as a prefix ("poison" in "poisoned") counts for less than an exact match.
+    private static final double PREFIX_WEIGHT = 0.5;
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private final List<Trait> traits;
+    private final NameIndex<Trait> names;
+    private final Map<ModifierTarget, List<Trait>> traitsByTarget = new EnumMap<>(ModifierTarget.class);
+    private final Map<ModifierTarget, Map<String, List<Trait>>> traitsByQualifier =
+            new EnumMap<>(ModifierTarget.class);
+    private final Map<String, List<Modifier>> modifiersBySource = new HashMap<>();
+    private final Map<String, List<Trait>> traitsBySource = new HashMap<>();
+
+    // Inverted index: sorted terms, and for each term the ids of the traits using it with their counts.
+    private final String[] terms;
+    private final int[][] postings;
+    private final int[][] frequencies;
+    private final int[] lengths;
+    private final double averageLength;
+
+    TraitIndex(List<Trait> catalogTraits) {
+        List<Trait> sorted = new ArrayList<>(catalogTraits);
+        sorted.sort((a, b) -> a.getName().compareTo(b.getName()));
+        this.traits = Collections.unmodifiableList(sorted);
+        this.names = NameIndex.of(sorted, Trait::getName);
+
+        Map<ModifierTarget, Set<Trait>> byTarget = new EnumMap<>(ModifierTarget.class);
+        Map<ModifierTarget, Map<String, Set<Trait>>> byQualifier = new EnumMap<>(ModifierTarget.class);
+        Map<String, List<Modifier>> bySource = new HashMap<>();
+        Map<String, Set<Trait>> traitBySource = new HashMap<>();
+        TreeMap<String, Map<Integer, Integer>> termCounts = new TreeMap<>();
+        this.lengths = new int[sorted.size()];
+        long totalLength = 0;
+
+        for (int id = 0; id < sorted.size(); id++) {
+            Trait trait = sorted.get(id);
+            for (Modifier modifier : trait.getModifiers()) {
+                byTarget.computeIfAbsent(modifier.getTarget(), key -> new LinkedHashSet<>()).add(trait);
+                byQualifier.computeIfAbsent(modifier.getTarget(), key -> new HashMap<>())
+                        .computeIfAbsent(modifier.getTargetQualifier(), key -> new LinkedHashSet<>()).add(trait);
+                bySource.computeIfAbsent(modifier.getSourceId(), key -> new ArrayList<>()).add(modifier);
+                traitBySource.computeIfAbsent(modifier.getSourceId(), key -> new LinkedHashSet<>()).add(trait);
+            }
+            List<String> tokens = tokenize(trait.getDescription());
+            lengths[id] = tokens.size();
+            totalLength += tokens.size();
+            for (String token : tokens) {
+                termCounts.computeIfAbsent(token, key -> new LinkedHashMap<>()).merge(id, 1, Integer::sum);
+            }
+        }
+
+        byTarget.forEach((target, matches) -> traitsByTarget.put(target, List.copyOf(matches)));
+        byQualifier.forEach((target, qualifiers) -> {
+            // HashMap rather than Map.copyOf: the unqualified entry has a null key.
+            Map<String, List<Trait>> lists = new HashMap<>();
+            qualifiers.forEach((qualifier, matches) -> lists.put(qualifier, List.copyOf(matches)));
+            traitsByQualifier.put(target, lists);
+        });
+        bySource.forEach((sourceId, modifiers) -> modifiersBySource.put(sourceId, List.copyOf(modifiers)));
+        traitBySource.forEach((sourceId, matches) -> traitsBySource.put(sourceId, List.copyOf(matches)));
+
+        this.terms = termCounts.keySet().toArray(new String[0]);
+        this.postings = new int[terms.length][];
+        this.frequencies = new int[terms.length][];
+        int term = 0;
+        for (Map<Integer, Integer> counts : termCounts.values()) {
+            postings[term] = new int[counts.size()];
+            frequencies[term] = new int[counts.size()];
+            int i = 0;
+            for (Map.Entry<Integer, Integer> count : counts.entrySet()) {
+                postings[term][i] = count.getKey();
+                frequencies[term][i] = count.getValue();
+                i++;
+            }
+            term++;
+        }
+        this.averageLength = sorted.isEmpty() ? 0 : (double) totalLength / sorted.size();
+    }
+
+    /**
+     * Splits text into lower-case words with diacritics removed, e.g. "Poisoned, Naïve" into
+     * {@code [poisoned, naive]}.
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return List.of();
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : NON_WORD.split(folded)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    List<Trait> getAllTraits() {
+        return traits;
+    }
+
+    List<Trait> getTraitsModifying(ModifierTarget target) {
+        return traitsByTarget.getOrDefault(target, List.of());
+    }
+
+    List<Trait> getTraitsModifying(ModifierTarget target, String qualifier) {
+        Map<String, List<Trait>> qualifiers = traitsByQualifier.get(target);
+        return qualifiers == null ? List.of() : qualifiers.getOrDefault(qualifier, List.of());
+    }
+
+    List<Trait> completeName(String query, int limit) {
+        return names.complete(query, limit);
+    }
+
+    List<Modifier> getModifiersFromSource(String sourceId) {
+        return modifiersBySource.getOrDefault(sourceId, List.of());
+    }
+
+    List<Trait> getTraitsFromSource(String sourceId) {
+        return traitsBySource.getOrDefault(sourceId, List.of());
+    }
+
+    List<Trait> search(String query, int limit) {
+        if (limit <= 0 || traits.isEmpty()) {
+            return List.of();
+        }
+        double[] scores = new double[traits.size()];
+        for (String word : new LinkedHashSet<>(tokenize(query))) {
+            int exact = Arrays.binarySearch(terms, word);
+            int term = exact >= 0 ? exact : -exact - 1;
+            while (term < terms.length && terms[term].startsWith(word)) {
+                score(term, term == exact ? 1.0 : PREFIX_WEIGHT, scores);
+                term++;
+            }
+        }
+
+        List<Integer> matches = new ArrayList<>();
+        for (int id = 0; id < scores.length; id++) {
+            if (scores[id] > 0) {
+                matches.add(id);
+            }
+        }
+        // Best score first; ties stay in name order.
+        matches.sort((a, b) -> Double.compare(scores[b], scores[a]));
+        List<Trait> ranked = new ArrayList<>(Math.min(limit, matches.size()));
+        for (int i = 0; i < matches.size() && i < limit; i++) {
+            ranked.add(traits.get(matches.get(i)));
+        }
+        return Collections.unmodifiableList(ranked);
+    }
+
+    private void score(int term, double weight, double[] scores) {
+        int[] ids = postings[term];
+        double idf = Math.log(1 + (traits.size() - ids.length + 0.5) / (ids.length + 0.5));
+        for (int i = 0; i < ids.length; i++) {
+            int id = ids[i];
+            double frequency = frequencies[term][i];
+            double norm = K1 * (1 - B + B * lengths[id] / averageLength);
+            scores[id] += weight * idf * frequency * (K1 + 1) / (frequency + norm);
+        }
+    }
+}
@@ -1,42 +1,108 @@
 package chargen.service;
 
 import java.io.IOException;
-import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.inject.Inject; // If using Guice for constructor injection (optional for now)
 import javax.inject.Singleton; // If you want this to be a Guice singleton
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-// Optional: For more specific configuration if needed
-// import com.fasterxml.jackson.databind.DeserializationFeature;
-
+import chargen.engine.ModifierCompiler;
+import chargen.engine.StatLayout;
+import chargen.engine.StatProgram;
+import chargen.metrics.Counter;
+import chargen.metrics.Metrics;
+import chargen.metrics.TraitLookupEvent;
+import chargen.model.Modifier;
+import chargen.model.ModifierTarget;
 import chargen.model.Trait; // Assuming Trait.java is in chargen.model
+import jdk.jfr.EventType;
 
 /**
  * Service responsible for loading and providing access to {@link Trait} definitions.
- * Traits are loaded from a JSON resource file.
+ * Traits are loaded from one or more JSON resource files or content-pack directories
+ * through a {@link TraitCatalogLoader}, or served straight from a memory-mapped
+ * {@link TraitSnapshot} when one has been compiled at build time.
+ * <p>
+ * The loaded catalog can be replaced while the service is in use, see {@link #reload(TraitCatalogLoader)}
+ * and {@link TraitCatalogWatcher}. Each catalog is published whole through an atomic reference, so readers
+ * never take a lock and never see a partly built catalog.
+ * <p>
+ * Trait lookups by name are counted in {@code trait.lookup} and {@code trait.lookup.miss}, and compiled
+ * program fetches, which happen for every generated character, separately in {@code trait.program} and
+ * {@code trait.program.miss}. Both are recorded as {@link TraitLookupEvent}s when a recording enables them;
+ * otherwise no event is even allocated.
  */
 @Singleton // Marks this class as a singleton if managed by Guice
 public class TraitService {
 
     private static final String DEFAULT_TRAITS_FILE_PATH = "/data/traits.json"; // Path within resources
-    private final Map<String, Trait> traitsByName;
+    private static final String DEFAULT_SNAPSHOT_FILE_PATH = "/data/traits.bin"; // Built by compileTraitSnapshot
+    private static final Counter LOOKUPS = Metrics.counter("trait.lookup");
+    private static final Counter LOOKUP_MISSES = Metrics.counter("trait.lookup.miss");
+    private static final Counter PROGRAM_LOOKUPS = Metrics.counter("trait.program");
+    private static final Counter PROGRAM_MISSES = Metrics.counter("trait.program.miss");
+    private static final EventType LOOKUP_EVENT = EventType.getEventType(TraitLookupEvent.class);
+    private final AtomicLong versions = new AtomicLong();
+    private final AtomicReference<Generation> generation;
+
+    /**
+     * One published catalog, together with the programs compiled from it and the layout they are indexed
+     * against. Each catalog gets a fresh layout, so named slots of traits that a reload removed do not pile up.
+     */
+    private static final class Generation {
+        final TraitCatalog catalog;
+        final String sourceNames;
+        final long version;
+        final StatLayout statLayout = new StatLayout();
+        final Map<String, StatProgram> programsByName = new ConcurrentHashMap<>();
+        private volatile TraitIndex index;
+
+        Generation(TraitCatalog catalog, String sourceNames, long version) {
+            this.catalog = catalog;
+            this.sourceNames = sourceNames;
+            this.version = version;
+        }
+
+        /**
+         * Builds the secondary indexes on first use; a snapshot would otherwise be fully decoded at startup.
+         */
+        TraitIndex index() {
+            TraitIndex result = index;
+            if (result == null) {
+                synchronized (this) {
+                    result = index;
+                    if (result == null) {
+                        result = new TraitIndex(catalog.getAllTraits());
+                        index = result;
+                    }
+                }
+            }
+            return result;
+        }
+    }
 
     /**
-     * Constructs the TraitService, loading traits from the default JSON file path.
+     * Constructs the TraitService from the default catalog. The precompiled snapshot is used when it is on
+     * the classpath; otherwise the JSON file is parsed.
      * This constructor can be used by Guice for dependency injection.
      * If not using Guice, you can instantiate it directly.
      */
     @Inject // For Guice: Guice will call this constructor
     public TraitService() {
-        this(DEFAULT_TRAITS_FILE_PATH); // Delegate to the constructor that takes a path
+        this(defaultCatalog());
+    }
+
+    private TraitService(TraitCatalog catalog) {
+        this(catalog, catalog instanceof TraitSnapshot ? DEFAULT_SNAPSHOT_FILE_PATH : DEFAULT_TRAITS_FILE_PATH,
+                !(catalog instanceof TraitSnapshot));
     }
 
     /**
@@ -45,43 +111,131 @@ public class TraitService {
      *
      * @param resourceFilePath The path to the JSON file within the classpath resources.
      * @throws RuntimeException if the traits file cannot be loaded or parsed.
+     * @throws IllegalArgumentException if a modifier's qualifier is not valid for its target.
      */
     public TraitService(String resourceFilePath) {
-        Objects.requireNonNull(resourceFilePath, "resourceFilePath cannot be null");
+        this(new TraitCatalogLoader(Runnable::run)
+                .addResource(Objects.requireNonNull(resourceFilePath, "resourceFilePath cannot be null")));
+    }
+
+    /**
+     * Constructs the TraitService from a configured loader, e.g. one holding a whole content-pack
+     * directory or several resources parsed in parallel.
+     *
+     * @param loader The loader to read traits from.
+     * @throws IllegalArgumentException if a modifier's qualifier is not valid for its target.
+     */
+    public TraitService(TraitCatalogLoader loader) {
+        this(loadCatalog(Objects.requireNonNull(loader, "loader cannot be null")),
+                String.join(", ", loader.getSourceNames()), true);
+    }
+
+    /**
+     * Constructs the TraitService over an opened snapshot. Traits are decoded, and their modifiers compiled,
+     * the first time they are asked for.
+     *
+     * @param snapshot The snapshot to serve traits from.
+     * @throws IllegalArgumentException if a modifier's qualifier is not valid for its target.
+     */
+    public TraitService(TraitSnapshot snapshot) {
+        this(Objects.requireNonNull(snapshot, "snapshot cannot be null"), "snapshot", false);
+    }
+
+    private TraitService(TraitCatalog catalog, String sourceNames, boolean compileEagerly) {
+        this.generation = new AtomicReference<>(newGeneration(catalog, sourceNames, compileEagerly));
+    }
+
+    private Generation newGeneration(TraitCatalog catalog, String sourceNames, boolean compileEagerly) {
+        Generation next = new Generation(catalog, sourceNames, versions.incrementAndGet());
+        if (compileEagerly) {
+            // Resolve every qualifier now, so unknown ones fail the load instead of the first sheet that uses them.
+            // Names are compiled in sorted order so named qualifiers get the same slots on every run.
+            List<Trait> traits = new ArrayList<>(catalog.getAllTraits());
+            traits.sort(Comparator.comparing(Trait::getName));
+            for (Trait trait : traits) {
+                next.programsByName.put(trait.getName(), compile(trait, next));
+            }
+        } else if (catalog instanceof TraitSnapshot) {
+            // Traits compile on first use, in whatever order they are asked for, so resolve every qualifier
+            // now, in the same name order as above: named ones get the same slots on every run, and invalid
+            // ones fail the load just as they do for JSON.
+            ((TraitSnapshot) catalog).forEachQualifier((traitName, target, qualifier) -> {
+                try {
+                    next.statLayout.resolve(target, qualifier);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Invalid modifier in trait '" + traitName + "' from "
+                            + sourceNames + ": " + e.getMessage(), e);
+                }
+            });
+        }
 
-        ObjectMapper objectMapper = new ObjectMapper();
-        // Configure if needed, e.g.:
-        // objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        System.err.println("TraitService: Loaded " + catalog.size() + " traits from " + sourceNames);
+        return next;
+    }
 
-        List<Trait> loadedTraits = Collections.emptyList();
-        try (InputStream inputStream = TraitService.class.getResourceAsStream(resourceFilePath)) {
-            if (inputStream == null) {
-                // Consider a more specific custom exception or logging
-                throw new IOException("Cannot find the traits resource file: " + resourceFilePath);
+    private static TraitCatalog defaultCatalog() {
+        try {
+            TraitSnapshot snapshot = TraitSnapshot.openResource(DEFAULT_SNAPSHOT_FILE_PATH);
+            if (snapshot != null) {
+                return snapshot;
             }
-            loadedTraits = objectMapper.readValue(inputStream, new TypeReference<List<Trait>>() { } );
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable trait snapshot " + DEFAULT_SNAPSHOT_FILE_PATH + ": "
+                    + e.getMessage());
+        }
+        return loadCatalog(new TraitCatalogLoader(Runnable::run).addResource(DEFAULT_TRAITS_FILE_PATH));
+    }
+
+    private static TraitCatalog loadCatalog(TraitCatalogLoader loader) {
+        Map<String, Trait> loadedTraits = Collections.emptyMap();
+        try {
+            loadedTraits = loader.load();
         } catch (IOException e) {
             // Log the error appropriately
             // For a critical data loading failure, rethrowing as a runtime exception
             // might be suitable to halt application startup if traits are essential.
-            System.err.println("Failed to load traits from " + resourceFilePath + ": " + e.getMessage());
+            System.err.println("Failed to load traits from " + String.join(", ", loader.getSourceNames()) + ": "
+                    + e.getMessage());
             e.printStackTrace(); // Replace with a proper logging framework
             // Or throw new RuntimeException("Failed to initialize TraitService: Could not load traits.", e);
         }
+        return new MapTraitCatalog(loadedTraits);
+    }
+
+    private static StatProgram compile(Trait trait, Generation generation) {
+        try {
+            return new ModifierCompiler(generation.statLayout).compile(trait.getModifiers());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid modifier in trait '" + trait.getName() + "' from "
+                    + generation.sourceNames + ": " + e.getMessage(), e);
+        }
+    }
 
-        // Using a concurrent map if this service might be accessed by multiple threads,
-        // though for a generator, a regular HashMap is likely fine if loaded at startup.
-        // For simplicity, let's stick to HashMap for now.
-        this.traitsByName = loadedTraits.stream()
-            .collect(Collectors.toMap(Trait::getName, Function.identity(), (existing, replacement) -> {
-                // Handle duplicate trait names if that's a possibility in your data
-                // This example keeps the first one encountered and prints a warning.
-                System.err.println("Warning: Duplicate trait name encountered and ignored for '" +
-                        existing.getName() + "'. Keeping the first instance.");
-                return existing;
-            }));
+    /**
+     * Loads a new catalog and, once every trait in it has compiled, publishes it in place of the current one.
+     * Calls that are already reading the previous catalog finish against it; later calls see the new one.
+     * If loading fails, the current catalog is kept and keeps being served.
+     *
+     * @param loader The loader to read the new catalog from.
+     * @throws IOException if a source cannot be read or is not a valid trait file.
+     * @throws IllegalArgumentException if a modifier's qualifier is not valid for its target.
+     */
+    public void reload(TraitCatalogLoader loader) throws IOException {
+        Map<String, Trait> traits = Objects.requireNonNull(loader, "loader cannot be null").load();
+        Generation next = newGeneration(new MapTraitCatalog(traits), String.join(", ", loader.getSourceNames()), true);
+        // Two overlapping reloads must not let the older catalog win.
+        generation.accumulateAndGet(next, (current, candidate) -> candidate.version > current.version
+                ? candidate : current);
+    }
 
-        System.out.println("TraitService: Loaded " + this.traitsByName.size() + " traits from " + resourceFilePath);
+    /**
+     * Returns a number that increases every time a new catalog is published, so callers holding derived
+     * data can tell when it has gone stale.
+     *
+     * @return The version of the catalog currently served.
+     */
+    public long getCatalogVersion() {
+        return generation.get().version;
     }
 
     /**
@@ -91,17 +245,140 @@ public class TraitService {
      * @return The {@link Trait} object if found, or {@code null} otherwise.
      */
     public Trait getTraitByName(String name) {
-        return traitsByName.get(name);
+        TraitLookupEvent event = beginLookup();
+        Trait trait = generation.get().catalog.getTraitByName(name);
+        recordLookup(LOOKUPS, LOOKUP_MISSES, event, name, trait != null);
+        return trait;
+    }
+
+    private static TraitLookupEvent beginLookup() {
+        if (!LOOKUP_EVENT.isEnabled()) {
+            return null;
+        }
+        TraitLookupEvent event = new TraitLookupEvent();
+        event.begin();
+        return event;
+    }
+
+    private static void recordLookup(Counter lookups, Counter misses, TraitLookupEvent event, String name,
+            boolean found) {
+        lookups.increment();
+        if (!found) {
+            misses.increment();
+        }
+        if (event != null && event.shouldCommit()) {
+            event.name = name;
+            event.found = found;
+            event.commit();
+        }
+    }
+
+    /**
+     * Retrieves the compiled modifiers of a trait, with every qualifier already resolved to a slot
+     * in {@link #getStatLayout()}.
+     *
+     * @param name The name of the trait.
+     * @return The trait's {@link StatProgram}, or {@code null} if no such trait is loaded.
+     * @throws IllegalArgumentException if the trait comes from a snapshot and has an invalid modifier value.
+     */
+    public StatProgram getProgramByName(String name) {
+        TraitLookupEvent event = beginLookup();
+        Generation current = generation.get();
+        StatProgram program = current.programsByName.get(name);
+        if (program == null) {
+            Trait trait = current.catalog.getTraitByName(name);
+            if (trait == null) {
+                recordLookup(PROGRAM_LOOKUPS, PROGRAM_MISSES, event, name, false);
+                return null;
+            }
+            program = current.programsByName.computeIfAbsent(name, key -> compile(trait, current));
+        }
+        recordLookup(PROGRAM_LOOKUPS, PROGRAM_MISSES, event, name, true);
+        return program;
+    }
+
+    /**
+     * Retrieves the layout that the compiled trait programs are indexed against. Every catalog has its own
+     * layout, so after a {@link #reload(TraitCatalogLoader) reload} programs must be fetched again to match it.
+     *
+     * @return The current catalog's {@link StatLayout}.
+     */
+    public StatLayout getStatLayout() {
+        return generation.get().statLayout;
     }
 
     /**
-     * Retrieves all loaded traits.
+     * Retrieves all loaded traits. The list is built once per catalog and shared between calls.
      *
-     * @return An unmodifiable list of all {@link Trait} objects.
+     * @return An unmodifiable list of all {@link Trait} objects, sorted by name.
      */
     public List<Trait> getAllTraits() {
-        // Return a copy or unmodifiable view to protect the internal map's values
-        return List.copyOf(traitsByName.values());
+        return generation.get().catalog.getAllTraits();
+    }
+
+    /**
+     * Suggests trait names for a partly typed query, for type-ahead: names starting with the query first
+     * (shortest first), then names within a few typos of it. Case and diacritics are ignored.
+     *
+     * @param query The text typed so far.
+     * @param limit The maximum number of suggestions.
+     * @return Up to {@code limit} traits, best first.
+     */
+    public List<Trait> completeTraitName(String query, int limit) {
+        return generation.get().index().completeName(query, limit);
+    }
+
+    /**
+     * Retrieves the traits with at least one modifier on a target, whatever its qualifier.
+     *
+     * @param target The modified statistic, e.g. {@code SENSE_RANGE}.
+     * @return An unmodifiable list of matching traits in name order; empty if there are none.
+     */
+    public List<Trait> getTraitsModifying(ModifierTarget target) {
+        return generation.get().index().getTraitsModifying(target);
+    }
+
+    /**
+     * Retrieves the traits with at least one modifier on a (target, qualifier) pair, e.g. SENSE_RANGE/DARKVISION.
+     *
+     * @param target The modified statistic.
+     * @param qualifier The qualifier as written in the data file, or {@code null} for unqualified modifiers.
+     * @return An unmodifiable list of matching traits in name order; empty if there are none.
+     */
+    public List<Trait> getTraitsModifying(ModifierTarget target, String qualifier) {
+        return generation.get().index().getTraitsModifying(target, qualifier);
+    }
+
+    /**
+     * Retrieves every modifier with a given {@code sourceId}.
+     *
+     * @param sourceId The source, e.g. "Dwarf".
+     * @return An unmodifiable list of the source's modifiers, in trait name order; empty if there are none.
+     */
+    public List<Modifier> getModifiersFromSource(String sourceId) {
+        return generation.get().index().getModifiersFromSource(sourceId);
+    }
+
+    /**
+     * Retrieves the traits with at least one modifier from a given {@code sourceId}.
+     *
+     * @param sourceId The source, e.g. "Dwarf".
+     * @return An unmodifiable list of matching traits in name order; empty if there are none.
+     */
+    public List<Trait> getTraitsFromSource(String sourceId) {
+        return generation.get().index().getTraitsFromSource(sourceId);
+    }
+
+    /**
+     * Searches trait descriptions, best match first. Matching ignores case and diacritics, and a query word
+     * also matches longer words it starts ("poison" finds "poisoned"), at a lower weight.
+     *
+     * @param query Free text; each word is matched separately.
+     * @param limit The maximum number of results.
+     * @return An unmodifiable list of matching traits ranked by relevance (BM25); empty if nothing matches.
+     */
+    public List<Trait> searchDescriptions(String query, int limit) {
+        return generation.get().index().search(query, limit);
     }
 
     // --- Example main method for standalone testing of this service ---
@@ -109,7 +386,7 @@ public class TraitService {
         System.out.println("Testing TraitService standalone...");
         TraitService traitService = null;
         try {
-            traitService = new TraitService(); // Uses default path: /data/traits.json
+            traitService = new TraitService(); // Uses /data/traits.bin if built, else /data/traits.json
         } catch (Exception e) {
             System.err.println("Error initializing TraitService for testing: " + e.getMessage());
             e.printStackTrace();
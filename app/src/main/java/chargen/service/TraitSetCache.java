@@ -0,0 +1,207 @@
+package chargen.service;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import chargen.engine.StatProgram;
+import chargen.metrics.Counter;
+import chargen.metrics.Metrics;
+import chargen.model.Trait;
+
+/**
+ * Remembers the merged {@link StatProgram} of whole trait combinations, so characters that share a set of
+ * traits (most of a generated population does) merge it once instead of once per character.
+ * <p>
+ * A trait set is keyed by its fingerprint: the sorted, distinct ids of its traits, where a trait's id is
+ * its position in the name-sorted catalog. Merging is order-independent, so any order or repetition of the
+ * same names gives the same program. The cache holds at most a fixed number of sets, evicting the least
+ * recently used, and is safe to share between generator threads.
+ * <p>
+ * Entries are tied to the {@linkplain TraitService#getCatalogVersion() catalog version} they were merged
+ * from. When the service publishes a new catalog the cache is emptied and ids are reassigned, and a set
+ * merged while the reload was happening is never stored. Hits and misses are counted in
+ * {@code traitset.hit} and {@code traitset.miss}.
+ */
+public final class TraitSetCache {
+
+    /** The number of trait sets kept by default. */
+    public static final int DEFAULT_MAXIMUM_SIZE = 4096;
+
+    private static final Counter HITS = Metrics.counter("traitset.hit");
+    private static final Counter MISSES = Metrics.counter("traitset.miss");
+
+    private final TraitService traitService;
+    private final Cache<Fingerprint, StatProgram> programs;
+    private volatile TraitIds ids;
+
+    /**
+     * Creates a cache over the catalog a service currently serves.
+     *
+     * @param traitService The service to compile traits with.
+     * @param maximumSize The most trait sets to keep, 0 or more.
+     * @throws IllegalArgumentException if maximumSize is negative.
+     */
+    public TraitSetCache(TraitService traitService, long maximumSize) {
+        this.traitService = Objects.requireNonNull(traitService, "traitService cannot be null");
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("maximumSize must not be negative: " + maximumSize);
+        }
+        this.programs = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .concurrencyLevel(Runtime.getRuntime().availableProcessors())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the merged program of a set of traits. Names not in the catalog are skipped, as
+     * {@link TraitService#getProgramByName(String)} would return nothing for them.
+     *
+     * @param traitNames The names of the traits, in any order.
+     * @return The merged program, {@link StatProgram#EMPTY} if no name is in the catalog.
+     * @throws IllegalArgumentException if a trait comes from a snapshot and has an invalid qualifier.
+     */
+    public StatProgram getProgram(Collection<String> traitNames) {
+        TraitIds current = currentIds();
+        int[] traitIds = new int[traitNames.size()];
+        int count = 0;
+        for (String name : traitNames) {
+            Integer id = current.idsByName.get(name);
+            if (id != null) {
+                traitIds[count++] = id;
+            }
+        }
+        if (count == 0) {
+            return StatProgram.EMPTY;
+        }
+        Fingerprint key = new Fingerprint(current.version, traitIds, count);
+        StatProgram program = programs.getIfPresent(key);
+        if (program != null) {
+            HITS.increment();
+            return program;
+        }
+        MISSES.increment();
+        program = StatProgram.EMPTY;
+        for (int id : key.traitIds) {
+            StatProgram traitProgram = traitService.getProgramByName(current.names[id]);
+            if (traitProgram != null) {
+                program = program.merge(traitProgram);
+            }
+        }
+        // The programs just merged may already come from a newer catalog; such a set is not worth keeping.
+        if (traitService.getCatalogVersion() == current.version) {
+            programs.put(key, program);
+        }
+        return program;
+    }
+
+    /**
+     * Returns the cache's hit and miss counts, load times aside, since it was created.
+     *
+     * @return The statistics.
+     */
+    public CacheStats getStats() {
+        return programs.stats();
+    }
+
+    /**
+     * Returns the number of trait sets currently kept.
+     *
+     * @return The approximate number of entries.
+     */
+    public long size() {
+        return programs.size();
+    }
+
+    /**
+     * Drops every trait set. Reloads do this by themselves.
+     */
+    public void invalidateAll() {
+        programs.invalidateAll();
+    }
+
+    private TraitIds currentIds() {
+        long version = traitService.getCatalogVersion();
+        TraitIds current = ids;
+        if (current != null && current.version == version) {
+            return current;
+        }
+        synchronized (this) {
+            current = ids;
+            if (current == null || current.version != version) {
+                // The version was read before the traits: if a reload lands in between, the newer traits are
+                // filed under the older version, which no longer matches, so nothing merged from them is
+                // stored and the ids are rebuilt on the next call.
+                current = new TraitIds(version, traitService.getAllTraits());
+                ids = current;
+                programs.invalidateAll();
+            }
+            return current;
+        }
+    }
+
+    /**
+     * The ids of one catalog version's traits.
+     */
+    private static final class TraitIds {
+        final long version;
+        final String[] names;
+        final Map<String, Integer> idsByName;
+
+        TraitIds(long version, List<Trait> traits) {
+            this.version = version;
+            this.names = traits.stream().map(Trait::getName).sorted().toArray(String[]::new);
+            this.idsByName = new HashMap<>(names.length * 4 / 3 + 1);
+            for (int i = 0; i < names.length; i++) {
+                idsByName.put(names[i], i);
+            }
+        }
+    }
+
+    /**
+     * A trait set, as its sorted distinct trait ids within one catalog version.
+     */
+    private static final class Fingerprint {
+        final long version;
+        final int[] traitIds;
+        final int hash;
+
+        Fingerprint(long version, int[] ids, int count) {
+            Arrays.sort(ids, 0, count);
+            int distinct = 0;
+            for (int i = 0; i < count; i++) {
+                if (distinct == 0 || ids[distinct - 1] != ids[i]) {
+                    ids[distinct++] = ids[i];
+                }
+            }
+            this.version = version;
+            this.traitIds = Arrays.copyOf(ids, distinct);
+            this.hash = 31 * Long.hashCode(version) + Arrays.hashCode(traitIds);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) {
+                return true;
+            }
+            if (!(o instanceof Fingerprint)) {
+                return false;
+            }
+            Fingerprint other = (Fingerprint) o;
+            return hash == other.hash && version == other.version && Arrays.equals(traitIds, other.traitIds);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,529 @@
+package chargen.service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+import chargen.metrics.CatalogLoadEvent;
+import chargen.metrics.LatencyHistogram;
+import chargen.metrics.Metrics;
+import chargen.model.LazyText;
+import chargen.model.Modifier;
+import chargen.model.ModifierTarget;
+import chargen.model.Operation;
+import chargen.model.Trait;
+
+/**
+ * A compact, read-only binary image of a trait catalog that can be memory-mapped and queried without
+ * parsing JSON or decoding traits that are never asked for.
+ * <p>
+ * Layout (all integers big-endian):
+ * <pre>
+ * header     magic, version, trait count, modifier count, string count,
+ *            offsets of the string table, modifier records, trait records and name index
+ * strings    (count + 1) start offsets into the UTF-8 blob that follows, then the blob
+ * modifiers  24-byte records: target, operation, value type, qualifier, sourceId, description, value
+ * traits     16-byte records, sorted by name: name, description, first modifier, modifier count
+ * name index 8-byte (name hash, trait index) pairs sorted by hash
+ * </pre>
+ * String fields hold a string table index, or -1 for {@code null}.
+ * <p>
+ * Trait descriptions are never kept decoded. Each trait holds a {@link LazyText} over its string table entry,
+ * shared by every trait with the same description, and the text is decoded through a small cache when asked.
+ * Decoded modifiers go through a {@link ModifierPool}, so traits granting the same modifier share it.
+ */
+public final class TraitSnapshot implements TraitCatalog {
+
+    static final int MAGIC = 0x43475453; // "CGTS"
+    static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 36;
+    private static final int MODIFIER_BYTES = 24;
+    private static final int TRAIT_BYTES = 16;
+    private static final int INDEX_BYTES = 8;
+
+    private static final byte VALUE_NULL = 0;
+    private static final byte VALUE_INT = 1;
+    private static final byte VALUE_LONG = 2;
+    private static final byte VALUE_DOUBLE = 3;
+    private static final byte VALUE_STRING = 4;
+    private static final byte VALUE_BOOLEAN = 5;
+
+    private static final ModifierTarget[] TARGETS = ModifierTarget.values();
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final LatencyHistogram LOAD_TIME = Metrics.histogram("catalog.load");
+
+    private final ByteBuffer buffer;
+    private final int traitCount;
+    private final int stringCount;
+    private final int stringOffsetsPos;
+    private final int stringDataPos;
+    private final int modifiersPos;
+    private final int traitsPos;
+    private final int indexPos;
+
+    // Decoded on first use. Races only ever store equal or interchangeable values, so no locking is needed.
+    private final String[] strings;
+    private final LazyText[] texts;
+    private final Trait[] traits;
+    private final TextCache textCache = new TextCache(TextCache.DEFAULT_CAPACITY);
+    private final ModifierPool modifierPool = new ModifierPool();
+    private final List<Trait> allTraits = new AllTraits();
+
+    private TraitSnapshot(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a trait snapshot");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported trait snapshot version " + buffer.getInt(4));
+        }
+        this.traitCount = buffer.getInt(8);
+        this.stringCount = buffer.getInt(16);
+        this.stringOffsetsPos = buffer.getInt(20);
+        this.stringDataPos = stringOffsetsPos + (stringCount + 1) * Integer.BYTES;
+        this.modifiersPos = buffer.getInt(24);
+        this.traitsPos = buffer.getInt(28);
+        this.indexPos = buffer.getInt(32);
+        this.strings = new String[stringCount];
+        this.texts = new LazyText[stringCount];
+        this.traits = new Trait[traitCount];
+    }
+
+    /**
+     * Memory-maps a snapshot file.
+     *
+     * @param file The snapshot file.
+     * @return The opened snapshot.
+     * @throws IOException if the file cannot be read or is not a snapshot.
+     */
+    public static TraitSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return recordLoad(file.toString(), () -> channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Opens a snapshot from the classpath. Resources that live in a plain directory are memory-mapped;
+     * ones packed inside a jar are read into memory.
+     *
+     * @param resourcePath The path to the snapshot within the classpath resources.
+     * @return The opened snapshot, or {@code null} if there is no such resource.
+     * @throws IOException if the resource cannot be read or is not a snapshot.
+     */
+    public static TraitSnapshot openResource(String resourcePath) throws IOException {
+        URL url = TraitSnapshot.class.getResource(resourcePath);
+        if (url == null) {
+            return null;
+        }
+        if ("file".equals(url.getProtocol())) {
+            try {
+                return open(Path.of(url.toURI()));
+            } catch (URISyntaxException e) {
+                throw new IOException("Invalid snapshot location: " + url, e);
+            }
+        }
+        try (InputStream inputStream = url.openStream()) {
+            return recordLoad(resourcePath, () -> ByteBuffer.wrap(inputStream.readAllBytes()));
+        }
+    }
+
+    private static TraitSnapshot recordLoad(String source, BufferReader reader) throws IOException {
+        long start = Metrics.startTimer();
+        CatalogLoadEvent event = new CatalogLoadEvent();
+        event.begin();
+        TraitSnapshot snapshot = new TraitSnapshot(reader.read());
+        event.end();
+        LOAD_TIME.recordSince(start);
+        if (event.shouldCommit()) {
+            event.source = source;
+            event.bytes = snapshot.buffer.capacity();
+            event.traitCount = snapshot.traitCount;
+            event.commit();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns the number of traits in the snapshot.
+     *
+     * @return The trait count.
+     */
+    @Override
+    public int size() {
+        return traitCount;
+    }
+
+    /**
+     * Looks up a trait by name, decoding it on first access.
+     *
+     * @param name The name of the trait to retrieve.
+     * @return The {@link Trait}, or {@code null} if the snapshot has no trait by that name.
+     */
+    @Override
+    public Trait getTraitByName(String name) {
+        int hash = name.hashCode();
+        int low = 0;
+        int high = traitCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (buffer.getInt(indexPos + mid * INDEX_BYTES) < hash) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int i = low; i < traitCount && buffer.getInt(indexPos + i * INDEX_BYTES) == hash; i++) {
+            int trait = buffer.getInt(indexPos + i * INDEX_BYTES + Integer.BYTES);
+            if (name.equals(string(buffer.getInt(traitsPos + trait * TRAIT_BYTES)))) {
+                return traitAt(trait);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the trait stored at a position in the snapshot, decoding it on first access.
+     *
+     * @param index A trait position between 0 and {@link #size()} (exclusive); traits are sorted by name.
+     * @return The trait.
+     */
+    public Trait traitAt(int index) {
+        Trait trait = traits[index];
+        if (trait == null) {
+            trait = decodeTrait(index);
+            traits[index] = trait;
+        }
+        return trait;
+    }
+
+    /**
+     * Returns every trait in the snapshot. The list is a view; traits are decoded as they are read from it.
+     *
+     * @return An unmodifiable list of all traits, sorted by name.
+     */
+    @Override
+    public List<Trait> getAllTraits() {
+        return allTraits;
+    }
+
+    /**
+     * Unmodifiable view of the trait records, shared by every {@link #getAllTraits()} call.
+     */
+    private final class AllTraits extends AbstractList<Trait> implements RandomAccess {
+        @Override
+        public Trait get(int index) {
+            Objects.checkIndex(index, traitCount);
+            return traitAt(index);
+        }
+
+        @Override
+        public int size() {
+            return traitCount;
+        }
+    }
+
+    /**
+     * Receives the target and qualifier of one modifier, with the name of the trait it belongs to.
+     */
+    interface QualifierVisitor {
+        void visit(String traitName, ModifierTarget target, String qualifier);
+    }
+
+    /**
+     * Reports the target and qualifier, possibly {@code null}, of every modifier, trait by trait in name
+     * order, without decoding the traits' descriptions or values.
+     */
+    void forEachQualifier(QualifierVisitor visitor) {
+        for (int index = 0; index < traitCount; index++) {
+            int record = traitsPos + index * TRAIT_BYTES;
+            int firstModifier = buffer.getInt(record + 8);
+            int modifierCount = buffer.getInt(record + 12);
+            String name = modifierCount == 0 ? null : string(buffer.getInt(record));
+            for (int m = firstModifier; m < firstModifier + modifierCount; m++) {
+                int modifier = modifiersPos + m * MODIFIER_BYTES;
+                visitor.visit(name, TARGETS[buffer.get(modifier)], string(buffer.getInt(modifier + 4)));
+            }
+        }
+    }
+
+    private Trait decodeTrait(int index) {
+        int record = traitsPos + index * TRAIT_BYTES;
+        int firstModifier = buffer.getInt(record + 8);
+        int modifierCount = buffer.getInt(record + 12);
+        Trait.TraitBuilder builder = Trait.builder()
+                .name(string(buffer.getInt(record)))
+                .description(text(buffer.getInt(record + 4)));
+        for (int m = firstModifier; m < firstModifier + modifierCount; m++) {
+            builder.modifier(decodeModifier(modifiersPos + m * MODIFIER_BYTES));
+        }
+        return builder.build();
+    }
+
+    private Modifier decodeModifier(int record) {
+        long raw = buffer.getLong(record + 16);
+        Object value;
+        switch (buffer.get(record + 2)) {
+            case VALUE_INT:
+                value = (int) raw;
+                break;
+            case VALUE_LONG:
+                value = raw;
+                break;
+            case VALUE_DOUBLE:
+                value = Double.longBitsToDouble(raw);
+                break;
+            case VALUE_STRING:
+                value = string((int) raw);
+                break;
+            case VALUE_BOOLEAN:
+                value = raw != 0;
+                break;
+            default:
+                value = null;
+                break;
+        }
+        return modifierPool.modifier(Modifier.builder()
+                .target(TARGETS[buffer.get(record)])
+                .operation(OPERATIONS[buffer.get(record + 1)])
+                .targetQualifier(string(buffer.getInt(record + 4)))
+                .sourceId(string(buffer.getInt(record + 8)))
+                .description(string(buffer.getInt(record + 12)))
+                .value(modifierPool.value(value))
+                .build());
+    }
+
+    private String string(int index) {
+        if (index < 0) {
+            return null;
+        }
+        String string = strings[index];
+        if (string == null) {
+            string = decodeString(index);
+            strings[index] = string;
+        }
+        return string;
+    }
+
+    private LazyText text(int index) {
+        if (index < 0) {
+            return null;
+        }
+        LazyText text = texts[index];
+        if (text == null) {
+            text = new SnapshotText(index);
+            texts[index] = text;
+        }
+        return text;
+    }
+
+    private String decodeString(int index) {
+        int start = buffer.getInt(stringOffsetsPos + index * Integer.BYTES);
+        int end = buffer.getInt(stringOffsetsPos + (index + 1) * Integer.BYTES);
+        byte[] bytes = new byte[end - start];
+        buffer.get(stringDataPos + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A string table entry decoded on demand and not kept, apart from the few held by the cache.
+     */
+    private final class SnapshotText extends LazyText {
+        private final int index;
+
+        SnapshotText(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public String get() {
+            return textCache.get(this, () -> decodeString(index));
+        }
+    }
+
+    /**
+     * Writes a snapshot of the given traits.
+     *
+     * @param traits The traits to write. Names must be unique.
+     * @param file The file to create or replace.
+     * @throws IOException if the file cannot be written.
+     * @throws IllegalArgumentException if two traits share a name or a modifier value cannot be stored.
+     */
+    public static void write(Collection<Trait> traits, Path file) throws IOException {
+        try (OutputStream outputStream = Files.newOutputStream(file)) {
+            write(traits, outputStream);
+        }
+    }
+
+    /**
+     * Writes a snapshot of the given traits to a stream.
+     *
+     * @param traits The traits to write. Names must be unique.
+     * @param outputStream The stream to write to. It is flushed but not closed.
+     * @throws IOException if the stream cannot be written.
+     * @throws IllegalArgumentException if two traits share a name or a modifier value cannot be stored.
+     */
+    public static void write(Collection<Trait> traits, OutputStream outputStream) throws IOException {
+        Trait[] sorted = traits.toArray(new Trait[0]);
+        Arrays.sort(sorted, (a, b) -> a.getName().compareTo(b.getName()));
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i].getName().equals(sorted[i - 1].getName())) {
+                throw new IllegalArgumentException("Duplicate trait name '" + sorted[i].getName() + "'");
+            }
+        }
+
+        StringTable stringTable = new StringTable();
+        int modifierCount = 0;
+        for (Trait trait : sorted) {
+            stringTable.add(trait.getName());
+            stringTable.add(trait.getDescription());
+            for (Modifier modifier : trait.getModifiers()) {
+                stringTable.add(modifier.getTargetQualifier());
+                stringTable.add(modifier.getSourceId());
+                stringTable.add(modifier.getDescription());
+                if (modifier.getValue() instanceof String) {
+                    stringTable.add((String) modifier.getValue());
+                }
+                modifierCount++;
+            }
+        }
+
+        int stringOffsetsPos = HEADER_BYTES;
+        int modifiersPos = stringOffsetsPos + (stringTable.size() + 1) * Integer.BYTES + stringTable.byteLength;
+        int traitsPos = modifiersPos + modifierCount * MODIFIER_BYTES;
+        int indexPos = traitsPos + sorted.length * TRAIT_BYTES;
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(sorted.length);
+        out.writeInt(modifierCount);
+        out.writeInt(stringTable.size());
+        out.writeInt(stringOffsetsPos);
+        out.writeInt(modifiersPos);
+        out.writeInt(traitsPos);
+        out.writeInt(indexPos);
+
+        int offset = 0;
+        for (byte[] bytes : stringTable.encoded) {
+            out.writeInt(offset);
+            offset += bytes.length;
+        }
+        out.writeInt(offset);
+        for (byte[] bytes : stringTable.encoded) {
+            out.write(bytes);
+        }
+
+        for (Trait trait : sorted) {
+            for (Modifier modifier : trait.getModifiers()) {
+                writeModifier(out, modifier, stringTable);
+            }
+        }
+
+        int firstModifier = 0;
+        for (Trait trait : sorted) {
+            out.writeInt(stringTable.indexOf(trait.getName()));
+            out.writeInt(stringTable.indexOf(trait.getDescription()));
+            out.writeInt(firstModifier);
+            out.writeInt(trait.getModifiers().size());
+            firstModifier += trait.getModifiers().size();
+        }
+
+        long[] index = new long[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            index[i] = ((long) sorted[i].getName().hashCode() << 32) | i;
+        }
+        Arrays.sort(index);
+        for (long entry : index) {
+            out.writeLong(entry);
+        }
+        out.flush();
+    }
+
+    private static void writeModifier(DataOutputStream out, Modifier modifier, StringTable stringTable)
+            throws IOException {
+        Object value = modifier.getValue();
+        byte type;
+        long raw;
+        if (value == null) {
+            type = VALUE_NULL;
+            raw = 0;
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            type = VALUE_INT;
+            raw = ((Number) value).intValue();
+        } else if (value instanceof Long) {
+            type = VALUE_LONG;
+            raw = (Long) value;
+        } else if (value instanceof Double) {
+            type = VALUE_DOUBLE;
+            raw = Double.doubleToRawLongBits((Double) value);
+        } else if (value instanceof String) {
+            type = VALUE_STRING;
+            raw = stringTable.indexOf((String) value);
+        } else if (value instanceof Boolean) {
+            type = VALUE_BOOLEAN;
+            raw = (Boolean) value ? 1 : 0;
+        } else {
+            throw new IllegalArgumentException("Cannot store modifier value of type " + value.getClass().getName()
+                    + " from '" + modifier.getSourceId() + "'");
+        }
+        out.writeByte(modifier.getTarget().ordinal());
+        out.writeByte(modifier.getOperation().ordinal());
+        out.writeByte(type);
+        out.writeByte(0);
+        out.writeInt(stringTable.indexOf(modifier.getTargetQualifier()));
+        out.writeInt(stringTable.indexOf(modifier.getSourceId()));
+        out.writeInt(stringTable.indexOf(modifier.getDescription()));
+        out.writeLong(raw);
+    }
+
+    /**
+     * Deduplicated strings in first-seen order.
+     */
+    private static final class StringTable {
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<byte[]> encoded = new ArrayList<>();
+        private int byteLength;
+
+        void add(String string) {
+            if (string != null && !indexes.containsKey(string)) {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                indexes.put(string, encoded.size());
+                encoded.add(bytes);
+                byteLength += bytes.length;
+            }
+        }
+
+        int indexOf(String string) {
+            return string == null ? -1 : indexes.get(string);
+        }
+
+        int size() {
+            return encoded.size();
+        }
+    }
+
+    @FunctionalInterface
+    private interface BufferReader {
+        ByteBuffer read() throws IOException;
+    }
+}
@@ -0,0 +1,64 @@
+package chargen.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import chargen.engine.ModifierCompiler;
+import chargen.engine.StatLayout;
+import chargen.model.Trait;
+
+/**
+ * Build-time tool that compiles JSON trait catalogs into a {@link TraitSnapshot}.
+ * Run by the {@code compileTraitSnapshot} Gradle task.
+ * <p>
+ * Usage: {@code TraitSnapshotCompiler <output file> <json file or directory>...}
+ */
+public final class TraitSnapshotCompiler {
+
+    private TraitSnapshotCompiler() {
+    }
+
+    /**
+     * Compiles the given catalogs into a snapshot file.
+     *
+     * @param args The output file, followed by one or more JSON files or content-pack directories.
+     * @throws IOException if a catalog cannot be read or the snapshot cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: TraitSnapshotCompiler <output file> <json file or directory>...");
+            System.exit(2);
+        }
+        Path output = Path.of(args[0]);
+
+        TraitCatalogLoader loader = new TraitCatalogLoader(ForkJoinPool.commonPool());
+        for (int i = 1; i < args.length; i++) {
+            Path input = Path.of(args[i]);
+            if (Files.isDirectory(input)) {
+                loader.addDirectory(input);
+            } else {
+                loader.addFile(input);
+            }
+        }
+        Map<String, Trait> traits = loader.load();
+
+        // Fail the build on bad qualifiers rather than shipping a snapshot that TraitService would reject.
+        ModifierCompiler compiler = new ModifierCompiler(new StatLayout());
+        for (Trait trait : traits.values()) {
+            try {
+                compiler.compile(trait.getModifiers());
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Invalid modifier in trait '" + trait.getName() + "': " + e.getMessage(), e);
+            }
+        }
+
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        TraitSnapshot.write(traits.values(), output);
+        System.out.println("TraitSnapshotCompiler: Wrote " + traits.size() + " traits to " + output);
+    }
+}
@@ -0,0 +1,687 @@
+package chargen.store;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import chargen.model.Ability;
+import chargen.model.Alignment;
+import chargen.model.CharacterSheet;
+import chargen.model.CreatureSize;
+import chargen.model.MovementType;
+import chargen.model.Sense;
+import chargen.model.Skill;
+
+/**
+ * A directory of generated characters on disk, built to hold hundreds of millions of them: characters are
+ * appended sequentially and any one can be read back by id without decoding the others.
+ * <p>
+ * The directory holds three files, each starting with an 8-byte header (magic, version):
+ * <pre>
+ * records.bin  one record per character, in id order
+ * index.bin    one long per id: the offset of its record, or the complement of the offset once deleted
+ * strings.bin  the dictionary: (length, UTF-8 bytes) entries, numbered in order
+ * </pre>
+ * A record (big-endian) is a fixed-width block followed by one dictionary id (int) per trait name:
+ * <pre>
+ *   sheet index (long); alignment, size, level, proficiency bonus (bytes);
+ *   Armor Class, max hit points, initiative, passive Perception (shorts);
+ *   one byte per ability score, one byte per skill bonus;
+ *   the skills that have a bonus and the proficient skills (int bit sets, by ordinal);
+ *   one short per speed and per sense range; the trait count (unsigned short)
+ * </pre>
+ * Ability scores, speeds and sense ranges of 0 are read back as absent, matching the generator, which only
+ * records the ones that apply.
+ * <p>
+ * Records and strings are only ever appended; deleting a character flips its index entry in place, and
+ * {@link #compact()} rewrites the store without deleted characters or strings nothing refers to any more.
+ * Appends are buffered and written in dictionary, record, index order, so the index never points at bytes
+ * that are not on disk; {@link #open(Path)} drops anything written after the last complete index entry.
+ * Reads go through read-only memory maps, so only the pages of the characters actually read are loaded.
+ * <p>
+ * A store is thread-safe: reads run concurrently with each other, while appends, deletes and compaction take
+ * turns with them.
+ */
+public final class CharacterStore implements AutoCloseable {
+
+    static final String RECORDS_FILE = "records.bin";
+    static final String INDEX_FILE = "index.bin";
+    static final String STRINGS_FILE = "strings.bin";
+    static final int VERSION = 1;
+    static final String COMPACTING_SUFFIX = ".compacting";
+    static final String OLD_SUFFIX = ".old";
+
+    private static final int RECORDS_MAGIC = 0x43474352; // "CGCR"
+    private static final int INDEX_MAGIC = 0x43474349; // "CGCI"
+    private static final int STRINGS_MAGIC = 0x43474353; // "CGCS"
+    private static final int HEADER_BYTES = 8;
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private static final Alignment[] ALIGNMENTS = Alignment.values();
+    private static final CreatureSize[] SIZES = CreatureSize.values();
+    private static final Ability[] ABILITIES = Ability.values();
+    private static final Skill[] SKILLS = Skill.values();
+    private static final MovementType[] MOVEMENT_TYPES = MovementType.values();
+    private static final Sense[] SENSES = Sense.values();
+
+    // Offsets within the fixed-width block of a record.
+    private static final int INDEX_POS = 0;
+    private static final int ALIGNMENT_POS = 8;
+    private static final int SIZE_POS = 9;
+    private static final int LEVEL_POS = 10;
+    private static final int PROFICIENCY_POS = 11;
+    private static final int ARMOR_CLASS_POS = 12;
+    private static final int MAX_HIT_POINTS_POS = 14;
+    private static final int INITIATIVE_POS = 16;
+    private static final int PASSIVE_PERCEPTION_POS = 18;
+    private static final int SCORES_POS = 20;
+    private static final int SKILL_BONUSES_POS = SCORES_POS + ABILITIES.length;
+    private static final int SKILLS_PRESENT_POS = SKILL_BONUSES_POS + SKILLS.length;
+    private static final int PROFICIENT_POS = SKILLS_PRESENT_POS + Integer.BYTES;
+    private static final int SPEEDS_POS = PROFICIENT_POS + Integer.BYTES;
+    private static final int SENSES_POS = SPEEDS_POS + MOVEMENT_TYPES.length * Short.BYTES;
+    private static final int TRAIT_COUNT_POS = SENSES_POS + SENSES.length * Short.BYTES;
+    /** The size of a record with no traits. */
+    static final int FIXED_BYTES = TRAIT_COUNT_POS + Short.BYTES;
+
+    /** The most traits one stored character can have. */
+    public static final int MAX_TRAITS = 0xFFFF;
+    private static final int MAX_RECORD_BYTES = FIXED_BYTES + MAX_TRAITS * Integer.BYTES;
+
+    private final Path directory;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // All of the following are guarded by lock: read under the read lock, changed under the write lock.
+    private FileChannel records;
+    private FileChannel index;
+    private FileChannel strings;
+    private MappedRegions recordMaps;
+    private MappedRegions indexMaps;
+    private final List<String> dictionary = new ArrayList<>();
+    private final Map<String, Integer> dictionaryIds = new HashMap<>();
+    private final ByteBuffer recordBuffer = ByteBuffer.allocate(BUFFER_BYTES);
+    private final ByteBuffer indexBuffer = ByteBuffer.allocate(BUFFER_BYTES);
+    private final ByteBuffer stringBuffer = ByteBuffer.allocate(BUFFER_BYTES);
+    private ByteBuffer scratch = ByteBuffer.allocate(FIXED_BYTES + 16 * Integer.BYTES);
+    private long size;
+    private long flushedSize;
+    private long recordsEnd;
+    private long flushedRecordsEnd;
+    private long flushedStringsEnd;
+    private boolean closed;
+
+    private CharacterStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Opens a store, creating the directory and its files if they do not exist yet. If a {@link #compact()}
+     * died between moving the store aside and moving the new one in, the swap is finished first.
+     *
+     * @param directory The store's directory.
+     * @return The open store.
+     * @throws IOException if the files cannot be opened, or are not character store files.
+     */
+    public static CharacterStore open(Path directory) throws IOException {
+        Objects.requireNonNull(directory, "directory cannot be null");
+        recover(directory);
+        Files.createDirectories(directory);
+        CharacterStore store = new CharacterStore(directory);
+        store.load();
+        return store;
+    }
+
+    /**
+     * Puts a store back in its directory after a compaction died mid-swap. The directory is only ever missing
+     * while {@code .old} holds the previous store, and it is only moved there once {@code .compacting} has
+     * been completely written and forced, so either one is whole; the compacted one is preferred.
+     */
+    private static void recover(Path directory) throws IOException {
+        Path previous = sibling(directory, OLD_SUFFIX);
+        if (Files.exists(directory) || !Files.isDirectory(previous)) {
+            return;
+        }
+        Path compacted = sibling(directory, COMPACTING_SUFFIX);
+        Files.move(Files.isDirectory(compacted) ? compacted : previous, directory, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Path sibling(Path directory, String suffix) {
+        return directory.resolveSibling(directory.getFileName() + suffix);
+    }
+
+    private void load() throws IOException {
+        try {
+            records = openFile(RECORDS_FILE, RECORDS_MAGIC);
+            index = openFile(INDEX_FILE, INDEX_MAGIC);
+            strings = openFile(STRINGS_FILE, STRINGS_MAGIC);
+            loadDictionary();
+
+            size = (index.size() - HEADER_BYTES) / Long.BYTES;
+            flushedSize = size;
+            index.truncate(indexPosition(size));
+            long end = HEADER_BYTES;
+            if (size > 0) {
+                long last = recordOffset(readLong(index, indexPosition(size - 1)));
+                ByteBuffer count = ByteBuffer.allocate(Short.BYTES);
+                readFully(records, count, last + TRAIT_COUNT_POS);
+                end = last + FIXED_BYTES + (long) count.getChar(0) * Integer.BYTES;
+            }
+            if (records.size() < end) {
+                throw new IOException("Character store " + directory + " is missing records");
+            }
+            records.truncate(end);
+            recordsEnd = end;
+            flushedRecordsEnd = end;
+            recordMaps = new MappedRegions(records, MAX_RECORD_BYTES);
+            indexMaps = new MappedRegions(index, Long.BYTES);
+        } catch (IOException | RuntimeException e) {
+            closeFiles();
+            throw e;
+        }
+    }
+
+    private FileChannel openFile(String name, int magic) throws IOException {
+        Path file = directory.resolve(name);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            if (channel.size() == 0) {
+                header.putInt(magic).putInt(VERSION).flip();
+                writeFully(channel, header, 0);
+            } else {
+                if (channel.size() < HEADER_BYTES || readFully(channel, header, 0).getInt(0) != magic) {
+                    throw new IOException("Not a character store file: " + file);
+                }
+                if (header.getInt(4) != VERSION) {
+                    throw new IOException("Unsupported character store version " + header.getInt(4) + " in " + file);
+                }
+            }
+            return channel;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void loadDictionary() throws IOException {
+        dictionary.clear();
+        dictionaryIds.clear();
+        long position = HEADER_BYTES;
+        strings.position(position);
+        // Not closed: closing the stream would close the channel.
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(strings)));
+        while (true) {
+            try {
+                int length = in.readInt();
+                if (length < 0 || length > strings.size() - position) {
+                    throw new IOException("Corrupt dictionary entry at " + position + " in " + directory);
+                }
+                byte[] bytes = new byte[length];
+                in.readFully(bytes);
+                addToDictionary(new String(bytes, StandardCharsets.UTF_8));
+                position += Integer.BYTES + length;
+            } catch (EOFException e) {
+                // The end of the file, or of the last entry that was completely written.
+                break;
+            }
+        }
+        strings.truncate(position);
+        flushedStringsEnd = position;
+    }
+
+    // --- Reading ---
+
+    /**
+     * Returns the number of ids handed out, including those of deleted characters.
+     *
+     * @return The id one past the last character.
+     */
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reads one character, decoding only its record.
+     *
+     * @param id The character's id, as returned by {@link #append(CharacterSheet)}.
+     * @return The character, or {@code null} if it has been deleted.
+     * @throws IOException if the store cannot be read.
+     * @throws IndexOutOfBoundsException if no character has the id.
+     * @throws IllegalStateException if the store is closed.
+     */
+    public CharacterSheet get(long id) throws IOException {
+        lock.readLock().lock();
+        try {
+            checkReadable(id);
+            if (id < flushedSize) {
+                return read(id);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        // The character is still in the write buffers: flush them, then read with the lock downgraded.
+        lock.writeLock().lock();
+        try {
+            checkReadable(id);
+            flushBuffers();
+            lock.readLock().lock();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            checkReadable(id);
+            return read(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void checkReadable(long id) {
+        checkOpen();
+        Objects.checkIndex(id, size);
+    }
+
+    private CharacterSheet read(long id) throws IOException {
+        long position = indexPosition(id);
+        long entry = indexMaps.segment(position, Long.BYTES).getLong(MappedRegions.offset(position));
+        if (entry < 0) {
+            return null;
+        }
+        int at = MappedRegions.offset(entry);
+        ByteBuffer record = recordMaps.segment(entry, FIXED_BYTES);
+        int traitCount = record.getChar(at + TRAIT_COUNT_POS);
+        if (traitCount > 0) {
+            record = recordMaps.segment(entry, FIXED_BYTES + traitCount * Integer.BYTES);
+        }
+
+        CharacterSheet.CharacterSheetBuilder sheet = CharacterSheet.builder()
+                .index(record.getLong(at + INDEX_POS))
+                .alignment(ALIGNMENTS[record.get(at + ALIGNMENT_POS)])
+                .size(SIZES[record.get(at + SIZE_POS)])
+                .level(record.get(at + LEVEL_POS))
+                .proficiencyBonus(record.get(at + PROFICIENCY_POS))
+                .armorClass(record.getShort(at + ARMOR_CLASS_POS))
+                .maxHitPoints(record.getShort(at + MAX_HIT_POINTS_POS))
+                .initiative(record.getShort(at + INITIATIVE_POS))
+                .passivePerception(record.getShort(at + PASSIVE_PERCEPTION_POS));
+        for (Ability ability : ABILITIES) {
+            int score = record.get(at + SCORES_POS + ability.ordinal());
+            if (score != 0) {
+                sheet.abilityScore(ability, score);
+            }
+        }
+        for (MovementType movementType : MOVEMENT_TYPES) {
+            int speed = record.getShort(at + SPEEDS_POS + movementType.ordinal() * Short.BYTES);
+            if (speed != 0) {
+                sheet.speed(movementType, speed);
+            }
+        }
+        for (Sense sense : SENSES) {
+            int range = record.getShort(at + SENSES_POS + sense.ordinal() * Short.BYTES);
+            if (range != 0) {
+                sheet.sense(sense, range);
+            }
+        }
+        int present = record.getInt(at + SKILLS_PRESENT_POS);
+        int proficient = record.getInt(at + PROFICIENT_POS);
+        for (Skill skill : SKILLS) {
+            if ((present >>> skill.ordinal() & 1) != 0) {
+                sheet.skillBonus(skill, (int) record.get(at + SKILL_BONUSES_POS + skill.ordinal()));
+            }
+        }
+        for (Skill skill : SKILLS) {
+            if ((proficient >>> skill.ordinal() & 1) != 0) {
+                sheet.proficientSkill(skill);
+            }
+        }
+        for (int i = 0; i < traitCount; i++) {
+            sheet.traitName(dictionary.get(record.getInt(at + FIXED_BYTES + i * Integer.BYTES)));
+        }
+        return sheet.build();
+    }
+
+    // --- Writing ---
+
+    /**
+     * Appends a character. It can be read back straight away; call {@link #flush()} or {@link #close()} to
+     * make sure it has reached the files.
+     *
+     * @param sheet The character to store.
+     * @return The id it was stored under: the number of characters appended before it.
+     * @throws IOException if a full buffer cannot be written out.
+     * @throws IllegalArgumentException if a value does not fit its field, e.g. a level above 127, or the
+     *         character has more than {@link #MAX_TRAITS} traits.
+     * @throws IllegalStateException if the store is closed.
+     */
+    public long append(CharacterSheet sheet) throws IOException {
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            ByteBuffer record = encode(sheet);
+            if (record.remaining() > recordBuffer.remaining() || !indexBuffer.hasRemaining()) {
+                flushBuffers();
+            }
+            if (record.remaining() > recordBuffer.capacity()) {
+                int length = record.remaining();
+                writeFully(records, record, flushedRecordsEnd);
+                flushedRecordsEnd += length;
+            } else {
+                recordBuffer.put(record);
+            }
+            indexBuffer.putLong(recordsEnd);
+            recordsEnd += FIXED_BYTES + (long) sheet.getTraitNames().size() * Integer.BYTES;
+            return size++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private ByteBuffer encode(CharacterSheet sheet) throws IOException {
+        List<String> traitNames = sheet.getTraitNames();
+        if (traitNames.size() > MAX_TRAITS) {
+            throw new IllegalArgumentException("A stored character can have at most " + MAX_TRAITS + " traits, got "
+                    + traitNames.size());
+        }
+        int length = FIXED_BYTES + traitNames.size() * Integer.BYTES;
+        if (scratch.capacity() < length) {
+            scratch = ByteBuffer.allocate(Math.max(length, scratch.capacity() * 2));
+        }
+        ByteBuffer record = scratch.clear();
+        record.putLong(sheet.getIndex())
+                .put((byte) sheet.getAlignment().ordinal())
+                .put((byte) sheet.getSize().ordinal())
+                .put(toByte("level", sheet.getLevel()))
+                .put(toByte("proficiencyBonus", sheet.getProficiencyBonus()))
+                .putShort(toShort("armorClass", sheet.getArmorClass()))
+                .putShort(toShort("maxHitPoints", sheet.getMaxHitPoints()))
+                .putShort(toShort("initiative", sheet.getInitiative()))
+                .putShort(toShort("passivePerception", sheet.getPassivePerception()));
+        for (Ability ability : ABILITIES) {
+            record.put(toByte(ability.name(), sheet.getAbilityScores().getOrDefault(ability, 0)));
+        }
+        int present = 0;
+        for (Skill skill : SKILLS) {
+            Integer bonus = sheet.getSkillBonuses().get(skill);
+            if (bonus != null) {
+                present |= 1 << skill.ordinal();
+            }
+            record.put(toByte(skill.name(), bonus == null ? 0 : bonus));
+        }
+        int proficient = 0;
+        for (Skill skill : sheet.getProficientSkills()) {
+            proficient |= 1 << skill.ordinal();
+        }
+        record.putInt(present).putInt(proficient);
+        for (MovementType movementType : MOVEMENT_TYPES) {
+            record.putShort(toShort(movementType.name(), sheet.getSpeeds().getOrDefault(movementType, 0)));
+        }
+        for (Sense sense : SENSES) {
+            record.putShort(toShort(sense.name(), sheet.getSenses().getOrDefault(sense, 0)));
+        }
+        record.putChar((char) traitNames.size());
+        for (String traitName : traitNames) {
+            record.putInt(stringId(traitName));
+        }
+        return record.flip();
+    }
+
+    private static byte toByte(String field, int value) {
+        if (value < Byte.MIN_VALUE || value > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException(field + " does not fit in a byte: " + value);
+        }
+        return (byte) value;
+    }
+
+    private static short toShort(String field, int value) {
+        if (value < Short.MIN_VALUE || value > Short.MAX_VALUE) {
+            throw new IllegalArgumentException(field + " does not fit in a short: " + value);
+        }
+        return (short) value;
+    }
+
+    private int stringId(String string) throws IOException {
+        Integer id = dictionaryIds.get(string);
+        if (id != null) {
+            return id;
+        }
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        // Strings can always be written ahead of the records that use them.
+        if (Integer.BYTES + bytes.length > stringBuffer.remaining()) {
+            flushStrings();
+        }
+        if (Integer.BYTES + bytes.length > stringBuffer.capacity()) {
+            ByteBuffer entry = ByteBuffer.allocate(Integer.BYTES + bytes.length).putInt(bytes.length).put(bytes);
+            writeFully(strings, entry.flip(), flushedStringsEnd);
+            flushedStringsEnd += entry.capacity();
+        } else {
+            stringBuffer.putInt(bytes.length).put(bytes);
+        }
+        return addToDictionary(string);
+    }
+
+    private int addToDictionary(String string) {
+        int id = dictionary.size();
+        dictionary.add(string);
+        dictionaryIds.put(string, id);
+        return id;
+    }
+
+    /**
+     * Deletes a character. Its id is not reused; the space is reclaimed by {@link #compact()}.
+     *
+     * @param id The character's id.
+     * @return {@code true} if the character existed and had not been deleted yet.
+     * @throws IOException if the index cannot be written.
+     * @throws IndexOutOfBoundsException if no character has the id.
+     * @throws IllegalStateException if the store is closed.
+     */
+    public boolean delete(long id) throws IOException {
+        lock.writeLock().lock();
+        try {
+            checkReadable(id);
+            flushBuffers();
+            long position = indexPosition(id);
+            long entry = readLong(index, position);
+            if (entry < 0) {
+                return false;
+            }
+            writeFully(index, ByteBuffer.allocate(Long.BYTES).putLong(0, ~entry), position);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes every buffered character out to the files. This hands the data to the operating system; it
+     * does not force it to the disk.
+     *
+     * @throws IOException if the files cannot be written.
+     * @throws IllegalStateException if the store is closed.
+     */
+    public void flush() throws IOException {
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            flushBuffers();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void flushBuffers() throws IOException {
+        flushStrings();
+        long recordBytes = recordBuffer.position();
+        writeFully(records, recordBuffer.flip(), flushedRecordsEnd);
+        recordBuffer.clear();
+        flushedRecordsEnd += recordBytes;
+        writeFully(index, indexBuffer.flip(), indexPosition(flushedSize));
+        indexBuffer.clear();
+        flushedSize = size;
+    }
+
+    private void flushStrings() throws IOException {
+        long stringBytes = stringBuffer.position();
+        writeFully(strings, stringBuffer.flip(), flushedStringsEnd);
+        stringBuffer.clear();
+        flushedStringsEnd += stringBytes;
+    }
+
+    /**
+     * Rewrites the store without its deleted characters and without dictionary strings that no remaining
+     * character uses. Remaining characters keep their order but are renumbered from 0.
+     * <p>
+     * The new store is built next to this one, in {@code <directory>.compacting}, and then swapped in by
+     * renaming directories: the store is moved to {@code <directory>.old}, the new one into its place, and only
+     * then is the previous one deleted. If the process dies in between, {@link #open(Path)} finishes the swap.
+     *
+     * @return The number of characters kept, which is the new {@link #size()}.
+     * @throws IOException if the new store cannot be written or swapped in.
+     * @throws IllegalStateException if the store is closed.
+     */
+    public long compact() throws IOException {
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            flushBuffers();
+            Path compacted = sibling(directory, COMPACTING_SUFFIX);
+            Path previous = sibling(directory, OLD_SUFFIX);
+            // This store was loaded from the directory, so it is whole: a leftover .compacting is a build that
+            // never finished, and a leftover .old is a previous store that was already replaced.
+            deleteStore(compacted);
+            deleteStore(previous);
+            try (CharacterStore target = open(compacted)) {
+                for (long id = 0; id < size; id++) {
+                    CharacterSheet sheet = read(id);
+                    if (sheet != null) {
+                        target.append(sheet);
+                    }
+                }
+            }
+
+            closeFiles();
+            Files.move(directory, previous, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(compacted, directory, StandardCopyOption.ATOMIC_MOVE);
+            deleteStore(previous);
+            recordBuffer.clear();
+            indexBuffer.clear();
+            stringBuffer.clear();
+            load();
+            return size;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void deleteStore(Path directory) throws IOException {
+        if (Files.isDirectory(directory)) {
+            for (String name : List.of(RECORDS_FILE, INDEX_FILE, STRINGS_FILE)) {
+                Files.deleteIfExists(directory.resolve(name));
+            }
+            Files.delete(directory);
+        }
+    }
+
+    /**
+     * Flushes buffered characters, forces the files to the disk and closes them. Closing twice does nothing.
+     *
+     * @throws IOException if the files cannot be written or closed.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                flushBuffers();
+                records.force(false);
+                index.force(false);
+                strings.force(false);
+            } finally {
+                closeFiles();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void closeFiles() throws IOException {
+        if (recordMaps != null) {
+            recordMaps.clear();
+            indexMaps.clear();
+        }
+        IOException failure = null;
+        for (FileChannel channel : new FileChannel[] {records, index, strings}) {
+            try {
+                if (channel != null) {
+                    channel.close();
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Character store " + directory + " is closed");
+        }
+    }
+
+    // --- File helpers ---
+
+    private static long indexPosition(long id) {
+        return HEADER_BYTES + id * Long.BYTES;
+    }
+
+    private static long recordOffset(long indexEntry) {
+        return indexEntry < 0 ? ~indexEntry : indexEntry;
+    }
+
+    private static long readLong(FileChannel channel, long position) throws IOException {
+        return readFully(channel, ByteBuffer.allocate(Long.BYTES), position).getLong(0);
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of character store file");
+            }
+        }
+        return buffer;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long at = position;
+        while (buffer.hasRemaining()) {
+            at += channel.write(buffer, at);
+        }
+    }
+}
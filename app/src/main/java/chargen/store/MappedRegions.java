@@ -0,0 +1,82 @@
+package chargen.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Read-only memory maps over a file that only ever grows, in 64 MiB segments so files can outgrow the 2 GiB
+ * a single {@link MappedByteBuffer} can address.
+ * <p>
+ * Segment {@code k} maps the bytes from {@code k * SEGMENT_BYTES} plus an overlap of the largest entry the
+ * file holds, so any entry that starts in a segment can be read from that segment alone. A segment is mapped
+ * on first use and mapped again, larger, once the file has grown past its end. A read-only map cannot reach
+ * past the end of the file, so only the segment being appended to is ever mapped again, and keeping segments
+ * small bounds what a read of freshly appended data costs.
+ */
+final class MappedRegions {
+
+    static final long SEGMENT_BYTES = 1L << 26;
+
+    private final FileChannel channel;
+    private final int overlap;
+    // Copy-on-write, so readers find an existing segment without locking.
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+
+    /**
+     * Creates the maps for a file; nothing is mapped until it is read.
+     *
+     * @param channel The file, open for reading.
+     * @param overlap The size of the largest entry in the file.
+     */
+    MappedRegions(FileChannel channel, int overlap) {
+        this.channel = channel;
+        this.overlap = overlap;
+    }
+
+    /**
+     * Returns the segment holding {@code length} bytes from a file position; read them at
+     * {@link #offset(long)}. The returned buffer is shared, so read it with absolute gets only.
+     */
+    ByteBuffer segment(long position, int length) throws IOException {
+        int k = (int) (position / SEGMENT_BYTES);
+        long end = offset(position) + (long) length;
+        MappedByteBuffer[] current = segments;
+        if (k < current.length && current[k] != null && current[k].capacity() >= end) {
+            return current[k];
+        }
+        return map(k, end);
+    }
+
+    private synchronized ByteBuffer map(int k, long end) throws IOException {
+        MappedByteBuffer[] current = segments;
+        if (k < current.length && current[k] != null && current[k].capacity() >= end) {
+            return current[k];
+        }
+        long base = k * SEGMENT_BYTES;
+        long length = Math.min(channel.size() - base, SEGMENT_BYTES + overlap);
+        if (length < end) {
+            throw new IOException("Position " + (base + end) + " is past the end of the file");
+        }
+        MappedByteBuffer[] next = Arrays.copyOf(current, Math.max(current.length, k + 1));
+        next[k] = channel.map(FileChannel.MapMode.READ_ONLY, base, length);
+        segments = next;
+        return next[k];
+    }
+
+    /**
+     * Returns where a file position falls within its segment.
+     */
+    static int offset(long position) {
+        return (int) (position % SEGMENT_BYTES);
+    }
+
+    /**
+     * Drops every mapping, e.g. after the file has been truncated or replaced.
+     */
+    synchronized void clear() {
+        segments = new MappedByteBuffer[0];
+    }
+}
@@ -1,5 +1,10 @@
 package chargen;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
 import org.junit.jupiter.api.Test;
 
 import chargen.cli.App;
@@ -7,8 +12,58 @@ import chargen.cli.App;
 import static org.junit.jupiter.api.Assertions.*;
 
 class AppTest {
-    @Test void appHasAGreeting() {
-        App classUnderTest = new App();
-        assertNotNull(classUnderTest.getGreeting(), "app should have a greeting");
+
+    private static byte[] generate(String... args) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        App.parse(args).run(out);
+        return out.toByteArray();
+    }
+
+    @Test void writesOneJsonLinePerCharacter() throws IOException {
+        String[] lines = new String(generate("--count", "1200", "--seed", "7", "--threads", "3"),
+                StandardCharsets.UTF_8).split("\n");
+
+        assertEquals(1200, lines.length);
+        assertTrue(lines[0].startsWith("{\"index\":0,"), lines[0]);
+        assertTrue(lines[1199].startsWith("{\"index\":1199,"), lines[1199]);
+    }
+
+    @Test void outputIsIdenticalForAnyThreadCount() throws IOException {
+        byte[] single = generate("--count", "2000", "--seed", "42", "--threads", "1");
+        byte[] parallel = generate("--count", "2000", "--seed", "42", "--threads", "4");
+
+        assertArrayEquals(single, parallel);
+        assertFalse(Arrays.equals(single, generate("--count", "2000", "--seed", "43")));
+    }
+
+    @Test void populationRangesJoinUpIntoTheWholeRange() throws IOException {
+        byte[] whole = generate("--count", "900", "--seed", "11", "--first", "100", "--threads", "2");
+        byte[] head = generate("--count", "400", "--seed", "11", "--first", "100", "--threads", "1");
+        byte[] tail = generate("--count", "500", "--seed", "11", "--first", "500", "--threads", "3");
+
+        byte[] joined = Arrays.copyOf(head, head.length + tail.length);
+        System.arraycopy(tail, 0, joined, head.length, tail.length);
+        assertArrayEquals(whole, joined);
+        assertTrue(new String(whole, StandardCharsets.UTF_8).startsWith("{\"index\":100,"));
+    }
+
+    @Test void reportIsIdenticalForAnyThreadCount() throws IOException {
+        String single = new String(generate("--count", "3000", "--seed", "5", "--threads", "1", "--report", "-"),
+                StandardCharsets.UTF_8);
+        String parallel = new String(generate("--count", "3000", "--seed", "5", "--threads", "4", "--report", "-"),
+                StandardCharsets.UTF_8);
+
+        assertEquals(single, parallel);
+        assertTrue(single.startsWith("Population: 3000 characters"), single);
+        assertTrue(single.contains("All characters (3000)"), single);
+    }
+
+    @Test void rejectsBadOptions() {
+        assertThrows(IllegalArgumentException.class, () -> App.parse("--count", "-1"));
+        assertThrows(IllegalArgumentException.class, () -> App.parse("--threads", "0"));
+        assertThrows(IllegalArgumentException.class, () -> App.parse("--seed"));
+        assertThrows(IllegalArgumentException.class, () -> App.parse("--colour", "red"));
+        assertThrows(IllegalArgumentException.class, () -> App.parse("--first", "-1"));
+        assertThrows(IllegalArgumentException.class, () -> App.parse("--report", "-", "--store", "db"));
     }
 }
@@ -0,0 +1,115 @@
+package chargen.activity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import chargen.model.CharacterSheet;
+import chargen.service.TraitService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PopulationTest {
+
+    private static final CharacterGenerator GENERATOR = new CharacterGenerator(new TraitService());
+
+    @Test
+    void counterStreamsAreReproducibleAndIndependent() {
+        CounterRandom random = CounterRandom.of(7, 48_213_907);
+        long[] values = new long[100];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextLong();
+        }
+        // Jumping straight to a position yields the value found there sequentially.
+        CounterRandom jumped = CounterRandom.of(7, 48_213_907);
+        jumped.setPosition(63);
+        assertEquals(values[63], jumped.nextLong());
+        assertEquals(64, jumped.getPosition());
+        assertEquals(random.substream(3).nextLong(), CounterRandom.of(7, 48_213_907).substream(3).nextLong());
+
+        Set<Long> firsts = new HashSet<>();
+        for (long seed = 0; seed < 4; seed++) {
+            for (long index = 0; index < 10_000; index++) {
+                firsts.add(CounterRandom.of(seed, index).nextLong());
+            }
+        }
+        assertEquals(40_000, firsts.size());
+
+        // Roughly uniform: each of 16 buckets gets its share of a million draws.
+        int[] buckets = new int[16];
+        for (long index = 0; index < 1_000_000; index++) {
+            buckets[CounterRandom.of(1, index).nextInt(16)]++;
+        }
+        for (int bucket : buckets) {
+            assertEquals(62_500, bucket, 1_000);
+        }
+    }
+
+    @Test
+    void anyCharacterCanBeProducedOnItsOwn() {
+        Population population = new Population(GENERATOR, 2024);
+        List<CharacterSheet> sequential = population.range(0, 300);
+        for (int index = 299; index >= 0; index -= 7) {
+            assertEquals(sequential.get(index), population.get(index));
+        }
+        CharacterSheet far = population.get(48_213_907_000L);
+        assertEquals(48_213_907_000L, far.getIndex());
+        assertEquals(far, new Population(GENERATOR, 2024).get(48_213_907_000L));
+        assertNotEquals(sequential, new Population(GENERATOR, 2025).range(0, 300));
+        assertThrows(IllegalArgumentException.class, () -> population.get(-1));
+        assertThrows(IllegalArgumentException.class, () -> population.range(Long.MAX_VALUE, 2));
+    }
+
+    @Test
+    void rangeShardsMatchSequentialGeneration() throws Exception {
+        Population population = new Population(GENERATOR, 99);
+        List<CharacterSheet> sequential = population.range(1_000, 5_000);
+
+        // Uneven shards, generated out of order on separate threads by separate population instances.
+        long[] bounds = {1_000, 1_001, 1_777, 3_000, 4_321, 6_000};
+        ExecutorService workers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<CharacterSheet>>> shards = new ArrayList<>();
+            for (int shard = bounds.length - 2; shard >= 0; shard--) {
+                long first = bounds[shard];
+                int count = (int) (bounds[shard + 1] - first);
+                shards.add(0, workers.submit(() -> new Population(GENERATOR, 99).range(first, count)));
+            }
+            List<CharacterSheet> joined = new ArrayList<>();
+            for (Future<List<CharacterSheet>> shard : shards) {
+                joined.addAll(shard.get());
+            }
+            assertEquals(sequential, joined);
+        } finally {
+            workers.shutdownNow();
+        }
+        assertEquals(sequential, population.stream(1_000, 5_000).parallel().collect(Collectors.toList()));
+    }
+
+    @Test
+    void batchOutputOfARangeIsTheJoinOfItsShards() throws IOException {
+        Population population = new Population(GENERATOR, 5);
+        ByteArrayOutputStream whole = new ByteArrayOutputStream();
+        new BatchGenerator(GENERATOR, 1).generate(population, 10, 2_000, whole);
+
+        ByteArrayOutputStream sharded = new ByteArrayOutputStream();
+        BatchGenerator parallel = new BatchGenerator(GENERATOR, 3);
+        parallel.generate(population, 10, 700, sharded);
+        parallel.generate(population, 710, 1, sharded);
+        parallel.generate(population, 711, 1_299, sharded);
+        assertArrayEquals(whole.toByteArray(), sharded.toByteArray());
+
+        List<CharacterSheet> sunk = new ArrayList<>();
+        parallel.generate(population, 10, 2_000, sunk::add);
+        assertEquals(population.range(10, 2_000), sunk);
+    }
+}
@@ -0,0 +1,115 @@
+package chargen.analytics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import chargen.activity.BatchGenerator;
+import chargen.activity.CharacterGenerator;
+import chargen.activity.Population;
+import chargen.model.Ability;
+import chargen.model.CharacterSheet;
+import chargen.service.TraitService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PopulationAnalyticsTest {
+
+    private static final CharacterGenerator GENERATOR = new CharacterGenerator(new TraitService());
+
+    @Test
+    void histogramsAreExactAndSketchesStayWithinTheirBounds() {
+        SplittableRandom random = new SplittableRandom(25);
+        int[] values = new int[20_001];
+        IntHistogram histogram = new IntHistogram(-200, 200);
+        QuantileSketch sketch = new QuantileSketch(0.01);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (int) (random.nextGaussian() * 30_000);
+            histogram.add(values[i] / 1000);
+            sketch.add(values[i]);
+        }
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (double q : new double[] {0, 0.01, 0.1, 0.5, 0.9, 0.99, 1}) {
+            int exact = sorted[(int) (q * (sorted.length - 1))];
+            assertEquals(exact / 1000, histogram.getQuantile(q), "q=" + q);
+            assertEquals(exact, sketch.getQuantile(q), Math.abs(exact) * 0.01 + 1e-9, "q=" + q);
+        }
+        assertEquals(Arrays.stream(values).average().orElseThrow(), sketch.getMean(), 1e-9);
+        assertEquals(sorted[0], sketch.getMin());
+        assertEquals(0, histogram.getClampedCount());
+
+        CountMinSketch counts = new CountMinSketch(4, 64);
+        HyperLogLog distinct = new HyperLogLog();
+        Map<Long, Long> exact = new HashMap<>();
+        for (int i = 0; i < 50_000; i++) {
+            long key = random.nextInt(5_000) * 0x9e3779b97f4a7c15L;
+            counts.add(key, 1);
+            distinct.add(key);
+            exact.merge(key, 1L, Long::sum);
+        }
+        exact.forEach((key, count) -> assertTrue(counts.estimate(key) >= count));
+        assertEquals(exact.size(), distinct.estimate(), exact.size() * 0.05);
+    }
+
+    @Test
+    void shardsMergeIntoExactlyTheWhole() {
+        Population population = new Population(GENERATOR, 77);
+        PopulationAnalytics whole = new PopulationAnalytics();
+        PopulationAnalytics[] shards = {new PopulationAnalytics(), new PopulationAnalytics(),
+                new PopulationAnalytics()};
+        List<CharacterSheet> sheets = population.range(0, 3000);
+        for (CharacterSheet sheet : sheets) {
+            whole.accept(sheet);
+            shards[(int) (sheet.getIndex() * 7 % shards.length)].accept(sheet);
+        }
+        PopulationAnalytics merged = new PopulationAnalytics();
+        for (int i = shards.length - 1; i >= 0; i--) {
+            merged.merge(shards[i]);
+        }
+        assertEquals(report(whole), report(merged));
+
+        // The per-trait and combination statistics agree with a direct count.
+        String trait = whole.getTraitNames().iterator().next();
+        long withTrait = sheets.stream().filter(sheet -> sheet.getTraitNames().contains(trait)).count();
+        assertEquals(withTrait, merged.getByTrait(trait).getCount());
+        long withNone = sheets.stream().filter(sheet -> sheet.getTraitNames().isEmpty()).count();
+        assertTrue(merged.estimateCombinationCount(List.of()) >= withNone);
+        int strength = sheets.stream().mapToInt(sheet -> sheet.getAbilityScores().get(Ability.STRENGTH)).max()
+                .orElseThrow();
+        assertEquals(strength, merged.getOverall().getAbilityScores(Ability.STRENGTH).getMax());
+    }
+
+    @Test
+    void batchAnalyticsDoNotDependOnTheThreadCount() throws IOException {
+        Population population = new Population(GENERATOR, 9);
+        PopulationAnalytics single = new BatchGenerator(GENERATOR, 1)
+                .analyze(population, 100, 2500, PopulationAnalytics::new);
+        PopulationAnalytics parallel = new BatchGenerator(GENERATOR, 3)
+                .analyze(population, 100, 2500, PopulationAnalytics::new);
+        assertEquals(2500, parallel.getCount());
+        assertEquals(report(single), report(parallel));
+
+        PopulationAnalytics head = new BatchGenerator(GENERATOR, 2).analyze(population, 100, 1000,
+                PopulationAnalytics::new);
+        head.merge(new BatchGenerator(GENERATOR, 2).analyze(population, 1100, 1500, PopulationAnalytics::new));
+        assertEquals(report(single), report(head));
+
+        assertThrows(IllegalArgumentException.class, () -> head.merge(new PopulationAnalytics(0.05, 4, 2048, 12)));
+    }
+
+    private static String report(PopulationAnalytics analytics) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+        analytics.writeReport(out);
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,116 @@
+package chargen.cli;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import org.junit.jupiter.api.Test;
+
+import chargen.engine.StatGraph;
+import chargen.model.Ability;
+import chargen.service.TraitService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SheetUpdatesTest {
+
+    /**
+     * Runs scheduled tasks only when the test moves its clock past their due time, so timing never depends
+     * on the machine.
+     */
+    private static final class ManualScheduler implements Debouncer.Scheduler {
+        private final Map<FutureTask<?>, Long> dueTimes = new LinkedHashMap<>();
+        private long now;
+
+        @Override
+        public Future<?> schedule(Runnable task, long delayNanos) {
+            FutureTask<?> future = new FutureTask<>(task, null);
+            dueTimes.put(future, now + delayNanos);
+            return future;
+        }
+
+        void advance(Duration duration) {
+            now += duration.toNanos();
+            dueTimes.forEach((task, due) -> {
+                if (due <= now) {
+                    task.run();
+                }
+            });
+            dueTimes.keySet().removeIf(FutureTask::isDone);
+        }
+    }
+
+    @Test
+    void debouncerRunsOnlyTheLastTaskOfABurst() {
+        ManualScheduler scheduler = new ManualScheduler();
+        Debouncer debouncer = new Debouncer(scheduler, Duration.ofMillis(100));
+        List<Integer> runs = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            int value = i;
+            debouncer.submit(() -> runs.add(value));
+            scheduler.advance(Duration.ofMillis(50));
+        }
+        assertEquals(List.of(), runs);
+
+        scheduler.advance(Duration.ofMillis(49));
+        assertEquals(List.of(), runs);
+        scheduler.advance(Duration.ofMillis(1));
+        assertEquals(List.of(20), runs);
+        assertEquals(19, debouncer.getSkippedCount());
+
+        debouncer.submit(() -> runs.add(21));
+        scheduler.advance(Duration.ofMillis(100));
+        debouncer.submit(() -> runs.add(22));
+        scheduler.advance(Duration.ofMillis(100));
+        assertEquals(List.of(20, 21, 22), runs);
+        assertEquals(19, debouncer.getSkippedCount());
+    }
+
+    @Test
+    void updaterQueuesOneUiTaskAndAppliesTheNewestValue() {
+        List<Runnable> uiQueue = new ArrayList<>();
+        List<String> applied = new ArrayList<>();
+        CoalescingUpdater<String> updater = new CoalescingUpdater<>(uiQueue::add, applied::add);
+
+        updater.publish("a");
+        updater.publish("b");
+        updater.publish("c");
+        assertEquals(1, uiQueue.size());
+        uiQueue.remove(0).run();
+        assertEquals(List.of("c"), applied);
+
+        updater.publish("d");
+        assertEquals(1, uiQueue.size());
+        uiQueue.remove(0).run();
+        assertEquals(List.of("c", "d"), applied);
+        assertEquals(4, updater.getPublishedCount());
+        assertEquals(2, updater.getAppliedCount());
+        assertThrows(NullPointerException.class, () -> updater.publish(null));
+    }
+
+    @Test
+    void calculatorMatchesTheStatGraph() {
+        TraitService traitService = new TraitService();
+        int[] scores = {8, 14, 12, 10, 16, 13};
+        List<String> traits = List.of("Darkvision", "No Such Trait");
+        List<SheetCalculator.Row> rows = new SheetCalculator(traitService).compute(scores, 5, traits);
+
+        StatGraph graph = new StatGraph();
+        graph.setLevel(5);
+        for (Ability ability : Ability.values()) {
+            graph.setBaseAbilityScore(ability, scores[ability.ordinal()]);
+        }
+        graph.addProgram(traitService.getProgramByName("Darkvision"));
+        assertEquals(new SheetCalculator.Row("Dexterity", graph.getAbilityScore(Ability.DEXTERITY) + " (+2)"),
+                rows.get(Ability.DEXTERITY.ordinal()));
+        assertTrue(rows.contains(new SheetCalculator.Row("Proficiency bonus", "+3")), rows.toString());
+        assertTrue(rows.contains(new SheetCalculator.Row("Darkvision", "60 ft.")), rows.toString());
+        assertTrue(rows.contains(new SheetCalculator.Row("Sleight of hand", "+2")), rows.toString());
+        assertEquals(rows, new SheetCalculator(traitService).compute(Arrays.copyOf(scores, 6), 5, traits));
+    }
+}
@@ -0,0 +1,224 @@
+package chargen.combat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import chargen.model.Ability;
+import chargen.model.Alignment;
+import chargen.model.CharacterSheet;
+import chargen.model.CreatureSize;
+import chargen.model.DamageType;
+import chargen.model.WeaponProperty;
+import chargen.service.TraitCatalogLoader;
+import chargen.service.TraitService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EncounterSimulatorTest {
+
+    private static final EncounterSimulator SIMULATOR = new EncounterSimulator();
+
+    @TempDir
+    Path tempDir;
+
+    private static Combatant swordsman(int advantage, int reroll) {
+        return Combatant.builder("Swordsman")
+                .maxHitPoints(30)
+                .armorClass(15)
+                .attack(new Attack("Longsword", 5, "1d8+3", DamageType.SLASHING))
+                .advantage(advantage)
+                .d20RerollAtMost(reroll)
+                .build();
+    }
+
+    // Never goes down and never hits back, so every run lasts MAX_ROUNDS and measures the attacker alone.
+    private static Combatant dummy(DamageType type, int resistance) {
+        return Combatant.builder("Dummy").maxHitPoints(1_000_000).armorClass(15).resistance(type, resistance).build();
+    }
+
+    // The exact damage per round of +5 and 1d8+3 against AC 15, from the distribution of the kept d20.
+    private static double exactDamagePerRound(int advantage, int reroll) {
+        double[] single = new double[21];
+        for (int face = 1; face <= 20; face++) {
+            single[face] = (face <= reroll ? 0 : 0.05) + reroll * 0.05 * 0.05;
+        }
+        double damage = 0;
+        double below = 0;
+        for (int face = 1; face <= 20; face++) {
+            double atMost = below + single[face];
+            double kept = advantage > 0 ? atMost * atMost - below * below
+                    : advantage < 0 ? (1 - below) * (1 - below) - (1 - atMost) * (1 - atMost) : single[face];
+            below = atMost;
+            if (face == 20) {
+                damage += kept * (2 * 4.5 + 3);
+            } else if (face > 1 && face + 5 >= 15) {
+                damage += kept * (4.5 + 3);
+            }
+        }
+        return damage;
+    }
+
+    private static void assertClose(double expected, EncounterResult.Estimate estimate) {
+        double halfWidth = (estimate.getHigh() - estimate.getLow()) / 2;
+        assertEquals(expected, estimate.getValue(), 4 * halfWidth, estimate.toString());
+        assertTrue(halfWidth < 0.05, estimate.toString());
+    }
+
+    @Test
+    void damagePerRoundMatchesTheExactValueWithAdvantageAndRerolls() {
+        int[][] cases = {{0, 0}, {1, 0}, {-1, 0}, {0, 1}, {1, 1}, {-1, 2}};
+        for (int[] c : cases) {
+            EncounterResult result = SIMULATOR.simulate(
+                    Encounter.of(List.of(swordsman(c[0], c[1])), List.of(dummy(DamageType.FIRE, 0))), 4_000, 1);
+            assertEquals(4_000, result.getDraws());
+            assertEquals(EncounterSimulator.MAX_ROUNDS, result.getRounds().getValue(), 1e-9);
+            assertClose(exactDamagePerRound(c[0], c[1]), result.getDamagePerRound(Encounter.Side.FIRST));
+            assertEquals(0.0, result.getDamagePerRound(Encounter.Side.SECOND).getValue());
+        }
+        assertEquals(4.35, exactDamagePerRound(0, 0), 1e-9);
+    }
+
+    @Test
+    void resistancesScaleDamageOfTheirTypeOnly() {
+        double normal = exactDamagePerRound(0, 0);
+        double[] dealt = new double[5];
+        int[] levels = {2, 1, 0, -1, 3};
+        for (int i = 0; i < levels.length; i++) {
+            DamageType type = i == 4 ? DamageType.FIRE : DamageType.SLASHING;
+            dealt[i] = SIMULATOR.simulate(Encounter.of(List.of(swordsman(0, 0)), List.of(dummy(type, levels[i]))),
+                    2_000, 7).getDamagePerRound(Encounter.Side.FIRST).getValue();
+        }
+        assertEquals(0.0, dealt[0]);
+        assertTrue(dealt[1] > 0.4 * normal && dealt[1] < 0.5 * normal, "resisted " + dealt[1]);
+        assertEquals(normal, dealt[2], 0.05);
+        assertEquals(2 * normal, dealt[3], 0.1);
+        assertEquals(normal, dealt[4], 0.05);
+    }
+
+    @Test
+    void resultsDependOnlyOnTheSeed() {
+        Encounter encounter = Encounter.of(List.of(swordsman(0, 1), swordsman(0, 0)),
+                List.of(swordsman(1, 0), swordsman(-1, 0)));
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool several = new ForkJoinPool(4);
+        try {
+            EncounterResult one = new EncounterSimulator(single).simulate(encounter, 10_000, 42);
+            EncounterResult four = new EncounterSimulator(several).simulate(encounter, 10_000, 42);
+            assertEquals(one.toString(), four.toString());
+            assertEquals(one.getWins(Encounter.Side.FIRST), four.getWins(Encounter.Side.FIRST));
+            assertNotEquals(one.toString(), new EncounterSimulator(several).simulate(encounter, 10_000, 43)
+                    .toString());
+        } finally {
+            single.shutdown();
+            several.shutdown();
+        }
+    }
+
+    @Test
+    void winRatesReflectTheMatchUp() {
+        EncounterResult mirror = SIMULATOR.simulate(
+                Encounter.of(List.of(swordsman(0, 0)), List.of(swordsman(0, 0))), 20_000, 3);
+        assertEquals(0, mirror.getDraws());
+        assertEquals(20_000, mirror.getWins(Encounter.Side.FIRST) + mirror.getWins(Encounter.Side.SECOND));
+        EncounterResult.Estimate first = mirror.getWinRate(Encounter.Side.FIRST);
+        assertEquals(0.5, first.getValue(), 0.03, first.toString());
+        assertTrue(first.getLow() < first.getValue() && first.getValue() < first.getHigh());
+        assertTrue(first.getHigh() - first.getLow() < 0.02, first.toString());
+
+        EncounterResult outnumbered = SIMULATOR.simulate(
+                Encounter.of(List.of(swordsman(0, 0)), List.of(swordsman(0, 0), swordsman(0, 0))), 5_000, 3);
+        assertTrue(outnumbered.getWinRate(Encounter.Side.SECOND).getLow() > 0.9, outnumbered.toString());
+        assertTrue(outnumbered.getDamagePerRound(Encounter.Side.SECOND).getValue()
+                > outnumbered.getDamagePerRound(Encounter.Side.FIRST).getValue());
+    }
+
+    @Test
+    void charactersTakeResistancesAndRerollsFromTheirTraits() {
+        CharacterSheet sheet = CharacterSheet.builder()
+                .index(12)
+                .alignment(Alignment.values()[0])
+                .size(CreatureSize.MEDIUM)
+                .level(1)
+                .abilityScore(Ability.STRENGTH, 16)
+                .abilityScore(Ability.DEXTERITY, 14)
+                .proficiencyBonus(2)
+                .armorClass(13)
+                .maxHitPoints(12)
+                .initiative(2)
+                .traitName("Dwarven Resilience")
+                .traitName("Lucky")
+                .build();
+        TraitService traits = new TraitService();
+        Set<WeaponProperty> none = EnumSet.noneOf(WeaponProperty.class);
+
+        Combatant fighter = Combatant.fromCharacter(sheet, traits, "Longsword", "1d8", DamageType.SLASHING, none);
+        assertEquals(1, fighter.getResistance(DamageType.POISON));
+        assertEquals(0, fighter.getResistance(DamageType.FIRE));
+        assertEquals(1, fighter.getD20RerollAtMost());
+        assertEquals(12, fighter.getMaxHitPoints());
+        Attack longsword = fighter.getAttacks().get(0);
+        assertEquals(5, longsword.getAttackBonus());
+        assertEquals(3, longsword.getDamageBonus());
+        assertEquals(8, longsword.getDiceSides());
+        assertEquals("1d8+3", longsword.getDamage().toString());
+
+        Attack bow = Combatant.fromCharacter(sheet, traits, "Shortbow", "1d6", DamageType.PIERCING,
+                EnumSet.of(WeaponProperty.RANGED, WeaponProperty.AMMUNITION)).getAttacks().get(0);
+        assertEquals(4, bow.getAttackBonus());
+        assertEquals(2, bow.getDamageBonus());
+
+        assertThrows(IllegalArgumentException.class, () -> new Attack("Odd", 0, "4d6kh3", DamageType.FIRE));
+        assertThrows(IllegalArgumentException.class, () -> new Attack("Odd", 0, "1d6+1d4", DamageType.FIRE));
+    }
+
+    @Test
+    void resistanceAndVulnerabilityCancelOut() throws IOException {
+        Path file = Files.write(tempDir.resolve("traits.json"), ("["
+                + defence("Dwarven Resilience", "POISON", 1) + "," + defence("Poison Weakness", "POISON", -1) + ","
+                + defence("Fire Weakness", "FIRE", -1) + "," + defence("Fire Ward", "FIRE", 3) + ","
+                + defence("Cold Ward", "COLD", 3) + "," + defence("Cold Shell", "COLD", 1) + ","
+                + defence("Acid Weakness", "ACID", -1) + "," + defence("Acid Curse", "ACID", -1) + "]")
+                .getBytes(StandardCharsets.UTF_8));
+        TraitService traits = new TraitService(new TraitCatalogLoader(Runnable::run).addFile(file));
+        CharacterSheet sheet = CharacterSheet.builder()
+                .index(3)
+                .alignment(Alignment.values()[0])
+                .size(CreatureSize.MEDIUM)
+                .level(1)
+                .proficiencyBonus(2)
+                .armorClass(10)
+                .maxHitPoints(8)
+                .traitName("Dwarven Resilience")
+                .traitName("Poison Weakness")
+                .traitName("Fire Weakness")
+                .traitName("Fire Ward")
+                .traitName("Cold Ward")
+                .traitName("Cold Shell")
+                .traitName("Acid Weakness")
+                .traitName("Acid Curse")
+                .build();
+
+        Combatant combatant = Combatant.fromCharacter(sheet, traits, "Club", "1d4", DamageType.BLUDGEONING,
+                EnumSet.noneOf(WeaponProperty.class));
+        assertEquals(0, combatant.getResistance(DamageType.POISON));
+        assertEquals(2, combatant.getResistance(DamageType.FIRE));
+        assertEquals(2, combatant.getResistance(DamageType.COLD));
+        assertEquals(-1, combatant.getResistance(DamageType.ACID));
+        assertEquals(0, combatant.getResistance(DamageType.THUNDER));
+    }
+
+    private static String defence(String name, String damageType, int level) {
+        return "{\"name\": \"" + name + "\", \"description\": \"-\", \"modifiers\": [{\"target\": "
+                + "\"DAMAGE_RESISTANCE\", \"targetQualifier\": \"" + damageType + "\", \"operation\": \"ADD\", "
+                + "\"value\": " + level + ", \"sourceId\": \"" + name + "\"}]}";
+    }
+}
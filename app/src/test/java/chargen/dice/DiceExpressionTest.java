@@ -0,0 +1,126 @@
+package chargen.dice;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import chargen.engine.ModifierCompiler;
+import chargen.engine.StatLayout;
+import chargen.model.Modifier;
+import chargen.model.ModifierTarget;
+import chargen.model.Operation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiceExpressionTest {
+
+    private static final double EPSILON = 1e-12;
+
+    @Test
+    void parsesOnceIntoCanonicalForm() {
+        DiceExpression expression = DiceExpression.parse("d20 ADV + 3");
+
+        assertSame(expression, DiceExpression.parse("d20 ADV + 3"));
+        assertEquals("2d20kh1+3", expression.toString());
+        assertEquals("4d6kh3", DiceExpression.parse("4d6dl1").toString());
+        assertEquals("2d20kl1", DiceExpression.parse("1d20dis").toString());
+        assertEquals("1d8-1d4-1", DiceExpression.parse("1d8-d4-1").toString());
+        assertEquals(DiceExpression.parse("4d6k3"), DiceExpression.parse("4d6dl1"));
+        assertEquals(5, DiceExpression.parse("5").getMin());
+    }
+
+    @Test
+    void rejectsInvalidExpressions() {
+        for (String text : List.of("", "2d", "d0", "2d6+", "2d6x", "3d6kh4", "2d20adv", "1d6r6", "101d6", "2d6++3")) {
+            assertThrows(IllegalArgumentException.class, () -> DiceExpression.parse(text), text);
+        }
+    }
+
+    @Test
+    void computesExactDistributions() {
+        DiceDistribution twoD6 = DiceExpression.parse("2d6").distribution();
+        assertEquals(2, twoD6.getMin());
+        assertEquals(12, twoD6.getMax());
+        assertEquals(6 / 36.0, twoD6.probability(7), EPSILON);
+        assertEquals(7.0, twoD6.getMean(), EPSILON);
+
+        DiceDistribution advantage = DiceExpression.parse("d20adv").distribution();
+        assertEquals(39 / 400.0, advantage.probability(20), EPSILON);
+        assertEquals(1 / 400.0, advantage.probability(1), EPSILON);
+        assertEquals(1 - 0.25, advantage.probabilityAtLeast(11), EPSILON);
+
+        // The Halfling's Lucky: a 1 is rerolled once.
+        DiceDistribution lucky = DiceExpression.parse("d20r1").distribution();
+        assertEquals(1 / 400.0, lucky.probability(1), EPSILON);
+        assertEquals(21 / 400.0, lucky.probability(20), EPSILON);
+
+        DiceDistribution abilityScore = DiceExpression.parse("4d6dl1").distribution();
+        assertEquals(3, abilityScore.getMin());
+        assertEquals(18, abilityScore.getMax());
+        assertEquals(15869 / 1296.0, abilityScore.getMean(), EPSILON);
+        assertEquals(1 / 1296.0, abilityScore.probability(3), EPSILON);
+        assertEquals(21 / 1296.0, abilityScore.probability(18), EPSILON);
+
+        DiceDistribution difference = DiceExpression.parse("1d8-1d4-1").distribution();
+        assertEquals(-4, difference.getMin());
+        assertEquals(6, difference.getMax());
+        assertEquals(4.5 - 2.5 - 1, difference.getMean(), EPSILON);
+        assertSame(difference, DiceExpression.parse("1d8-1d4-1").distribution());
+    }
+
+    @Test
+    void rollsMatchTheDistribution() {
+        DiceExpression expression = DiceExpression.parse("2d20kl1r2+1d4");
+        int[] rolls = new int[200_000];
+        expression.roll(new SplittableRandom(7), rolls);
+
+        DiceDistribution exact = expression.distribution();
+        double sum = 0;
+        for (int roll : rolls) {
+            assertTrue(roll >= exact.getMin() && roll <= exact.getMax(), "out of range: " + roll);
+            sum += roll;
+        }
+        double standardError = Math.sqrt(exact.getVariance() / rolls.length);
+        assertEquals(exact.getMean(), sum / rolls.length, 5 * standardError);
+
+        int[] again = new int[rolls.length];
+        expression.roll(new SplittableRandom(7), again);
+        assertArrayEquals(rolls, again);
+    }
+
+    @Test
+    void catalogLoadRejectsBadDice() {
+        ModifierCompiler compiler = new ModifierCompiler(new StatLayout());
+        Modifier bad = Modifier.builder()
+                .target(ModifierTarget.DAMAGE_ROLL_FLAT_BONUS)
+                .operation(Operation.ADD)
+                .value("1d4 fire")
+                .sourceId("Test")
+                .build();
+
+        assertThrows(IllegalArgumentException.class, () -> compiler.compile(List.of(bad)));
+    }
+
+    @Test
+    void scratchIsOnlyNeededToKeepOrDropDice() {
+        assertEquals(0, DiceExpression.parse("8d6r2+3").getScratchSize());
+        assertEquals(4, DiceExpression.parse("1d8+4d6dl1").getScratchSize());
+
+        DiceExpression stats = DiceExpression.parse("4d6dl1");
+        int[] scratch = new int[stats.getScratchSize()];
+        SplittableRandom random = new SplittableRandom(3);
+        SplittableRandom same = new SplittableRandom(3);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(stats.roll(same), stats.rollOnce(random, scratch));
+        }
+        int[] results = new int[50];
+        int[] again = new int[50];
+        stats.roll(new SplittableRandom(5), results, scratch);
+        stats.roll(new SplittableRandom(5), again);
+        assertArrayEquals(results, again);
+        assertThrows(IllegalArgumentException.class, () -> stats.rollOnce(random, new int[3]));
+        DiceExpression damage = DiceExpression.parse("d8+1");
+        assertEquals(damage.roll(new SplittableRandom(1)), damage.rollOnce(new SplittableRandom(1), new int[0]));
+    }
+}
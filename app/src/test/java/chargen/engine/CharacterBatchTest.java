@@ -0,0 +1,118 @@
+package chargen.engine;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import chargen.model.Ability;
+import chargen.model.Modifier;
+import chargen.model.ModifierTarget;
+import chargen.model.MovementType;
+import chargen.model.Operation;
+import chargen.model.Skill;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CharacterBatchTest {
+
+    // Long enough to span several tiles and leave a ragged vector tail.
+    private static final int ROWS = 2 * 1024 + 37;
+
+    private final ModifierCompiler compiler = new ModifierCompiler(new StatLayout());
+    private final List<StatProgram> programs = List.of(
+            compiler.compile(List.of(
+                    modifier(ModifierTarget.ABILITY_SCORE, "CONSTITUTION", Operation.ADD, 2),
+                    modifier(ModifierTarget.SPEED, "WALKING", Operation.SUBTRACT, 5))),
+            compiler.compile(List.of(
+                    modifier(ModifierTarget.ABILITY_SCORE, "DEXTERITY", Operation.AT_LEAST, 14),
+                    modifier(ModifierTarget.ARMOR_CLASS, null, Operation.ADD, 1),
+                    modifier(ModifierTarget.SPEED, "FLYING", Operation.SET, 60))),
+            compiler.compile(List.of(
+                    modifier(ModifierTarget.PROFICIENCY_BONUS, null, Operation.ADD, 1),
+                    modifier(ModifierTarget.MAX_HIT_POINTS, null, Operation.MULTIPLY, 2),
+                    modifier(ModifierTarget.ABILITY_SCORE, "WISDOM", Operation.AT_MOST, 7))));
+
+    private static Modifier modifier(ModifierTarget target, String qualifier, Operation operation, int value) {
+        return Modifier.builder()
+                .target(target)
+                .targetQualifier(qualifier)
+                .operation(operation)
+                .value(value)
+                .sourceId("Test")
+                .build();
+    }
+
+    @Test
+    void scalarKernelsMatchStatGraph() {
+        assertMatchesStatGraph(ScalarKernels.INSTANCE);
+    }
+
+    @Test
+    void bestKernelsMatchStatGraph() {
+        assertMatchesStatGraph(BatchKernels.best());
+    }
+
+    @Test
+    void newRowsMatchANewStatGraph() {
+        CharacterBatch batch = new CharacterBatch(3);
+        batch.evaluate();
+        StatGraph graph = new StatGraph();
+
+        assertEquals(graph.getArmorClass(), batch.getArmorClass(2));
+        assertEquals(graph.getMaxHitPoints(), batch.getMaxHitPoints(2));
+        assertEquals(graph.getSpeed(MovementType.WALKING), batch.getSpeed(2, MovementType.WALKING));
+        assertThrows(IndexOutOfBoundsException.class, () -> batch.evaluate(1, 4));
+    }
+
+    private void assertMatchesStatGraph(BatchKernels kernels) {
+        SplittableRandom random = new SplittableRandom(5);
+        CharacterBatch batch = new CharacterBatch(ROWS, kernels);
+        StatGraph[] graphs = new StatGraph[ROWS];
+        for (int row = 0; row < ROWS; row++) {
+            StatGraph graph = new StatGraph();
+            int level = 1 + random.nextInt(20);
+            graph.setLevel(level);
+            batch.setLevel(row, level);
+            for (Ability ability : Ability.values()) {
+                int score = 3 + random.nextInt(16);
+                graph.setBaseAbilityScore(ability, score);
+                batch.setBaseAbilityScore(row, ability, score);
+            }
+            for (Skill skill : Skill.values()) {
+                boolean proficient = random.nextInt(4) == 0;
+                graph.setProficient(skill, proficient);
+                batch.setProficient(row, skill, proficient);
+            }
+            int armorClass = 10 + random.nextInt(8);
+            graph.setBaseArmorClass(armorClass);
+            batch.setBaseArmorClass(row, armorClass);
+            graph.setBaseHitPoints(level * 3);
+            batch.setBaseHitPoints(row, level * 3);
+            int program = random.nextInt(programs.size() + 1);
+            if (program < programs.size()) {
+                graph.addProgram(programs.get(program));
+                batch.setProgram(row, programs.get(program));
+            }
+            graphs[row] = graph;
+        }
+        batch.evaluate();
+
+        for (int row = 0; row < ROWS; row++) {
+            StatGraph graph = graphs[row];
+            for (Ability ability : Ability.values()) {
+                assertEquals(graph.getAbilityScore(ability), batch.getAbilityScore(row, ability));
+                assertEquals(graph.getAbilityModifier(ability), batch.getAbilityModifier(row, ability));
+            }
+            assertEquals(graph.getProficiencyBonus(), batch.getProficiencyBonus(row));
+            for (Skill skill : Skill.values()) {
+                assertEquals(graph.getSkillBonus(skill), batch.getSkillBonus(row, skill), "row " + row + " " + skill);
+            }
+            assertEquals(graph.getArmorClass(), batch.getArmorClass(row));
+            assertEquals(graph.getMaxHitPoints(), batch.getMaxHitPoints(row), "row " + row);
+            for (MovementType movementType : MovementType.values()) {
+                assertEquals(graph.getSpeed(movementType), batch.getSpeed(row, movementType));
+            }
+        }
+    }
+}
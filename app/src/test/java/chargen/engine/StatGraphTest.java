@@ -0,0 +1,97 @@
+package chargen.engine;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import chargen.model.Ability;
+import chargen.model.Modifier;
+import chargen.model.ModifierTarget;
+import chargen.model.MovementType;
+import chargen.model.Operation;
+import chargen.model.Sense;
+import chargen.model.Skill;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatGraphTest {
+
+    private final ModifierCompiler compiler = new ModifierCompiler(new StatLayout());
+
+    private StatProgram program(ModifierTarget target, String qualifier, Operation operation, int value) {
+        return compiler.compile(List.of(Modifier.builder()
+                .target(target)
+                .targetQualifier(qualifier)
+                .operation(operation)
+                .value(value)
+                .sourceId("Test")
+                .build()));
+    }
+
+    @Test
+    void derivesTheSheetFromScoresAndTraits() {
+        StatGraph graph = new StatGraph();
+        graph.setBaseAbilityScore(Ability.DEXTERITY, 14);
+        graph.setBaseAbilityScore(Ability.WISDOM, 13);
+        graph.setBaseAbilityScore(Ability.CONSTITUTION, 12);
+        graph.setProficient(Skill.PERCEPTION, true);
+        graph.addProgram(program(ModifierTarget.SENSE_RANGE, "DARKVISION", Operation.SET, 60));
+        graph.addProgram(program(ModifierTarget.MAX_HIT_POINTS, null, Operation.ADD, 5));
+
+        assertEquals(2, graph.getAbilityModifier(Ability.DEXTERITY));
+        assertEquals(3, graph.getSkillBonus(Skill.PERCEPTION));
+        assertEquals(1, graph.getSkillBonus(Skill.INSIGHT));
+        assertEquals(13, graph.getPassivePerception());
+        assertEquals(2, graph.getInitiative());
+        assertEquals(12, graph.getArmorClass());
+        assertEquals(14, graph.getMaxHitPoints());
+        assertEquals(30, graph.getSpeed(MovementType.WALKING));
+        assertEquals(60, graph.getSenseRange(Sense.DARKVISION));
+        assertEquals(10, graph.getSpellSaveDc());
+    }
+
+    @Test
+    void abilityChangeOnlyRecomputesItsDownstreamValues() {
+        StatGraph graph = new StatGraph();
+        graph.refresh();
+        long before = graph.getRecomputeCount();
+
+        graph.setBaseAbilityScore(Ability.WISDOM, 16);
+        graph.refresh();
+
+        // WIS score and modifier, the five Wisdom skills and passive Perception.
+        assertEquals(8, graph.getRecomputeCount() - before);
+        assertEquals(13, graph.getPassivePerception());
+    }
+
+    @Test
+    void traitChangeOnlyRecomputesTheSlotsItTouches() {
+        StatGraph graph = new StatGraph();
+        StatProgram tough = program(ModifierTarget.MAX_HIT_POINTS, null, Operation.ADD, 5);
+        graph.refresh();
+        long before = graph.getRecomputeCount();
+
+        graph.addProgram(tough);
+        graph.refresh();
+        assertEquals(1, graph.getRecomputeCount() - before);
+        assertEquals(13, graph.getMaxHitPoints());
+
+        assertTrue(graph.removeProgram(tough));
+        assertEquals(8, graph.getMaxHitPoints());
+        assertFalse(graph.removeProgram(tough));
+    }
+
+    @Test
+    void spellcastingFollowsTheChosenAbility() {
+        StatGraph graph = new StatGraph();
+        graph.setBaseAbilityScore(Ability.CHARISMA, 18);
+        assertEquals(10, graph.getSpellSaveDc());
+
+        graph.setSpellcastingAbility(Ability.CHARISMA);
+        assertEquals(14, graph.getSpellSaveDc());
+
+        graph.setBaseAbilityScore(Ability.CHARISMA, 20);
+        assertEquals(15, graph.getSpellSaveDc());
+        assertEquals(7, graph.getSpellAttackBonus());
+    }
+}
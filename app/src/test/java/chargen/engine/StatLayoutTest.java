@@ -0,0 +1,54 @@
+package chargen.engine;
+
+import org.junit.jupiter.api.Test;
+
+import chargen.model.Ability;
+import chargen.model.ModifierTarget;
+import chargen.model.MovementType;
+import chargen.model.Sense;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatLayoutTest {
+
+    private final StatLayout layout = new StatLayout();
+
+    @Test
+    void typedQualifiersResolveToFixedSlots() {
+        assertEquals(StatLayout.slotOf(Ability.WISDOM), layout.slotOf(ModifierTarget.ABILITY_SCORE, "WISDOM"));
+        assertEquals(StatLayout.slotOf(MovementType.FLYING), layout.slotOf(ModifierTarget.SPEED, "FLYING"));
+        assertEquals(StatLayout.slotOf(Sense.DARKVISION), layout.slotOf(ModifierTarget.SENSE_RANGE, "DARKVISION"));
+        assertEquals(StatLayout.spellLevelSlot(5), layout.slotOf(ModifierTarget.MAX_SPELL_SLOTS, "LEVEL_5"));
+        assertEquals(StatLayout.slotOf(ModifierTarget.ARMOR_CLASS), layout.slotOf(ModifierTarget.ARMOR_CLASS, null));
+        assertEquals(StatLayout.FIXED_SLOTS, layout.size());
+    }
+
+    @Test
+    void resolvedKeysAreTyped() {
+        assertSame(Sense.DARKVISION, layout.resolve(ModifierTarget.SENSE_RANGE, "DARKVISION").getQualifier());
+        assertEquals(9, layout.resolve(ModifierTarget.MAX_SPELL_SLOTS, "LEVEL_9").getQualifier());
+        assertEquals("LEVEL_9", StatLayout.qualifierName(layout.resolve(ModifierTarget.MAX_SPELL_SLOTS, "LEVEL_9")));
+    }
+
+    @Test
+    void namedQualifiersAreInternedAfterTheFixedSlots() {
+        int luck = layout.slotOf(ModifierTarget.RESOURCE_MAX, "LUCK_POINTS");
+        int ki = layout.slotOf(ModifierTarget.RESOURCE_MAX, "KI_POINTS");
+
+        assertEquals(StatLayout.FIXED_SLOTS, luck);
+        assertEquals(StatLayout.FIXED_SLOTS + 1, ki);
+        assertEquals(luck, layout.slotOf(ModifierTarget.RESOURCE_MAX, "LUCK_POINTS"));
+        assertEquals("KI_POINTS", layout.keyOf(ki).getQualifier());
+        assertEquals(StatLayout.FIXED_SLOTS + 2, layout.size());
+    }
+
+    @Test
+    void unknownQualifiersAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> layout.resolve(ModifierTarget.ABILITY_SCORE, "LUCK"));
+        assertThrows(IllegalArgumentException.class, () -> layout.resolve(ModifierTarget.ABILITY_SCORE, null));
+        assertThrows(IllegalArgumentException.class, () -> layout.resolve(ModifierTarget.SENSE_RANGE, "XRAY"));
+        assertThrows(IllegalArgumentException.class, () -> layout.resolve(ModifierTarget.MAX_SPELL_SLOTS, "LEVEL_10"));
+        assertThrows(IllegalArgumentException.class, () -> layout.resolve(ModifierTarget.ARMOR_CLASS, "NATURAL"));
+        assertThrows(IllegalArgumentException.class, () -> layout.resolve(ModifierTarget.RESOURCE_MAX, "luckPoints"));
+    }
+}
@@ -0,0 +1,184 @@
+package chargen.engine;
+
+import java.math.BigInteger;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import chargen.dice.DiceExpression;
+import chargen.model.Modifier;
+import chargen.model.ModifierTarget;
+import chargen.model.Operation;
+import chargen.model.Trait;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatProgramTest {
+
+    private final StatLayout layout = new StatLayout();
+    private final ModifierCompiler compiler = new ModifierCompiler(layout);
+
+    private static Modifier strength(Operation operation, Object value) {
+        return Modifier.builder()
+                .target(ModifierTarget.ABILITY_SCORE)
+                .targetQualifier("STRENGTH")
+                .operation(operation)
+                .value(value)
+                .sourceId("Test")
+                .build();
+    }
+
+    private int strengthSlot() {
+        return layout.slotOf(ModifierTarget.ABILITY_SCORE, "STRENGTH");
+    }
+
+    @Test
+    void addAndSubtractAreSummed() {
+        StatProgram program = compiler.compile(List.of(
+                strength(Operation.ADD, 2), strength(Operation.SUBTRACT, 3), strength(Operation.ADD, 4)));
+
+        assertEquals(19, program.evaluate(strengthSlot(), 16));
+    }
+
+    @Test
+    void multiplyAndDivideRoundDownOnce() {
+        StatProgram program = compiler.compile(List.of(strength(Operation.DIVIDE, 2), strength(Operation.MULTIPLY, 3)));
+
+        assertEquals(22, program.evaluate(strengthSlot(), 15));
+        assertEquals(7, program.evaluate(strengthSlot(), 5));
+    }
+
+    @Test
+    void fractionalMultiplierIsExact() {
+        StatProgram program = compiler.compile(List.of(strength(Operation.MULTIPLY, 1.5)));
+
+        assertEquals(24, program.evaluate(strengthSlot(), 16));
+    }
+
+    @Test
+    void setReplacesBaseBeforeAdding() {
+        StatProgram program = compiler.compile(List.of(
+                strength(Operation.ADD, 1), strength(Operation.SET, 19), strength(Operation.SET, 17)));
+
+        assertEquals(20, program.evaluate(strengthSlot(), 8));
+    }
+
+    @Test
+    void clampsApplyLast() {
+        StatProgram capped = compiler.compile(List.of(strength(Operation.ADD, 4), strength(Operation.AT_MOST, 18)));
+        StatProgram floored = compiler.compile(List.of(strength(Operation.AT_LEAST, 8)));
+
+        assertEquals(18, capped.evaluate(strengthSlot(), 16));
+        assertEquals(16, floored.evaluate(strengthSlot(), 16));
+        assertEquals(8, floored.evaluate(strengthSlot(), 6));
+    }
+
+    @Test
+    void untouchedSlotsKeepTheirBase() {
+        StatProgram program = compiler.compile(List.of(strength(Operation.ADD, 2)));
+        int dexterity = layout.slotOf(ModifierTarget.ABILITY_SCORE, "DEXTERITY");
+
+        assertFalse(program.touches(dexterity));
+        assertEquals(14, program.evaluate(dexterity, 14));
+    }
+
+    @Test
+    void diceValuesAreNotFoldedButKeptCompiled() {
+        StatProgram program = compiler.compile(List.of(strength(Operation.ADD, "1d4"), strength(Operation.ADD, 2)));
+
+        assertEquals(1, program.size());
+        assertEquals(1, program.diceCount());
+        assertEquals(strengthSlot(), program.diceSlotAt(0));
+        assertEquals(DiceExpression.parse("1d4"), program.diceAt(0));
+
+        StatProgram merged = program.merge(compiler.compile(List.of(strength(Operation.ADD, "2d6kh1"))));
+        assertEquals(2, merged.diceCount());
+        assertEquals("2d6kh1", merged.diceAt(1).toString());
+        assertSame(merged, merged.merge(StatProgram.EMPTY));
+        assertEquals(1, StatProgram.EMPTY.merge(program).diceCount());
+    }
+
+    @Test
+    void mergeMatchesCompilingTogether() {
+        Trait toughness = Trait.builder()
+                .name("Toughness")
+                .description("Test")
+                .modifier(Modifier.builder()
+                        .target(ModifierTarget.MAX_HIT_POINTS)
+                        .operation(Operation.ADD)
+                        .value(5)
+                        .sourceId("Test")
+                        .build())
+                .modifier(strength(Operation.AT_MOST, 18))
+                .build();
+        Trait brawny = Trait.builder()
+                .name("Brawny")
+                .description("Test")
+                .modifier(strength(Operation.ADD, 3))
+                .build();
+
+        StatProgram together = compiler.compileTraits(List.of(toughness, brawny));
+        StatProgram merged = compiler.compileTraits(List.of(toughness)).merge(compiler.compileTraits(List.of(brawny)));
+
+        int[] expected = new int[layout.size()];
+        int[] actual = new int[layout.size()];
+        expected[strengthSlot()] = 16;
+        actual[strengthSlot()] = 16;
+        together.applyTo(expected);
+        merged.applyTo(actual);
+
+        assertArrayEquals(expected, actual);
+        assertEquals(18, actual[strengthSlot()]);
+        assertEquals(5, actual[layout.slotOf(ModifierTarget.MAX_HIT_POINTS, null)]);
+    }
+
+    @Test
+    void mergingSaturatesInsteadOfOverflowing() {
+        StatProgram growth = compiler.compile(List.of(strength(Operation.MULTIPLY, 1.5), strength(Operation.ADD,
+                Integer.MAX_VALUE)));
+        StatProgram shrink = compiler.compile(List.of(strength(Operation.DIVIDE, 1.1)));
+
+        StatProgram merged = StatProgram.EMPTY;
+        for (int i = 0; i < 60; i++) {
+            merged = merged.merge(growth);
+        }
+        assertEquals(Integer.MAX_VALUE, merged.evaluate(strengthSlot(), 10));
+        assertEquals(Integer.MIN_VALUE, merged.evaluate(strengthSlot(), Integer.MIN_VALUE));
+
+        StatProgram tiny = StatProgram.EMPTY;
+        for (int i = 0; i < 40; i++) {
+            tiny = tiny.merge(shrink);
+        }
+        // 1.1^-40 is about 0.0221, kept to far better than a part in a million.
+        assertEquals(22_094, tiny.evaluate(strengthSlot(), 1_000_000));
+    }
+
+    @Test
+    void scalingIsExactPastTheLongRange() {
+        assertEquals(1L << 39, StatProgram.scale(1L << 40, 1L << 40, 1L << 41));
+        assertEquals(-11, StatProgram.scale(-5, Long.MAX_VALUE, Long.MAX_VALUE / 2));
+        assertEquals(Long.MAX_VALUE, StatProgram.scale(Long.MAX_VALUE, Long.MAX_VALUE, 2));
+    }
+
+    @Test
+    void outOfRangeAndUnknownValuesAreRejectedButSumsSaturate() {
+        for (Object value : new Object[] {12_345_678_901L, 1e12, new BigInteger("1" + "0".repeat(30)),
+                true}) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> compiler.compile(List.of(strength(Operation.ADD, value))), String.valueOf(value));
+            assertTrue(e.getMessage().contains("ABILITY_SCORE/STRENGTH"), e.getMessage());
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> compiler.compile(List.of(strength(Operation.MULTIPLY, 1e30))));
+
+        StatProgram program = compiler.compile(List.of(
+                strength(Operation.ADD, Integer.MAX_VALUE), strength(Operation.ADD, Integer.MAX_VALUE)));
+        assertEquals(Integer.MAX_VALUE, program.evaluate(strengthSlot(), 0));
+    }
+
+    @Test
+    void divideByZeroIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> compiler.compile(List.of(strength(Operation.DIVIDE, 0))));
+    }
+}
@@ -0,0 +1,105 @@
+package chargen.metrics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import chargen.service.TraitService;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void bucketsCoverEveryValueWithinAnEighth() {
+        long[] values = {0, 1, 15, 16, 17, 31, 32, 1000, 123_456_789, Long.MAX_VALUE / 3, Long.MAX_VALUE};
+        for (long value : values) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            long upper = LatencyHistogram.upperBound(bucket);
+            assertTrue(upper >= value, value + " above its bucket bound " + upper);
+            assertTrue(upper - value <= value / 8, value + " too far from its bucket bound " + upper);
+            assertTrue(bucket == 0 || LatencyHistogram.upperBound(bucket - 1) < value);
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.upperBound(LatencyHistogram.bucketOf(Long.MAX_VALUE)));
+    }
+
+    @Test
+    void histogramReportsPercentilesCountAndMax() {
+        LatencyHistogram histogram = Metrics.histogram("test.histogram");
+        histogram.reset();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500_500_000L, histogram.getTotalNanos());
+        assertEquals(1_000_000L, histogram.getMaxNanos());
+        assertEquals(500_000, histogram.getPercentileNanos(50), 500_000 / 8.0);
+        assertEquals(990_000, histogram.getPercentileNanos(99), 990_000 / 8.0);
+        assertEquals(1_000_000L, histogram.getPercentileNanos(100));
+        assertThrows(IllegalArgumentException.class, () -> histogram.getPercentileNanos(101));
+    }
+
+    @Test
+    void registryReturnsOneInstancePerNameAndDumpsEveryMetric() {
+        Counter counter = Metrics.counter("test.counter");
+        assertSame(counter, Metrics.counter("test.counter"));
+        counter.reset();
+        counter.increment();
+        counter.add(41);
+        assertEquals(42, counter.get());
+
+        new TraitService();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Metrics.dump(new PrintStream(bytes, true, StandardCharsets.UTF_8));
+        String dump = bytes.toString(StandardCharsets.UTF_8);
+        assertTrue(dump.contains("test.counter 42\n"), dump);
+        assertTrue(dump.contains("catalog.load count="), dump);
+        assertTrue(dump.contains("modifier.compile count="), dump);
+    }
+
+    @Test
+    void catalogLoadsAreRecordedAsFlightRecorderEvents() throws IOException {
+        Path file = tempDir.resolve("recording.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(CatalogLoadEvent.class);
+            recording.enable(TraitLookupEvent.class);
+            recording.start();
+            TraitService service = new TraitService("/data/traits.json");
+            Counter lookups = Metrics.counter("trait.lookup");
+            Counter programs = Metrics.counter("trait.program");
+            long lookupsBefore = lookups.get();
+            long programsBefore = programs.get();
+            service.getTraitByName("Darkvision");
+            service.getTraitByName("No Such Trait");
+            service.getProgramByName("Darkvision");
+            recording.stop();
+            // Program fetches are counted apart from trait lookups.
+            assertEquals(2, lookups.get() - lookupsBefore);
+            assertEquals(1, programs.get() - programsBefore);
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        RecordedEvent load = events.stream()
+                .filter(event -> event.getEventType().getName().equals("chargen.CatalogLoad"))
+                .findFirst().orElseThrow();
+        assertEquals("/data/traits.json", load.getString("source"));
+        assertEquals(8, load.getInt("traitCount"));
+        assertTrue(load.getLong("bytes") > 0);
+        assertEquals(3, events.stream()
+                .filter(event -> event.getEventType().getName().equals("chargen.TraitLookup"))
+                .count());
+    }
+}
@@ -1,95 +1,184 @@
 package chargen.model;
 
-// import org.junit.jupiter.api.Test;
+import java.util.Arrays;
+import java.util.SplittableRandom;
 
-// import chargen.activity.AbilityScore;
+import org.junit.jupiter.api.Test;
 
-// import static org.junit.jupiter.api.Assertions.*;
+import chargen.activity.AbilityScore;
+import chargen.activity.AbilityScoreMethod;
+import chargen.activity.AbilityScoreTables;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 class AbilityScoreTest {
 
-//     @Test
-//     void totalHandlesAdd() {
-//         AbilityScore str = new AbilityScore(Ability.STRENGTH, 16);
-//         str.addModifier(new Modifier("strength", Operation.ADD, 2, null));
-//         str.addModifier(new Modifier("strength", Operation.MAX, 0, 18));
-
-//         System.out.println("strength.add = " + str.total());
-//         assertEquals(18, str.total());
-//         assertEquals(4,  str.scoreModifier());
-//     }
-
-//     @Test
-//     void totalHandlesSubtract() {
-//         AbilityScore str = new AbilityScore(Ability.STRENGTH, 16);
-//         str.addModifier(new Modifier("strength", Operation.SUBTRACT, 2, null));
-
-//         assertEquals(14, str.total());
-//         assertEquals(2,  str.scoreModifier());
-//     }
-
-//     @Test
-//     void totalHandlesMultiply() {
-//         AbilityScore str = new AbilityScore(Ability.STRENGTH, 8);
-//         str.addModifier(new Modifier("strength", Operation.MULTIPLY, 2, null));
-
-//         assertEquals(16, str.total());
-//         assertEquals(3,  str.scoreModifier());
-//     }
-
-//     @Test
-//     void totalHandlesDivide() {
-//         AbilityScore str = new AbilityScore(Ability.STRENGTH, 16);
-//         str.addModifier(new Modifier("strength", Operation.DIVIDE, 2, null));
-
-//         assertEquals(8, str.total());
-//         assertEquals(-1,  str.scoreModifier());
-//     }
-
-//     @Test
-//     void totalHandlesSet() {
-//         AbilityScore str = new AbilityScore(Ability.STRENGTH, 16);
-//         str.addModifier(new Modifier("strength", Operation.SET, 14, null));
-
-//         assertEquals(14, str.total());
-//         assertEquals(2,  str.scoreModifier());
-//     }
-
-//     @Test
-//     void totalHandlesMax() {
-//         AbilityScore str = new AbilityScore(Ability.STRENGTH, 16);
-//         str.addModifier(new Modifier("strength", Operation.MAX, str.getBase(), 8));
-
-//         assertEquals(8, str.total());
-//         assertEquals(-1,  str.scoreModifier());
-//     }
-
-//     @Test
-//     void totalHandlesMin() {
-//         AbilityScore str = new AbilityScore(Ability.STRENGTH, 16);
-//         str.addModifier(new Modifier("strength", Operation.MIN, str.getBase(), 8));
-
-//         assertEquals(16, str.total());
-//         assertEquals(3,  str.scoreModifier());
-//     }
-
-//     @Test
-//     void totalHandlesMin2() {
-//         AbilityScore str = new AbilityScore(Ability.STRENGTH, 6);
-//         str.addModifier(new Modifier("strength", Operation.MIN, str.getBase(), 8));
-
-//         System.out.println("strength.min2 = " + str.getBase() + " | 8 = " + str.total());
-//         assertEquals(6, str.total());
-//         assertEquals(-2,  str.scoreModifier());
-//     }
-
-//     @Test
-//     void totalHandlesRemoveModifier() {
-//         AbilityScore str = new AbilityScore(Ability.STRENGTH, 16);
-//         str.addModifier(new Modifier("strength", Operation.ADD, 2, null));
-//         str.removeModifier(new Modifier("strength", Operation.ADD, 2, null));
-
-//         assertEquals(16, str.total());
-//         assertEquals(3,  str.scoreModifier());
-//     }
+    private static Modifier strength(Operation operation, Object value) {
+        return Modifier.builder()
+                .target(ModifierTarget.ABILITY_SCORE)
+                .targetQualifier("STRENGTH")
+                .operation(operation)
+                .value(value)
+                .sourceId("Test")
+                .build();
+    }
+
+    @Test
+    void totalHandlesAdd() {
+        AbilityScore str = new AbilityScore(Ability.STRENGTH, 16);
+        str.addModifier(strength(Operation.ADD, 2));
+        str.addModifier(strength(Operation.AT_MOST, 18));
+
+        assertEquals(18, str.total());
+        assertEquals(4, str.scoreModifier());
+    }
+
+    @Test
+    void totalHandlesSubtract() {
+        AbilityScore str = new AbilityScore(Ability.STRENGTH, 16);
+        str.addModifier(strength(Operation.SUBTRACT, 2));
+
+        assertEquals(14, str.total());
+        assertEquals(2, str.scoreModifier());
+    }
+
+    @Test
+    void totalHandlesMultiply() {
+        AbilityScore str = new AbilityScore(Ability.STRENGTH, 8);
+        str.addModifier(strength(Operation.MULTIPLY, 2));
+
+        assertEquals(16, str.total());
+        assertEquals(3, str.scoreModifier());
+    }
+
+    @Test
+    void totalHandlesDivide() {
+        AbilityScore str = new AbilityScore(Ability.STRENGTH, 16);
+        str.addModifier(strength(Operation.DIVIDE, 2));
+
+        assertEquals(8, str.total());
+        assertEquals(-1, str.scoreModifier());
+    }
+
+    @Test
+    void totalHandlesSet() {
+        AbilityScore str = new AbilityScore(Ability.STRENGTH, 16);
+        str.addModifier(strength(Operation.SET, 14));
+
+        assertEquals(14, str.total());
+        assertEquals(2, str.scoreModifier());
+    }
+
+    @Test
+    void totalHandlesAtMost() {
+        AbilityScore str = new AbilityScore(Ability.STRENGTH, 16);
+        str.addModifier(strength(Operation.AT_MOST, 8));
+
+        assertEquals(8, str.total());
+        assertEquals(-1, str.scoreModifier());
+    }
+
+    @Test
+    void totalHandlesAtLeast() {
+        AbilityScore str = new AbilityScore(Ability.STRENGTH, 16);
+        str.addModifier(strength(Operation.AT_LEAST, 8));
+
+        assertEquals(16, str.total());
+        assertEquals(3, str.scoreModifier());
+    }
+
+    @Test
+    void totalHandlesAtLeastBelowFloor() {
+        AbilityScore str = new AbilityScore(Ability.STRENGTH, 6);
+        str.addModifier(strength(Operation.AT_LEAST, 8));
+
+        assertEquals(8, str.total());
+        assertEquals(-1, str.scoreModifier());
+    }
+
+    @Test
+    void totalHandlesRemoveModifier() {
+        AbilityScore str = new AbilityScore(Ability.STRENGTH, 16);
+        str.addModifier(strength(Operation.ADD, 2));
+        assertEquals(18, str.total());
+        assertTrue(str.removeModifier(strength(Operation.ADD, 2)));
+
+        assertEquals(16, str.total());
+        assertEquals(3, str.scoreModifier());
+    }
+
+    @Test
+    void rejectsModifiersForOtherAbilities() {
+        AbilityScore dex = new AbilityScore(Ability.DEXTERITY, 12);
+
+        assertThrows(IllegalArgumentException.class, () -> dex.addModifier(strength(Operation.ADD, 2)));
+    }
+
+    @Test
+    void rollTableMatchesFourDiceDroppingTheLowest() {
+        int[] ways = new int[19];
+        for (int roll = 0; roll < 6 * 6 * 6 * 6; roll++) {
+            int a = 1 + roll % 6;
+            int b = 1 + roll / 6 % 6;
+            int c = 1 + roll / 36 % 6;
+            int d = 1 + roll / 216;
+            ways[a + b + c + d - Math.min(Math.min(a, b), Math.min(c, d))]++;
+        }
+        for (int score = 3; score <= 18; score++) {
+            assertEquals(ways[score] / 1296.0, AbilityScoreTables.rollProbability(score), 1e-12);
+        }
+        assertEquals(0.0, AbilityScoreTables.rollProbability(2));
+
+        SplittableRandom random = new SplittableRandom(7);
+        int[] scores = new int[6];
+        for (int i = 0; i < 1000; i++) {
+            AbilityScoreMethod.ROLL_4D6_DROP_LOWEST.generate(random, scores);
+            for (int score : scores) {
+                assertTrue(score >= 3 && score <= 18, "score " + score);
+            }
+        }
+    }
+
+    @Test
+    void standardArrayIsDealtInSomeOrder() {
+        SplittableRandom random = new SplittableRandom(11);
+        for (int i = 0; i < 100; i++) {
+            int[] scores = AbilityScoreMethod.STANDARD_ARRAY.generate(random);
+            Arrays.sort(scores);
+            assertArrayEquals(new int[] {8, 10, 12, 13, 14, 15}, scores);
+        }
+    }
+
+    @Test
+    void pointBuyEnumeratesEveryAllocationThatSpendsTheBudget() {
+        int expected = 0;
+        for (int packed = 0; packed < 1 << 18; packed++) {
+            int spent = 0;
+            for (int ability = 0; ability < 6; ability++) {
+                spent += AbilityScoreTables.pointBuyCost(8 + (packed >> (3 * ability) & 7));
+            }
+            if (spent == AbilityScoreTables.POINT_BUY_BUDGET) {
+                expected++;
+            }
+        }
+        assertEquals(expected, AbilityScoreTables.pointBuyAllocationCount());
+
+        int[] scores = new int[6];
+        for (int i = 0; i < AbilityScoreTables.pointBuyAllocationCount(); i++) {
+            AbilityScoreTables.pointBuyAllocation(i, scores);
+            int spent = 0;
+            for (int score : scores) {
+                spent += AbilityScoreTables.pointBuyCost(score);
+            }
+            assertEquals(AbilityScoreTables.POINT_BUY_BUDGET, spent);
+        }
+        assertThrows(IllegalArgumentException.class, () -> AbilityScoreTables.pointBuyCost(16));
+    }
+
+    @Test
+    void modifierTableMatchesTheFormula() {
+        for (int score = -5; score <= 40; score++) {
+            assertEquals(Math.floorDiv(score - 10, 2), AbilityScoreTables.modifier(score), "score " + score);
+        }
+    }
 }
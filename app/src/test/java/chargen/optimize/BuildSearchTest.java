@@ -0,0 +1,205 @@
+package chargen.optimize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import chargen.activity.AbilityScoreMethod;
+import chargen.activity.AbilityScoreTables;
+import chargen.engine.StatGraph;
+import chargen.engine.StatProgram;
+import chargen.model.Ability;
+import chargen.model.ModifierTarget;
+import chargen.model.Skill;
+import chargen.service.TraitCatalogLoader;
+import chargen.service.TraitService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BuildSearchTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static String trait(String name, String target, String qualifier, String operation, int value) {
+        return "{\"name\": \"" + name + "\", \"description\": \"d\", \"modifiers\": [{\"target\": \"" + target
+                + "\", " + (qualifier == null ? "" : "\"targetQualifier\": \"" + qualifier + "\", ")
+                + "\"operation\": \"" + operation + "\", \"value\": " + value + ", \"sourceId\": \"" + name + "\"}]}";
+    }
+
+    private TraitService catalog() throws IOException {
+        List<String> traits = List.of(
+                trait("Keen", "PASSIVE_PERCEPTION", null, "ADD", 5),
+                trait("Alert", "PASSIVE_PERCEPTION", null, "ADD", 2),
+                trait("Dull", "PASSIVE_PERCEPTION", null, "SUBTRACT", 3),
+                trait("Wise", "ABILITY_SCORE", "WISDOM", "ADD", 2),
+                trait("Wiser", "ABILITY_SCORE", "WISDOM", "ADD", 1),
+                trait("Periapt", "ABILITY_SCORE", "WISDOM", "SET", 19),
+                trait("Sage", "ABILITY_SCORE", "WISDOM", "AT_LEAST", 17),
+                trait("Doubled", "PASSIVE_PERCEPTION", null, "MULTIPLY", 2),
+                trait("Halved", "ABILITY_SCORE", "WISDOM", "DIVIDE", 2),
+                trait("Strong", "ABILITY_SCORE", "STRENGTH", "ADD", 2),
+                trait("Tough", "MAX_HIT_POINTS", null, "ADD", 4));
+        Path file = Files.write(tempDir.resolve("traits.json"),
+                ("[" + String.join(",", traits) + "]").getBytes(StandardCharsets.UTF_8));
+        return new TraitService(new TraitCatalogLoader(Runnable::run).addFile(file));
+    }
+
+    private static List<int[]> standardArrays() {
+        List<int[]> arrays = new ArrayList<>();
+        int[] values = AbilityScoreTables.STANDARD_ARRAY.stream().mapToInt(Integer::intValue).toArray();
+        permute(values, 0, arrays);
+        return arrays;
+    }
+
+    private static List<int[]> oneArrayPerWisdom() {
+        List<int[]> arrays = new ArrayList<>();
+        Set<Integer> seen = new HashSet<>();
+        for (int[] scores : standardArrays()) {
+            if (seen.add(scores[Ability.WISDOM.ordinal()])) {
+                arrays.add(scores);
+            }
+        }
+        return arrays;
+    }
+
+    private static void permute(int[] values, int from, List<int[]> out) {
+        if (from == values.length) {
+            out.add(values.clone());
+        }
+        for (int i = from; i < values.length; i++) {
+            int swap = values[from];
+            values[from] = values[i];
+            values[i] = swap;
+            permute(values, from + 1, out);
+            values[i] = values[from];
+            values[from] = swap;
+        }
+    }
+
+    // Every allocation and every set of up to maxTraits traits, best values first. The search keeps one
+    // allocation of those that agree on every ability the objective depends on, so callers pass one of each.
+    private static List<Integer> bruteForce(TraitService service, List<int[]> allocations, int maxTraits) {
+        List<String> names = new ArrayList<>();
+        service.getAllTraits().forEach(trait -> names.add(trait.getName()));
+        List<Integer> values = new ArrayList<>();
+        StatGraph graph = new StatGraph();
+        graph.setProficient(Skill.PERCEPTION, true);
+        for (int[] scores : allocations) {
+            for (Ability ability : Ability.values()) {
+                graph.setBaseAbilityScore(ability, scores[ability.ordinal()]);
+            }
+            for (int mask = 0; mask < 1 << names.size(); mask++) {
+                if (Integer.bitCount(mask) > maxTraits) {
+                    continue;
+                }
+                StatProgram program = StatProgram.EMPTY;
+                for (int i = 0; i < names.size(); i++) {
+                    if ((mask & 1 << i) != 0) {
+                        program = program.merge(service.getProgramByName(names.get(i)));
+                    }
+                }
+                graph.setProgram(program);
+                values.add(graph.getPassivePerception());
+            }
+        }
+        values.sort(Comparator.reverseOrder());
+        return values;
+    }
+
+    private static List<Integer> values(BuildSearch.Result result) {
+        return result.getBuilds().stream().map(Build::getValue).toList();
+    }
+
+    @Test
+    void findsTheSameBestValuesAsBruteForce() throws IOException {
+        TraitService service = catalog();
+        List<Integer> expected = bruteForce(service, oneArrayPerWisdom(), 3).subList(0, 20);
+        for (int parallelism : new int[] {1, 4}) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                BuildSearch.Result result = new BuildSearch(service, pool).search(
+                        BuildQuery.builder(ModifierTarget.PASSIVE_PERCEPTION)
+                                .allocation(AbilityScoreMethod.STANDARD_ARRAY)
+                                .proficientSkill(Skill.PERCEPTION)
+                                .topK(20)
+                                .build());
+                assertTrue(result.isComplete());
+                assertEquals(expected, values(result));
+                // Irrelevant traits never appear, and the best build is scored the way the sheet would score it.
+                Build best = result.getBuilds().get(0);
+                assertFalse(best.getTraitNames().contains("Strong"), best.toString());
+                assertEquals(3, best.getTraitNames().size());
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    @Test
+    void honoursRequiredAndExcludedTraits() throws IOException {
+        TraitService service = catalog();
+        BuildSearch.Result result = new BuildSearch(service).search(
+                BuildQuery.builder(ModifierTarget.ABILITY_SCORE).qualifier("WISDOM")
+                        .allocation(AbilityScoreMethod.STANDARD_ARRAY)
+                        .maxTraits(2)
+                        .requiredTrait("Dull")
+                        .excludedTrait("Periapt")
+                        .topK(3)
+                        .build());
+        assertTrue(result.isComplete());
+        // Wisdom 15 plus Wise and Wiser would be 18; the single remaining pick can make 15 + 2 or Sage's 17.
+        assertEquals(List.of(17, 17, 17), values(result));
+        for (Build build : result.getBuilds()) {
+            assertEquals("Dull", build.getTraitNames().get(0));
+            assertEquals(2, build.getTraitNames().size());
+        }
+        assertThrows(IllegalArgumentException.class, () -> new BuildSearch(service).search(
+                BuildQuery.builder(ModifierTarget.PASSIVE_PERCEPTION).requiredTrait("Missing").build()));
+    }
+
+    @Test
+    void pruningVisitsFarFewerNodesThanTheSpace() throws IOException {
+        TraitService service = catalog();
+        BuildSearch.Result result = new BuildSearch(service).search(
+                BuildQuery.builder(ModifierTarget.ABILITY_SCORE).qualifier("WISDOM")
+                        .maxTraits(4)
+                        .topK(1)
+                        .build());
+        assertTrue(result.isComplete());
+        // Periapt's SET 19, then Wise and Wiser; the fourth pick cannot help.
+        assertEquals(List.of(22), values(result));
+        long space = (long) AbilityScoreTables.pointBuyAllocationCount() * (1 + 11 + 55 + 165 + 330);
+        assertTrue(result.getNodeCount() * 100 < space, result.getNodeCount() + " of " + space);
+    }
+
+    @Test
+    void spentBudgetsReturnTheBestFoundSoFar() throws IOException {
+        TraitService service = catalog();
+        BuildQuery.Builder query = BuildQuery.builder(ModifierTarget.PASSIVE_PERCEPTION)
+                .proficientSkill(Skill.PERCEPTION)
+                .maxTraits(5)
+                .topK(1_000_000);
+
+        BuildSearch.Result byNodes = new BuildSearch(service).search(query.nodeBudget(100).build());
+        assertFalse(byNodes.isComplete());
+        assertFalse(byNodes.getBuilds().isEmpty());
+        assertTrue(byNodes.getNodeCount() < 100_000, "nodes " + byNodes.getNodeCount());
+
+        BuildSearch.Result byTime = new BuildSearch(service).search(query.nodeBudget(Long.MAX_VALUE)
+                .timeBudget(Duration.ZERO).build());
+        assertFalse(byTime.isComplete());
+        assertFalse(byTime.getBuilds().isEmpty());
+    }
+}
@@ -0,0 +1,83 @@
+package chargen.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NameIndexTest {
+
+    private final NameIndex<String> index = NameIndex.of(List.of("Darkvision", "Dark Pact", "Dwarven Resilience",
+            "Dwarven Toughness", "Naïve", "Lucky", "Luck of the Draw", "Dark"), name -> name);
+
+    @Test
+    void prefixMatchesShortestFirstIgnoringCaseAndDiacritics() {
+        assertEquals(List.of("Dark", "Dark Pact", "Darkvision"), index.prefix("DAR", 10));
+        assertEquals(List.of("Dark", "Dark Pact"), index.prefix("dar", 2));
+        assertEquals(List.of("Naïve"), index.prefix("nai", 10));
+        assertEquals(List.of("Naïve"), index.prefix("Naï", 10));
+        assertEquals(8, index.prefix("", 100).size());
+        assertTrue(index.prefix("xyz", 10).isEmpty());
+    }
+
+    @Test
+    void fuzzyMatchesWithinTheEditBudget() {
+        assertEquals(List.of("Dwarven Toughness", "Dwarven Resilience"), index.fuzzy("dwraven", 2, 10));
+        assertTrue(index.fuzzy("dwraven", 1, 10).isEmpty());
+        // Exact prefix matches rank ahead of one-edit matches.
+        assertEquals(List.of("Lucky", "Luck of the Draw"), index.fuzzy("lucky", 1, 2));
+        assertEquals(List.of("Darkvision"), index.fuzzy("darkvisoin", 2, 10));
+    }
+
+    @Test
+    void completeFallsBackToFuzzyMatches() {
+        // One edit from "darkv", then two from "dark".
+        assertEquals(List.of("Darkvision", "Dark", "Dark Pact"), index.complete("darkvz", 5));
+        assertEquals(List.of("Lucky", "Luck of the Draw"), index.complete("Luck", 5));
+        assertTrue(index.complete("dx", 5).isEmpty());
+    }
+
+    @Test
+    void servesLargeCatalogs() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            names.add("Trait " + Integer.toString(i * 7919, 36));
+        }
+        NameIndex<String> large = NameIndex.of(names, name -> name);
+
+        assertEquals(10, large.prefix("trait ", 10).size());
+        assertEquals(List.of(names.get(4242)), large.prefix(names.get(4242), 10));
+        assertTrue(large.fuzzy(names.get(4242).replace("Trait", "Triat"), 2, 10).contains(names.get(4242)));
+    }
+
+    @Test
+    void shortPrefixesOverMultiWordNamesMatchAFullScan() {
+        String[] adjectives = {"Arcane", "Ardent", "Ashen", "Astral", "Dark", "Deft", "Silent", "Storm", "Swift"};
+        String[] nouns = {"Aegis", "Archer", "Aura", "Blade", "Sight", "Soul", "Step", "Ward", "Will"};
+        String[] places = {"Abyss", "Arbor", "Ashlands", "Deep", "Dusk", "Sands", "Sea", "Spire", "Stars"};
+        List<String> names = new ArrayList<>();
+        for (String adjective : adjectives) {
+            for (String noun : nouns) {
+                names.add(adjective + " " + noun);
+                for (String place : places) {
+                    names.add(adjective + " " + noun + " of the " + place);
+                }
+            }
+        }
+        NameIndex<String> phrases = NameIndex.of(names, name -> name);
+
+        for (String prefix : List.of("a", "ar", "as", "s", "st", "sw", "d", "arcane a", "storm w", "x")) {
+            List<String> expected = names.stream()
+                    .filter(name -> NameIndex.fold(name).startsWith(prefix))
+                    .sorted(Comparator.comparingInt(String::length).thenComparing(NameIndex::fold))
+                    .limit(10)
+                    .toList();
+            assertEquals(expected, phrases.prefix(prefix, 10), prefix);
+            assertEquals(expected, phrases.complete(prefix, 10), prefix);
+        }
+        assertEquals(List.of("Arcane Aura", "Arcane Aegis", "Arcane Archer"), phrases.prefix("arcane a", 3));
+    }
+}
@@ -0,0 +1,110 @@
+package chargen.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import chargen.service.TraitService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CharacterServerTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private CharacterServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = CharacterServer.start(new TraitService(), 0);
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.close();
+    }
+
+    private URI uri(CharacterServer target, String pathAndQuery) {
+        return URI.create("http://localhost:" + target.getAddress().getPort() + pathAndQuery);
+    }
+
+    private HttpResponse<String> get(String pathAndQuery) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(uri(server, pathAndQuery)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void generatesTheSameCharactersForTheSameSeed() throws IOException, InterruptedException {
+        HttpResponse<String> first = get("/characters?count=5&seed=42");
+        HttpResponse<String> second = get("/characters?count=5&seed=42");
+        assertEquals(200, first.statusCode());
+        assertEquals("42", first.headers().firstValue("X-Seed").orElseThrow());
+        assertEquals(5, first.body().lines().count());
+        assertEquals(first.body(), second.body());
+        assertNotEquals(first.body(), get("/characters?count=5&seed=43").body());
+    }
+
+    @Test
+    void looksUpAndSearchesTraits() throws IOException, InterruptedException {
+        HttpResponse<String> darkvision = get("/traits/Darkvision");
+        assertEquals(200, darkvision.statusCode());
+        assertTrue(darkvision.body().startsWith("{\"name\":\"Darkvision\""), darkvision.body());
+        assertEquals(404, get("/traits/No%20Such%20Trait").statusCode());
+
+        HttpResponse<String> completions = get("/traits?complete=dark&limit=3");
+        assertEquals(200, completions.statusCode());
+        assertTrue(completions.body().contains("\"Darkvision\""), completions.body());
+        assertEquals(200, get("/traits?q=darkness").statusCode());
+    }
+
+    @Test
+    void rejectsBadRequests() throws IOException, InterruptedException {
+        assertEquals(400, get("/characters?count=0").statusCode());
+        assertEquals(400, get("/characters?count=" + (CharacterServer.MAX_COUNT + 1)).statusCode());
+        assertEquals(400, get("/characters?seed=abc").statusCode());
+        assertEquals(400, get("/traits").statusCode());
+        HttpResponse<String> post = client.send(HttpRequest.newBuilder(uri(server, "/characters"))
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(405, post.statusCode());
+    }
+
+    @Test
+    void servesTheMetricsRegistry() throws IOException, InterruptedException {
+        get("/characters?count=3&seed=1");
+        HttpResponse<String> metrics = get("/metrics");
+        assertEquals(200, metrics.statusCode());
+        assertTrue(metrics.body().contains("server.batch count="), metrics.body());
+        assertTrue(metrics.body().contains("server.request count="), metrics.body());
+    }
+
+    @Test
+    void shedsLoadPastTheInFlightLimit() throws Exception {
+        try (CharacterServer tiny = CharacterServer.start(new TraitService(),
+                new InetSocketAddress("localhost", 0), 1, 1, CharacterServer.MAX_COUNT)) {
+            LoadDriver.Report report = new LoadDriver(uri(tiny, "/"), 64, 16, CharacterServer.MAX_COUNT).run();
+            assertEquals(0, report.getFailed());
+            assertEquals(64, report.getSucceeded() + report.getRejected());
+            assertTrue(report.getRejected() > 0, "expected some 503s");
+        }
+    }
+
+    @Test
+    void loadDriverReportsLatencyPercentiles() throws InterruptedException {
+        LoadDriver.Report report = new LoadDriver(uri(server, "/"), 400, 32, 2).run();
+        assertEquals(400, report.getSucceeded());
+        assertEquals(0, report.getRejected() + report.getFailed());
+        assertTrue(report.getLatencyMicros(50) > 0);
+        assertTrue(report.getLatencyMicros(50) <= report.getLatencyMicros(99));
+        assertTrue(report.getLatencyMicros(99) <= report.getLatencyMicros(100));
+        // Concurrent requests should have shared micro-batches.
+        assertTrue(server.getGenerationRequestCount() >= 400);
+        assertTrue(server.getBatchCount() < server.getGenerationRequestCount(),
+                server.getBatchCount() + " batches for " + server.getGenerationRequestCount() + " requests");
+    }
+}
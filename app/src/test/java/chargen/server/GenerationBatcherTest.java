@@ -0,0 +1,38 @@
+package chargen.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+import chargen.service.TraitService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GenerationBatcherTest {
+
+    @Test
+    void rendersRequestsQueuedBehindABusyWorkerAsOneBatch() throws Exception {
+        try (GenerationBatcher batcher = new GenerationBatcher(new TraitService(), 1, 64, 100_000)) {
+            byte[] alone = batcher.submit(3, 7).get();
+            assertEquals(1, batcher.getBatchCount());
+
+            // The worker is busy with the large request while the small ones queue up behind it.
+            CompletableFuture<byte[]> large = batcher.submit(5000, 1);
+            List<CompletableFuture<byte[]>> small = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                small.add(batcher.submit(3, 7 + i));
+            }
+            assertEquals(5000, new String(large.get()).lines().count());
+            for (CompletableFuture<byte[]> result : small) {
+                assertEquals(3, new String(result.get()).lines().count());
+            }
+
+            assertEquals(22, batcher.getJobCount());
+            assertTrue(batcher.getBatchCount() <= 3, "batches: " + batcher.getBatchCount());
+            // A request's characters do not depend on the batch they were rendered in.
+            assertArrayEquals(alone, small.get(0).get());
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package chargen.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import chargen.model.CurrencyType;
+import chargen.model.Item;
+import chargen.model.ItemCategory;
+import chargen.model.ProficiencyType;
+import chargen.model.Purse;
+import chargen.model.WeaponProperty;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EquipmentServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void findsFinesseLightSimpleWeapons() {
+        EquipmentService service = new EquipmentService();
+
+        List<Item> found = service.findUsable(ItemCategory.WEAPON,
+                EnumSet.of(WeaponProperty.FINESSE, WeaponProperty.LIGHT), EnumSet.of(ProficiencyType.WEAPON_SIMPLE));
+        assertEquals(List.of(service.getItemByName("Dagger")), found);
+
+        List<Item> martial = service.findUsable(ItemCategory.WEAPON,
+                EnumSet.of(WeaponProperty.FINESSE, WeaponProperty.LIGHT),
+                EnumSet.of(ProficiencyType.WEAPON_SIMPLE, ProficiencyType.WEAPON_MARTIAL));
+        assertEquals(List.of("Dagger", "Scimitar", "Shortsword"), martial.stream().map(Item::getName).toList());
+
+        // Gear needs no proficiency, tools need theirs.
+        assertEquals(12, service.findUsable(ItemCategory.GEAR, Set.of(), Set.of()).size());
+        assertEquals(0, service.findUsable(ItemCategory.TOOL, Set.of(), Set.of()).size());
+        assertEquals(3, service.findUsable(ItemCategory.TOOL, Set.of(), Set.of(ProficiencyType.TOOL)).size());
+    }
+
+    @Test
+    void bitmaskSelectionsMatchABruteForceScan() {
+        SplittableRandom random = new SplittableRandom(24);
+        WeaponProperty[] properties = WeaponProperty.values();
+        ProficiencyType[] proficiencies = ProficiencyType.values();
+        ItemCategory[] categories = ItemCategory.values();
+        // More than one word of postings.
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Item.ItemBuilder item = Item.builder()
+                    .name("Item " + i)
+                    .category(categories[random.nextInt(categories.length)])
+                    .proficiency(random.nextInt(4) == 0 ? null : proficiencies[random.nextInt(proficiencies.length)]);
+            for (WeaponProperty property : properties) {
+                if (random.nextInt(3) == 0) {
+                    item.property(property);
+                }
+            }
+            items.add(item.build());
+        }
+        EquipmentService service = new EquipmentService(items);
+
+        for (int query = 0; query < 500; query++) {
+            ItemCategory category = categories[random.nextInt(categories.length)];
+            Set<WeaponProperty> required = EnumSet.noneOf(WeaponProperty.class);
+            for (int i = random.nextInt(3); i > 0; i--) {
+                required.add(properties[random.nextInt(properties.length)]);
+            }
+            Set<ProficiencyType> held = EnumSet.noneOf(ProficiencyType.class);
+            for (int i = random.nextInt(4); i > 0; i--) {
+                held.add(proficiencies[random.nextInt(proficiencies.length)]);
+            }
+
+            List<Item> expected = new ArrayList<>();
+            for (Item item : service.getAllItems()) {
+                if (item.getCategory() == category && item.getProperties().containsAll(required)
+                        && (item.getProficiency() == null || held.contains(item.getProficiency()))) {
+                    expected.add(item);
+                }
+            }
+            assertEquals(expected, service.findUsable(category, required, held));
+            int[] ids = service.selectIds(category, EquipmentService.propertyMask(required),
+                    EquipmentService.proficiencyMask(held));
+            assertEquals(expected.size(), ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                assertSame(expected.get(i), service.getItem(ids[i]));
+            }
+        }
+    }
+
+    @Test
+    void totalsAreExactFixedPoint() {
+        EquipmentService service = new EquipmentService();
+        int dart = service.getId("Dart");
+        int bolts = service.getId("Crossbow Bolts (20)");
+        int rope = service.getId("Rope, Hempen (50 feet)");
+
+        assertEquals(250, service.getItemByName("Dart").getWeight());
+        assertEquals(5, service.getItemByName("Dart").getCost());
+        // 0.25 lb and 1.5 lb add up exactly, where doubles would drift over a large batch.
+        assertEquals(5 * Item.WEIGHT_SCALE + 3 * 1500 + 10 * Item.WEIGHT_SCALE,
+                service.totalWeight(new int[] {dart, bolts, rope}, new int[] {20, 3, 1}));
+        assertEquals(100 + 300 + 100, service.totalCost(new int[] {dart, bolts, rope}, new int[] {20, 3, 1}));
+
+        int[] offsets = {0, 2, 2, 3};
+        int[] ids = {dart, rope, bolts};
+        int[] quantities = {4, 2, 1};
+        long[] weights = new long[3];
+        long[] costs = new long[3];
+        service.totalWeights(offsets, ids, quantities, weights);
+        service.totalCosts(offsets, ids, quantities, costs);
+        assertArrayEquals(new long[] {21_000, 0, 1500}, weights);
+        assertArrayEquals(new long[] {220, 0, 100}, costs);
+
+        assertThrows(IllegalArgumentException.class, () -> service.totalWeight(new int[] {dart}, new int[0]));
+    }
+
+    @Test
+    void pursesCountCoinsExactly() {
+        Purse purse = Purse.of(CurrencyType.GP, 3).plus(CurrencyType.SP, 5).plus(Purse.of(CurrencyType.EP, 2));
+        assertEquals(300 + 50 + 100, purse.getCopperValue());
+        assertEquals(10 * Purse.COIN_WEIGHT, purse.getWeight());
+        assertEquals("3 GP 2 EP 5 SP", purse.toString());
+        assertEquals("1 PP 2 GP 3 SP 4 CP", Purse.fromCopper(1234).toString());
+        assertEquals(Purse.fromCopper(450), Purse.of(CurrencyType.GP, 4).plus(CurrencyType.SP, 5));
+        assertEquals("0 CP", Purse.EMPTY.toString());
+    }
+
+    @Test
+    void rejectsWeightsFinerThanTheFixedPointScale() throws IOException {
+        Path file = Files.write(tempDir.resolve("equipment.json"),
+                "[{\"name\": \"Feather\", \"category\": \"GEAR\", \"weight\": 0.0001, \"cost\": \"1 CP\"}]"
+                        .getBytes(StandardCharsets.UTF_8));
+        IOException e = assertThrows(IOException.class, () -> new EquipmentService(file));
+        assertTrue(e.getMessage().contains("thousandth"), e.getMessage());
+    }
+
+    @Test
+    void rejectsDamageThatIsNotADiceExpression() throws IOException {
+        Path file = Files.write(tempDir.resolve("equipment.json"),
+                ("[{\"name\": \"Club\", \"category\": \"WEAPON\", \"cost\": \"1 SP\", "
+                        + "\"damage\": \"1d4+\", \"damageType\": \"BLUDGEONING\"}]")
+                        .getBytes(StandardCharsets.UTF_8));
+        IOException e = assertThrows(IOException.class, () -> new EquipmentService(file));
+        assertTrue(e.getMessage().contains("Dice expression '1d4+'"), e.getMessage());
+    }
+}
@@ -0,0 +1,225 @@
+package chargen.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import chargen.model.Modifier;
+import chargen.model.ModifierTarget;
+import chargen.model.Operation;
+import chargen.model.Trait;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModifierPoolTest {
+
+    private static final int TRAITS = 100_000;
+    private static final ModifierTarget[] TARGETS = {
+        ModifierTarget.ABILITY_SCORE, ModifierTarget.MAX_HIT_POINTS, ModifierTarget.SPEED,
+        ModifierTarget.SENSE_RANGE, ModifierTarget.RESOURCE_MAX
+    };
+    private static final String[] QUALIFIERS = {"DEXTERITY", null, "WALKING", "DARKVISION", "SORCERY_POINTS"};
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void loaderSharesEqualModifiers() throws IOException {
+        Path file = Files.write(tempDir.resolve("traits.json"), ("["
+                + "{\"name\": \"A\", \"description\": \"a\", \"modifiers\": [{\"target\": \"SENSE_RANGE\", "
+                + "\"targetQualifier\": \"DARKVISION\", \"operation\": \"SET\", \"value\": 60, \"sourceId\": \"X\"},"
+                + "{\"target\": \"SPEED\", \"targetQualifier\": \"WALKING\", \"operation\": \"MULTIPLY\", "
+                + "\"value\": 1.5, \"sourceId\": \"X\"}]},"
+                + "{\"name\": \"B\", \"description\": \"b\", \"modifiers\": [{\"target\": \"SENSE_RANGE\", "
+                + "\"targetQualifier\": \"DARKVISION\", \"operation\": \"SET\", \"value\": 60, \"sourceId\": \"X\"},"
+                + "{\"target\": \"SPEED\", \"targetQualifier\": \"FLYING\", \"operation\": \"MULTIPLY\", "
+                + "\"value\": 1.5, \"sourceId\": \"X\"},"
+                + "{\"target\": \"SENSE_RANGE\", \"targetQualifier\": \"DARKVISION\", \"operation\": \"SET\", "
+                + "\"value\": 60.0, \"sourceId\": \"X\"}]}]").getBytes(StandardCharsets.UTF_8));
+        Map<String, Trait> traits = new TraitCatalogLoader(Runnable::run).addFile(file).load();
+
+        List<Modifier> a = traits.get("A").getModifiers();
+        List<Modifier> b = traits.get("B").getModifiers();
+        assertSame(a.get(0), b.get(0));
+        assertNotSame(a.get(1), b.get(1));
+        assertSame(a.get(1).getValue(), b.get(1).getValue());
+        assertSame(a.get(1).getSourceId(), b.get(1).getSourceId());
+        // 60 and 60.0 are different values, so these stay different modifiers.
+        assertNotEquals(b.get(0), b.get(2));
+        assertEquals(a.get(0), a.get(0).toBuilder().value(60).build());
+        assertEquals(a.get(0).hashCode(), a.get(0).toBuilder().value(60).build().hashCode());
+    }
+
+    @Test
+    void snapshotSharesEqualModifiers() throws IOException {
+        Path json = writeCatalog(tempDir.resolve("traits.json"), 1000);
+        Path file = tempDir.resolve("traits.bin");
+        TraitSnapshot.write(new TraitCatalogLoader(Runnable::run).addFile(json).load().values(), file);
+
+        TraitSnapshot snapshot = TraitSnapshot.open(file);
+
+        assertSame(snapshot.getTraitByName(name(0)).getModifiers().get(0),
+                snapshot.getTraitByName(name(distinctModifiers())).getModifiers().get(0));
+    }
+
+    /**
+     * Loads a 100k-trait catalog with and without pooling and compares the bytes its modifiers retain, as
+     * estimated by {@link #retainedBytes}. An estimate over the object graph, rather than heap usage, keeps the
+     * comparison exact from run to run.
+     */
+    @Test
+    void poolingShrinksASyntheticCatalog() throws Exception {
+        Path json = writeCatalog(tempDir.resolve("synthetic.json"), TRAITS);
+
+        Map<String, Trait> pooled = new TraitCatalogLoader(Runnable::run).addFile(json).load();
+        Map<String, Trait> unpooled = new TraitCatalogLoader(Runnable::run).withoutPooling().addFile(json).load();
+        assertEquals(unpooled, pooled);
+
+        int modifiers = pooled.values().stream().mapToInt(trait -> trait.getModifiers().size()).sum();
+        assertEquals(modifiers, instances(unpooled).size());
+        Set<Object> retained = instances(pooled);
+        assertEquals(distinctModifiers(), retained.size());
+        Set<Object> parts = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Object instance : retained) {
+            Modifier modifier = (Modifier) instance;
+            parts.add(modifier.getValue());
+            parts.add(modifier.getSourceId());
+            if (modifier.getTargetQualifier() != null) {
+                parts.add(modifier.getTargetQualifier());
+            }
+        }
+        // Four values, three sources and four qualifiers, each held once.
+        assertEquals(4 + 3 + 4, parts.size());
+
+        long pooledBytes = retainedBytes(pooled);
+        long unpooledBytes = retainedBytes(unpooled);
+        // Unpooled, every one of the ~200k modifiers holds its own qualifier, source and boxed value.
+        assertTrue(unpooledBytes > 100L * modifiers, unpooledBytes + " bytes");
+        assertTrue(pooledBytes * 1000 < unpooledBytes, pooledBytes + " vs " + unpooledBytes + " bytes");
+    }
+
+    private static Set<Object> instances(Map<String, Trait> traits) {
+        Set<Object> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+        traits.values().forEach(trait -> instances.addAll(trait.getModifiers()));
+        return instances;
+    }
+
+    /**
+     * Estimates the bytes held by a catalog's modifiers, counting every object once however many traits reach
+     * it. Sizes follow a 64-bit JVM with compressed references: 12-byte headers, 4-byte references, objects
+     * padded to 8 bytes, and Latin-1 strings.
+     */
+    private static long retainedBytes(Map<String, Trait> traits) throws IllegalAccessException {
+        Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        long bytes = 0;
+        for (Trait trait : traits.values()) {
+            for (Modifier modifier : trait.getModifiers()) {
+                bytes += sizeOf(modifier, seen);
+            }
+        }
+        return bytes;
+    }
+
+    private static long sizeOf(Object object, Set<Object> seen) throws IllegalAccessException {
+        if (object == null || object instanceof Enum || !seen.add(object)) {
+            return 0;
+        }
+        if (object instanceof String) {
+            // Header, value, hash, coder and hashIsZero; then the byte array.
+            return align(12 + 4 + 4 + 1 + 1) + align(16 + ((String) object).length());
+        }
+        if (object instanceof Number || object instanceof Boolean) {
+            return align(12 + (object instanceof Long || object instanceof Double ? 8 : 4));
+        }
+        long shallow = 12;
+        long deep = 0;
+        for (Class<?> type = object.getClass(); type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (field.isSynthetic() || java.lang.reflect.Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                Class<?> fieldType = field.getType();
+                if (!fieldType.isPrimitive()) {
+                    shallow += 4;
+                    field.setAccessible(true);
+                    deep += sizeOf(field.get(object), seen);
+                } else if (fieldType == long.class || fieldType == double.class) {
+                    shallow += 8;
+                } else if (fieldType == int.class || fieldType == float.class) {
+                    shallow += 4;
+                } else if (fieldType == short.class || fieldType == char.class) {
+                    shallow += 2;
+                } else {
+                    shallow += 1;
+                }
+            }
+        }
+        return align(shallow) + deep;
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    private static String name(int i) {
+        return String.format("Trait %06d", i);
+    }
+
+    private static int distinctModifiers() {
+        return TARGETS.length * 4 * 3;
+    }
+
+    /**
+     * Writes traits with one to three modifiers each, drawn from {@link #distinctModifiers()} combinations
+     * of target, value and source, so most modifiers repeat many times over.
+     */
+    private static Path writeCatalog(Path file, int count) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file);
+                JsonGenerator json = new JsonFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            json.writeStartArray();
+            for (int i = 0; i < count; i++) {
+                json.writeStartObject();
+                json.writeStringField("name", name(i));
+                json.writeStringField("description", "Synthetic trait of kind " + i % 10 + ".");
+                json.writeArrayFieldStart("modifiers");
+                for (int m = 0; m <= i % 3; m++) {
+                    int pick = (i + m) % distinctModifiers();
+                    int target = pick % TARGETS.length;
+                    json.writeStartObject();
+                    json.writeStringField("target", TARGETS[target].name());
+                    if (QUALIFIERS[target] != null) {
+                        json.writeStringField("targetQualifier", QUALIFIERS[target]);
+                    }
+                    json.writeStringField("operation", Operation.ADD.name());
+                    int value = pick / TARGETS.length % 4;
+                    if (value == 3) {
+                        json.writeNumberField("value", 2.5);
+                    } else {
+                        json.writeNumberField("value", 1000 + value);
+                    }
+                    json.writeStringField("sourceId", "Pack " + pick / (TARGETS.length * 4));
+                    json.writeEndObject();
+                }
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+        }
+        return file;
+    }
+}
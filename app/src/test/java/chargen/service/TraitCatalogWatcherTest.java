@@ -0,0 +1,99 @@
+package chargen.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TraitCatalogWatcherTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static String trait(String name, String description) {
+        return "{\"name\": \"" + name + "\", \"description\": \"" + description + "\", \"modifiers\": []}";
+    }
+
+    private void write(String fileName, String json) throws IOException {
+        Path file = tempDir.resolve(fileName);
+        Path staged = Files.write(tempDir.resolve(fileName + ".tmp"), json.getBytes(StandardCharsets.UTF_8));
+        Files.move(staged, file, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private TraitService load() throws IOException {
+        return new TraitService(new TraitCatalogLoader(Runnable::run).addDirectory(tempDir));
+    }
+
+    @Test
+    void reloadsWhenAFileChanges() throws Exception {
+        write("a.json", "[" + trait("Brave", "v1") + "]");
+        TraitService service = load();
+        long version = service.getCatalogVersion();
+
+        try (TraitCatalogWatcher watcher = TraitCatalogWatcher.start(service, tempDir, Runnable::run)) {
+            write("a.json", "[" + trait("Brave", "v2") + ", " + trait("Lucky", "new") + "]");
+
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            while (service.getCatalogVersion() == version && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+            assertTrue(service.getCatalogVersion() > version, "catalog was not reloaded");
+            assertEquals("v2", service.getTraitByName("Brave").getDescription());
+            assertNotNull(service.getTraitByName("Lucky"));
+            assertNull(watcher.getLastFailure());
+        }
+    }
+
+    @Test
+    void failedReloadKeepsThePreviousCatalog() throws Exception {
+        write("a.json", "[" + trait("Brave", "v1") + "]");
+        TraitService service = load();
+
+        try (TraitCatalogWatcher watcher = TraitCatalogWatcher.start(service, tempDir, Runnable::run)) {
+            write("b.json", "[{\"name\": \"Broken\"");
+
+            assertFalse(watcher.reloadNow());
+            assertNotNull(watcher.getLastFailure());
+            assertEquals("v1", service.getTraitByName("Brave").getDescription());
+            assertNull(service.getTraitByName("Broken"));
+            assertEquals(0, watcher.getReloadCount());
+        }
+    }
+
+    @Test
+    void readersNeverSeeAMissingTraitDuringReloads() throws Exception {
+        write("a.json", "[" + trait("Brave", "v0") + "]");
+        TraitService service = load();
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicInteger misses = new AtomicInteger();
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                if (service.getTraitByName("Brave") == null || service.getProgramByName("Brave") == null) {
+                    misses.incrementAndGet();
+                }
+            }
+        });
+        reader.start();
+        try {
+            for (int i = 1; i <= 20; i++) {
+                write("a.json", "[" + trait("Brave", "v" + i) + ", " + trait("Extra " + i, "x") + "]");
+                service.reload(new TraitCatalogLoader(Runnable::run).addDirectory(tempDir));
+            }
+        } finally {
+            done.set(true);
+            reader.join();
+        }
+
+        assertEquals(0, misses.get());
+        assertEquals("v20", service.getTraitByName("Brave").getDescription());
+    }
+}
@@ -0,0 +1,88 @@
+package chargen.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import chargen.model.Trait;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TraitDescriptionsTest {
+
+    private static final String TRAITS = "[{\"name\": \"Brave\", \"description\": \"Fearless \\\"and\\\" bold.\\n"
+            + "Naïve — \\u00e9t\\u00e9 🐉.\", \"modifiers\": []},"
+            + "{\"name\": \"Stout\", \"description\": \"Shared text.\", \"modifiers\": []},"
+            + "{\"name\": \"Sturdy\", \"description\": \"Shared text.\", \"modifiers\": []}]";
+
+    @TempDir
+    Path tempDir;
+
+    private Path writeTraits() throws IOException {
+        return Files.write(tempDir.resolve("traits.json"), TRAITS.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void fileDescriptionsAreReadBackOnDemand() throws IOException {
+        Map<String, Trait> traits = new TraitCatalogLoader(Runnable::run).addFile(writeTraits()).load();
+
+        Trait brave = traits.get("Brave");
+        assertFalse(brave.getDescriptionText().isResident());
+        assertEquals("Fearless \"and\" bold.\nNaïve — été 🐉.", brave.getDescription());
+        assertEquals("Shared text.", traits.get("Stout").getDescription());
+        assertSame(traits.get("Stout").getDescriptionText(), traits.get("Sturdy").getDescriptionText());
+        assertEquals(brave, brave.toBuilder().description(brave.getDescription()).build());
+    }
+
+    @Test
+    void snapshotDescriptionsAreDecodedOnDemand() throws IOException {
+        Map<String, Trait> json = new TraitCatalogLoader(Runnable::run).addFile(writeTraits()).load();
+        Path file = tempDir.resolve("traits.bin");
+        TraitSnapshot.write(json.values(), file);
+
+        TraitSnapshot snapshot = TraitSnapshot.open(file);
+
+        Trait brave = snapshot.getTraitByName("Brave");
+        assertFalse(brave.getDescriptionText().isResident());
+        assertEquals(json.get("Brave").getDescription(), brave.getDescription());
+        assertSame(snapshot.getTraitByName("Stout").getDescriptionText(),
+                snapshot.getTraitByName("Sturdy").getDescriptionText());
+    }
+
+    @Test
+    void descriptionsSurviveEditsToTheFile() throws IOException {
+        Path file = writeTraits();
+        long copies = temporaryCopies();
+        Trait brave = new TraitCatalogLoader(Runnable::run).addFile(file).load().get("Brave");
+        // The private copy is unlinked once open, so loads leave nothing behind in the temporary directory.
+        assertEquals(copies, temporaryCopies());
+        Trait copy = brave.toBuilder().build();
+
+        Files.write(file, "[]".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("Fearless \"and\" bold.\nNaïve — été 🐉.", brave.getDescription());
+        assertEquals(brave, copy);
+        assertEquals(brave.hashCode(), copy.hashCode());
+        assertFalse(brave.toString().contains("Fearless"));
+    }
+
+    private static long temporaryCopies() throws IOException {
+        try (Stream<Path> files = Files.list(Path.of(System.getProperty("java.io.tmpdir")))) {
+            return files.filter(path -> path.getFileName().toString().startsWith("chargen-traits-")).count();
+        }
+    }
+
+    @Test
+    void resourceDescriptionsMatchTheirText() throws IOException {
+        Map<String, Trait> traits = new TraitCatalogLoader(Runnable::run).addResource("/data/traits.json").load();
+
+        assertTrue(traits.get("Darkvision").getDescription().contains("dim light"),
+                traits.get("Darkvision").getDescription());
+    }
+}
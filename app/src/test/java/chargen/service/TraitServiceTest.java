@@ -0,0 +1,151 @@
+package chargen.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import chargen.engine.StatLayout;
+import chargen.model.ModifierTarget;
+import chargen.model.Sense;
+import chargen.model.Trait;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TraitServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static String trait(String name, String description) {
+        return "{\"name\": \"" + name + "\", \"description\": \"" + description + "\", \"modifiers\": []}";
+    }
+
+    private Path write(String fileName, String json) throws IOException {
+        return Files.write(tempDir.resolve(fileName), json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void loadsTheDefaultCatalog() {
+        TraitService service = new TraitService();
+
+        Trait darkvision = service.getTraitByName("Darkvision");
+        assertNotNull(darkvision);
+        assertEquals(8, service.getAllTraits().size());
+        assertEquals(60, service.getProgramByName("Darkvision").evaluate(StatLayout.slotOf(Sense.DARKVISION), 0));
+    }
+
+    @Test
+    void loadsADirectoryInParallelKeepingTheEarliestDuplicate() throws IOException {
+        write("a.json", "[" + trait("Brave", "first") + ", " + trait("Lucky", "a") + "]");
+        write("b.json", "[" + trait("Brave", "second") + ", " + trait("Stout", "b") + "]");
+        write("notes.txt", "not a trait file");
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            TraitService service = new TraitService(new TraitCatalogLoader(pool).addDirectory(tempDir));
+
+            assertEquals(3, service.getAllTraits().size());
+            assertEquals("first", service.getTraitByName("Brave").getDescription());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void parsesModifierValues() throws IOException {
+        Path file = write("values.json", "[{\"name\": \"Keen\", \"description\": \"d\", \"modifiers\": ["
+                + "{\"target\": \"SPELL_RANGE_MULTIPLIER\", \"operation\": \"MULTIPLY\", \"value\": 1.5, "
+                + "\"sourceId\": \"Keen\"},"
+                + "{\"target\": \"DAMAGE_ROLL_FLAT_BONUS\", \"targetQualifier\": \"ANY\", \"operation\": \"ADD\", "
+                + "\"value\": \"1d4\", \"sourceId\": \"Keen\", \"description\": \"Extra damage.\"}]}]");
+
+        Map<String, Trait> traits = new TraitCatalogLoader(Runnable::run).addFile(file).load();
+
+        Trait keen = traits.get("Keen");
+        assertEquals(1.5, keen.getModifiers().get(0).getValue());
+        assertEquals("1d4", keen.getModifiers().get(1).getValue());
+        assertEquals("Extra damage.", keen.getModifiers().get(1).getDescription());
+    }
+
+    @Test
+    void rejectsMalformedFiles() throws IOException {
+        Path unknownField = write("unknown.json", "[{\"name\": \"X\", \"description\": \"d\", \"colour\": 1}]");
+        Path noName = write("noname.json", "[{\"description\": \"d\"}]");
+
+        assertThrows(IOException.class, () -> new TraitCatalogLoader(Runnable::run).addFile(unknownField).load());
+        assertThrows(IOException.class, () -> new TraitCatalogLoader(Runnable::run).addFile(noName).load());
+    }
+
+    @Test
+    void rejectsUnknownQualifiersAtLoad() throws IOException {
+        Path file = write("bad.json", "[{\"name\": \"X-Ray\", \"description\": \"d\", \"modifiers\": ["
+                + "{\"target\": \"SENSE_RANGE\", \"targetQualifier\": \"XRAY\", \"operation\": \"SET\", "
+                + "\"value\": 30, \"sourceId\": \"X\"}]}]");
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new TraitService(new TraitCatalogLoader(Runnable::run).addFile(file)));
+    }
+
+    @Test
+    void reloadsStartAFreshLayout() throws IOException {
+        Path file = write("pool.json", resourceTrait("Ki"));
+        TraitService service = new TraitService(new TraitCatalogLoader(Runnable::run).addFile(file));
+        assertEquals(StatLayout.FIXED_SLOTS + 1, service.getStatLayout().size());
+
+        for (String resource : List.of("Luck", "Rage", "Superiority")) {
+            write("pool.json", resourceTrait(resource));
+            service.reload(new TraitCatalogLoader(Runnable::run).addFile(file));
+        }
+
+        StatLayout layout = service.getStatLayout();
+        assertEquals(StatLayout.FIXED_SLOTS + 1, layout.size());
+        assertEquals(StatLayout.FIXED_SLOTS, layout.slotOf(ModifierTarget.RESOURCE_MAX, "SUPERIORITY"));
+        assertEquals(3, service.getProgramByName("Superiority").evaluate(StatLayout.FIXED_SLOTS, 0));
+    }
+
+    private static String resourceTrait(String name) {
+        return "[{\"name\": \"" + name + "\", \"description\": \"d\", \"modifiers\": [{\"target\": "
+                + "\"RESOURCE_MAX\", \"targetQualifier\": \"" + name.toUpperCase(Locale.ROOT)
+                + "\", \"operation\": \"ADD\", \"value\": 3, \"sourceId\": \"" + name + "\"}]}]";
+    }
+
+    @Test
+    void indexesTraitsByTargetAndSource() {
+        TraitService service = new TraitService();
+
+        List<Trait> darkvision = service.getTraitsModifying(ModifierTarget.SENSE_RANGE, "DARKVISION");
+        assertEquals(List.of("Darkvision"), darkvision.stream().map(Trait::getName).toList());
+        assertSame(darkvision, service.getTraitsModifying(ModifierTarget.SENSE_RANGE, "DARKVISION"));
+        assertEquals(1, service.getTraitsModifying(ModifierTarget.MAX_HIT_POINTS, null).size());
+        assertTrue(service.getTraitsModifying(ModifierTarget.SENSE_RANGE, "TREMORSENSE").isEmpty());
+        assertEquals(1, service.getModifiersFromSource("Trait_SimpleToughness").size());
+        assertEquals("Simple Toughness", service.getTraitsFromSource("Trait_SimpleToughness").get(0).getName());
+        assertSame(service.getAllTraits(), service.getAllTraits());
+        assertThrows(UnsupportedOperationException.class, () -> darkvision.add(darkvision.get(0)));
+    }
+
+    @Test
+    void ranksDescriptionMatches() throws IOException {
+        write("a.json", "[" + trait("Antidote", "Cures poison.") + ", "
+                + trait("Venomous", "Your bite is poisoned, and the poison lingers; poison everywhere.") + ", "
+                + trait("Naïve", "Trusts everyone, even the Poisoner.") + ", "
+                + trait("Brave", "Fearless.") + "]");
+        TraitService service = new TraitService(new TraitCatalogLoader(Runnable::run).addDirectory(tempDir));
+
+        List<String> ranked = service.searchDescriptions("POISON", 10).stream().map(Trait::getName).toList();
+
+        assertEquals(List.of("Venomous", "Antidote", "Naïve"), ranked);
+        assertEquals(List.of("Naïve"), service.searchDescriptions("naive trusts", 1).stream()
+                .map(Trait::getName).toList());
+        assertTrue(service.searchDescriptions("dragon", 10).isEmpty());
+    }
+}
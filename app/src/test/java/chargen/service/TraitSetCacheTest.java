@@ -0,0 +1,120 @@
+package chargen.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import chargen.engine.StatLayout;
+import chargen.engine.StatProgram;
+import chargen.model.Ability;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TraitSetCacheTest {
+
+    private static final int STRENGTH = StatLayout.slotOf(Ability.STRENGTH);
+
+    @TempDir
+    Path tempDir;
+
+    private Path writeTraits(int bonus) throws IOException {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 8; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"name\": \"T").append(i)
+                    .append("\", \"description\": \"d\", \"modifiers\": [{\"target\": \"ABILITY_SCORE\", ")
+                    .append("\"targetQualifier\": \"STRENGTH\", \"operation\": \"ADD\", \"value\": ")
+                    .append(bonus << i).append(", \"sourceId\": \"T").append(i).append("\"}]}");
+        }
+        return Files.write(tempDir.resolve("traits.json"), json.append(']').toString()
+                .getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void anyOrderOfTheSameTraitsHitsOneEntry() throws IOException {
+        TraitService service = new TraitService(new TraitCatalogLoader(Runnable::run).addFile(writeTraits(1)));
+        TraitSetCache cache = new TraitSetCache(service, 16);
+
+        StatProgram first = cache.getProgram(List.of("T0", "T2", "T5"));
+        assertSame(first, cache.getProgram(List.of("T5", "T0", "T2", "T0", "Unknown")));
+        assertEquals(10 + 1 + 4 + 32, first.evaluate(STRENGTH, 10));
+        assertSame(StatProgram.EMPTY, cache.getProgram(List.of("Unknown")));
+        assertSame(service.getProgramByName("T3"), cache.getProgram(List.of("T3")));
+
+        assertEquals(1, cache.getStats().hitCount());
+        assertEquals(2, cache.getStats().missCount());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void keepsAtMostTheMaximumNumberOfSets() throws IOException {
+        TraitService service = new TraitService(new TraitCatalogLoader(Runnable::run).addFile(writeTraits(1)));
+        TraitSetCache cache = new TraitSetCache(service, 3);
+
+        for (int i = 0; i < 8; i++) {
+            for (int j = i + 1; j < 8; j++) {
+                assertEquals(10 + (1 << i) + (1 << j), cache.getProgram(List.of("T" + i, "T" + j))
+                        .evaluate(STRENGTH, 10));
+            }
+        }
+        assertTrue(cache.size() <= 3, "size " + cache.size());
+        assertTrue(cache.getStats().evictionCount() >= 25);
+    }
+
+    @Test
+    void reloadingTheCatalogDropsEverySet() throws IOException {
+        Path file = writeTraits(1);
+        TraitService service = new TraitService(new TraitCatalogLoader(Runnable::run).addFile(file));
+        TraitSetCache cache = new TraitSetCache(service, 16);
+        assertEquals(10 + 1 + 2, cache.getProgram(List.of("T0", "T1")).evaluate(STRENGTH, 10));
+
+        writeTraits(2);
+        service.reload(new TraitCatalogLoader(Runnable::run).addFile(file));
+
+        assertEquals(10 + 2 + 4, cache.getProgram(List.of("T0", "T1")).evaluate(STRENGTH, 10));
+        assertEquals(1, cache.size());
+        assertEquals(0, cache.getStats().hitCount());
+    }
+
+    @Test
+    void concurrentCallersAgreeWithDirectMerges() throws Exception {
+        TraitService service = new TraitService(new TraitCatalogLoader(Runnable::run).addFile(writeTraits(1)));
+        TraitSetCache cache = new TraitSetCache(service, 8);
+        ExecutorService workers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int offset = t;
+                results.add(workers.submit(() -> {
+                    for (int n = 0; n < 5000; n++) {
+                        int mask = 1 + (n * 37 + offset) % 255;
+                        List<String> names = new ArrayList<>();
+                        for (int i = 0; i < 8; i++) {
+                            if ((mask & 1 << i) != 0) {
+                                names.add("T" + i);
+                            }
+                        }
+                        if (cache.getProgram(names).evaluate(STRENGTH, 10) != 10 + mask) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        assertEquals(20_000, cache.getStats().requestCount());
+    }
+}
@@ -0,0 +1,131 @@
+package chargen.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import chargen.engine.StatLayout;
+import chargen.engine.StatProgram;
+import chargen.model.Ability;
+import chargen.model.Modifier;
+import chargen.model.ModifierTarget;
+import chargen.model.Operation;
+import chargen.model.Trait;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TraitSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Map<String, Trait> loadJson() throws IOException {
+        Path extra = Files.write(tempDir.resolve("extra.json"), ("[{\"name\": \"Odd Values\", \"description\": "
+                + "\"Covers every value type — and non-ASCII text.\", \"modifiers\": ["
+                + "{\"target\": \"ABILITY_SCORE\", \"targetQualifier\": \"STRENGTH\", \"operation\": \"ADD\", "
+                + "\"value\": 2, \"sourceId\": \"Odd\"},"
+                + "{\"target\": \"SPELL_RANGE_MULTIPLIER\", \"operation\": \"MULTIPLY\", \"value\": 1.5, "
+                + "\"sourceId\": \"Odd\", \"description\": \"Half again.\"},"
+                + "{\"target\": \"MAX_HIT_POINTS\", \"operation\": \"ADD\", \"value\": 12345678901, "
+                + "\"sourceId\": \"Odd\"},"
+                + "{\"target\": \"DAMAGE_ROLL_FLAT_BONUS\", \"operation\": \"ADD\", \"value\": \"1d4\", "
+                + "\"sourceId\": \"Odd\"},"
+                + "{\"target\": \"RESOURCE_MAX\", \"targetQualifier\": \"LUCK_POINTS\", \"operation\": \"SET\", "
+                + "\"value\": null, \"sourceId\": \"Odd\"},"
+                + "{\"target\": \"ARMOR_CLASS\", \"operation\": \"AT_LEAST\", \"value\": true, \"sourceId\": \"Odd\"}"
+                + "]}]").getBytes(StandardCharsets.UTF_8));
+        return new TraitCatalogLoader(Runnable::run).addResource("/data/traits.json").addFile(extra).load();
+    }
+
+    @Test
+    void snapshotRoundTripsEveryTrait() throws IOException {
+        Map<String, Trait> json = loadJson();
+        Path file = tempDir.resolve("traits.bin");
+        TraitSnapshot.write(json.values(), file);
+
+        TraitSnapshot snapshot = TraitSnapshot.open(file);
+
+        assertEquals(json.size(), snapshot.size());
+        for (Trait expected : json.values()) {
+            Trait actual = snapshot.getTraitByName(expected.getName());
+            assertEquals(expected, actual);
+            // Equality leaves descriptions out, so compare their text too.
+            assertEquals(expected.getDescription(), actual.getDescription());
+        }
+        assertEquals(json.size(), snapshot.getAllTraits().size());
+        assertNull(snapshot.getTraitByName("SuperSpeed"));
+    }
+
+    @Test
+    void snapshotServiceMatchesJsonService() throws IOException {
+        Map<String, Trait> json = loadJson();
+        Path file = tempDir.resolve("traits.bin");
+        TraitSnapshot.write(json.values(), file);
+
+        TraitService fromJson = new TraitService("/data/traits.json");
+        TraitService fromSnapshot = new TraitService(TraitSnapshot.open(file));
+
+        for (Trait trait : fromJson.getAllTraits()) {
+            assertEquals(trait, fromSnapshot.getTraitByName(trait.getName()));
+            assertEquals(trait.getDescription(), fromSnapshot.getTraitByName(trait.getName()).getDescription());
+        }
+        assertSame(fromSnapshot.getTraitByName("Darkvision"), fromSnapshot.getTraitByName("Darkvision"));
+        int strength = StatLayout.slotOf(Ability.STRENGTH);
+        assertEquals(10, fromSnapshot.getProgramByName("Darkvision").evaluate(strength, 10));
+    }
+
+    @Test
+    void snapshotNamedSlotsDoNotDependOnAccessOrder() throws IOException {
+        Path json = Files.write(tempDir.resolve("named.json"), ("["
+                + "{\"name\": \"Adept\", \"description\": \"a\", \"modifiers\": [{\"target\": \"RESOURCE_MAX\", "
+                + "\"targetQualifier\": \"KI_POINTS\", \"operation\": \"ADD\", \"value\": 2, \"sourceId\": \"A\"}]},"
+                + "{\"name\": \"Zealot\", \"description\": \"z\", \"modifiers\": [{\"target\": \"RESOURCE_MAX\", "
+                + "\"targetQualifier\": \"RAGES\", \"operation\": \"ADD\", \"value\": 3, \"sourceId\": \"Z\"}]}"
+                + "]").getBytes(StandardCharsets.UTF_8));
+        TraitService fromJson = new TraitService(new TraitCatalogLoader(Runnable::run).addFile(json));
+        Path file = tempDir.resolve("named.bin");
+        TraitSnapshot.write(fromJson.getAllTraits(), file);
+
+        TraitService fromSnapshot = new TraitService(TraitSnapshot.open(file));
+
+        assertEquals(StatLayout.FIXED_SLOTS + 2, fromSnapshot.getStatLayout().size());
+        StatProgram zealot = fromSnapshot.getProgramByName("Zealot");
+        assertEquals(zealot.slotAt(0), fromJson.getProgramByName("Zealot").slotAt(0));
+        assertEquals(StatLayout.FIXED_SLOTS + 1, zealot.slotAt(0));
+        assertEquals(fromJson.getProgramByName("Adept").slotAt(0), fromSnapshot.getProgramByName("Adept").slotAt(0));
+    }
+
+    @Test
+    void snapshotWithAnInvalidQualifierFailsTheLoad() throws IOException {
+        Trait strong = Trait.builder()
+                .name("Strong")
+                .description("s")
+                .modifier(Modifier.builder()
+                        .target(ModifierTarget.ABILITY_SCORE)
+                        .targetQualifier("STRONG")
+                        .operation(Operation.ADD)
+                        .value(1)
+                        .sourceId("S")
+                        .build())
+                .build();
+        Path file = tempDir.resolve("invalid.bin");
+        TraitSnapshot.write(List.of(strong), file);
+        TraitSnapshot snapshot = TraitSnapshot.open(file);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> new TraitService(snapshot));
+        assertTrue(e.getMessage().contains("'Strong'") && e.getMessage().contains("STRONG"), e.getMessage());
+    }
+
+    @Test
+    void rejectsFilesThatAreNotSnapshots() throws IOException {
+        Path file = Files.write(tempDir.resolve("traits.json"), "[]".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IOException.class, () -> TraitSnapshot.open(file));
+    }
+}
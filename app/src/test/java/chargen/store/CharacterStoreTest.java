@@ -0,0 +1,148 @@
+package chargen.store;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import chargen.activity.BatchGenerator;
+import chargen.activity.CharacterGenerator;
+import chargen.model.CharacterSheet;
+import chargen.service.TraitService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CharacterStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static List<CharacterSheet> generate(int count, long seed) throws IOException {
+        List<CharacterSheet> sheets = new ArrayList<>();
+        new BatchGenerator(new CharacterGenerator(new TraitService()), 2).generate(count, seed, sheets::add);
+        return sheets;
+    }
+
+    @Test
+    void readsBackEveryCharacterByIdAfterReopening() throws IOException {
+        List<CharacterSheet> sheets = generate(3000, 9);
+        Path directory = tempDir.resolve("npcs");
+        try (CharacterStore store = CharacterStore.open(directory)) {
+            for (CharacterSheet sheet : sheets) {
+                store.append(sheet);
+            }
+            // Still buffered: reading flushes.
+            assertEquals(sheets.get(2999), store.get(2999));
+        }
+
+        try (CharacterStore store = CharacterStore.open(directory)) {
+            assertEquals(3000, store.size());
+            for (int id = sheets.size() - 1; id >= 0; id -= 7) {
+                assertEquals(sheets.get(id), store.get(id));
+            }
+            assertEquals(3000, store.append(sheets.get(0)));
+            assertEquals(sheets.get(0), store.get(3000));
+            assertThrows(IndexOutOfBoundsException.class, () -> store.get(3001));
+        }
+    }
+
+    @Test
+    void compactionDropsDeletedCharacters() throws IOException {
+        List<CharacterSheet> sheets = generate(100, 3);
+        Path directory = tempDir.resolve("npcs");
+        try (CharacterStore store = CharacterStore.open(directory)) {
+            for (CharacterSheet sheet : sheets) {
+                store.append(sheet);
+            }
+            for (int id = 0; id < 100; id += 2) {
+                assertTrue(store.delete(id));
+            }
+            assertFalse(store.delete(0));
+            assertNull(store.get(0));
+            long before = Files.size(directory.resolve(CharacterStore.RECORDS_FILE));
+
+            assertEquals(50, store.compact());
+            assertEquals(50, store.size());
+            assertTrue(Files.size(directory.resolve(CharacterStore.RECORDS_FILE)) < before);
+            for (int id = 0; id < 50; id++) {
+                assertEquals(sheets.get(2 * id + 1), store.get(id));
+            }
+        }
+        assertFalse(Files.exists(tempDir.resolve("npcs.old")));
+        assertFalse(Files.exists(tempDir.resolve("npcs.compacting")));
+    }
+
+    @Test
+    void openFinishesACompactionThatDiedMidSwap() throws IOException {
+        List<CharacterSheet> sheets = generate(6, 4);
+        Path directory = tempDir.resolve("npcs");
+        Path previous = tempDir.resolve("npcs" + CharacterStore.OLD_SUFFIX);
+        Path compacted = tempDir.resolve("npcs" + CharacterStore.COMPACTING_SUFFIX);
+        try (CharacterStore store = CharacterStore.open(directory)) {
+            for (CharacterSheet sheet : sheets) {
+                store.append(sheet);
+            }
+        }
+        try (CharacterStore store = CharacterStore.open(compacted)) {
+            store.append(sheets.get(1));
+            store.append(sheets.get(3));
+        }
+        // As if the process died after moving the store aside, before moving the compacted one in.
+        Files.move(directory, previous);
+
+        try (CharacterStore store = CharacterStore.open(directory)) {
+            assertEquals(2, store.size());
+            assertEquals(sheets.get(3), store.get(1));
+            assertTrue(Files.isDirectory(previous));
+            assertEquals(2, store.compact());
+        }
+        assertFalse(Files.exists(previous));
+
+        // Without a compacted store, the previous one is put back.
+        Files.move(directory, previous);
+        try (CharacterStore store = CharacterStore.open(directory)) {
+            assertEquals(2, store.size());
+            assertEquals(sheets.get(1), store.get(0));
+        }
+        assertFalse(Files.exists(previous));
+    }
+
+    @Test
+    void openDropsAPartlyWrittenAppend() throws IOException {
+        List<CharacterSheet> sheets = generate(10, 5);
+        Path directory = tempDir.resolve("npcs");
+        try (CharacterStore store = CharacterStore.open(directory)) {
+            for (CharacterSheet sheet : sheets) {
+                store.append(sheet);
+            }
+        }
+        // As if the process died halfway through writing the last index entry, after its record.
+        try (FileChannel index = FileChannel.open(directory.resolve(CharacterStore.INDEX_FILE),
+                StandardOpenOption.WRITE)) {
+            index.truncate(index.size() - 3);
+        }
+
+        try (CharacterStore store = CharacterStore.open(directory)) {
+            assertEquals(9, store.size());
+            assertEquals(sheets.get(8), store.get(8));
+            assertEquals(9, store.append(sheets.get(9)));
+        }
+        try (CharacterStore store = CharacterStore.open(directory)) {
+            assertEquals(sheets.get(9), store.get(9));
+        }
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Path directory = Files.createDirectories(tempDir.resolve("npcs"));
+        Files.writeString(directory.resolve(CharacterStore.RECORDS_FILE), "not a store");
+
+        assertThrows(IOException.class, () -> CharacterStore.open(directory));
+    }
+}
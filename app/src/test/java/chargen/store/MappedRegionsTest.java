@@ -0,0 +1,48 @@
+package chargen.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedRegionsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void growingTheFileRemapsOnlyTheLastSegment() throws IOException {
+        try (FileChannel channel = FileChannel.open(tempDir.resolve("data"), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long last = 2 * MappedRegions.SEGMENT_BYTES + 100;
+            write(channel, 5, 1);
+            write(channel, last, 2);
+            MappedRegions regions = new MappedRegions(channel, Long.BYTES);
+
+            ByteBuffer first = regions.segment(5, Long.BYTES);
+            assertEquals(1, first.getLong(MappedRegions.offset(5)));
+            assertEquals(MappedRegions.SEGMENT_BYTES + Long.BYTES, first.capacity());
+            ByteBuffer tail = regions.segment(last, Long.BYTES);
+            assertEquals(2, tail.getLong(MappedRegions.offset(last)));
+
+            write(channel, last + Long.BYTES, 3);
+            ByteBuffer grown = regions.segment(last + Long.BYTES, Long.BYTES);
+            assertEquals(3, grown.getLong(MappedRegions.offset(last + Long.BYTES)));
+            assertNotSame(tail, grown);
+            assertEquals(100 + 2 * Long.BYTES, grown.capacity());
+            assertSame(first, regions.segment(5, Long.BYTES));
+
+            assertThrows(IOException.class, () -> regions.segment(last + 2 * Long.BYTES, Long.BYTES));
+        }
+    }
+
+    private static void write(FileChannel channel, long position, long value) throws IOException {
+        channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, value), position);
+    }
+}